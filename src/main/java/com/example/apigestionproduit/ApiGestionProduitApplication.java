@@ -71,13 +71,26 @@ public class ApiGestionProduitApplication {
         System.out.println("URL de base: http://localhost:8080/api/products");
         System.out.println("\nEndpoints disponibles:");
         System.out.println("  GET    /api/products              - Liste tous les produits");
+        System.out.println("  GET    /api/products?after=&limit= - Liste paginée (curseur)");
         System.out.println("  GET    /api/products/{id}         - Récupère un produit");
         System.out.println("  POST   /api/products              - Crée un produit");
         System.out.println("  PUT    /api/products/{id}         - Met à jour un produit");
         System.out.println("  DELETE /api/products/{id}         - Supprime un produit");
         System.out.println("  GET    /api/products/search?nom=  - Recherche par nom");
+        System.out.println("  GET    /api/products/search?q=&limit= - Recherche par pertinence");
         System.out.println("  GET    /api/products/categorie/{} - Filtre par catégorie");
+        System.out.println("  GET    /api/products/query?prixMin=&prixMax=&stockMin=&categorie=&sort= - Requête triée");
+        System.out.println("  GET    /api/products/facets?nom=  - Facettes (catégories, prix, stock)");
+        System.out.println("  GET    /api/products/changes?since= - Modifications depuis une séquence");
+        System.out.println("  GET    /api/products/stream       - Flux SSE des modifications");
+        System.out.println("  POST   /api/products/batch        - Crée des produits par lot");
+        System.out.println("  PUT    /api/products/batch        - Met à jour des produits par lot");
+        System.out.println("  DELETE /api/products/batch        - Supprime des produits par lot");
+        System.out.println("  POST   /api/products/{id}/stock/reserve - Réserve du stock");
+        System.out.println("  POST   /api/products/{id}/stock/release - Libère du stock");
+        System.out.println("  POST   /api/products/stock/reserve      - Réserve plusieurs lignes");
         System.out.println("  GET    /api/products/health       - État de l'API");
+        System.out.println("  GET    /actuator/prometheus       - Métriques (Prometheus)");
         System.out.println("========================================\n");
     }
 }
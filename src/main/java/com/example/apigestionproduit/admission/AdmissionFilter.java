@@ -0,0 +1,253 @@
+package com.example.apigestionproduit.admission;
+
+import com.example.apigestionproduit.cluster.ShardRoutingFilter;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+import java.time.Duration;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Admission des requêtes de l'API produits, avant tout traitement.
+ *
+ * <ul>
+ *   <li>Débit par client : un seau de jetons par client et par classe de point d'accès
+ *       ({@link Endpoint}). Chaque requête consomme le poids de sa classe : une page de
+ *       liste ou une recherche coûte plus qu'une lecture par identifiant. Seau vide :
+ *       429 TOO MANY REQUESTS avec {@code Retry-After}, le délai de remplissage.</li>
+ *   <li>Concurrence : une limite adaptative ({@link ConcurrencyLimit}) du nombre de
+ *       requêtes traitées simultanément, qui baisse quand la latence monte. Limite
+ *       atteinte : 503 SERVICE UNAVAILABLE avec {@code Retry-After: 1}. Les flux
+ *       (SSE, export NDJSON), longs par nature, n'y sont pas comptés.</li>
+ * </ul>
+ *
+ * <p>Le client est identifié par l'en-tête configuré (clé d'API, adresse transmise par
+ * le répartiteur de charge) ou, à défaut, par l'adresse de la connexion. Les seaux sont
+ * conservés dans un cache borné : au plus {@code maxClients} seaux, chacun oublié après
+ * le délai de remplissage complet, au-delà duquel un seau neuf lui est équivalent.</p>
+ *
+ * <p>Une écriture par lot ({@code /batch}) coûte le poids d'une écriture à l'admission,
+ * puis ce poids pour chaque élément : le contrôleur décompte chaque tranche lue avant
+ * de l'appliquer ({@link #BATCH_CHARGE}) et interrompt le lot quand le seau est vide.</p>
+ *
+ * <p>En mode réparti, les requêtes d'un autre nœud ({@link ShardRoutingFilter#SHARD_HEADER})
+ * ont déjà été décomptées par le nœud qui les a reçues : elles ne passent que par la
+ * limite de concurrence. L'en-tête n'est reconnu que sur une connexion venant de
+ * l'adresse d'un nœud de l'anneau ; d'un client, il est ignoré.</p>
+ */
+public class AdmissionFilter extends OncePerRequestFilter {
+
+    /**
+     * Attribut de requête des écritures : {@link BatchCharge} du seau du client.
+     * Absent si la requête n'est pas décomptée (admission désactivée, autre nœud).
+     */
+    public static final String BATCH_CHARGE = AdmissionFilter.class.getName() + ".lot";
+
+    private static final String METRICS = "produits.admission";
+
+    private final Map<Endpoint, Integer> weights;
+    private final long intervalNanos;
+    private final int burst;
+    private final String clientHeader;
+    private final Set<String> trustedNodes;
+    private final ConcurrencyLimit concurrency;
+    private final LongSupplier clock;
+    private final Cache<Key, TokenBucket> buckets;
+
+    private final Map<Endpoint, Counter> admitted = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Counter> throttled = new EnumMap<>(Endpoint.class);
+    private final Map<Endpoint, Counter> shed = new EnumMap<>(Endpoint.class);
+
+    /**
+     * Seau d'un client pour une classe de point d'accès.
+     */
+    private record Key(String client, Endpoint endpoint) {
+    }
+
+    /**
+     * Décompte des éléments d'une écriture par lot.
+     */
+    @FunctionalInterface
+    public interface BatchCharge {
+
+        /**
+         * Consomme les jetons d'éléments du lot, au plus la capacité du seau.
+         *
+         * @param items Nombre d'éléments
+         * @return 0 si les jetons ont été consommés, sinon l'attente (ns) avant qu'ils le soient
+         */
+        long tryCharge(int items);
+    }
+
+    /**
+     * Réglages de l'admission.
+     *
+     * @param rate Jetons alloués par seconde à chaque client, par classe de point d'accès
+     * @param burst Capacité d'un seau, en jetons
+     * @param weights Coût en jetons d'une requête de chaque classe
+     * @param maxClients Nombre maximal de seaux conservés
+     * @param clientHeader En-tête identifiant le client, ou vide pour l'adresse de la connexion
+     * @param trustedNodes Adresses des nœuds de l'anneau, dont les requêtes ne sont pas
+     *                     décomptées (vide hors mode réparti)
+     * @param concurrencyInitial Limite de concurrence de départ
+     * @param concurrencyMin Limite de concurrence minimale
+     * @param concurrencyMax Limite de concurrence maximale
+     * @param tolerance Rapport toléré entre latence récente et latence de référence
+     */
+    public record Settings(double rate, int burst, Map<Endpoint, Integer> weights, long maxClients,
+                           String clientHeader, Set<String> trustedNodes, int concurrencyInitial,
+                           int concurrencyMin, int concurrencyMax, double tolerance) {
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param settings Réglages de l'admission
+     * @param registry Registre des métriques
+     */
+    public AdmissionFilter(Settings settings, MeterRegistry registry) {
+        this(settings, registry, System::nanoTime);
+    }
+
+    AdmissionFilter(Settings settings, MeterRegistry registry, LongSupplier clock) {
+        for (Endpoint endpoint : Endpoint.values()) {
+            Integer weight = settings.weights().get(endpoint);
+            if (weight == null || weight < 1 || weight > settings.burst()) {
+                throw new IllegalArgumentException(
+                        "Poids de " + endpoint.tag() + " hors de [1, produits.admission.client.burst]: " + weight);
+            }
+        }
+        if (settings.rate() <= 0) {
+            throw new IllegalArgumentException("produits.admission.client.rate doit être positif: " + settings.rate());
+        }
+        this.weights = new EnumMap<>(settings.weights());
+        this.intervalNanos = Math.max(1, Math.round(TimeUnit.SECONDS.toNanos(1) / settings.rate()));
+        this.burst = settings.burst();
+        this.clientHeader = settings.clientHeader() == null || settings.clientHeader().isBlank()
+                ? null : settings.clientHeader();
+        this.trustedNodes = Set.copyOf(settings.trustedNodes());
+        this.concurrency = new ConcurrencyLimit(settings.concurrencyInitial(), settings.concurrencyMin(),
+                settings.concurrencyMax(), settings.tolerance());
+        this.clock = clock;
+        this.buckets = Caffeine.newBuilder()
+                .maximumSize(settings.maxClients())
+                .expireAfterAccess(Duration.ofNanos(intervalNanos * burst))
+                .build();
+
+        for (Endpoint endpoint : Endpoint.values()) {
+            admitted.put(endpoint, Counter.builder(METRICS + ".admises")
+                    .description("Requêtes admises")
+                    .tag("acces", endpoint.tag())
+                    .register(registry));
+            throttled.put(endpoint, Counter.builder(METRICS + ".rejets")
+                    .description("Requêtes refusées : débit du client dépassé (429) ou serveur surchargé (503)")
+                    .tag("acces", endpoint.tag())
+                    .tag("motif", "client")
+                    .register(registry));
+            shed.put(endpoint, Counter.builder(METRICS + ".rejets")
+                    .description("Requêtes refusées : débit du client dépassé (429) ou serveur surchargé (503)")
+                    .tag("acces", endpoint.tag())
+                    .tag("motif", "surcharge")
+                    .register(registry));
+        }
+        Gauge.builder(METRICS + ".limite", concurrency, ConcurrencyLimit::limit)
+                .description("Limite adaptative du nombre de requêtes traitées simultanément")
+                .register(registry);
+        Gauge.builder(METRICS + ".encours", concurrency, ConcurrencyLimit::inFlight)
+                .description("Requêtes en cours de traitement, flux exclus")
+                .register(registry);
+        Gauge.builder(METRICS + ".clients", buckets, Cache::estimatedSize)
+                .description("Seaux de jetons conservés (client et classe de point d'accès)")
+                .register(registry);
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String path = request.getRequestURI().substring(request.getContextPath().length());
+        Endpoint endpoint = Endpoint.classify(request.getMethod(), path, request.getHeader(HttpHeaders.ACCEPT));
+
+        if (!fromNode(request)) {
+            long now = clock.getAsLong();
+            TokenBucket bucket = buckets.get(new Key(client(request), endpoint),
+                    key -> new TokenBucket(intervalNanos, burst, now));
+            int weight = weights.get(endpoint);
+            long wait = bucket.tryAcquire(weight, now);
+            if (wait > 0) {
+                throttled.get(endpoint).increment();
+                response.setHeader(HttpHeaders.RETRY_AFTER, Long.toString(retryAfterSeconds(wait)));
+                response.setStatus(429);
+                return;
+            }
+            if (endpoint == Endpoint.WRITE) {
+                request.setAttribute(BATCH_CHARGE, (BatchCharge) items -> {
+                    long tokens = Math.min((long) items * weight, burst);
+                    long refused = bucket.tryAcquire((int) tokens, clock.getAsLong());
+                    if (refused > 0) {
+                        throttled.get(Endpoint.WRITE).increment();
+                    }
+                    return refused;
+                });
+            }
+        }
+
+        if (endpoint == Endpoint.STREAM) {
+            admitted.get(endpoint).increment();
+            chain.doFilter(request, response);
+            return;
+        }
+        if (!concurrency.tryAcquire(endpoint == Endpoint.LIST || endpoint == Endpoint.SEARCH)) {
+            shed.get(endpoint).increment();
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        admitted.get(endpoint).increment();
+        long start = clock.getAsLong();
+        try {
+            chain.doFilter(request, response);
+        } finally {
+            concurrency.release(clock.getAsLong() - start);
+        }
+    }
+
+    /**
+     * Délai à annoncer dans {@code Retry-After}.
+     *
+     * @param waitNanos Attente avant que les jetons soient disponibles
+     * @return Secondes, arrondies au-dessus, au moins 1
+     */
+    public static long retryAfterSeconds(long waitNanos) {
+        long second = TimeUnit.SECONDS.toNanos(1);
+        return Math.max(1, (waitNanos + second - 1) / second);
+    }
+
+    private boolean fromNode(HttpServletRequest request) {
+        return request.getHeader(ShardRoutingFilter.SHARD_HEADER) != null
+                && trustedNodes.contains(request.getRemoteAddr());
+    }
+
+    private String client(HttpServletRequest request) {
+        if (clientHeader != null) {
+            String id = request.getHeader(clientHeader);
+            if (id != null && !id.isBlank()) {
+                return id;
+            }
+        }
+        return request.getRemoteAddr();
+    }
+}
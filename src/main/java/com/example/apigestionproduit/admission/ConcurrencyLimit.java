@@ -0,0 +1,127 @@
+package com.example.apigestionproduit.admission;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Limite adaptative du nombre de requêtes traitées simultanément, d'après leur latence
+ * (gradient entre latence de référence et latence récente).
+ *
+ * <p>Deux moyennes mobiles exponentielles sont tenues : la latence récente (quelques
+ * dizaines de requêtes) et la latence de référence (quelques centaines). Tant que la
+ * latence récente reste dans la tolérance de la référence, la limite croît, si elle
+ * est effectivement utilisée, d'environ sa racine carrée (file d'attente admise). Dès
+ * que la latence monte, la limite décroît dans le rapport des deux latences, jusqu'à
+ * la moitié par ajustement : la file d'attente se vide et la latence revient.</p>
+ *
+ * <p>Une partie de la limite est réservée aux requêtes légères : les requêtes coûteuses
+ * (liste, recherches) n'en occupent au plus que les trois quarts, pour qu'un afflux de
+ * listes ne bloque pas les lectures par identifiant.</p>
+ *
+ * <p>L'admission est un incrément atomique. Les mesures sont intégrées sous un verrou
+ * pris sans attente ({@code tryLock}) : une mesure concurrente d'une autre est ignorée.</p>
+ */
+final class ConcurrencyLimit {
+
+    private static final double SHORT_SMOOTHING = 0.1;
+    private static final double LONG_SMOOTHING = 0.01;
+    private static final double LIMIT_SMOOTHING = 0.2;
+    private static final double EXPENSIVE_SHARE = 0.75;
+
+    private final int min;
+    private final int max;
+    private final double tolerance;
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final ReentrantLock sampling = new ReentrantLock();
+
+    private volatile double limit;
+
+    // Protégées par sampling
+    private double shortRtt;
+    private double longRtt;
+
+    /**
+     * Constructeur.
+     *
+     * @param initial Limite de départ
+     * @param min Limite minimale
+     * @param max Limite maximale
+     * @param tolerance Rapport toléré entre latence récente et latence de référence (ex. 2.0)
+     */
+    ConcurrencyLimit(int initial, int min, int max, double tolerance) {
+        this.min = min;
+        this.max = max;
+        this.tolerance = tolerance;
+        this.limit = Math.max(min, Math.min(max, initial));
+    }
+
+    /**
+     * Réserve une place si la limite le permet.
+     *
+     * @param expensive true pour une requête coûteuse, limitée à une part de la limite
+     * @return true si la requête est admise ; {@link #release(long)} doit alors être appelé
+     */
+    boolean tryAcquire(boolean expensive) {
+        double current = limit;
+        int allowed = (int) Math.max(1, expensive ? current * EXPENSIVE_SHARE : current);
+        if (inFlight.incrementAndGet() > allowed) {
+            inFlight.decrementAndGet();
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * Libère la place d'une requête terminée et intègre sa latence.
+     *
+     * @param rttNanos Durée de traitement de la requête
+     */
+    void release(long rttNanos) {
+        int concurrent = inFlight.getAndDecrement();
+        if (!sampling.tryLock()) {
+            return;
+        }
+        try {
+            if (longRtt == 0) {
+                shortRtt = rttNanos;
+                longRtt = rttNanos;
+            }
+            shortRtt += (rttNanos - shortRtt) * SHORT_SMOOTHING;
+            longRtt += (rttNanos - longRtt) * LONG_SMOOTHING;
+            if (longRtt > 2 * shortRtt) {
+                // Retour au calme après une surcharge : la référence rejoint la latence récente
+                longRtt *= 0.95;
+            }
+
+            double current = limit;
+            if (concurrent < current / 2 && shortRtt <= tolerance * longRtt) {
+                // Limite peu utilisée et latence normale : rien n'indique la bonne valeur
+                return;
+            }
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / shortRtt));
+            double target = current * gradient + Math.sqrt(current);
+            double next = current * (1 - LIMIT_SMOOTHING) + target * LIMIT_SMOOTHING;
+            limit = Math.max(min, Math.min(max, next));
+        } finally {
+            sampling.unlock();
+        }
+    }
+
+    /**
+     * Limite courante.
+     *
+     * @return Nombre maximal de requêtes simultanées
+     */
+    int limit() {
+        return (int) limit;
+    }
+
+    /**
+     * Nombre de requêtes en cours.
+     *
+     * @return Requêtes admises et non terminées
+     */
+    int inFlight() {
+        return inFlight.get();
+    }
+}
@@ -0,0 +1,72 @@
+package com.example.apigestionproduit.admission;
+
+import java.util.Locale;
+
+/**
+ * Classes de points d'accès de l'API produits, pour l'admission des requêtes : chaque
+ * classe a son propre seau de jetons par client et son coût en jetons.
+ */
+public enum Endpoint {
+
+    /**
+     * Liste paginée du catalogue ({@code GET /api/products}).
+     */
+    LIST,
+
+    /**
+     * Recherches et filtres : {@code /search}, {@code /categorie/...}, {@code /query}, {@code /facets}.
+     */
+    SEARCH,
+
+    /**
+     * Lectures ciblées : produit par identifiant, modifications, état de santé.
+     */
+    READ,
+
+    /**
+     * Écritures (POST, PUT, DELETE), unitaires ou par lot.
+     */
+    WRITE,
+
+    /**
+     * Réponses longues : flux SSE ({@code /stream}) et export NDJSON du catalogue.
+     * Elles ne prennent pas de place dans la limite de concurrence.
+     */
+    STREAM;
+
+    private static final String PRODUCTS = "/api/products";
+
+    /**
+     * Classe d'une requête.
+     *
+     * @param method Méthode HTTP
+     * @param path Chemin, sans le contexte de l'application
+     * @param accept En-tête Accept (peut être null)
+     * @return La classe du point d'accès
+     */
+    static Endpoint classify(String method, String path, String accept) {
+        if (!method.equals("GET") && !method.equals("HEAD") && !method.equals("OPTIONS")) {
+            return WRITE;
+        }
+        if (path.equals(PRODUCTS) || path.equals(PRODUCTS + "/")) {
+            return accept != null && accept.contains("application/x-ndjson") ? STREAM : LIST;
+        }
+        if (path.equals(PRODUCTS + "/stream")) {
+            return STREAM;
+        }
+        if (path.equals(PRODUCTS + "/search") || path.startsWith(PRODUCTS + "/categorie/")
+                || path.equals(PRODUCTS + "/query") || path.equals(PRODUCTS + "/facets")) {
+            return SEARCH;
+        }
+        return READ;
+    }
+
+    /**
+     * Nom de la classe dans les métriques.
+     *
+     * @return Nom en minuscules
+     */
+    String tag() {
+        return name().toLowerCase(Locale.ROOT);
+    }
+}
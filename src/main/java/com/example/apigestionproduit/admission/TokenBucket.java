@@ -0,0 +1,54 @@
+package com.example.apigestionproduit.admission;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Seau de jetons sans verrou, réduit à un seul {@code long} : l'instant théorique
+ * d'arrivée de la prochaine requête (algorithme GCRA, équivalent à un seau de jetons).
+ *
+ * <p>Chaque jeton consommé repousse cet instant d'un intervalle ({@code 1 / rate}) ;
+ * une requête est admise tant qu'il ne dépasse pas l'instant présent de plus de la
+ * capacité du seau ({@code burst} intervalles). L'admission est un seul
+ * {@code compareAndSet} : pas de thread de remplissage, pas de verrou.</p>
+ */
+final class TokenBucket {
+
+    private final long intervalNanos;
+    private final long toleranceNanos;
+    private final AtomicLong theoreticalArrival;
+
+    /**
+     * Constructeur : seau plein.
+     *
+     * @param intervalNanos Durée de remplissage d'un jeton
+     * @param burst Capacité du seau, en jetons
+     * @param now Instant courant (nanoTime)
+     */
+    TokenBucket(long intervalNanos, int burst, long now) {
+        this.intervalNanos = intervalNanos;
+        this.toleranceNanos = intervalNanos * burst;
+        this.theoreticalArrival = new AtomicLong(now);
+    }
+
+    /**
+     * Consomme des jetons s'ils sont disponibles.
+     *
+     * @param tokens Nombre de jetons
+     * @param now Instant courant (nanoTime)
+     * @return 0 si les jetons ont été consommés, sinon l'attente (ns) avant qu'ils le soient
+     */
+    long tryAcquire(int tokens, long now) {
+        long increment = intervalNanos * tokens;
+        while (true) {
+            long arrival = theoreticalArrival.get();
+            long next = Math.max(arrival, now) + increment;
+            long wait = next - now - toleranceNanos;
+            if (wait > 0) {
+                return wait;
+            }
+            if (theoreticalArrival.compareAndSet(arrival, next)) {
+                return 0;
+            }
+        }
+    }
+}
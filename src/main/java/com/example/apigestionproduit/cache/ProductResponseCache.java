@@ -0,0 +1,493 @@
+package com.example.apigestionproduit.cache;
+
+import com.example.apigestionproduit.compression.ContentEncoding;
+import com.example.apigestionproduit.format.WireFormat;
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.service.ProductService;
+import com.github.benmanes.caffeine.cache.Cache;
+import com.github.benmanes.caffeine.cache.Caffeine;
+import com.github.benmanes.caffeine.cache.RemovalCause;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.binder.cache.CaffeineCacheMetrics;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Predicate;
+import java.util.function.Supplier;
+
+/**
+ * Cache des réponses sérialisées des endpoints de liste, de recherche par nom et
+ * de filtre par catégorie.
+ *
+ * <p>Les entrées sont les octets déjà encodés, une entrée par {@link WireFormat} et
+ * par {@link ContentEncoding} demandés : un succès évite la lecture du catalogue, la
+ * sérialisation et la compression. Le cache est borné en octets
+ * ({@code produits.cache.max-bytes}) et l'éviction suit la politique W-TinyLFU de
+ * Caffeine, qui protège les réponses fréquemment demandées contre un balayage de
+ * requêtes uniques.</p>
+ *
+ * <p>L'invalidation est précise, pilotée par les notifications de {@link ProductService} :</p>
+ * <ul>
+ *   <li>catégorie : seules les entrées de l'ancienne et de la nouvelle catégorie du
+ *       produit modifié sont retirées ;</li>
+ *   <li>recherche : seuls les termes contenus dans l'ancien ou le nouveau nom normalisé ;</li>
+ *   <li>liste : seules les pages dont l'intervalle d'identifiants contient le produit
+ *       (ou la dernière page, pour une création en fin de catalogue).</li>
+ * </ul>
+ *
+ * <p>Une écriture ne parcourt pas le cache : les pages sont indexées par curseur et les
+ * recherches par terme, et seules les entrées candidates sont examinées. Une page
+ * couvre les identifiants de {@code ]after, nextId]} ; l'écart maximal entre ces bornes
+ * limite les curseurs à examiner, et les dernières pages, sans borne, sont tenues à part.
+ * Les index suivent les retraits et les évictions du cache.</p>
+ *
+ * <p>Une lecture concurrente d'une écriture ne peut pas réinstaller une réponse
+ * périmée : chaque écriture incrémente une génération avant d'invalider, et une
+ * réponse calculée pendant qu'une génération a changé n'est pas conservée. Une
+ * entrée est indexée à son insertion, avant cette vérification : une écriture qui ne
+ * la trouve pas dans l'index est vue par la vérification.</p>
+ */
+@Component
+public class ProductResponseCache {
+
+    /**
+     * Préfixe des métriques du cache.
+     */
+    static final String METRICS = "produits.cache";
+
+    /**
+     * Surcoût estimé d'une entrée (clé, nœud Caffeine), ajouté à la taille du corps.
+     */
+    private static final int ENTRY_OVERHEAD = 96;
+
+    /**
+     * Absence d'identifiant suivant : la page est la dernière.
+     */
+    public static final long NO_NEXT = Long.MIN_VALUE;
+
+    private final ProductService productService;
+    private final Cache<Key, CachedResponse> cache;
+    private final boolean enabled;
+
+    /**
+     * Génération des écritures, incrémentée après chaque modification visible.
+     */
+    private final AtomicLong generation = new AtomicLong();
+
+    /**
+     * Index des entrées de recherche et de liste, protégés par leur propre moniteur.
+     * Jamais pris avant le verrou d'une entrée du cache : les retraits (et l'éviction)
+     * le prennent sous ce verrou.
+     */
+    private final Object indexLock = new Object();
+    private final Map<String, Set<Key>> searchesByTerm = new HashMap<>();
+    private final NavigableMap<Long, Set<Key>> pagesByCursor = new TreeMap<>();
+    private final Set<Key> lastPages = new HashSet<>();
+    private long maxPageSpan;
+
+    private final Counter categoryInvalidations;
+    private final Counter searchInvalidations;
+    private final Counter pageInvalidations;
+
+    /**
+     * Constructeur.
+     *
+     * @param productService Service dont les modifications invalident le cache
+     * @param registry Registre Micrometer (succès, échecs, évictions, invalidations, poids)
+     * @param enabled false pour désactiver le cache (chaque appel recalcule la réponse)
+     * @param maxBytes Taille maximale du cache, en octets
+     */
+    @Autowired
+    public ProductResponseCache(ProductService productService,
+                                MeterRegistry registry,
+                                @Value("${produits.cache.enabled:true}") boolean enabled,
+                                @Value("${produits.cache.max-bytes:67108864}") long maxBytes) {
+        this.productService = productService;
+        this.enabled = enabled;
+        this.cache = Caffeine.newBuilder()
+                .maximumWeight(maxBytes)
+                .weigher((Key key, CachedResponse value) -> value.body().length + ENTRY_OVERHEAD)
+                .evictionListener((Key key, CachedResponse value, RemovalCause cause) -> unindex(key))
+                .recordStats()
+                .build();
+
+        CaffeineCacheMetrics.monitor(registry, cache, "reponses");
+        this.categoryInvalidations = invalidations(registry, "categorie");
+        this.searchInvalidations = invalidations(registry, "recherche");
+        this.pageInvalidations = invalidations(registry, "liste");
+        Gauge.builder(METRICS + ".octets", cache,
+                        c -> c.policy().eviction().map(e -> e.weightedSize().orElse(0)).orElse(0L))
+                .description("Taille des réponses en cache")
+                .baseUnit("bytes")
+                .register(registry);
+
+        if (enabled) {
+            productService.addChangeListener(this::invalidate);
+        }
+    }
+
+    private static Counter invalidations(MeterRegistry registry, String type) {
+        return Counter.builder(METRICS + ".invalidations")
+                .description("Entrées retirées suite à une modification du catalogue")
+                .tag("type", type)
+                .register(registry);
+    }
+
+    /**
+     * Réponse de la recherche par nom.
+     *
+     * @param nom Terme recherché (brut)
+     * @param format Format d'encodage de la réponse
+     * @param encoding Codage de contenu (compression) de la réponse
+     * @param loader Calcul de la réponse en cas d'absence
+     * @return La réponse, en cache ou recalculée
+     */
+    public CachedResponse search(String nom, WireFormat format, ContentEncoding encoding,
+                                 Supplier<CachedResponse> loader) {
+        return get(new Key(Kind.SEARCH, productService.normalizeNom(nom), null, 0, format, encoding), loader);
+    }
+
+    /**
+     * Réponse du filtre par catégorie.
+     *
+     * @param categorie Catégorie demandée (brute)
+     * @param format Format d'encodage de la réponse
+     * @param encoding Codage de contenu (compression) de la réponse
+     * @param loader Calcul de la réponse en cas d'absence
+     * @return La réponse, en cache ou recalculée
+     */
+    public CachedResponse category(String categorie, WireFormat format, ContentEncoding encoding,
+                                   Supplier<CachedResponse> loader) {
+        return get(new Key(Kind.CATEGORY, productService.normalizeCategorie(categorie), null, 0, format, encoding),
+                loader);
+    }
+
+    /**
+     * Page de la liste des produits.
+     *
+     * @param after Curseur de la page (null pour la première)
+     * @param limit Taille de la page
+     * @param format Format d'encodage de la réponse
+     * @param encoding Codage de contenu (compression) de la réponse
+     * @param loader Calcul de la réponse en cas d'absence
+     * @return La réponse, en cache ou recalculée
+     */
+    public CachedResponse page(Long after, int limit, WireFormat format, ContentEncoding encoding,
+                               Supplier<CachedResponse> loader) {
+        return get(new Key(Kind.PAGE, null, after, limit, format, encoding), loader);
+    }
+
+    private CachedResponse get(Key key, Supplier<CachedResponse> loader) {
+        if (!enabled) {
+            return loader.get();
+        }
+        CachedResponse cached = cache.getIfPresent(key);
+        if (cached != null) {
+            return cached;
+        }
+
+        long observed = generation.get();
+        CachedResponse loaded = loader.get();
+        if (generation.get() == observed) {
+            // Indexée sous le verrou de l'entrée : une éviction concurrente la désindexe après
+            cache.asMap().compute(key, (k, previous) -> {
+                index(k, loaded);
+                return loaded;
+            });
+            // Une écriture a pu survenir entre la vérification et l'insertion
+            if (generation.get() != observed) {
+                remove(key, value -> value == loaded);
+            }
+        }
+        return loaded;
+    }
+
+    private void index(Key key, CachedResponse value) {
+        synchronized (indexLock) {
+            switch (key.kind()) {
+                case SEARCH -> searchesByTerm.computeIfAbsent(key.term(), term -> new HashSet<>()).add(key);
+                case PAGE -> {
+                    long cursor = cursor(key);
+                    if (value.nextId() == NO_NEXT) {
+                        lastPages.add(key);
+                    } else {
+                        pagesByCursor.computeIfAbsent(cursor, c -> new HashSet<>()).add(key);
+                        maxPageSpan = Math.max(maxPageSpan, value.nextId() - cursor);
+                    }
+                }
+                case CATEGORY -> {
+                    // Retirée directement par sa clé
+                }
+            }
+        }
+    }
+
+    private void unindex(Key key) {
+        synchronized (indexLock) {
+            switch (key.kind()) {
+                case SEARCH -> removeFrom(searchesByTerm, key.term(), key);
+                case PAGE -> {
+                    lastPages.remove(key);
+                    removeFrom(pagesByCursor, cursor(key), key);
+                    if (pagesByCursor.isEmpty()) {
+                        maxPageSpan = 0;
+                    }
+                }
+                case CATEGORY -> {
+                    // Non indexée
+                }
+            }
+        }
+    }
+
+    private static <K> void removeFrom(Map<K, Set<Key>> index, K indexKey, Key key) {
+        Set<Key> keys = index.get(indexKey);
+        if (keys != null && keys.remove(key) && keys.isEmpty()) {
+            index.remove(indexKey);
+        }
+    }
+
+    /**
+     * Borne basse exclue des identifiants d'une page : son curseur, 0 pour la première
+     * (les identifiants sont positifs).
+     */
+    private static long cursor(Key key) {
+        return key.after() == null ? 0 : key.after();
+    }
+
+    /**
+     * Retire une entrée si sa valeur courante est périmée, et la retire des index sous
+     * le verrou de l'entrée : une réinsertion concurrente de la même clé la réindexe après.
+     *
+     * @return true si l'entrée a été retirée
+     */
+    private boolean remove(Key key, Predicate<CachedResponse> stale) {
+        boolean[] removed = new boolean[1];
+        cache.asMap().computeIfPresent(key, (k, value) -> {
+            if (!stale.test(value)) {
+                return value;
+            }
+            unindex(k);
+            removed[0] = true;
+            return null;
+        });
+        return removed[0];
+    }
+
+    /**
+     * Retire les entrées affectées par une modification. Appelé après que le nouvel
+     * état est visible : toute réponse calculée ensuite le reflète.
+     */
+    private void invalidate(Product before, Product after) {
+        generation.incrementAndGet();
+        long id = before != null ? before.getId() : after.getId();
+
+        String oldCategory = before == null ? null : productService.normalizeCategorie(before.getCategorie());
+        String newCategory = after == null ? null : productService.normalizeCategorie(after.getCategorie());
+        invalidateCategory(oldCategory);
+        if (newCategory != null && !newCategory.equals(oldCategory)) {
+            invalidateCategory(newCategory);
+        }
+
+        String oldName = before == null || before.getNom() == null ? null : productService.normalizeNom(before.getNom());
+        String newName = after == null || after.getNom() == null ? null : productService.normalizeNom(after.getNom());
+
+        for (Key key : searchCandidates(oldName, newName)) {
+            if (remove(key, value -> true)) {
+                searchInvalidations.increment();
+            }
+        }
+        for (Key key : pageCandidates(id)) {
+            if (remove(key, value -> id > cursor(key) && (value.nextId() == NO_NEXT || id <= value.nextId()))) {
+                pageInvalidations.increment();
+            }
+        }
+    }
+
+    /**
+     * Recherches dont le terme est contenu dans l'un des noms : par les sous-chaînes du
+     * nom si elles sont moins nombreuses que les termes indexés, par les termes sinon.
+     */
+    private List<Key> searchCandidates(String oldName, String newName) {
+        List<Key> candidates = new ArrayList<>();
+        synchronized (indexLock) {
+            if (searchesByTerm.isEmpty()) {
+                return candidates;
+            }
+            Set<String> terms = new HashSet<>();
+            for (String name : new String[]{oldName, newName}) {
+                if (name == null) {
+                    continue;
+                }
+                long substrings = (long) name.length() * (name.length() + 1) / 2;
+                if (substrings < searchesByTerm.size()) {
+                    for (int start = 0; start < name.length(); start++) {
+                        for (int end = start + 1; end <= name.length(); end++) {
+                            String term = name.substring(start, end);
+                            if (searchesByTerm.containsKey(term)) {
+                                terms.add(term);
+                            }
+                        }
+                    }
+                } else {
+                    for (String term : searchesByTerm.keySet()) {
+                        if (name.contains(term)) {
+                            terms.add(term);
+                        }
+                    }
+                }
+            }
+            for (String term : terms) {
+                candidates.addAll(searchesByTerm.get(term));
+            }
+        }
+        return candidates;
+    }
+
+    /**
+     * Pages pouvant contenir l'identifiant : les dernières pages et celles dont le
+     * curseur est à moins de l'écart maximal d'une page en deçà de l'identifiant.
+     */
+    private List<Key> pageCandidates(long id) {
+        List<Key> candidates = new ArrayList<>();
+        synchronized (indexLock) {
+            candidates.addAll(lastPages);
+            long from = Math.max(0, id - maxPageSpan);
+            if (from < id) {
+                for (Set<Key> keys : pagesByCursor.subMap(from, true, id, false).values()) {
+                    candidates.addAll(keys);
+                }
+            }
+        }
+        return candidates;
+    }
+
+    private void invalidateCategory(String categorie) {
+        if (categorie == null) {
+            return;
+        }
+        for (WireFormat format : WireFormat.values()) {
+            for (ContentEncoding encoding : ContentEncoding.values()) {
+                if (cache.asMap().remove(new Key(Kind.CATEGORY, categorie, null, 0, format, encoding)) != null) {
+                    categoryInvalidations.increment();
+                }
+            }
+        }
+    }
+
+    /**
+     * Nombre d'entrées en cache (approximatif).
+     *
+     * @return Nombre d'entrées
+     */
+    public long size() {
+        return cache.estimatedSize();
+    }
+
+    /**
+     * Vide le cache.
+     */
+    public void clear() {
+        generation.incrementAndGet();
+        synchronized (indexLock) {
+            searchesByTerm.clear();
+            pagesByCursor.clear();
+            lastPages.clear();
+            maxPageSpan = 0;
+        }
+        cache.invalidateAll();
+    }
+
+    /**
+     * Nombre d'entrées indexées (recherches et pages), après les évictions en attente.
+     *
+     * @return Nombre de clés dans les index
+     */
+    int indexedKeys() {
+        cache.cleanUp();
+        synchronized (indexLock) {
+            int count = lastPages.size();
+            for (Set<Key> keys : searchesByTerm.values()) {
+                count += keys.size();
+            }
+            for (Set<Key> keys : pagesByCursor.values()) {
+                count += keys.size();
+            }
+            return count;
+        }
+    }
+
+    private enum Kind { SEARCH, CATEGORY, PAGE }
+
+    /**
+     * Clé d'une entrée : terme normalisé pour la recherche et la catégorie,
+     * curseur et taille pour une page, format et codage de contenu.
+     */
+    private record Key(Kind kind, String term, Long after, int limit, WireFormat format,
+                       ContentEncoding encoding) {
+    }
+
+    /**
+     * Réponse en cache.
+     *
+     * @param body Corps sérialisé
+     * @param lastId Dernier identifiant de la page ({@link #NO_NEXT} hors liste paginée)
+     * @param nextId Premier identifiant de la page suivante, ou {@link #NO_NEXT} s'il n'y en a pas
+     * @param encoding Codage de contenu du corps
+     */
+    public record CachedResponse(byte[] body, long lastId, long nextId, ContentEncoding encoding) {
+
+        /**
+         * Réponse non compressée.
+         *
+         * @param body Corps sérialisé
+         * @param lastId Dernier identifiant de la page ({@link #NO_NEXT} hors liste paginée)
+         * @param nextId Premier identifiant de la page suivante, ou {@link #NO_NEXT}
+         */
+        public CachedResponse(byte[] body, long lastId, long nextId) {
+            this(body, lastId, nextId, ContentEncoding.IDENTITY);
+        }
+
+        /**
+         * Réponse sans pagination (recherche, catégorie).
+         *
+         * @param body Corps sérialisé
+         * @return La réponse
+         */
+        public static CachedResponse of(byte[] body) {
+            return new CachedResponse(body, NO_NEXT, NO_NEXT);
+        }
+
+        /**
+         * Indique s'il existe une page suivante.
+         *
+         * @return true si la page n'est pas la dernière
+         */
+        public boolean hasNext() {
+            return nextId != NO_NEXT;
+        }
+
+        /**
+         * Même réponse, avec un autre corps (variante compressée).
+         *
+         * @param encoded Corps codé
+         * @param contentEncoding Codage du nouveau corps
+         * @return La variante
+         */
+        public CachedResponse withBody(byte[] encoded, ContentEncoding contentEncoding) {
+            return new CachedResponse(encoded, lastId, nextId, contentEncoding);
+        }
+    }
+}
@@ -0,0 +1,132 @@
+package com.example.apigestionproduit.cluster;
+
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Anneau de hachage cohérent : chaque identifiant de produit a un nœud propriétaire.
+ *
+ * <p>Chaque nœud place {@code virtualNodes} points sur l'anneau ; le propriétaire d'un
+ * identifiant est le nœud du premier point qui suit son empreinte. Ajouter ou retirer
+ * un nœud ne déplace donc qu'environ 1/N des produits.</p>
+ *
+ * <p>Les points sont conservés dans deux tableaux triés : une recherche est une
+ * dichotomie, sans allocation.</p>
+ */
+public final class HashRing {
+
+    /**
+     * Nœud du cluster.
+     *
+     * @param id Nom du nœud, stable d'un démarrage à l'autre
+     * @param uri URL de base de son API (ex. http://localhost:8081)
+     */
+    public record Node(String id, URI uri) {
+    }
+
+    private final Map<String, Node> nodes;
+    private final long[] points;
+    private final Node[] owners;
+
+    /**
+     * Constructeur.
+     *
+     * @param nodes Nœuds du cluster (au moins un, noms distincts)
+     * @param virtualNodes Nombre de points par nœud sur l'anneau
+     */
+    public HashRing(List<Node> nodes, int virtualNodes) {
+        if (nodes.isEmpty()) {
+            throw new IllegalArgumentException("Le cluster doit compter au moins un nœud");
+        }
+        if (virtualNodes <= 0) {
+            throw new IllegalArgumentException("Nombre de points par nœud invalide: " + virtualNodes);
+        }
+        this.nodes = new LinkedHashMap<>();
+        for (Node node : nodes) {
+            if (this.nodes.put(node.id(), node) != null) {
+                throw new IllegalArgumentException("Nœud en double: " + node.id());
+            }
+        }
+
+        int count = nodes.size() * virtualNodes;
+        long[] hashes = new long[count];
+        Node[] byHash = new Node[count];
+        Integer[] order = new Integer[count];
+        for (int n = 0; n < nodes.size(); n++) {
+            for (int v = 0; v < virtualNodes; v++) {
+                int i = n * virtualNodes + v;
+                hashes[i] = hash(nodes.get(n).id() + "#" + v);
+                byHash[i] = nodes.get(n);
+                order[i] = i;
+            }
+        }
+        Arrays.sort(order, (a, b) -> Long.compare(hashes[a], hashes[b]));
+        this.points = new long[count];
+        this.owners = new Node[count];
+        for (int i = 0; i < count; i++) {
+            points[i] = hashes[order[i]];
+            owners[i] = byHash[order[i]];
+        }
+    }
+
+    /**
+     * Nœud propriétaire d'un produit.
+     *
+     * @param id Identifiant du produit
+     * @return Le nœud qui détient le produit et ses index
+     */
+    public Node owner(long id) {
+        int i = Arrays.binarySearch(points, mix(id));
+        if (i < 0) {
+            i = -i - 1;
+        }
+        return owners[i == points.length ? 0 : i];
+    }
+
+    /**
+     * Nœud de nom donné.
+     *
+     * @param id Nom du nœud
+     * @return Le nœud, ou null s'il ne fait pas partie du cluster
+     */
+    public Node node(String id) {
+        return nodes.get(id);
+    }
+
+    /**
+     * Nœuds du cluster, dans l'ordre de configuration.
+     *
+     * @return Liste non modifiable
+     */
+    public List<Node> nodes() {
+        return List.copyOf(nodes.values());
+    }
+
+    /**
+     * Empreinte FNV-1a 64 bits d'une chaîne, redistribuée par {@link #mix(long)}.
+     */
+    static long hash(String key) {
+        long h = 0xcbf29ce484222325L;
+        for (byte b : key.getBytes(StandardCharsets.UTF_8)) {
+            h ^= b & 0xff;
+            h *= 0x100000001b3L;
+        }
+        return mix(h);
+    }
+
+    /**
+     * Finaliseur de MurmurHash3 : des identifiants consécutifs sont dispersés sur tout l'anneau.
+     */
+    private static long mix(long h) {
+        h ^= h >>> 33;
+        h *= 0xff51afd7ed558ccdL;
+        h ^= h >>> 33;
+        h *= 0xc4ceb9fe1a85ec53L;
+        h ^= h >>> 33;
+        return h;
+    }
+}
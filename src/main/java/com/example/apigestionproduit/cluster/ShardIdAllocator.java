@@ -0,0 +1,55 @@
+package com.example.apigestionproduit.cluster;
+
+import com.example.apigestionproduit.service.IdAllocator;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Identifiants propres à un nœud : le nœud parcourt la suite 1, 2, 3... et ne garde
+ * que les identifiants dont l'anneau le désigne propriétaire.
+ *
+ * <p>Les propriétaires étant disjoints, deux nœuds n'attribuent jamais le même
+ * identifiant, sans coordination ; chaque produit créé est aussitôt sur son nœud
+ * propriétaire. Avec N nœuds, environ N valeurs sont examinées par identifiant
+ * attribué (un hachage chacune).</p>
+ *
+ * <p>La composition du cluster doit rester fixe : un changement de l'anneau
+ * changerait le propriétaire de produits existants.</p>
+ */
+public class ShardIdAllocator implements IdAllocator {
+
+    private final HashRing ring;
+    private final HashRing.Node self;
+    private final AtomicLong candidate = new AtomicLong(1);
+
+    /**
+     * Constructeur.
+     *
+     * @param ring Anneau du cluster
+     * @param self Nœud courant
+     */
+    public ShardIdAllocator(HashRing ring, HashRing.Node self) {
+        this.ring = ring;
+        this.self = self;
+    }
+
+    @Override
+    public long next() {
+        while (true) {
+            long id = candidate.getAndIncrement();
+            if (ring.owner(id).equals(self)) {
+                return id;
+            }
+        }
+    }
+
+    @Override
+    public void advancePast(long highWater) {
+        candidate.accumulateAndGet(highWater + 1, Math::max);
+    }
+
+    @Override
+    public long highWater() {
+        return candidate.get() - 1;
+    }
+}
@@ -0,0 +1,643 @@
+package com.example.apigestionproduit.cluster;
+
+import com.example.apigestionproduit.format.ProductFormats;
+import com.example.apigestionproduit.format.WireFormat;
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.model.ProductFacets;
+import com.example.apigestionproduit.model.ProductQuery;
+import com.example.apigestionproduit.service.ProductService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.context.request.ServletWebRequest;
+import org.springframework.web.filter.OncePerRequestFilter;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
+import org.springframework.web.util.UriUtils;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.net.http.HttpTimeoutException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Routage des requêtes entre les nœuds d'un catalogue réparti ({@code produits.cluster.enabled}).
+ *
+ * <ul>
+ *   <li>Requêtes sur un produit ({@code /api/products/{id}}, {@code /api/products/{id}/stock/...}) :
+ *       transmises telles quelles au nœud propriétaire de l'identifiant, si ce n'est pas
+ *       le nœud courant ;</li>
+ *   <li>Recherche par nom, filtre par catégorie et liste paginée : dispersées vers tous
+ *       les nœuds en parallèle, chacun répondant pour sa partition (en Smile), puis
+ *       fusionnées par identifiant. Requête multicritère ({@code /api/products/query}) :
+ *       dispersée de même, chaque partition renvoyant ses {@code limit} premiers
+ *       résultats ; la fusion les trie selon {@code sort} et garde les {@code limit}
+ *       premiers. Facettes ({@code /api/products/facets}) : dispersées
+ *       de même, les décomptes des partitions additionnés. Un nœud qui ne répond pas dans
+ *       {@code produits.cluster.timeout} est omis : la réponse, partielle, nomme les
+ *       nœuds manquants dans {@code X-Produits-Shards-Manquants} ;</li>
+ *   <li>Modifications et suppressions par lot, réservation de plusieurs produits :
+ *       refusées par 501 NOT IMPLEMENTED. Leurs identifiants, dans le corps, relèvent
+ *       de plusieurs partitions ; traitées sur un seul nœud, les lignes des autres
+ *       répondraient « inexistant » à tort. Elles sont à envoyer produit par produit ;</li>
+ *   <li>Recherche par pertinence ({@code /api/products/search?q=}) : refusée par 501.
+ *       Le score BM25 dépend de la fréquence des mots dans le catalogue : les scores
+ *       calculés par deux partitions ne sont pas comparables, et un classement fusionné
+ *       serait faux sans le signaler ;</li>
+ *   <li>Autres requêtes (création, création par lot, flux) : traitées par le nœud
+ *       qui les reçoit. Une création y reçoit un identifiant dont ce nœud est
+ *       propriétaire ({@link ShardIdAllocator}).</li>
+ * </ul>
+ *
+ * <p>Les requêtes entre nœuds portent l'en-tête {@code X-Produits-Shard} : elles sont
+ * traitées localement, sans nouveau routage. Chaque réponse indique le nœud qui l'a
+ * produite ({@code X-Produits-Noeud}).</p>
+ *
+ * <p>L'ETag d'une réponse fusionnée combine le format de la réponse et les versions de
+ * toutes les partitions, dans l'ordre de l'anneau : il est le même quel que soit le nœud
+ * interrogé, et change dès qu'une partition change.</p>
+ */
+public class ShardRoutingFilter extends OncePerRequestFilter {
+
+    /**
+     * En-tête des requêtes entre nœuds (valeur : nœud d'origine).
+     */
+    public static final String SHARD_HEADER = "X-Produits-Shard";
+
+    /**
+     * En-tête des réponses : nœud qui a traité la requête.
+     */
+    public static final String NODE_HEADER = "X-Produits-Noeud";
+
+    /**
+     * En-tête des réponses partielles : nœuds qui n'ont pas répondu à temps.
+     */
+    public static final String MISSING_HEADER = "X-Produits-Shards-Manquants";
+
+    /**
+     * En-tête des réponses entre nœuds : version de la partition qui a répondu.
+     */
+    static final String VERSION_HEADER = "X-Produits-Version";
+
+    static final String METRICS = "produits.cluster";
+
+    private static final String PRODUCTS = "/api/products";
+    private static final String SEARCH = PRODUCTS + "/search";
+    private static final String CATEGORY = PRODUCTS + "/categorie/";
+    private static final String FACETS = PRODUCTS + "/facets";
+    private static final String QUERY = PRODUCTS + "/query";
+    private static final String NDJSON = "application/x-ndjson";
+    private static final Pattern BY_ID = Pattern.compile(PRODUCTS + "/(\\d{1,18})(/.*)?");
+    private static final Comparator<Product> BY_ID_ORDER = Comparator.comparing(Product::getId);
+
+    /**
+     * Requêtes sur plusieurs produits désignés par identifiant (méthode et chemin).
+     */
+    private static final Set<String> MULTI_SHARD = Set.of(
+            "PUT " + PRODUCTS + "/batch", "DELETE " + PRODUCTS + "/batch", "POST " + PRODUCTS + "/stock/reserve");
+
+    /**
+     * En-têtes propres à une connexion, ou fixés par le client HTTP : non retransmis.
+     */
+    private static final Set<String> HOP_BY_HOP = Set.of("connection", "content-length", "date", "expect",
+            "from", "host", "keep-alive", "proxy-connection", "te", "trailer", "transfer-encoding",
+            "upgrade", "via", "warning", "http2-settings");
+
+    private final HashRing ring;
+    private final HashRing.Node self;
+    private final ProductService productService;
+    private final ProductFormats formats;
+    private final Duration timeout;
+    private final int maxLimit;
+    private final ExecutorService executor;
+    private final HttpClient client;
+
+    /**
+     * Distingue deux démarrages du nœud dans la version de sa partition.
+     */
+    private final String instance = Long.toString(System.currentTimeMillis(), 36);
+
+    private final Counter forwarded;
+    private final Timer scattered;
+    private final Map<String, Counter> failures = new LinkedHashMap<>();
+
+    /**
+     * Constructeur.
+     *
+     * @param ring Anneau du cluster
+     * @param self Nœud courant
+     * @param productService Catalogue de la partition locale
+     * @param formats Encodeurs des produits
+     * @param registry Registre des métriques
+     * @param timeout Délai de réponse d'un autre nœud
+     * @param maxLimit Nombre maximal de produits par page de liste
+     */
+    public ShardRoutingFilter(HashRing ring, HashRing.Node self, ProductService productService,
+                              ProductFormats formats, MeterRegistry registry, Duration timeout, int maxLimit) {
+        this.ring = ring;
+        this.self = self;
+        this.productService = productService;
+        this.formats = formats;
+        this.timeout = timeout;
+        this.maxLimit = maxLimit;
+        this.executor = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "produits-cluster");
+            thread.setDaemon(true);
+            return thread;
+        });
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .connectTimeout(timeout)
+                .executor(executor)
+                .build();
+
+        this.forwarded = Counter.builder(METRICS + ".transferts")
+                .description("Requêtes transmises au nœud propriétaire du produit")
+                .register(registry);
+        this.scattered = Timer.builder(METRICS + ".dispersions")
+                .description("Durée des requêtes dispersées vers tous les nœuds, fusion comprise")
+                .register(registry);
+        for (HashRing.Node node : ring.nodes()) {
+            failures.put(node.id(), Counter.builder(METRICS + ".echecs")
+                    .description("Nœuds sans réponse valide à temps (transfert ou dispersion)")
+                    .tag("noeud", node.id())
+                    .register(registry));
+        }
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        if (request.getHeader(SHARD_HEADER) != null) {
+            // Lue avant la requête : la réponse est au moins aussi récente que cette version
+            response.setHeader(VERSION_HEADER, partitionVersion());
+        } else {
+            String path = request.getRequestURI().substring(request.getContextPath().length());
+            Matcher byId = BY_ID.matcher(path);
+            if (byId.matches()) {
+                HashRing.Node owner = ring.owner(Long.parseLong(byId.group(1)));
+                if (!owner.equals(self)) {
+                    forward(owner, request, response);
+                    return;
+                }
+            } else if (MULTI_SHARD.contains(request.getMethod() + " " + path)) {
+                notImplemented(response, "Non disponible en mode réparti : envoyer une requête par produit");
+                return;
+            } else if ("GET".equals(request.getMethod()) && path.equals(SEARCH) && request.getParameter("q") != null) {
+                notImplemented(response, "Recherche par pertinence non disponible en mode réparti : "
+                        + "utiliser la recherche par nom (nom=)");
+                return;
+            } else if ("GET".equals(request.getMethod()) && scatter(path, request, response)) {
+                return;
+            }
+        }
+        response.setHeader(NODE_HEADER, self.id());
+        chain.doFilter(request, response);
+    }
+
+    private void notImplemented(HttpServletResponse response, String message) throws IOException {
+        response.setHeader(NODE_HEADER, self.id());
+        response.sendError(HttpServletResponse.SC_NOT_IMPLEMENTED, message);
+    }
+
+    /**
+     * Transmet la requête au nœud propriétaire et recopie sa réponse.
+     * 504 GATEWAY TIMEOUT s'il ne répond pas à temps, 503 SERVICE UNAVAILABLE s'il est injoignable.
+     */
+    private void forward(HashRing.Node owner, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        forwarded.increment();
+        byte[] body = request.getInputStream().readAllBytes();
+        HttpRequest.Builder builder = HttpRequest.newBuilder(target(owner, request))
+                .timeout(timeout)
+                .method(request.getMethod(), body.length == 0
+                        ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofByteArray(body));
+        for (String name : Collections.list(request.getHeaderNames())) {
+            if (!HOP_BY_HOP.contains(name.toLowerCase(Locale.ROOT))) {
+                for (String value : Collections.list(request.getHeaders(name))) {
+                    builder.header(name, value);
+                }
+            }
+        }
+        builder.header(SHARD_HEADER, self.id());
+
+        HttpResponse<byte[]> reply;
+        try {
+            reply = client.send(builder.build(), HttpResponse.BodyHandlers.ofByteArray());
+        } catch (HttpTimeoutException e) {
+            failures.get(owner.id()).increment();
+            response.setStatus(HttpServletResponse.SC_GATEWAY_TIMEOUT);
+            return;
+        } catch (IOException e) {
+            failures.get(owner.id()).increment();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+
+        response.setStatus(reply.statusCode());
+        reply.headers().map().forEach((name, values) -> {
+            if (!name.startsWith(":") && !HOP_BY_HOP.contains(name.toLowerCase(Locale.ROOT))) {
+                values.forEach(value -> response.addHeader(name, value));
+            }
+        });
+        response.getOutputStream().write(reply.body());
+    }
+
+    private static URI target(HashRing.Node node, HttpServletRequest request) {
+        String query = request.getQueryString();
+        String base = node.uri().toString();
+        if (base.endsWith("/")) {
+            base = base.substring(0, base.length() - 1);
+        }
+        return URI.create(base + request.getRequestURI() + (query == null ? "" : "?" + query));
+    }
+
+    /**
+     * Disperse une requête de collection vers tous les nœuds.
+     *
+     * @return false si la requête n'est pas dispersée (traitée localement)
+     */
+    private boolean scatter(String path, HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        if (path.equals(SEARCH)) {
+            String nom = request.getParameter("nom");
+            if (nom == null) {
+                return false;
+            }
+            gather(request, response, () -> productService.searchProductsByNom(nom), BY_ID_ORDER, -1, false);
+            return true;
+        }
+        if (path.equals(QUERY)) {
+            ProductQuery query;
+            try {
+                query = query(request);
+            } catch (IllegalArgumentException e) {
+                // Paramètre invalide : le contrôleur répond 400 BAD REQUEST
+                return false;
+            }
+            if (query == null) {
+                return false;
+            }
+            gather(request, response, () -> productService.queryProducts(query), query.order(), query.getLimit(),
+                    false);
+            return true;
+        }
+        if (path.equals(FACETS)) {
+            gatherFacets(request, response, request.getParameter("nom"));
+            return true;
+        }
+        if (path.startsWith(CATEGORY) && path.length() > CATEGORY.length()
+                && path.indexOf('/', CATEGORY.length()) < 0) {
+            String categorie = UriUtils.decode(path.substring(CATEGORY.length()), StandardCharsets.UTF_8);
+            gather(request, response, () -> productService.getProductsByCategorie(categorie), BY_ID_ORDER, -1,
+                    false);
+            return true;
+        }
+        if (path.equals(PRODUCTS) || path.equals(PRODUCTS + "/")) {
+            String accept = request.getHeader(HttpHeaders.ACCEPT);
+            if (accept != null && accept.contains(NDJSON)) {
+                // Export en flux : chaque nœud diffuse sa partition
+                return false;
+            }
+            Long after;
+            int pageSize;
+            try {
+                String afterParam = request.getParameter("after");
+                String limitParam = request.getParameter("limit");
+                after = afterParam == null ? null : Long.valueOf(afterParam);
+                int limit = limitParam == null ? maxLimit : Integer.parseInt(limitParam);
+                if (limit <= 0) {
+                    return false;
+                }
+                pageSize = Math.min(limit, maxLimit);
+            } catch (NumberFormatException e) {
+                // Paramètre invalide : le contrôleur répond 400 BAD REQUEST
+                return false;
+            }
+            gather(request, response, () -> productService.getProductsPage(after, pageSize + 1), BY_ID_ORDER,
+                    pageSize, true);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * Requête multicritère lue dans les paramètres, comme le contrôleur.
+     *
+     * @return La requête, ou null si {@code limit} n'est pas positif
+     * @throws IllegalArgumentException si un paramètre est invalide
+     */
+    private ProductQuery query(HttpServletRequest request) {
+        String prixMin = request.getParameter("prixMin");
+        String prixMax = request.getParameter("prixMax");
+        String stockMin = request.getParameter("stockMin");
+        String sort = request.getParameter("sort");
+        String limitParam = request.getParameter("limit");
+        int limit = limitParam == null ? maxLimit : Integer.parseInt(limitParam);
+        if (limit <= 0) {
+            return null;
+        }
+        return ProductQuery.of(prixMin == null ? null : new BigDecimal(prixMin),
+                prixMax == null ? null : new BigDecimal(prixMax),
+                stockMin == null ? null : Integer.valueOf(stockMin),
+                request.getParameter("categorie"),
+                sort == null ? "id" : sort,
+                Math.min(limit, maxLimit));
+    }
+
+    /**
+     * Version de la partition locale, qui change à chaque modification et à chaque démarrage.
+     */
+    private String partitionVersion() {
+        return instance + "." + productService.getCatalogVersion();
+    }
+
+    /**
+     * Réponse d'un autre nœud à une requête de produits : ses produits, et s'il en reste
+     * au-delà de la page.
+     */
+    private record Part(List<Product> products, boolean hasNext) {
+    }
+
+    /**
+     * Décodage de la réponse d'un autre nœud.
+     */
+    @FunctionalInterface
+    private interface PartReader<T> {
+        T read(HttpResponse<byte[]> reply) throws IOException;
+    }
+
+    /**
+     * Interroge les autres nœuds en parallèle, la partition locale pendant ce temps,
+     * puis fusionne les résultats dans l'ordre demandé.
+     *
+     * @param local Requête sur la partition locale
+     * @param order Ordre des résultats fusionnés
+     * @param limit Nombre maximal de résultats, -1 sans limite
+     * @param paged true pour une liste paginée : lien vers la page suivante si elle existe
+     */
+    private void gather(HttpServletRequest request, HttpServletResponse response, Supplier<List<Product>> local,
+                        Comparator<Product> order, int limit, boolean paged) throws IOException {
+        long start = System.nanoTime();
+        Map<HashRing.Node, CompletableFuture<HttpResponse<byte[]>>> calls = dispatch(request);
+
+        // Version lue avant la lecture : la réponse est au moins aussi récente qu'elle
+        Map<HashRing.Node, String> versions = new LinkedHashMap<>();
+        versions.put(self, partitionVersion());
+        List<Product> merged = new ArrayList<>(local.get());
+        boolean hasNext = false;
+        if (limit >= 0 && merged.size() > limit) {
+            merged = new ArrayList<>(merged.subList(0, limit));
+            hasNext = true;
+        }
+
+        List<String> missing = new ArrayList<>();
+        List<Part> parts = collect(calls, start, versions, missing, reply -> new Part(
+                formats.readProducts(new ByteArrayInputStream(reply.body()), WireFormat.SMILE),
+                reply.headers().firstValue(HttpHeaders.LINK).isPresent()));
+        for (Part part : parts) {
+            merged.addAll(part.products());
+            hasNext |= part.hasNext();
+        }
+
+        merged.sort(order);
+        if (limit >= 0 && merged.size() > limit) {
+            merged = merged.subList(0, limit);
+            hasNext = true;
+        }
+
+        WireFormat format = WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        if (notModified(request, response, format, versions, missing)) {
+            scattered.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return;
+        }
+        if (paged && hasNext && !merged.isEmpty()) {
+            String next = ServletUriComponentsBuilder.fromRequest(request)
+                    .replaceQueryParam("after", merged.get(merged.size() - 1).getId())
+                    .replaceQueryParam("limit", limit)
+                    .toUriString();
+            response.setHeader(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"");
+        }
+
+        write(response, format, formats.writeProducts(merged, format));
+        scattered.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Disperse une demande de facettes et additionne les décomptes des partitions.
+     */
+    private void gatherFacets(HttpServletRequest request, HttpServletResponse response, String nom)
+            throws IOException {
+        long start = System.nanoTime();
+        WireFormat format = WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        if (format == WireFormat.PROTOBUF) {
+            // Le schéma Protobuf ne décrit que les produits, comme sur un nœud seul
+            response.setHeader(NODE_HEADER, self.id());
+            response.setStatus(HttpServletResponse.SC_NOT_ACCEPTABLE);
+            return;
+        }
+        Map<HashRing.Node, CompletableFuture<HttpResponse<byte[]>>> calls = dispatch(request);
+
+        ObjectMapper smile = formats.mapper(WireFormat.SMILE);
+        Map<HashRing.Node, String> versions = new LinkedHashMap<>();
+        versions.put(self, partitionVersion());
+        List<JsonNode> parts = new ArrayList<>();
+        parts.add(smile.valueToTree(productService.getFacets(nom)));
+
+        List<String> missing = new ArrayList<>();
+        parts.addAll(collect(calls, start, versions, missing, reply -> {
+            JsonNode facets = smile.readTree(reply.body());
+            if (facets == null || !facets.isObject()) {
+                throw new IOException("Facettes illisibles");
+            }
+            return facets;
+        }));
+
+        if (notModified(request, response, format, versions, missing)) {
+            scattered.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+            return;
+        }
+        write(response, format, formats.mapper(format).writeValueAsBytes(sumFacets(parts)));
+        scattered.record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Additionne les facettes des partitions. Les catégories sont regroupées sans tenir
+     * compte de la casse, sous le premier libellé rencontré, et triées comme sur un nœud :
+     * de la plus fournie à la moins fournie. Les tranches de prix, fixes, s'additionnent.
+     */
+    private ProductFacets sumFacets(List<JsonNode> parts) {
+        long total = 0;
+        long enStock = 0;
+        long enRupture = 0;
+        Map<String, Map.Entry<String, Long>> categories = new HashMap<>();
+        TreeMap<BigDecimal, ProductFacets.Tranche> prix = new TreeMap<>();
+        for (JsonNode part : parts) {
+            total += part.path("total").asLong();
+            enStock += part.path("enStock").asLong();
+            enRupture += part.path("enRupture").asLong();
+            part.path("categories").fields().forEachRemaining(category -> categories.merge(
+                    productService.normalizeCategorie(category.getKey()),
+                    Map.entry(category.getKey(), category.getValue().asLong()),
+                    (a, b) -> Map.entry(a.getKey(), a.getValue() + b.getValue())));
+            for (JsonNode tranche : part.path("prix")) {
+                BigDecimal min = tranche.path("min").decimalValue();
+                JsonNode max = tranche.get("max");
+                prix.merge(min, new ProductFacets.Tranche(min, max == null || max.isNull() ? null : max.decimalValue(),
+                                tranche.path("nombre").asLong()),
+                        (a, b) -> new ProductFacets.Tranche(a.getMin(), a.getMax(), a.getNombre() + b.getNombre()));
+            }
+        }
+
+        List<Map.Entry<String, Long>> counts = new ArrayList<>(categories.values());
+        counts.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Long> byCategory = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : counts) {
+            byCategory.put(entry.getKey(), entry.getValue());
+        }
+        return new ProductFacets(total, byCategory, new ArrayList<>(prix.values()), enStock, enRupture);
+    }
+
+    /**
+     * Envoie la requête à tous les autres nœuds en parallèle, réponse demandée en Smile.
+     */
+    private Map<HashRing.Node, CompletableFuture<HttpResponse<byte[]>>> dispatch(HttpServletRequest request) {
+        Map<HashRing.Node, CompletableFuture<HttpResponse<byte[]>>> calls = new LinkedHashMap<>();
+        for (HashRing.Node node : ring.nodes()) {
+            if (!node.equals(self)) {
+                HttpRequest call = HttpRequest.newBuilder(target(node, request))
+                        .timeout(timeout)
+                        .header(HttpHeaders.ACCEPT, WireFormat.SMILE.mediaType().toString())
+                        .header(SHARD_HEADER, self.id())
+                        .GET()
+                        .build();
+                calls.put(node, client.sendAsync(call, HttpResponse.BodyHandlers.ofByteArray()));
+            }
+        }
+        return calls;
+    }
+
+    /**
+     * Attend et décode les réponses des autres nœuds jusqu'à l'échéance commune à toute
+     * la dispersion. Un nœud sans réponse valide à temps est ajouté aux manquants.
+     *
+     * @param versions Reçoit la version de la partition de chaque nœud qui a répondu
+     * @param missing Reçoit les nœuds manquants
+     * @return Les réponses décodées
+     */
+    private <T> List<T> collect(Map<HashRing.Node, CompletableFuture<HttpResponse<byte[]>>> calls, long start,
+                                Map<HashRing.Node, String> versions, List<String> missing, PartReader<T> reader) {
+        List<T> parts = new ArrayList<>();
+        long deadline = start + timeout.toNanos();
+        for (Map.Entry<HashRing.Node, CompletableFuture<HttpResponse<byte[]>>> call : calls.entrySet()) {
+            T part = null;
+            HttpResponse<byte[]> reply = await(call.getValue(), deadline);
+            if (reply != null) {
+                try {
+                    part = reader.read(reply);
+                } catch (IOException e) {
+                    // Réponse illisible : le nœud est compté manquant
+                }
+            }
+            if (part == null) {
+                failures.get(call.getKey().id()).increment();
+                missing.add(call.getKey().id());
+                continue;
+            }
+            parts.add(part);
+            versions.put(call.getKey(), reply.headers().firstValue(VERSION_HEADER).orElse(""));
+        }
+        return parts;
+    }
+
+    /**
+     * En-têtes d'une réponse fusionnée : ETag combiné si tous les nœuds ont répondu,
+     * nœuds manquants sinon.
+     *
+     * @return true si la réponse est 304 NOT MODIFIED, déjà envoyée
+     */
+    private boolean notModified(HttpServletRequest request, HttpServletResponse response, WireFormat format,
+                                Map<HashRing.Node, String> versions, List<String> missing) {
+        response.setHeader(NODE_HEADER, self.id());
+        response.addHeader(HttpHeaders.VARY, HttpHeaders.ACCEPT);
+        if (!missing.isEmpty()) {
+            response.setHeader(MISSING_HEADER, String.join(",", missing));
+            response.setHeader(HttpHeaders.CACHE_CONTROL, "no-store");
+            return false;
+        }
+        StringBuilder combined = new StringBuilder(format.name()).append(';');
+        for (HashRing.Node node : ring.nodes()) {
+            combined.append(node.id()).append('=').append(versions.get(node)).append(';');
+        }
+        String tag = "\"" + Long.toUnsignedString(HashRing.hash(combined.toString()), 36) + "\"";
+        return new ServletWebRequest(request, response).checkNotModified(tag);
+    }
+
+    private static void write(HttpServletResponse response, WireFormat format, byte[] body) throws IOException {
+        response.setStatus(HttpServletResponse.SC_OK);
+        response.setContentType(format.mediaType().toString());
+        response.setContentLength(body.length);
+        response.getOutputStream().write(body);
+    }
+
+    /**
+     * Attend la réponse d'un nœud jusqu'à l'échéance commune à toute la dispersion.
+     *
+     * @return Sa réponse, ou null s'il n'a pas répondu 200 à temps
+     */
+    private HttpResponse<byte[]> await(CompletableFuture<HttpResponse<byte[]>> call, long deadline) {
+        try {
+            HttpResponse<byte[]> reply = call.get(Math.max(0, deadline - System.nanoTime()), TimeUnit.NANOSECONDS);
+            return reply.statusCode() == HttpServletResponse.SC_OK ? reply : null;
+        } catch (TimeoutException e) {
+            call.cancel(true);
+            return null;
+        } catch (ExecutionException e) {
+            return null;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return null;
+        }
+    }
+
+    @Override
+    public void destroy() {
+        executor.shutdownNow();
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.apigestionproduit.compression;
+
+import java.util.Arrays;
+import java.util.Locale;
+import java.util.Set;
+
+/**
+ * Codages de contenu des réponses ({@code Content-Encoding}).
+ *
+ * <p>L'ordre des constantes est l'ordre de préférence du serveur à qualité égale :
+ * zstd compresse mieux et plus vite que gzip.</p>
+ */
+public enum ContentEncoding {
+
+    ZSTD("zstd"),
+    GZIP("gzip"),
+    IDENTITY("identity");
+
+    private final String token;
+
+    ContentEncoding(String token) {
+        this.token = token;
+    }
+
+    /**
+     * Jeton HTTP du codage.
+     *
+     * @return Valeur de {@code Content-Encoding}
+     */
+    public String token() {
+        return token;
+    }
+
+    /**
+     * Codage à appliquer d'après l'en-tête {@code Accept-Encoding} (RFC 9110) : le codage
+     * disponible de plus forte qualité, la préférence du serveur départageant les
+     * égalités. Un codage de qualité 0 est exclu ; {@code *} désigne tout codage non cité.
+     * La réponse n'est pas compressée si {@code identity} est cité avec une qualité supérieure.
+     *
+     * @param acceptEncoding Valeur de l'en-tête (peut être null)
+     * @param available Codages compressés proposés par le serveur
+     * @return Codage retenu, {@link #IDENTITY} à défaut
+     */
+    public static ContentEncoding negotiate(String acceptEncoding, Set<ContentEncoding> available) {
+        if (acceptEncoding == null || acceptEncoding.isBlank() || available.isEmpty()) {
+            return IDENTITY;
+        }
+        double[] quality = new double[values().length];
+        Arrays.fill(quality, -1);
+        double wildcard = -1;
+        for (String part : acceptEncoding.split(",")) {
+            String[] fields = part.trim().split(";");
+            String coding = fields[0].trim().toLowerCase(Locale.ROOT);
+            double q = 1;
+            for (int i = 1; i < fields.length; i++) {
+                String param = fields[i].trim();
+                if (param.startsWith("q=") || param.startsWith("Q=")) {
+                    try {
+                        q = Double.parseDouble(param.substring(2));
+                    } catch (NumberFormatException e) {
+                        q = 0;
+                    }
+                }
+            }
+            if (coding.equals("*")) {
+                wildcard = q;
+            }
+            for (ContentEncoding encoding : values()) {
+                if (encoding.token.equals(coding)) {
+                    quality[encoding.ordinal()] = q;
+                }
+            }
+        }
+
+        ContentEncoding best = IDENTITY;
+        double bestQuality = 0;
+        for (ContentEncoding encoding : values()) {
+            if (encoding == IDENTITY || !available.contains(encoding)) {
+                continue;
+            }
+            double q = quality[encoding.ordinal()] >= 0 ? quality[encoding.ordinal()] : wildcard;
+            if (q > bestQuality) {
+                best = encoding;
+                bestQuality = q;
+            }
+        }
+        // identity n'est préféré que s'il est cité avec une qualité supérieure
+        return quality[IDENTITY.ordinal()] > bestQuality ? IDENTITY : best;
+    }
+}
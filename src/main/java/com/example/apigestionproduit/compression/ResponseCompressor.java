@@ -0,0 +1,166 @@
+package com.example.apigestionproduit.compression;
+
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.EnumMap;
+import java.util.EnumSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Compression des réponses de collection (gzip, zstd) au-delà d'une taille minimale.
+ *
+ * <p>Les réponses mises en cache sont compressées une seule fois par codage : la
+ * variante compressée est elle-même conservée dans le cache des réponses. Le niveau
+ * de compression peut donc être plus élevé que pour une compression à la volée.</p>
+ *
+ * <p>Métriques, par codage :</p>
+ * <ul>
+ *   <li>{@code produits.compression.octets} (sens=entree|sortie) - volumes avant et après ;</li>
+ *   <li>{@code produits.compression.ratio} - taille compressée / taille d'origine ;</li>
+ *   <li>{@code produits.compression.cpu} - temps CPU du thread compresseur.</li>
+ * </ul>
+ */
+@Component
+public class ResponseCompressor {
+
+    static final String METRICS = "produits.compression";
+
+    private final int minSize;
+    private final int gzipLevel;
+    private final int zstdLevel;
+    private final Set<ContentEncoding> available;
+
+    private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+    private final boolean cpuTime;
+
+    private final Map<ContentEncoding, Counter> bytesIn = new EnumMap<>(ContentEncoding.class);
+    private final Map<ContentEncoding, Counter> bytesOut = new EnumMap<>(ContentEncoding.class);
+    private final Map<ContentEncoding, DistributionSummary> ratios = new EnumMap<>(ContentEncoding.class);
+    private final Map<ContentEncoding, Timer> cpu = new EnumMap<>(ContentEncoding.class);
+
+    /**
+     * Constructeur.
+     *
+     * @param registry Registre des métriques
+     * @param enabled false pour ne jamais compresser
+     * @param minSize Taille minimale, en octets, d'une réponse compressée
+     * @param gzipLevel Niveau gzip (1 à 9)
+     * @param zstdLevel Niveau zstd (1 à 22)
+     */
+    @Autowired
+    public ResponseCompressor(MeterRegistry registry,
+                              @Value("${produits.compression.enabled:true}") boolean enabled,
+                              @Value("${produits.compression.min-size:1024}") int minSize,
+                              @Value("${produits.compression.gzip-level:6}") int gzipLevel,
+                              @Value("${produits.compression.zstd-level:6}") int zstdLevel) {
+        if (gzipLevel < Deflater.BEST_SPEED || gzipLevel > Deflater.BEST_COMPRESSION) {
+            throw new IllegalArgumentException("Niveau gzip invalide: " + gzipLevel);
+        }
+        if (zstdLevel < 1 || zstdLevel > Zstd.maxCompressionLevel()) {
+            throw new IllegalArgumentException("Niveau zstd invalide: " + zstdLevel);
+        }
+        this.minSize = minSize;
+        this.gzipLevel = gzipLevel;
+        this.zstdLevel = zstdLevel;
+        this.available = enabled ? EnumSet.of(ContentEncoding.GZIP, ContentEncoding.ZSTD)
+                : EnumSet.noneOf(ContentEncoding.class);
+        this.cpuTime = threads.isCurrentThreadCpuTimeSupported() && threads.isThreadCpuTimeEnabled();
+
+        for (ContentEncoding encoding : EnumSet.of(ContentEncoding.GZIP, ContentEncoding.ZSTD)) {
+            bytesIn.put(encoding, bytes(registry, encoding, "entree"));
+            bytesOut.put(encoding, bytes(registry, encoding, "sortie"));
+            ratios.put(encoding, DistributionSummary.builder(METRICS + ".ratio")
+                    .description("Taille compressée rapportée à la taille d'origine")
+                    .tag("encodage", encoding.token())
+                    .register(registry));
+            cpu.put(encoding, Timer.builder(METRICS + ".cpu")
+                    .description("Temps CPU passé à compresser les réponses")
+                    .tag("encodage", encoding.token())
+                    .register(registry));
+        }
+    }
+
+    private static Counter bytes(MeterRegistry registry, ContentEncoding encoding, String sens) {
+        return Counter.builder(METRICS + ".octets")
+                .description("Octets des réponses compressées, avant et après compression")
+                .baseUnit("bytes")
+                .tag("encodage", encoding.token())
+                .tag("sens", sens)
+                .register(registry);
+    }
+
+    /**
+     * Codage à appliquer à une réponse.
+     *
+     * @param acceptEncoding En-tête {@code Accept-Encoding} de la requête (peut être null)
+     * @return Codage négocié, {@link ContentEncoding#IDENTITY} si la compression est désactivée
+     */
+    public ContentEncoding negotiate(String acceptEncoding) {
+        return ContentEncoding.negotiate(acceptEncoding, available);
+    }
+
+    /**
+     * Indique si une réponse de cette taille mérite d'être compressée.
+     *
+     * @param length Taille de la réponse en octets
+     * @return true au-delà de {@code produits.compression.min-size}
+     */
+    public boolean worthCompressing(int length) {
+        return length >= minSize;
+    }
+
+    /**
+     * Compresse une réponse.
+     *
+     * @param body Octets d'origine
+     * @param encoding Codage (gzip ou zstd)
+     * @return Octets compressés
+     */
+    public byte[] compress(byte[] body, ContentEncoding encoding) {
+        long start = cpuTime ? threads.getCurrentThreadCpuTime() : System.nanoTime();
+        byte[] compressed = switch (encoding) {
+            case GZIP -> gzip(body);
+            case ZSTD -> Zstd.compress(body, zstdLevel);
+            case IDENTITY -> throw new IllegalArgumentException("Codage sans compression");
+        };
+        long elapsed = (cpuTime ? threads.getCurrentThreadCpuTime() : System.nanoTime()) - start;
+
+        cpu.get(encoding).record(elapsed, TimeUnit.NANOSECONDS);
+        bytesIn.get(encoding).increment(body.length);
+        bytesOut.get(encoding).increment(compressed.length);
+        if (body.length > 0) {
+            ratios.get(encoding).record((double) compressed.length / body.length);
+        }
+        return compressed;
+    }
+
+    private byte[] gzip(byte[] body) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(Math.max(64, body.length / 4));
+        try (GZIPOutputStream gzip = new GZIPOutputStream(out, 8192) {
+            {
+                def.setLevel(gzipLevel);
+            }
+        }) {
+            gzip.write(body);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,113 @@
+package com.example.apigestionproduit.config;
+
+import com.example.apigestionproduit.admission.AdmissionFilter;
+import com.example.apigestionproduit.admission.Endpoint;
+import com.example.apigestionproduit.cluster.HashRing;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.net.InetAddress;
+import java.net.UnknownHostException;
+import java.util.EnumMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Admission des requêtes de l'API produits (propriété {@code produits.admission.enabled},
+ * active par défaut, mode servlet uniquement) : débit par client et limite adaptative
+ * de concurrence.
+ *
+ * <p>Propriétés :</p>
+ * <ul>
+ *   <li>{@code produits.admission.client.rate} / {@code client.burst} - jetons par seconde
+ *       et capacité du seau de chaque client, par classe de point d'accès ;</li>
+ *   <li>{@code produits.admission.weight.*} - coût en jetons d'une page de liste, d'une
+ *       recherche et d'une écriture (une lecture par identifiant coûte 1, un flux autant
+ *       qu'une liste, un lot une écriture par élément) ;</li>
+ *   <li>{@code produits.admission.max-clients} - nombre maximal de seaux conservés ;</li>
+ *   <li>{@code produits.admission.client-header} - en-tête identifiant le client (vide :
+ *       adresse de la connexion) ;</li>
+ *   <li>{@code produits.admission.concurrency.*} - limite de concurrence de départ,
+ *       minimale et maximale, et hausse de latence tolérée.</li>
+ * </ul>
+ */
+@Configuration
+@ConditionalOnProperty(name = "produits.admission.enabled", havingValue = "true", matchIfMissing = true)
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class AdmissionConfig {
+
+    /**
+     * Filtre d'admission, avant le routage du cluster : une requête refusée ne coûte
+     * ni transfert ni dispersion.
+     *
+     * @param registry Registre des métriques
+     * @param ring Anneau du cluster, absent hors mode réparti
+     * @param rate Jetons par seconde et par client
+     * @param burst Capacité d'un seau
+     * @param listWeight Coût d'une page de liste
+     * @param searchWeight Coût d'une recherche
+     * @param writeWeight Coût d'une écriture
+     * @param maxClients Nombre maximal de seaux conservés
+     * @param clientHeader En-tête identifiant le client
+     * @param initial Limite de concurrence de départ
+     * @param min Limite de concurrence minimale
+     * @param max Limite de concurrence maximale
+     * @param tolerance Hausse de latence tolérée
+     * @return L'enregistrement du filtre
+     */
+    @Bean
+    public FilterRegistrationBean<AdmissionFilter> admissionFilter(
+            MeterRegistry registry,
+            ObjectProvider<HashRing> ring,
+            @Value("${produits.admission.client.rate:1000}") double rate,
+            @Value("${produits.admission.client.burst:2000}") int burst,
+            @Value("${produits.admission.weight.list:10}") int listWeight,
+            @Value("${produits.admission.weight.search:5}") int searchWeight,
+            @Value("${produits.admission.weight.write:2}") int writeWeight,
+            @Value("${produits.admission.max-clients:100000}") long maxClients,
+            @Value("${produits.admission.client-header:}") String clientHeader,
+            @Value("${produits.admission.concurrency.initial:64}") int initial,
+            @Value("${produits.admission.concurrency.min:8}") int min,
+            @Value("${produits.admission.concurrency.max:1024}") int max,
+            @Value("${produits.admission.concurrency.tolerance:2.0}") double tolerance) {
+        Map<Endpoint, Integer> weights = new EnumMap<>(Endpoint.class);
+        weights.put(Endpoint.LIST, listWeight);
+        weights.put(Endpoint.SEARCH, searchWeight);
+        weights.put(Endpoint.READ, 1);
+        weights.put(Endpoint.WRITE, writeWeight);
+        weights.put(Endpoint.STREAM, listWeight);
+        AdmissionFilter filter = new AdmissionFilter(new AdmissionFilter.Settings(rate, burst, weights, maxClients,
+                clientHeader, nodeAddresses(ring.getIfAvailable()), initial, min, max, tolerance), registry);
+        FilterRegistrationBean<AdmissionFilter> registration = new FilterRegistrationBean<>(filter);
+        registration.addUrlPatterns("/api/products", "/api/products/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 5);
+        return registration;
+    }
+
+    /**
+     * Adresses des nœuds de l'anneau, seules sources reconnues des requêtes entre nœuds.
+     */
+    private static Set<String> nodeAddresses(HashRing ring) {
+        Set<String> addresses = new HashSet<>();
+        if (ring != null) {
+            for (HashRing.Node node : ring.nodes()) {
+                try {
+                    for (InetAddress address : InetAddress.getAllByName(node.uri().getHost())) {
+                        addresses.add(address.getHostAddress());
+                    }
+                } catch (UnknownHostException e) {
+                    throw new IllegalArgumentException("Nœud sans adresse: " + node.uri(), e);
+                }
+            }
+        }
+        return addresses;
+    }
+}
@@ -0,0 +1,130 @@
+package com.example.apigestionproduit.config;
+
+import com.example.apigestionproduit.cluster.HashRing;
+import com.example.apigestionproduit.cluster.ShardIdAllocator;
+import com.example.apigestionproduit.cluster.ShardRoutingFilter;
+import com.example.apigestionproduit.format.ProductFormats;
+import com.example.apigestionproduit.service.IdAllocator;
+import com.example.apigestionproduit.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.reactive.context.ReactiveWebApplicationContext;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.ApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.net.URI;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Catalogue réparti sur plusieurs nœuds (propriété {@code produits.cluster.enabled}).
+ *
+ * <p>Désactivé par défaut : un seul nœud détient tout le catalogue. Activé, chaque nœud
+ * détient la partition des produits dont l'anneau de hachage cohérent le désigne
+ * propriétaire, avec ses propres index, et route les autres requêtes
+ * ({@link ShardRoutingFilter}). Le routage est un filtre servlet : le mode réparti
+ * refuse de démarrer sur la pile réactive, où chaque nœud ne servirait que sa partition.</p>
+ *
+ * <p>Propriétés :</p>
+ * <ul>
+ *   <li>{@code produits.cluster.nodes} - nœuds, {@code nom=url} séparés par des virgules
+ *       (ex. {@code a=http://hote-a:8080,b=http://hote-b:8080}), identiques sur tous les nœuds ;</li>
+ *   <li>{@code produits.cluster.node-id} - nom du nœud courant dans cette liste ;</li>
+ *   <li>{@code produits.cluster.virtual-nodes} - points par nœud sur l'anneau ;</li>
+ *   <li>{@code produits.cluster.timeout} - délai de réponse d'un autre nœud.</li>
+ * </ul>
+ */
+@Configuration
+public class ClusterConfig {
+
+    private static final String ENABLED = "produits.cluster.enabled";
+
+    /**
+     * Anneau des nœuds du cluster.
+     *
+     * @param nodes Liste {@code nom=url} des nœuds
+     * @param virtualNodes Points par nœud sur l'anneau
+     * @param context Contexte de l'application, pour en connaître la pile web
+     * @return L'anneau
+     */
+    @Bean
+    @ConditionalOnProperty(name = ENABLED, havingValue = "true")
+    public HashRing hashRing(@Value("${produits.cluster.nodes}") String nodes,
+                             @Value("${produits.cluster.virtual-nodes:128}") int virtualNodes,
+                             ApplicationContext context) {
+        if (context instanceof ReactiveWebApplicationContext) {
+            throw new IllegalStateException(
+                    "produits.cluster.enabled requiert la pile servlet (spring.main.web-application-type=servlet)");
+        }
+        List<HashRing.Node> parsed = new ArrayList<>();
+        for (String entry : nodes.split(",")) {
+            String[] parts = entry.trim().split("=", 2);
+            if (parts.length != 2 || parts[0].isBlank() || parts[1].isBlank()) {
+                throw new IllegalArgumentException("Nœud invalide (nom=url attendu): " + entry);
+            }
+            parsed.add(new HashRing.Node(parts[0].trim(), URI.create(parts[1].trim())));
+        }
+        return new HashRing(parsed, virtualNodes);
+    }
+
+    /**
+     * Attribution des identifiants utilisée par {@code ProductService} : consécutifs
+     * sur un nœud seul, propres au nœud courant en mode réparti.
+     *
+     * @param ring Anneau du cluster, absent hors mode réparti
+     * @param nodeId Nom du nœud courant
+     * @return L'allocateur
+     */
+    @Bean
+    public IdAllocator idAllocator(ObjectProvider<HashRing> ring,
+                                   @Value("${produits.cluster.node-id:}") String nodeId) {
+        HashRing cluster = ring.getIfAvailable();
+        return cluster == null ? IdAllocator.sequential() : new ShardIdAllocator(cluster, self(cluster, nodeId));
+    }
+
+    /**
+     * Filtre de routage des requêtes vers le nœud propriétaire, ou vers tous les nœuds.
+     *
+     * @param ring Anneau du cluster
+     * @param nodeId Nom du nœud courant
+     * @param productService Catalogue de la partition locale
+     * @param formats Encodeurs des produits
+     * @param registry Registre des métriques
+     * @param timeout Délai de réponse d'un autre nœud
+     * @param maxLimit Nombre maximal de produits par page de liste
+     * @return L'enregistrement du filtre, après l'observation des requêtes HTTP
+     */
+    @Bean
+    @ConditionalOnProperty(name = ENABLED, havingValue = "true")
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ShardRoutingFilter> shardRoutingFilter(
+            HashRing ring,
+            @Value("${produits.cluster.node-id:}") String nodeId,
+            ProductService productService,
+            ProductFormats formats,
+            MeterRegistry registry,
+            @Value("${produits.cluster.timeout:PT2S}") Duration timeout,
+            @Value("${produits.list.max-limit:10000}") int maxLimit) {
+        FilterRegistrationBean<ShardRoutingFilter> registration = new FilterRegistrationBean<>(
+                new ShardRoutingFilter(ring, self(ring, nodeId), productService, formats, registry, timeout, maxLimit));
+        registration.addUrlPatterns("/api/products", "/api/products/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    private static HashRing.Node self(HashRing ring, String nodeId) {
+        HashRing.Node self = ring.node(nodeId);
+        if (self == null) {
+            throw new IllegalArgumentException(
+                    "produits.cluster.node-id doit désigner un nœud de produits.cluster.nodes: " + nodeId);
+        }
+        return self;
+    }
+}
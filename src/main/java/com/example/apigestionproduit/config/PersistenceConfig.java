@@ -0,0 +1,44 @@
+package com.example.apigestionproduit.config;
+
+import com.example.apigestionproduit.persistence.FileProductJournal;
+import com.example.apigestionproduit.persistence.ProductJournal;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+import java.time.Duration;
+
+/**
+ * Configuration de la persistance du catalogue.
+ *
+ * <p>Désactivée par défaut : le catalogue reste purement en mémoire. Avec
+ * {@code produits.persistence.enabled=true}, chaque mutation est ajoutée à un journal
+ * binaire dans {@code produits.persistence.directory} et l'état est restauré au démarrage.</p>
+ */
+@Configuration
+public class PersistenceConfig {
+
+    /**
+     * Journal de persistance utilisé par {@code ProductService}.
+     *
+     * @param enabled Active la persistance sur disque
+     * @param directory Répertoire des fichiers du journal
+     * @param fsync Force l'écriture sur disque avant de répondre (group commit)
+     * @param maxSegmentMb Taille maximale d'un segment du journal, en Mo
+     * @param snapshotInterval Intervalle entre deux snapshots (format ISO-8601, ex. PT5M)
+     * @return Le journal sur disque, ou {@link ProductJournal#NONE}
+     */
+    @Bean
+    public ProductJournal productJournal(
+            @Value("${produits.persistence.enabled:false}") boolean enabled,
+            @Value("${produits.persistence.directory:./data}") String directory,
+            @Value("${produits.persistence.fsync:true}") boolean fsync,
+            @Value("${produits.persistence.max-segment-mb:512}") long maxSegmentMb,
+            @Value("${produits.persistence.snapshot-interval:PT5M}") Duration snapshotInterval) {
+        if (!enabled) {
+            return ProductJournal.NONE;
+        }
+        return new FileProductJournal(Path.of(directory), fsync, maxSegmentMb * 1024 * 1024, snapshotInterval);
+    }
+}
@@ -0,0 +1,39 @@
+package com.example.apigestionproduit.config;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerCodecConfigurer;
+import org.springframework.http.codec.json.Jackson2JsonEncoder;
+import org.springframework.web.reactive.config.WebFluxConfigurer;
+
+/**
+ * Configuration de la pile réactive ({@code spring.main.web-application-type=reactive}).
+ *
+ * <p>Le mapper de l'application indente le JSON ({@code spring.jackson.serialization.indent-output}) :
+ * en NDJSON, un produit indenté s'étendrait sur plusieurs lignes. Les flux NDJSON sont
+ * donc écrits par un encodeur compact, enregistré avant l'encodeur JSON par défaut.</p>
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveConfig implements WebFluxConfigurer {
+
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Constructeur.
+     *
+     * @param objectMapper Mapper JSON configuré par Spring
+     */
+    public ReactiveConfig(ObjectMapper objectMapper) {
+        this.objectMapper = objectMapper;
+    }
+
+    @Override
+    public void configureHttpMessageCodecs(ServerCodecConfigurer configurer) {
+        ObjectMapper compact = objectMapper.copy().disable(SerializationFeature.INDENT_OUTPUT);
+        configurer.customCodecs().register(new Jackson2JsonEncoder(compact, MediaType.APPLICATION_NDJSON));
+    }
+}
@@ -0,0 +1,129 @@
+package com.example.apigestionproduit.config;
+
+import com.example.apigestionproduit.replication.ReactiveReplicaFilter;
+import com.example.apigestionproduit.replication.ReplicaFilter;
+import com.example.apigestionproduit.replication.ReplicationClient;
+import com.example.apigestionproduit.replication.ReplicationProtocol;
+import com.example.apigestionproduit.replication.ReplicationServer;
+import com.example.apigestionproduit.service.ProductService;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.boot.web.servlet.FilterRegistrationBean;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.core.Ordered;
+
+import java.time.Duration;
+
+/**
+ * Réplication du catalogue vers des répliques en lecture seule
+ * (propriété {@code produits.replication.role}).
+ *
+ * <ul>
+ *   <li>{@code none} (défaut) - nœud autonome ;</li>
+ *   <li>{@code primary} - accepte les écritures et diffuse ses modifications sur
+ *       {@code produits.replication.address} ;</li>
+ *   <li>{@code replica} - suit le primaire à cette adresse et ne sert que des lectures,
+ *       tant que son retard reste sous {@code produits.replication.max-staleness}
+ *       (filtre servlet ou réactif selon la pile web).</li>
+ * </ul>
+ *
+ * <p>L'adresse est {@code hote:port} (TCP) ou le chemin d'un socket de domaine Unix,
+ * pour un primaire et des répliques sur la même machine.</p>
+ */
+@Configuration
+public class ReplicationConfig {
+
+    private static final String ROLE = "produits.replication.role";
+
+    /**
+     * Diffusion des modifications du primaire, arrêtée avec le contexte ({@code close}).
+     *
+     * @param productService Catalogue du primaire
+     * @param registry Registre des métriques
+     * @param address Adresse d'écoute du canal de réplication
+     * @param heartbeat Intervalle maximal entre deux battements
+     * @return Le serveur de réplication
+     */
+    @Bean
+    @ConditionalOnProperty(name = ROLE, havingValue = "primary")
+    public ReplicationServer replicationServer(
+            ProductService productService,
+            MeterRegistry registry,
+            @Value("${produits.replication.address:./data/replication.sock}") String address,
+            @Value("${produits.replication.heartbeat:PT0.2S}") Duration heartbeat) {
+        return new ReplicationServer(productService, registry, ReplicationProtocol.address(address),
+                heartbeat.toMillis());
+    }
+
+    /**
+     * Suivi du primaire par une réplique, arrêté avec le contexte ({@code close}).
+     *
+     * @param productService Catalogue local de la réplique
+     * @param registry Registre des métriques
+     * @param address Adresse du canal de réplication du primaire
+     * @param reconnectDelay Attente avant une nouvelle connexion au primaire
+     * @return Le client de réplication
+     */
+    @Bean
+    @ConditionalOnProperty(name = ROLE, havingValue = "replica")
+    public ReplicationClient replicationClient(
+            ProductService productService,
+            MeterRegistry registry,
+            @Value("${produits.replication.address:./data/replication.sock}") String address,
+            @Value("${produits.replication.reconnect-delay:PT1S}") Duration reconnectDelay) {
+        return new ReplicationClient(productService, registry, ReplicationProtocol.address(address),
+                reconnectDelay.toMillis());
+    }
+
+    /**
+     * Accès en lecture seule à la réplique, dans la borne de fraîcheur.
+     *
+     * @param client Suivi du primaire
+     * @param maxStaleness Retard maximal toléré pour servir une lecture
+     * @param heartbeat Intervalle des battements du primaire
+     * @return L'enregistrement du filtre
+     */
+    @Bean
+    @ConditionalOnProperty(name = ROLE, havingValue = "replica")
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+    public FilterRegistrationBean<ReplicaFilter> replicaFilter(
+            ReplicationClient client,
+            @Value("${produits.replication.max-staleness:PT2S}") Duration maxStaleness,
+            @Value("${produits.replication.heartbeat:PT0.2S}") Duration heartbeat) {
+        FilterRegistrationBean<ReplicaFilter> registration = new FilterRegistrationBean<>(
+                new ReplicaFilter(client, maxStalenessMillis(maxStaleness, heartbeat)));
+        registration.addUrlPatterns("/api/products", "/api/products/*");
+        registration.setOrder(Ordered.HIGHEST_PRECEDENCE + 10);
+        return registration;
+    }
+
+    /**
+     * Mêmes règles d'accès sur la pile réactive.
+     *
+     * @param client Suivi du primaire
+     * @param maxStaleness Retard maximal toléré pour servir une lecture
+     * @param heartbeat Intervalle des battements du primaire
+     * @return Le filtre
+     */
+    @Bean
+    @ConditionalOnProperty(name = ROLE, havingValue = "replica")
+    @ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+    public ReactiveReplicaFilter reactiveReplicaFilter(
+            ReplicationClient client,
+            @Value("${produits.replication.max-staleness:PT2S}") Duration maxStaleness,
+            @Value("${produits.replication.heartbeat:PT0.2S}") Duration heartbeat) {
+        return new ReactiveReplicaFilter(client, maxStalenessMillis(maxStaleness, heartbeat));
+    }
+
+    private static long maxStalenessMillis(Duration maxStaleness, Duration heartbeat) {
+        if (maxStaleness.compareTo(heartbeat) <= 0) {
+            // Un primaire sans écriture n'envoie qu'un battement par intervalle
+            throw new IllegalArgumentException(
+                    "produits.replication.max-staleness doit dépasser produits.replication.heartbeat");
+        }
+        return maxStaleness.toMillis();
+    }
+}
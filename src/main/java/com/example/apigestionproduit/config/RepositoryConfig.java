@@ -0,0 +1,46 @@
+package com.example.apigestionproduit.config;
+
+import com.example.apigestionproduit.repository.InMemoryProductRepository;
+import com.example.apigestionproduit.repository.OffHeapProductRepository;
+import com.example.apigestionproduit.repository.ProductRepository;
+import com.example.apigestionproduit.repository.SlabAllocator;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.nio.file.Path;
+
+/**
+ * Sélection du moteur de stockage des produits.
+ *
+ * <p>Propriété {@code produits.storage.engine} :</p>
+ * <ul>
+ *   <li>{@code memory} (défaut) - ConcurrentHashMap sur le tas</li>
+ *   <li>{@code offheap} - produits sérialisés en mémoire directe, hors tas</li>
+ *   <li>{@code mapped} - produits sérialisés dans des fichiers projetés en mémoire
+ *       ({@code produits.storage.directory}) ; la durabilité reste assurée par le journal</li>
+ * </ul>
+ */
+@Configuration
+public class RepositoryConfig {
+
+    /**
+     * Moteur de stockage utilisé par {@code ProductService}.
+     *
+     * @param engine Nom du moteur : memory, offheap ou mapped
+     * @param directory Répertoire des fichiers de blocs du moteur mapped
+     * @return Le moteur de stockage configuré
+     */
+    @Bean
+    public ProductRepository productRepository(
+            @Value("${produits.storage.engine:memory}") String engine,
+            @Value("${produits.storage.directory:./data/slabs}") String directory) {
+        return switch (engine) {
+            case "memory" -> new InMemoryProductRepository();
+            case "offheap" -> new OffHeapProductRepository(SlabAllocator.direct());
+            case "mapped" -> new OffHeapProductRepository(SlabAllocator.mappedFiles(Path.of(directory)));
+            default -> throw new IllegalArgumentException(
+                    "Moteur de stockage inconnu (memory, offheap ou mapped attendu): " + engine);
+        };
+    }
+}
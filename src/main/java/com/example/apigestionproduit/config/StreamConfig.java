@@ -0,0 +1,57 @@
+package com.example.apigestionproduit.config;
+
+import com.example.apigestionproduit.service.ProductService;
+import com.example.apigestionproduit.stream.ProductChangeStream;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+
+import java.time.Duration;
+
+/**
+ * Configuration du flux SSE des modifications du catalogue ({@code GET /api/products/stream}).
+ *
+ * <p>Les connexions sont des requêtes asynchrones du conteneur : leur nombre n'est pas
+ * limité par les threads, seulement par {@code produits.stream.max-subscribers}.</p>
+ *
+ * <p>Le flux repose sur {@code SseEmitter} : il n'est créé qu'en mode servlet.</p>
+ */
+@Configuration
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
+public class StreamConfig {
+
+    /**
+     * Diffuseur des modifications, arrêté avec le contexte ({@code close}).
+     *
+     * @param productService Service dont les modifications sont diffusées
+     * @param objectMapper Mapper JSON configuré par Spring (les événements sont compacts)
+     * @param registry Registre des métriques
+     * @param bufferSize Produits en attente par abonné avant déconnexion d'un abonné trop lent
+     * @param maxSubscribers Nombre maximal d'abonnés simultanés
+     * @param senderThreads Threads d'envoi vers les connexions
+     * @param timeout Durée maximale d'une connexion (le client se reconnecte avec Last-Event-ID)
+     * @param heartbeat Intervalle des commentaires de maintien de connexion
+     * @param sendTimeout Durée maximale d'un envoi avant l'abandon d'un abonné qui ne lit plus
+     * @return Le diffuseur
+     */
+    @Bean
+    public ProductChangeStream productChangeStream(
+            ProductService productService,
+            ObjectMapper objectMapper,
+            MeterRegistry registry,
+            @Value("${produits.stream.buffer-size:1024}") int bufferSize,
+            @Value("${produits.stream.max-subscribers:10000}") int maxSubscribers,
+            @Value("${produits.stream.sender-threads:8}") int senderThreads,
+            @Value("${produits.stream.timeout:PT30M}") Duration timeout,
+            @Value("${produits.stream.heartbeat:PT15S}") Duration heartbeat,
+            @Value("${produits.stream.send-timeout:PT5S}") Duration sendTimeout) {
+        return new ProductChangeStream(productService,
+                objectMapper.writer().without(SerializationFeature.INDENT_OUTPUT),
+                registry, bufferSize, maxSubscribers, senderThreads, timeout.toMillis(), heartbeat.toMillis(),
+                sendTimeout.toMillis());
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.apigestionproduit.config;
+
+import com.example.apigestionproduit.format.ProductFormats;
+import com.example.apigestionproduit.format.ProtobufProductHttpMessageConverter;
+import com.example.apigestionproduit.format.WireFormat;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.http.converter.HttpMessageConverter;
+import org.springframework.http.converter.cbor.MappingJackson2CborHttpMessageConverter;
+import org.springframework.http.converter.smile.MappingJackson2SmileHttpMessageConverter;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+import java.util.List;
+
+/**
+ * Convertisseurs HTTP des formats binaires négociés par l'en-tête Accept
+ * (et lus selon Content-Type) : Smile, CBOR et Protobuf.
+ *
+ * <p>Déclarés en beans, les convertisseurs Smile et CBOR remplacent ceux de Spring MVC,
+ * construits sans la configuration {@code spring.jackson.*}, à la même position : après
+ * JSON, qui reste le format choisi quand le client accepte tout. Pour la même raison,
+ * le convertisseur Protobuf est ajouté en fin de liste plutôt que déclaré en bean
+ * (Spring Boot placerait un nouveau bean en tête).</p>
+ */
+@Configuration
+public class WireFormatConfig implements WebMvcConfigurer {
+
+    private final ProductFormats formats;
+
+    /**
+     * Constructeur.
+     *
+     * @param formats Encodeurs des produits
+     */
+    public WireFormatConfig(ProductFormats formats) {
+        this.formats = formats;
+    }
+
+    /**
+     * Convertisseur {@code application/x-jackson-smile}.
+     *
+     * @return Le convertisseur
+     */
+    @Bean
+    public MappingJackson2SmileHttpMessageConverter smileHttpMessageConverter() {
+        return new MappingJackson2SmileHttpMessageConverter(formats.mapper(WireFormat.SMILE));
+    }
+
+    /**
+     * Convertisseur {@code application/cbor}.
+     *
+     * @return Le convertisseur
+     */
+    @Bean
+    public MappingJackson2CborHttpMessageConverter cborHttpMessageConverter() {
+        return new MappingJackson2CborHttpMessageConverter(formats.mapper(WireFormat.CBOR));
+    }
+
+    /**
+     * Ajoute le convertisseur {@code application/x-protobuf} des produits.
+     *
+     * @param converters Convertisseurs de Spring MVC
+     */
+    @Override
+    public void extendMessageConverters(List<HttpMessageConverter<?>> converters) {
+        converters.add(new ProtobufProductHttpMessageConverter(formats));
+    }
+}
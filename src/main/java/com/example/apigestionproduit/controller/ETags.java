@@ -0,0 +1,110 @@
+package com.example.apigestionproduit.controller;
+
+import com.example.apigestionproduit.format.WireFormat;
+import com.example.apigestionproduit.service.ProductService;
+
+import java.util.Locale;
+
+/**
+ * ETags de version des produits, communs aux contrôleurs servlet et réactif.
+ */
+final class ETags {
+
+    /**
+     * Version d'un If-Match ne désignant aucune version possible.
+     */
+    static final long INVALID_VERSION = -2;
+
+    private ETags() {
+    }
+
+    /**
+     * ETag fort d'une version de produit.
+     *
+     * @param version Version du produit
+     * @return ETag entre guillemets, par exemple {@code "3"}
+     */
+    static String eTag(long version) {
+        return "\"" + version + "\"";
+    }
+
+    /**
+     * ETag fort d'une version de produit dans un format d'échange : chaque format a ses
+     * propres octets. JSON garde l'ETag sans suffixe.
+     *
+     * @param version Version du produit
+     * @param format Format de la représentation
+     * @return ETag entre guillemets, par exemple {@code "3"} ou {@code "3-cbor"}
+     */
+    static String eTag(long version, WireFormat format) {
+        if (format == WireFormat.JSON) {
+            return eTag(version);
+        }
+        return "\"" + version + suffix(format) + "\"";
+    }
+
+    /**
+     * ETag d'une collection : la version du catalogue, préfixée par l'instance
+     * (la version repart de zéro à chaque démarrage).
+     *
+     * @param instance Identifiant de l'instance
+     * @param catalogVersion Version du catalogue
+     * @return ETag entre guillemets, par exemple {@code "lx2k9a-42"}
+     */
+    static String catalogETag(String instance, long catalogVersion) {
+        return "\"" + instance + "-" + catalogVersion + "\"";
+    }
+
+    /**
+     * ETag d'une collection dans un format d'échange : les représentations JSON, Smile,
+     * CBOR et Protobuf diffèrent, elles ne partagent pas un même ETag fort. JSON garde
+     * l'ETag sans suffixe.
+     *
+     * @param instance Identifiant de l'instance
+     * @param catalogVersion Version du catalogue
+     * @param format Format de la représentation
+     * @return ETag entre guillemets, par exemple {@code "lx2k9a-42-cbor"}
+     */
+    static String catalogETag(String instance, long catalogVersion, WireFormat format) {
+        if (format == WireFormat.JSON) {
+            return catalogETag(instance, catalogVersion);
+        }
+        return "\"" + instance + "-" + catalogVersion + suffix(format) + "\"";
+    }
+
+    private static String suffix(WireFormat format) {
+        return "-" + format.name().toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Interprète l'en-tête If-Match d'une modification.
+     *
+     * @param ifMatch Valeur de l'en-tête (peut être null)
+     * @return {@link ProductService#ANY_VERSION} si absent ou {@code *}, la version
+     *         désignée (quel que soit le format de l'ETag), ou {@link #INVALID_VERSION}
+     *         si la valeur n'est pas un ETag de version
+     */
+    static long parseIfMatch(String ifMatch) {
+        if (ifMatch == null || ifMatch.isBlank() || ifMatch.trim().equals("*")) {
+            return ProductService.ANY_VERSION;
+        }
+        String value = ifMatch.trim();
+        // Les ETags faibles ne sont pas admis par If-Match (comparaison forte, RFC 9110)
+        if (value.length() < 3 || value.charAt(0) != '"' || value.charAt(value.length() - 1) != '"') {
+            return INVALID_VERSION;
+        }
+        String tag = value.substring(1, value.length() - 1);
+        for (WireFormat format : WireFormat.values()) {
+            if (format != WireFormat.JSON && tag.endsWith(suffix(format))) {
+                tag = tag.substring(0, tag.length() - suffix(format).length());
+                break;
+            }
+        }
+        try {
+            long version = Long.parseLong(tag);
+            return version > 0 ? version : INVALID_VERSION;
+        } catch (NumberFormatException e) {
+            return INVALID_VERSION;
+        }
+    }
+}
@@ -1,13 +1,50 @@
 package com.example.apigestionproduit.controller;
+import com.example.apigestionproduit.admission.AdmissionFilter;
+import com.example.apigestionproduit.cache.ProductResponseCache;
+import com.example.apigestionproduit.cache.ProductResponseCache.CachedResponse;
+import com.example.apigestionproduit.compression.ContentEncoding;
+import com.example.apigestionproduit.compression.ResponseCompressor;
+import com.example.apigestionproduit.format.ProductFormats;
+import com.example.apigestionproduit.format.WireFormat;
+import com.example.apigestionproduit.model.BatchItemResult;
 import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.model.ProductChange;
+import com.example.apigestionproduit.model.ProductFacets;
+import com.example.apigestionproduit.model.ProductQuery;
+import com.example.apigestionproduit.model.StockLine;
+import com.example.apigestionproduit.service.InsufficientStockException;
 import com.example.apigestionproduit.service.ProductService;
+import com.example.apigestionproduit.service.VersionConflictException;
+import com.example.apigestionproduit.stream.ProductChangeStream;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.JsonParseException;
+import com.fasterxml.jackson.core.JsonParser;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.core.JsonToken;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
 import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+import org.springframework.web.servlet.support.ServletUriComponentsBuilder;
 
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.Optional;
+import java.util.function.Function;
+import java.util.function.Supplier;
 
 /**
  * Contrôleur REST pour la gestion des produits.
@@ -17,15 +54,34 @@ import java.util.Optional;
  *
  * <p>Endpoints disponibles:</p>
  * <ul>
- *   <li>GET    /api/products           - Liste tous les produits</li>
+ *   <li>GET    /api/products           - Liste tous les produits (paginée par curseur ou en NDJSON)</li>
  *   <li>GET    /api/products/{id}      - Récupère un produit par ID</li>
  *   <li>POST   /api/products           - Crée un nouveau produit</li>
  *   <li>PUT    /api/products/{id}      - Met à jour un produit</li>
  *   <li>DELETE /api/products/{id}      - Supprime un produit</li>
  *   <li>GET    /api/products/search    - Recherche par nom</li>
+ *   <li>GET    /api/products/search?q= - Recherche par pertinence (nom, catégorie, description)</li>
+ *   <li>GET    /api/products/changes   - Modifications depuis une séquence</li>
+ *   <li>GET    /api/products/stream    - Flux SSE des modifications</li>
  *   <li>GET    /api/products/categorie/{categorie} - Filtre par catégorie</li>
+ *   <li>GET    /api/products/query     - Requête par prix, stock, catégorie, triée</li>
+ *   <li>GET    /api/products/facets    - Décomptes par catégorie, tranche de prix et disponibilité</li>
+ *   <li>POST   /api/products/batch     - Crée des produits par lot</li>
+ *   <li>PUT    /api/products/batch     - Met à jour des produits par lot</li>
+ *   <li>DELETE /api/products/batch     - Supprime des produits par lot</li>
+ *   <li>POST   /api/products/{id}/stock/reserve - Réserve du stock</li>
+ *   <li>POST   /api/products/{id}/stock/release - Libère du stock</li>
+ *   <li>POST   /api/products/stock/reserve      - Réserve plusieurs lignes (tout ou rien)</li>
  * </ul>
  *
+ * <p>Formats : JSON par défaut ; Smile ({@code application/x-jackson-smile}), CBOR
+ * ({@code application/cbor}) et, pour les produits, Protobuf ({@code application/x-protobuf},
+ * schéma {@code proto/product.proto}) sont négociés par les en-têtes Accept et Content-Type.</p>
+ *
+ * <p>Actif dans le mode servlet par défaut ; en mode réactif
+ * ({@code spring.main.web-application-type=reactive}), {@link ReactiveProductController}
+ * le remplace.</p>
+ *
  * @author Votre Nom
  * @version 1.0
  * @since 2025-01-01
@@ -33,6 +89,7 @@ import java.util.Optional;
 @RestController
 @RequestMapping("/api/products")
 @CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.SERVLET)
 public class ProductController {
 
     /**
@@ -40,22 +97,124 @@ public class ProductController {
      */
     private final ProductService productService;
 
+    /**
+     * Mapper JSON configuré par Spring, utilisé pour la lecture des lots en flux.
+     */
+    private final ObjectMapper objectMapper;
+
+    /**
+     * Writer JSON compact (sans indentation) pour les réponses écrites en flux.
+     */
+    private final ObjectWriter compactWriter;
+
+    /**
+     * Encodeurs des produits dans les formats négociés (JSON, Smile, CBOR, Protobuf).
+     */
+    private final ProductFormats formats;
+
+    /**
+     * Cache des réponses sérialisées de liste, de recherche et de catégorie.
+     */
+    private final ProductResponseCache responseCache;
+
+    /**
+     * Compression des réponses de collection, conservées compressées dans le cache.
+     */
+    private final ResponseCompressor compressor;
+
+    /**
+     * Diffuseur SSE des modifications du catalogue.
+     */
+    private final ProductChangeStream changeStream;
+
+    /**
+     * Nombre maximal de produits par réponse de liste.
+     * Plafonne aussi la liste non paginée des anciens clients.
+     */
+    private final int maxLimit;
+
+    /**
+     * Identifiant de l'instance, préfixe des ETags de collection : la version du
+     * catalogue repart de zéro à chaque démarrage.
+     */
+    private final String catalogInstance = Long.toString(System.currentTimeMillis(), 36);
+
+    /**
+     * Taille des pages lues dans le service pendant un export NDJSON.
+     */
+    private static final int NDJSON_PAGE_SIZE = 1000;
+
+    /**
+     * Nombre d'éléments d'un lot lus avant application au service.
+     */
+    private static final int BATCH_CHUNK_SIZE = 1000;
+
+    /**
+     * Type de contenu du flux NDJSON (un produit JSON par ligne).
+     */
+    public static final String APPLICATION_NDJSON = "application/x-ndjson";
+
+    /**
+     * En-tête portant la séquence publiée du catalogue (synchronisation incrémentale).
+     */
+    public static final String CATALOG_SEQUENCE = "X-Catalog-Sequence";
+
     /**
      * Constructeur avec injection de dépendances.
      *
      * @param productService Service de gestion des produits
+     * @param objectMapper Mapper JSON configuré par Spring
+     * @param formats Encodeurs des formats négociés
+     * @param responseCache Cache des réponses de liste, de recherche et de catégorie
+     * @param compressor Compression des réponses de collection
+     * @param changeStream Diffuseur SSE des modifications
+     * @param maxLimit Nombre maximal de produits par réponse de liste
+     *                 (propriété {@code produits.list.max-limit})
      */
     @Autowired
-    public ProductController(ProductService productService) {
+    public ProductController(ProductService productService,
+                             ObjectMapper objectMapper,
+                             ProductFormats formats,
+                             ProductResponseCache responseCache,
+                             ResponseCompressor compressor,
+                             ProductChangeStream changeStream,
+                             @Value("${produits.list.max-limit:10000}") int maxLimit) {
         this.productService = productService;
+        this.objectMapper = objectMapper;
+        this.compactWriter = objectMapper.writer()
+                .without(SerializationFeature.INDENT_OUTPUT)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
+        this.formats = formats;
+        this.responseCache = responseCache;
+        this.compressor = compressor;
+        this.changeStream = changeStream;
+        this.maxLimit = maxLimit;
     }
 
     /**
-     * Récupère la liste complète de tous les produits.
+     * Récupère la liste des produits, triée par identifiant.
+     *
+     * <p><b>Endpoint:</b> GET /api/products?after={id}&amp;limit={n}</p>
      *
-     * <p><b>Endpoint:</b> GET /api/products</p>
+     * <p>Pagination par curseur : {@code after} est le dernier identifiant de la page
+     * précédente. Lorsqu'il reste des produits, l'en-tête {@code Link} (rel="next")
+     * donne l'URL de la page suivante. Sans paramètre, le comportement historique est
+     * conservé, plafonné à {@code produits.list.max-limit} produits.</p>
      *
-     * @return ResponseEntity contenant la liste des produits (200 OK)
+     * <p>Réponse conditionnelle : l'ETag est la version du catalogue. Tant qu'aucun
+     * produit n'a changé, {@code If-None-Match} (ou {@code If-Modified-Since}) reçoit
+     * 304 NOT MODIFIED, sans lecture du catalogue ni sérialisation.</p>
+     *
+     * <p>Format négocié par {@code Accept} : JSON par défaut, ou {@code application/x-jackson-smile},
+     * {@code application/cbor} et {@code application/x-protobuf} pour le trafic entre services.
+     * Au-delà de {@code produits.compression.min-size} octets, la réponse est compressée
+     * (zstd ou gzip, selon {@code Accept-Encoding}) une seule fois par version du catalogue.</p>
+     *
+     * @param after Dernier identifiant déjà reçu (optionnel)
+     * @param limit Nombre maximal de produits (optionnel, plafonné)
+     * @param request Requête HTTP (en-têtes conditionnels, Accept)
+     * @return ResponseEntity contenant la liste des produits (200 OK), 304 NOT MODIFIED
+     *         ou 400 BAD REQUEST si limit &lt;= 0
      *
      * <p><b>Exemple de réponse:</b></p>
      * <pre>
@@ -72,9 +231,363 @@ public class ProductController {
      * </pre>
      */
     @GetMapping
-    public ResponseEntity<List<Product>> getAllProducts() {
-        List<Product> products = productService.getAllProducts();
-        return ResponseEntity.ok(products);
+    public ResponseEntity<byte[]> getAllProducts(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            HttpServletRequest request) {
+
+        if (limit != null && limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = limit == null ? maxLimit : Math.min(limit, maxLimit);
+
+        WireFormat format = WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        // Version lue avant le calcul : la réponse est au moins aussi récente qu'elle
+        String etag = catalogETag(format);
+        long lastModified = productService.getCatalogLastModified();
+        if (notModified(request, etag, lastModified)) {
+            return notModifiedResponse(etag, lastModified, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        }
+
+        CachedResponse page = cached((encoding, loader) -> responseCache.page(after, pageSize, format, encoding, loader),
+                request, () -> {
+                    // Un produit de plus que demandé indique s'il existe une page suivante
+                    List<Product> products = productService.getProductsPage(after, pageSize + 1);
+                    if (products.size() <= pageSize) {
+                        return CachedResponse.of(formats.writeProducts(products, format));
+                    }
+                    long nextId = products.get(pageSize).getId();
+                    products = products.subList(0, pageSize);
+                    return new CachedResponse(formats.writeProducts(products, format),
+                            products.get(pageSize - 1).getId(), nextId);
+                });
+        if (!page.hasNext()) {
+            return encodedResponse(page, format, etag, lastModified).body(page.body());
+        }
+
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("after", page.lastId())
+                .replaceQueryParam("limit", pageSize)
+                .toUriString();
+        return encodedResponse(page, format, etag, lastModified)
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(page.body());
+    }
+
+    /**
+     * Accès au cache des réponses pour un codage de contenu donné.
+     */
+    @FunctionalInterface
+    private interface CacheLookup {
+        CachedResponse get(ContentEncoding encoding, Supplier<CachedResponse> loader);
+    }
+
+    /**
+     * Réponse en cache dans le codage négocié par {@code Accept-Encoding}.
+     *
+     * <p>La variante compressée est une entrée distincte du cache : elle est compressée
+     * une fois, puis servie telle quelle jusqu'à la prochaine modification concernée.
+     * Elle est calculée à partir du catalogue et non de l'entrée non compressée, qui
+     * pourrait être en cours d'invalidation.</p>
+     */
+    private CachedResponse cached(CacheLookup cache, HttpServletRequest request, Supplier<CachedResponse> loader) {
+        CachedResponse identity = cache.get(ContentEncoding.IDENTITY, loader);
+        ContentEncoding encoding = compressor.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding == ContentEncoding.IDENTITY || !compressor.worthCompressing(identity.body().length)) {
+            return identity;
+        }
+        return cache.get(encoding, () -> {
+            CachedResponse fresh = loader.get();
+            return fresh.withBody(compressor.compress(fresh.body(), encoding), encoding);
+        });
+    }
+
+    /**
+     * En-têtes d'une collection déjà encodée : type de contenu et codage. La réponse
+     * dépend de Accept et de Accept-Encoding, ce que {@code Vary} signale aux caches HTTP.
+     * Une variante compressée porte un ETag faible : même représentation, octets différents.
+     */
+    private static ResponseEntity.BodyBuilder encodedResponse(CachedResponse response, WireFormat format,
+                                                              String etag, long lastModified) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.ok()
+                .lastModified(lastModified)
+                .varyBy(HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING)
+                .contentType(format.mediaType());
+        if (response.encoding() == ContentEncoding.IDENTITY) {
+            return builder.eTag(etag);
+        }
+        return builder.eTag("W/" + etag)
+                .header(HttpHeaders.CONTENT_ENCODING, response.encoding().token());
+    }
+
+    /**
+     * ETag fort des réponses de collection : instance et version du catalogue, et
+     * format de la représentation (chaque format a ses propres octets).
+     */
+    private String catalogETag(WireFormat format) {
+        return ETags.catalogETag(catalogInstance, productService.getCatalogVersion(), format);
+    }
+
+    /**
+     * Évalue les en-têtes conditionnels d'un GET (RFC 9110) : {@code If-None-Match}
+     * prime ; à défaut, {@code If-Modified-Since} est comparé à la seconde près.
+     *
+     * @param request Requête HTTP
+     * @param etag ETag courant de la ressource
+     * @param lastModified Date de dernière modification (epoch millis)
+     * @return true si le client possède déjà la représentation courante
+     */
+    private static boolean notModified(HttpServletRequest request, String etag, long lastModified) {
+        String ifNoneMatch = request.getHeader(HttpHeaders.IF_NONE_MATCH);
+        if (ifNoneMatch != null) {
+            for (String tag : ifNoneMatch.split(",")) {
+                String value = tag.trim();
+                // Comparaison faible, comme l'exige If-None-Match
+                if (value.startsWith("W/")) {
+                    value = value.substring(2);
+                }
+                if (value.equals("*") || value.equals(etag)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+        try {
+            long ifModifiedSince = request.getDateHeader(HttpHeaders.IF_MODIFIED_SINCE);
+            return ifModifiedSince >= 0 && lastModified / 1000 * 1000 <= ifModifiedSince;
+        } catch (IllegalArgumentException e) {
+            // Date illisible : l'en-tête est ignoré
+            return false;
+        }
+    }
+
+    /**
+     * Réponse 304 : ETag, date de modification et, comme la réponse 200 qu'elle remplace,
+     * les en-têtes de requête dont dépend la représentation ({@code Vary}).
+     */
+    private static <T> ResponseEntity<T> notModifiedResponse(String etag, long lastModified, String... vary) {
+        ResponseEntity.BodyBuilder builder = ResponseEntity.status(HttpStatus.NOT_MODIFIED);
+        if (vary.length > 0) {
+            builder.varyBy(vary);
+        }
+        return builder.eTag(etag)
+                .lastModified(lastModified)
+                .build();
+    }
+
+    /**
+     * Exporte tout le catalogue en NDJSON (un produit JSON compact par ligne).
+     *
+     * <p><b>Endpoint:</b> GET /api/products avec {@code Accept: application/x-ndjson}</p>
+     *
+     * <p>Les produits sont lus par pages de {@value #NDJSON_PAGE_SIZE} et écrits
+     * directement dans le flux de réponse : la mémoire utilisée reste bornée quelle
+     * que soit la taille du catalogue.</p>
+     *
+     * @param after Dernier identifiant déjà reçu, pour reprendre un export (optionnel)
+     * @return ResponseEntity avec le flux NDJSON (200 OK)
+     */
+    @GetMapping(produces = APPLICATION_NDJSON)
+    public ResponseEntity<StreamingResponseBody> streamAllProducts(
+            @RequestParam(value = "after", required = false) Long after) {
+
+        StreamingResponseBody body = outputStream -> {
+            JsonGenerator generator = compactWriter.getFactory().createGenerator(outputStream);
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            // Les valeurs sont séparées par le saut de ligne, pas par l'espace par défaut
+            generator.setRootValueSeparator(null);
+
+            Long cursor = after;
+            List<Product> page = productService.getProductsPage(cursor, NDJSON_PAGE_SIZE);
+            while (!page.isEmpty()) {
+                for (Product product : page) {
+                    compactWriter.writeValue(generator, product);
+                    generator.writeRaw('\n');
+                }
+                generator.flush();
+                cursor = page.get(page.size() - 1).getId();
+                page = productService.getProductsPage(cursor, NDJSON_PAGE_SIZE);
+            }
+            generator.close();
+        };
+
+        return ResponseEntity.ok()
+                .contentType(MediaType.parseMediaType(APPLICATION_NDJSON))
+                .body(body);
+    }
+
+    /**
+     * Synchronisation incrémentale : modifications postérieures à une séquence.
+     *
+     * <p><b>Endpoint:</b> GET /api/products/changes?since={sequence}&amp;limit={n}</p>
+     *
+     * <p>Chaque création, modification ou suppression porte un numéro de séquence
+     * croissant ; une suppression est une pierre tombale sans produit. Le client
+     * rejoue les événements dans l'ordre puis repart de la séquence du dernier reçu.
+     * Lorsqu'il en reste, l'en-tête {@code Link} (rel="next") donne la page suivante.</p>
+     *
+     * <p>Seules les dernières modifications sont conservées ({@code produits.changes.capacity}).
+     * Si {@code since} est sorti de cette fenêtre (ou provient d'une autre instance),
+     * la réponse est 410 GONE : le client relit alors le catalogue complet, puis repart
+     * de la séquence de l'en-tête {@value #CATALOG_SEQUENCE}, à lire avant ce téléchargement.</p>
+     *
+     * @param since Dernière séquence déjà appliquée
+     * @param limit Nombre maximal d'événements (optionnel, plafonné)
+     * @return ResponseEntity avec les événements (200 OK), 400 BAD REQUEST si limit &lt;= 0
+     *         ou 410 GONE si une resynchronisation complète est nécessaire
+     */
+    @GetMapping("/changes")
+    public ResponseEntity<List<ProductChange>> getChanges(
+            @RequestParam("since") long since,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+
+        if (limit != null && limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        int pageSize = limit == null ? maxLimit : Math.min(limit, maxLimit);
+
+        long published = productService.getPublishedSequence();
+        Optional<List<ProductChange>> changes = productService.getChangesSince(since, pageSize + 1);
+        if (changes.isEmpty()) {
+            return ResponseEntity.status(HttpStatus.GONE)
+                    .header(CATALOG_SEQUENCE, Long.toString(published))
+                    .build();
+        }
+
+        List<ProductChange> page = changes.get();
+        if (page.size() <= pageSize) {
+            return ResponseEntity.ok()
+                    .header(CATALOG_SEQUENCE, Long.toString(published))
+                    .body(page);
+        }
+        page = page.subList(0, pageSize);
+        String next = ServletUriComponentsBuilder.fromCurrentRequest()
+                .replaceQueryParam("since", page.get(pageSize - 1).getSequence())
+                .replaceQueryParam("limit", pageSize)
+                .toUriString();
+        return ResponseEntity.ok()
+                .header(CATALOG_SEQUENCE, Long.toString(published))
+                .header(HttpHeaders.LINK, "<" + next + ">; rel=\"next\"")
+                .body(page);
+    }
+
+    /**
+     * Flux des modifications en Server-Sent Events.
+     *
+     * <p><b>Endpoint:</b> GET /api/products/stream ({@code Accept: text/event-stream})</p>
+     *
+     * <p>Chaque création, modification ou suppression est poussée sous forme d'un
+     * événement {@code change} dont les données sont celles de {@code GET /changes}
+     * et l'identifiant la séquence. Un abonné en retard reçoit, par produit, le dernier
+     * état seulement ; trop en retard, il reçoit {@code resync} et est déconnecté.
+     * À la reconnexion, {@code Last-Event-ID} reprend là où le flux s'était arrêté.</p>
+     *
+     * @param lastEventId Séquence du dernier événement reçu (optionnel)
+     * @return Le flux (200 OK), 400 BAD REQUEST si Last-Event-ID n'est pas une séquence
+     *         ou 503 SERVICE UNAVAILABLE si le nombre maximal d'abonnés est atteint
+     */
+    @GetMapping(value = "/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> streamChanges(
+            @RequestHeader(value = "Last-Event-ID", required = false) String lastEventId) {
+
+        Long since = null;
+        if (lastEventId != null && !lastEventId.isBlank()) {
+            try {
+                since = Long.parseLong(lastEventId.trim());
+            } catch (NumberFormatException e) {
+                return ResponseEntity.badRequest().build();
+            }
+        }
+        SseEmitter emitter = changeStream.subscribe(since);
+        if (emitter == null) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).build();
+        }
+        return ResponseEntity.ok(emitter);
+    }
+
+    /**
+     * Requête multicritère sur le catalogue, sans téléchargement complet côté client.
+     *
+     * <p><b>Endpoint:</b> GET /api/products/query?prixMin=&amp;prixMax=&amp;stockMin=&amp;categorie=&amp;sort=&amp;limit=</p>
+     *
+     * <p>Les critères sont optionnels et cumulatifs, bornes incluses. {@code sort} vaut
+     * {@code id} (défaut), {@code prix} ou {@code quantiteStock}, suivi éventuellement de
+     * {@code ,asc} ou {@code ,desc}. Un tri par prix ou par stock exclut les produits
+     * sans valeur pour ce champ. {@code limit} est plafonné à {@code produits.list.max-limit}.</p>
+     *
+     * <p><b>Exemple:</b> <code>GET /api/products/query?prixMin=20&amp;prixMax=100&amp;categorie=Accessoires&amp;sort=prix,asc</code></p>
+     *
+     * @param prixMin Prix minimal (optionnel)
+     * @param prixMax Prix maximal (optionnel)
+     * @param stockMin Stock minimal (optionnel)
+     * @param categorie Catégorie, insensible à la casse (optionnelle)
+     * @param sort Tri : champ et sens (optionnel)
+     * @param limit Nombre maximal de résultats (optionnel, plafonné)
+     * @return ResponseEntity avec les produits (200 OK) ou 400 BAD REQUEST si un paramètre est invalide
+     */
+    @GetMapping("/query")
+    public ResponseEntity<List<Product>> queryProducts(
+            @RequestParam(value = "prixMin", required = false) BigDecimal prixMin,
+            @RequestParam(value = "prixMax", required = false) BigDecimal prixMax,
+            @RequestParam(value = "stockMin", required = false) Integer stockMin,
+            @RequestParam(value = "categorie", required = false) String categorie,
+            @RequestParam(value = "sort", defaultValue = "id") String sort,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+
+        if (limit != null && limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        ProductQuery query;
+        try {
+            query = ProductQuery.of(prixMin, prixMax, stockMin, categorie, sort,
+                    limit == null ? maxLimit : Math.min(limit, maxLimit));
+        } catch (IllegalArgumentException e) {
+            // Tri inconnu, ou borne de prix hors de la plage représentable
+            return ResponseEntity.badRequest().build();
+        }
+        return ResponseEntity.ok(productService.queryProducts(query));
+    }
+
+    /**
+     * Facettes du catalogue pour la navigation : nombre de produits par catégorie, par
+     * tranche de prix et par disponibilité.
+     *
+     * <p><b>Endpoint:</b> GET /api/products/facets?nom={terme}</p>
+     *
+     * <p>Sans terme, les compteurs sont maintenus à chaque écriture : la lecture ne
+     * parcourt pas le catalogue. Avec {@code nom}, seuls les produits dont le nom contient
+     * le terme sont décomptés. La réponse porte l'ETag des collections.</p>
+     *
+     * @param nom Terme recherché dans le nom (optionnel)
+     * @param request Requête HTTP (en-têtes conditionnels)
+     * @return ResponseEntity avec les facettes (200 OK) ou 304 NOT MODIFIED
+     *
+     * <p><b>Exemple de réponse:</b></p>
+     * <pre>
+     * {
+     *   "total": 3,
+     *   "categories": { "Accessoires": 2, "Électronique": 1 },
+     *   "prix": [ { "min": 20.00, "max": 50.00, "nombre": 1 }, ... ],
+     *   "enStock": 3,
+     *   "enRupture": 0
+     * }
+     * </pre>
+     */
+    @GetMapping("/facets")
+    public ResponseEntity<ProductFacets> getFacets(
+            @RequestParam(value = "nom", required = false) String nom,
+            HttpServletRequest request) {
+
+        String etag = catalogETag(WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT)));
+        long lastModified = productService.getCatalogLastModified();
+        if (notModified(request, etag, lastModified)) {
+            return notModifiedResponse(etag, lastModified, HttpHeaders.ACCEPT);
+        }
+        return ResponseEntity.ok()
+                .varyBy(HttpHeaders.ACCEPT)
+                .eTag(etag)
+                .lastModified(lastModified)
+                .body(productService.getFacets(nom));
     }
 
     /**
@@ -82,21 +595,37 @@ public class ProductController {
      *
      * <p><b>Endpoint:</b> GET /api/products/{id}</p>
      *
+     * <p>L'en-tête {@code ETag} porte la version du produit, à renvoyer dans
+     * {@code If-Match} lors d'une modification conditionnelle, ou dans
+     * {@code If-None-Match} pour une lecture conditionnelle ; {@code Last-Modified}
+     * porte sa date de modification. Hors JSON, l'ETag est suffixé du format négocié
+     * ({@code "3-cbor"}) : deux formats ne partagent pas un même ETag fort.</p>
+     *
      * @param id Identifiant du produit recherché
-     * @return ResponseEntity avec le produit (200 OK) ou 404 NOT FOUND
+     * @param request Requête HTTP (en-têtes conditionnels et Accept)
+     * @return ResponseEntity avec le produit (200 OK), 304 NOT MODIFIED ou 404 NOT FOUND
      *
      * <p><b>Codes de retour:</b></p>
      * <ul>
      *   <li>200 OK - Produit trouvé</li>
+     *   <li>304 NOT MODIFIED - Le client possède déjà cette version</li>
      *   <li>404 NOT FOUND - Produit inexistant</li>
      * </ul>
      */
     @GetMapping("/{id}")
-    public ResponseEntity<Product> getProductById(@PathVariable("id") Long id) {
+    public ResponseEntity<Product> getProductById(@PathVariable("id") Long id, HttpServletRequest request) {
         Optional<Product> product = productService.getProductById(id);
+        if (product.isEmpty()) {
+            return ResponseEntity.notFound().build();
+        }
 
-        return product.map(ResponseEntity::ok)
-                .orElseGet(() -> ResponseEntity.notFound().build());
+        Product p = product.get();
+        String etag = ETags.eTag(p.getVersion(), WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT)));
+        long lastModified = p.dateModificationMillis();
+        if (notModified(request, etag, lastModified)) {
+            return notModifiedResponse(etag, lastModified, HttpHeaders.ACCEPT);
+        }
+        return ResponseEntity.ok().varyBy(HttpHeaders.ACCEPT).eTag(etag).lastModified(lastModified).body(p);
     }
 
     /**
@@ -127,6 +656,172 @@ public class ProductController {
         return ResponseEntity.status(HttpStatus.CREATED).body(createdProduct);
     }
 
+    /**
+     * Crée plusieurs produits en une seule requête.
+     *
+     * <p><b>Endpoint:</b> POST /api/products/batch</p>
+     * <p><b>Content-Type:</b> application/json (tableau de produits)</p>
+     *
+     * <p>Le corps est lu en flux et appliqué par tranches de {@value #BATCH_CHUNK_SIZE}
+     * produits : un import volumineux n'est jamais chargé entièrement en mémoire.
+     * La réponse est un tableau de {@link BatchItemResult}, dans l'ordre de la requête.</p>
+     *
+     * @param request Requête HTTP dont le corps est lu en flux
+     * @param response Réponse HTTP dans laquelle les résultats sont écrits en flux
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    @PostMapping("/batch")
+    public void createProductsBatch(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        applyBatch(request, response, Product.class, productService::createProducts);
+    }
+
+    /**
+     * Met à jour plusieurs produits en une seule requête.
+     * Chaque produit du tableau doit contenir son identifiant.
+     *
+     * <p><b>Endpoint:</b> PUT /api/products/batch</p>
+     *
+     * @param request Requête HTTP dont le corps est lu en flux
+     * @param response Réponse HTTP dans laquelle les résultats sont écrits en flux
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    @PutMapping("/batch")
+    public void updateProductsBatch(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        applyBatch(request, response, Product.class, productService::updateProducts);
+    }
+
+    /**
+     * Supprime plusieurs produits en une seule requête.
+     *
+     * <p><b>Endpoint:</b> DELETE /api/products/batch</p>
+     * <p><b>Corps:</b> tableau JSON d'identifiants, par exemple {@code [1, 2, 3]}</p>
+     *
+     * @param request Requête HTTP dont le corps est lu en flux
+     * @param response Réponse HTTP dans laquelle les résultats sont écrits en flux
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    @DeleteMapping("/batch")
+    public void deleteProductsBatch(HttpServletRequest request, HttpServletResponse response)
+            throws IOException {
+        applyBatch(request, response, Long.class, productService::deleteProducts);
+    }
+
+    /**
+     * Lit un tableau JSON en flux, l'applique par tranches et écrit les résultats en flux.
+     *
+     * <p>Si le corps n'est pas un tableau, la réponse est 400 BAD REQUEST. Si le JSON
+     * devient invalide en cours de lecture, les éléments déjà lus restent appliqués
+     * et un dernier résultat 400 décrit l'erreur.</p>
+     *
+     * <p>Chaque tranche est décomptée du débit du client ({@link AdmissionFilter#BATCH_CHARGE})
+     * avant d'être appliquée : si le débit est dépassé, le lot s'arrête là et un dernier
+     * résultat 429 indique le délai avant de reprendre avec les éléments restants.</p>
+     *
+     * <p>Le corps peut aussi être en Smile ou CBOR (Content-Type), et les résultats sont
+     * écrits dans le format négocié par Accept. Protobuf, sans flux de tableau dans son
+     * modèle, est refusé en entrée (415) et remplacé par JSON en sortie.</p>
+     *
+     * @param request Requête HTTP à lire
+     * @param response Réponse HTTP à écrire
+     * @param type Type des éléments du tableau
+     * @param operation Opération par lot du service
+     * @param <T> Type des éléments du tableau
+     * @throws IOException en cas d'erreur d'entrée/sortie
+     */
+    private <T> void applyBatch(HttpServletRequest request, HttpServletResponse response,
+                                Class<T> type,
+                                Function<List<T>, List<BatchItemResult>> operation) throws IOException {
+        WireFormat input = WireFormat.fromContentType(request.getContentType());
+        if (input == WireFormat.PROTOBUF) {
+            response.sendError(HttpStatus.UNSUPPORTED_MEDIA_TYPE.value(), "Lot attendu en JSON, Smile ou CBOR");
+            return;
+        }
+        WireFormat output = WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        if (output == WireFormat.PROTOBUF) {
+            output = WireFormat.JSON;
+        }
+        ObjectMapper reader = input == WireFormat.JSON ? objectMapper : formats.mapper(input);
+        ObjectWriter writer = output == WireFormat.JSON ? compactWriter : formats.mapper(output).writer();
+
+        try (JsonParser parser = reader.getFactory().createParser(request.getInputStream())) {
+            if (parser.nextToken() != JsonToken.START_ARRAY) {
+                response.sendError(HttpStatus.BAD_REQUEST.value(), "Un tableau JSON est attendu");
+                return;
+            }
+
+            response.setStatus(HttpStatus.OK.value());
+            response.setContentType(output.mediaType().toString());
+            JsonGenerator generator = writer.getFactory().createGenerator(response.getOutputStream());
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+
+            AdmissionFilter.BatchCharge charge = (AdmissionFilter.BatchCharge) request.getAttribute(
+                    AdmissionFilter.BATCH_CHARGE);
+            List<T> chunk = new ArrayList<>(BATCH_CHUNK_SIZE);
+            BatchItemResult refus = null;
+            String erreur = null;
+            try {
+                JsonToken token;
+                while ((token = parser.nextToken()) != JsonToken.END_ARRAY) {
+                    if (token == null) {
+                        throw new JsonParseException(parser, "Tableau JSON incomplet");
+                    }
+                    chunk.add(reader.readValue(parser, type));
+                    if (chunk.size() == BATCH_CHUNK_SIZE) {
+                        refus = applyChunk(generator, writer, chunk, charge, operation);
+                        if (refus != null) {
+                            break;
+                        }
+                    }
+                }
+            } catch (JsonProcessingException e) {
+                erreur = "JSON invalide: " + e.getOriginalMessage();
+            }
+
+            if (refus == null && !chunk.isEmpty()) {
+                refus = applyChunk(generator, writer, chunk, charge, operation);
+            }
+            if (refus != null) {
+                writer.writeValue(generator, refus);
+            }
+            if (erreur != null) {
+                writer.writeValue(generator, new BatchItemResult(null, HttpStatus.BAD_REQUEST.value(), erreur));
+            }
+            generator.writeEndArray();
+            generator.close();
+        }
+    }
+
+    /**
+     * Décompte une tranche auprès de l'admission puis l'applique et écrit ses résultats.
+     *
+     * @return null si la tranche est appliquée, sinon le résultat 429 qui interrompt le lot
+     */
+    private static <T> BatchItemResult applyChunk(JsonGenerator generator, ObjectWriter writer, List<T> chunk,
+                                                  AdmissionFilter.BatchCharge charge,
+                                                  Function<List<T>, List<BatchItemResult>> operation)
+            throws IOException {
+        long wait = charge == null ? 0 : charge.tryCharge(chunk.size());
+        if (wait > 0) {
+            return new BatchItemResult(null, HttpStatus.TOO_MANY_REQUESTS.value(),
+                    "Débit dépassé : lot interrompu, " + chunk.size() + " éléments lus non appliqués, reprendre dans "
+                            + AdmissionFilter.retryAfterSeconds(wait) + " s");
+        }
+        writeResults(generator, writer, operation.apply(chunk));
+        chunk.clear();
+        return null;
+    }
+
+    private static void writeResults(JsonGenerator generator, ObjectWriter writer,
+                                     List<BatchItemResult> results) throws IOException {
+        for (BatchItemResult result : results) {
+            writer.writeValue(generator, result);
+        }
+        generator.flush();
+    }
+
     /**
      * Met à jour intégralement un produit existant.
      * Tous les champs du produit seront remplacés.
@@ -134,14 +829,20 @@ public class ProductController {
      * <p><b>Endpoint:</b> PUT /api/products/{id}</p>
      * <p><b>Content-Type:</b> application/json</p>
      *
+     * <p>Avec l'en-tête {@code If-Match} (ETag obtenu par GET), la modification n'est
+     * appliquée que si le produit n'a pas changé entre-temps. Sans cet en-tête, la
+     * modification est inconditionnelle.</p>
+     *
      * @param id Identifiant du produit à modifier
+     * @param ifMatch Valeur de l'en-tête If-Match (optionnelle)
      * @param productDetails Nouvelles données du produit
      * @return ResponseEntity avec le produit mis à jour (200 OK) ou 404 NOT FOUND
      *
      * <p><b>Codes de retour:</b></p>
      * <ul>
-     *   <li>200 OK - Produit mis à jour avec succès</li>
+     *   <li>200 OK - Produit mis à jour avec succès (nouvel ETag)</li>
      *   <li>404 NOT FOUND - Produit inexistant</li>
+     *   <li>412 PRECONDITION FAILED - If-Match ne correspond pas à la version courante</li>
      * </ul>
      *
      * <p><b>Exemple de corps de requête:</b></p>
@@ -158,11 +859,118 @@ public class ProductController {
     @PutMapping("/{id}")
     public ResponseEntity<Product> updateProduct(
             @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
             @RequestBody Product productDetails) {
 
-        Optional<Product> updatedProduct = productService.updateProduct(id, productDetails);
+        long expectedVersion = ETags.parseIfMatch(ifMatch);
+        if (expectedVersion == ETags.INVALID_VERSION) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build();
+        }
+
+        Optional<Product> updatedProduct;
+        try {
+            updatedProduct = productService.updateProduct(id, productDetails, expectedVersion);
+        } catch (VersionConflictException e) {
+            return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                    .eTag(ETags.eTag(e.getCurrentVersion()))
+                    .build();
+        }
+
+        return updatedProduct.map(p -> ResponseEntity.ok().eTag(ETags.eTag(p.getVersion())).body(p))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Réserve des unités du stock d'un produit.
+     *
+     * <p><b>Endpoint:</b> POST /api/products/{id}/stock/reserve</p>
+     * <p><b>Corps (optionnel):</b> {@code {"quantite": 3}} (1 par défaut)</p>
+     *
+     * <p>Le stock est décrémenté atomiquement côté serveur : contrairement à un
+     * GET suivi d'un PUT, deux réservations concurrentes ne peuvent ni se perdre
+     * ni faire passer le stock sous zéro.</p>
+     *
+     * @param id Identifiant du produit
+     * @param ligne Quantité à réserver (optionnelle)
+     * @return ResponseEntity avec le produit après réservation (200 OK)
+     *
+     * <p><b>Codes de retour:</b></p>
+     * <ul>
+     *   <li>200 OK - Stock réservé</li>
+     *   <li>400 BAD REQUEST - Quantité non strictement positive</li>
+     *   <li>404 NOT FOUND - Produit inexistant</li>
+     *   <li>409 CONFLICT - Stock insuffisant (le stock n'est pas modifié)</li>
+     * </ul>
+     */
+    @PostMapping("/{id}/stock/reserve")
+    public ResponseEntity<?> reserveStock(
+            @PathVariable("id") Long id,
+            @RequestBody(required = false) StockLine ligne) {
+        int quantite = ligne == null ? 1 : ligne.getQuantite();
+        try {
+            return stockResponse(productService.reserveStock(id, quantite));
+        } catch (InsufficientStockException e) {
+            return ResponseEntity.status(HttpStatus.CONFLICT)
+                    .body(new BatchItemResult(id, HttpStatus.CONFLICT.value(), e.getMessage()));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new BatchItemResult(id, HttpStatus.BAD_REQUEST.value(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Libère (rend au stock) des unités d'un produit.
+     *
+     * <p><b>Endpoint:</b> POST /api/products/{id}/stock/release</p>
+     * <p><b>Corps (optionnel):</b> {@code {"quantite": 3}} (1 par défaut)</p>
+     *
+     * @param id Identifiant du produit
+     * @param ligne Quantité à libérer (optionnelle)
+     * @return ResponseEntity avec le produit après libération (200 OK), 400 ou 404
+     */
+    @PostMapping("/{id}/stock/release")
+    public ResponseEntity<?> releaseStock(
+            @PathVariable("id") Long id,
+            @RequestBody(required = false) StockLine ligne) {
+        int quantite = ligne == null ? 1 : ligne.getQuantite();
+        try {
+            return stockResponse(productService.releaseStock(id, quantite));
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest()
+                    .body(new BatchItemResult(id, HttpStatus.BAD_REQUEST.value(), e.getMessage()));
+        }
+    }
+
+    /**
+     * Réserve plusieurs produits en une seule requête, en tout ou rien.
+     *
+     * <p><b>Endpoint:</b> POST /api/products/stock/reserve</p>
+     * <p><b>Corps:</b> {@code [{"id": 1, "quantite": 2}, {"id": 3, "quantite": 1}]}</p>
+     *
+     * <p>Si une ligne échoue, les lignes déjà réservées sont libérées. La réponse
+     * contient un {@link BatchItemResult} par ligne ; son statut global est 200 si
+     * tout est réservé, sinon celui de la ligne en échec (400, 404 ou 409).</p>
+     *
+     * @param lignes Lignes à réserver
+     * @return ResponseEntity avec le résultat de chaque ligne
+     */
+    @PostMapping("/stock/reserve")
+    public ResponseEntity<List<BatchItemResult>> reserveStockLines(@RequestBody List<StockLine> lignes) {
+        List<BatchItemResult> results = productService.reserveStock(lignes);
+        int status = HttpStatus.OK.value();
+        for (BatchItemResult result : results) {
+            if (result.getStatus() != HttpStatus.OK.value() && result.getStatus() != HttpStatus.FAILED_DEPENDENCY.value()) {
+                status = result.getStatus();
+            }
+        }
+        return ResponseEntity.status(status).body(results);
+    }
 
-        return updatedProduct.map(ResponseEntity::ok)
+    /**
+     * Réponse d'une opération de stock : le produit et son nouvel ETag, ou 404.
+     */
+    private static ResponseEntity<?> stockResponse(Optional<Product> product) {
+        return product.<ResponseEntity<?>>map(p -> ResponseEntity.ok().eTag(ETags.eTag(p.getVersion())).body(p))
                 .orElseGet(() -> ResponseEntity.notFound().build());
     }
 
@@ -198,17 +1006,72 @@ public class ProductController {
      * <p><b>Endpoint:</b> GET /api/products/search?nom={terme}</p>
      *
      * @param nom Terme à rechercher dans le nom des produits
-     * @return ResponseEntity avec la liste des produits correspondants (200 OK)
+     * @param request Requête HTTP (en-têtes conditionnels et Accept, comme la liste)
+     * @return ResponseEntity avec la liste des produits correspondants (200 OK) ou 304 NOT MODIFIED
      *
      * <p><b>Exemple d'utilisation:</b></p>
      * <code>GET /api/products/search?nom=ordinateur</code>
      */
     @GetMapping("/search")
-    public ResponseEntity<List<Product>> searchProducts(
-            @RequestParam("nom") String nom) {
+    public ResponseEntity<byte[]> searchProducts(
+            @RequestParam("nom") String nom,
+            HttpServletRequest request) {
 
-        List<Product> products = productService.searchProductsByNom(nom);
-        return ResponseEntity.ok(products);
+        WireFormat format = WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        String etag = catalogETag(format);
+        long lastModified = productService.getCatalogLastModified();
+        if (notModified(request, etag, lastModified)) {
+            return notModifiedResponse(etag, lastModified, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        }
+        CachedResponse response = cached((encoding, loader) -> responseCache.search(nom, format, encoding, loader),
+                request, () -> CachedResponse.of(formats.writeProducts(productService.searchProductsByNom(nom), format)));
+        return encodedResponse(response, format, etag, lastModified).body(response.body());
+    }
+
+    /**
+     * Recherche par pertinence dans le nom, la catégorie et la description.
+     *
+     * <p><b>Endpoint:</b> GET /api/products/search?q={mots}&amp;limit={n}</p>
+     *
+     * <p>Les produits contenant au moins un des mots sont classés du plus pertinent au
+     * moins pertinent (score BM25 : un mot du nom pèse plus qu'un mot de la description,
+     * un mot rare plus qu'un mot courant). {@code limit} est plafonné à
+     * {@code produits.list.max-limit}. Le classement dépend de tout le catalogue : la
+     * réponse n'est pas conservée dans le cache des réponses, et elle n'est pas disponible
+     * en mode réparti (501 NOT IMPLEMENTED).</p>
+     *
+     * @param q Mots recherchés
+     * @param limit Nombre maximal de résultats (optionnel, plafonné)
+     * @param request Requête HTTP (en-têtes conditionnels, Accept et Accept-Encoding)
+     * @return ResponseEntity avec les produits classés (200 OK), 304 NOT MODIFIED ou
+     *         400 BAD REQUEST si {@code limit} est invalide
+     *
+     * <p><b>Exemple d'utilisation:</b></p>
+     * <code>GET /api/products/search?q=clavier+gaming&amp;limit=20</code>
+     */
+    @GetMapping(value = "/search", params = "q")
+    public ResponseEntity<byte[]> searchProductsByRelevance(
+            @RequestParam("q") String q,
+            @RequestParam(value = "limit", required = false) Integer limit,
+            HttpServletRequest request) {
+
+        if (limit != null && limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        WireFormat format = WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        String etag = catalogETag(format);
+        long lastModified = productService.getCatalogLastModified();
+        if (notModified(request, etag, lastModified)) {
+            return notModifiedResponse(etag, lastModified, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        }
+        int pageSize = limit == null ? maxLimit : Math.min(limit, maxLimit);
+        List<Product> products = productService.searchProducts(q, pageSize);
+        CachedResponse response = CachedResponse.of(formats.writeProducts(products, format));
+        ContentEncoding encoding = compressor.negotiate(request.getHeader(HttpHeaders.ACCEPT_ENCODING));
+        if (encoding != ContentEncoding.IDENTITY && compressor.worthCompressing(response.body().length)) {
+            response = response.withBody(compressor.compress(response.body(), encoding), encoding);
+        }
+        return encodedResponse(response, format, etag, lastModified).body(response.body());
     }
 
     /**
@@ -217,17 +1080,27 @@ public class ProductController {
      * <p><b>Endpoint:</b> GET /api/products/categorie/{categorie}</p>
      *
      * @param categorie Nom de la catégorie
-     * @return ResponseEntity avec la liste des produits de cette catégorie (200 OK)
+     * @param request Requête HTTP (en-têtes conditionnels et Accept, comme la liste)
+     * @return ResponseEntity avec la liste des produits de cette catégorie (200 OK) ou 304 NOT MODIFIED
      *
      * <p><b>Exemple d'utilisation:</b></p>
      * <code>GET /api/products/categorie/Électronique</code>
      */
     @GetMapping("/categorie/{categorie}")
-    public ResponseEntity<List<Product>> getProductsByCategorie(
-            @PathVariable("categorie") String categorie) {
+    public ResponseEntity<byte[]> getProductsByCategorie(
+            @PathVariable("categorie") String categorie,
+            HttpServletRequest request) {
 
-        List<Product> products = productService.getProductsByCategorie(categorie);
-        return ResponseEntity.ok(products);
+        WireFormat format = WireFormat.negotiate(request.getHeader(HttpHeaders.ACCEPT));
+        String etag = catalogETag(format);
+        long lastModified = productService.getCatalogLastModified();
+        if (notModified(request, etag, lastModified)) {
+            return notModifiedResponse(etag, lastModified, HttpHeaders.ACCEPT, HttpHeaders.ACCEPT_ENCODING);
+        }
+        CachedResponse response = cached(
+                (encoding, loader) -> responseCache.category(categorie, format, encoding, loader), request,
+                () -> CachedResponse.of(formats.writeProducts(productService.getProductsByCategorie(categorie), format)));
+        return encodedResponse(response, format, etag, lastModified).body(response.body());
     }
 
     /**
@@ -248,8 +1121,7 @@ public class ProductController {
     @GetMapping("/health")
     public ResponseEntity<String> healthCheck() {
         long count = productService.count();
-        return ResponseEntity.ok(
-                String.format("{\"status\":\"UP\",\"totalProducts\":%d}", count)
-        );
+        // Concaténation simple : évite l'analyse du motif de String.format à chaque appel
+        return ResponseEntity.ok("{\"status\":\"UP\",\"totalProducts\":" + count + "}");
     }
 }
\ No newline at end of file
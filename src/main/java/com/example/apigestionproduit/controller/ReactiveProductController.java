@@ -0,0 +1,314 @@
+package com.example.apigestionproduit.controller;
+
+import com.example.apigestionproduit.model.BatchItemResult;
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.model.StockLine;
+import com.example.apigestionproduit.service.InsufficientStockException;
+import com.example.apigestionproduit.service.ProductService;
+import com.example.apigestionproduit.service.VersionConflictException;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnWebApplication;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.*;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.core.scheduler.Schedulers;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.Callable;
+import java.util.function.Function;
+
+/**
+ * Variante réactive (Spring WebFlux sur Netty) du contrôleur REST des produits.
+ *
+ * <p>Active uniquement lorsque l'application démarre en mode réactif
+ * ({@code spring.main.web-application-type=reactive}) ; sinon {@link ProductController}
+ * est utilisé. Les deux partagent le même {@link ProductService}.</p>
+ *
+ * <p>Les collections sont des {@link Flux} produits à la demande : la liste est lue
+ * page par page dans le service au rythme où le client consomme la réponse, et la
+ * recherche comme le filtre par catégorie parcourent les index sans construire de
+ * liste intermédiaire. Un client lent ne fait donc grossir aucun tampon côté serveur,
+ * et la liste n'a pas besoin du plafond {@code produits.list.max-limit}.
+ * Avec {@code Accept: application/x-ndjson}, chaque produit est écrit dès qu'il est lu.</p>
+ *
+ * <p>Les lectures sont en mémoire et s'exécutent sur les threads d'événements. Les
+ * écritures peuvent attendre le disque (persistance avec {@code fsync}) : elles sont
+ * déportées sur {@link Schedulers#boundedElastic()} pour ne jamais bloquer la boucle
+ * d'événements.</p>
+ *
+ * <p>Endpoints: GET /api/products, GET /{id}, POST, PUT /{id}, DELETE /{id},
+ * GET /search, GET /categorie/{categorie}, POST /{id}/stock/reserve et
+ * POST /{id}/stock/release, avec la même sémantique (ETag, If-Match, codes de retour)
+ * que la version servlet. Les lots, la requête multi-critères, les modifications et
+ * le flux SSE restent propres à la version servlet.</p>
+ */
+@RestController
+@RequestMapping("/api/products")
+@CrossOrigin(origins = "*")
+@ConditionalOnWebApplication(type = ConditionalOnWebApplication.Type.REACTIVE)
+public class ReactiveProductController {
+
+    /**
+     * Nombre de produits lus dans le service à chaque demande du client.
+     */
+    private static final int PAGE_SIZE = 256;
+
+    private final ProductService productService;
+
+    /**
+     * Identifiant de l'instance, préfixe des ETags de collection.
+     */
+    private final String catalogInstance = Long.toString(System.currentTimeMillis(), 36);
+
+    /**
+     * Constructeur avec injection de dépendances.
+     *
+     * @param productService Service de gestion des produits
+     */
+    @Autowired
+    public ReactiveProductController(ProductService productService) {
+        this.productService = productService;
+    }
+
+    /**
+     * Liste des produits, triée par identifiant, en flux.
+     *
+     * <p><b>Endpoint:</b> GET /api/products?after={id}&amp;limit={n}</p>
+     *
+     * <p>L'ETag est la version du catalogue : {@code If-None-Match} reçoit 304 tant
+     * qu'aucun produit n'a changé, sans lecture du catalogue.</p>
+     *
+     * @param after Dernier identifiant déjà reçu (optionnel)
+     * @param limit Nombre maximal de produits (optionnel)
+     * @return Les produits (200 OK), 304 NOT MODIFIED ou 400 BAD REQUEST si limit &lt;= 0
+     */
+    @GetMapping(produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Flux<Product>> getAllProducts(
+            @RequestParam(value = "after", required = false) Long after,
+            @RequestParam(value = "limit", required = false) Integer limit) {
+
+        if (limit != null && limit <= 0) {
+            return ResponseEntity.badRequest().build();
+        }
+        Flux<Product> products = Flux.<List<Product>, Long>generate(() -> after == null ? 0L : after, (cursor, sink) -> {
+                    List<Product> page = productService.getProductsPage(cursor, PAGE_SIZE);
+                    if (page.isEmpty()) {
+                        sink.complete();
+                        return cursor;
+                    }
+                    sink.next(page);
+                    return page.get(page.size() - 1).getId();
+                })
+                // Une seule page lue d'avance : la mémoire ne dépend pas de la taille du catalogue
+                .flatMapIterable(Function.identity(), 1);
+        return collection(limit == null ? products : products.take(limit, true));
+    }
+
+    /**
+     * Produit par identifiant, avec son ETag de version.
+     *
+     * <p><b>Endpoint:</b> GET /api/products/{id}</p>
+     *
+     * @param id Identifiant du produit
+     * @return Le produit (200 OK), 304 NOT MODIFIED ou 404 NOT FOUND
+     */
+    @GetMapping("/{id}")
+    public ResponseEntity<Product> getProductById(@PathVariable("id") Long id) {
+        // Les en-têtes conditionnels sont évalués par WebFlux à partir de l'ETag et de Last-Modified
+        return productService.getProductById(id)
+                .map(p -> ResponseEntity.ok()
+                        .eTag(ETags.eTag(p.getVersion()))
+                        .lastModified(p.dateModificationMillis())
+                        .body(p))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Crée un produit.
+     *
+     * <p><b>Endpoint:</b> POST /api/products</p>
+     *
+     * @param product Données du produit à créer
+     * @return Le produit créé (201 CREATED)
+     */
+    @PostMapping
+    public Mono<ResponseEntity<Product>> createProduct(@RequestBody Mono<Product> product) {
+        return product.publishOn(Schedulers.boundedElastic())
+                .map(p -> ResponseEntity.status(HttpStatus.CREATED).body(productService.createProduct(p)));
+    }
+
+    /**
+     * Met à jour un produit, sous condition de version si If-Match est fourni.
+     *
+     * <p><b>Endpoint:</b> PUT /api/products/{id}</p>
+     *
+     * @param id Identifiant du produit
+     * @param ifMatch ETag de la version attendue (optionnel)
+     * @param productDetails Nouvelles données
+     * @return Le produit modifié (200 OK), 404 NOT FOUND ou 412 PRECONDITION FAILED
+     */
+    @PutMapping("/{id}")
+    public Mono<ResponseEntity<Product>> updateProduct(
+            @PathVariable("id") Long id,
+            @RequestHeader(value = HttpHeaders.IF_MATCH, required = false) String ifMatch,
+            @RequestBody Mono<Product> productDetails) {
+
+        long expectedVersion = ETags.parseIfMatch(ifMatch);
+        if (expectedVersion == ETags.INVALID_VERSION) {
+            return Mono.just(ResponseEntity.status(HttpStatus.PRECONDITION_FAILED).build());
+        }
+        return productDetails.publishOn(Schedulers.boundedElastic())
+                .map(details -> {
+                    try {
+                        return productService.updateProduct(id, details, expectedVersion)
+                                .map(p -> ResponseEntity.ok().eTag(ETags.eTag(p.getVersion())).body(p))
+                                .orElseGet(() -> ResponseEntity.notFound().build());
+                    } catch (VersionConflictException e) {
+                        return ResponseEntity.status(HttpStatus.PRECONDITION_FAILED)
+                                .eTag(ETags.eTag(e.getCurrentVersion()))
+                                .build();
+                    }
+                });
+    }
+
+    /**
+     * Supprime un produit.
+     *
+     * <p><b>Endpoint:</b> DELETE /api/products/{id}</p>
+     *
+     * @param id Identifiant du produit
+     * @return 204 NO CONTENT ou 404 NOT FOUND
+     */
+    @DeleteMapping("/{id}")
+    public Mono<ResponseEntity<Void>> deleteProduct(@PathVariable("id") Long id) {
+        return blocking(() -> productService.deleteProduct(id)
+                ? ResponseEntity.noContent().<Void>build()
+                : ResponseEntity.notFound().<Void>build());
+    }
+
+    /**
+     * Réserve des unités du stock d'un produit.
+     *
+     * <p><b>Endpoint:</b> POST /api/products/{id}/stock/reserve</p>
+     *
+     * @param id Identifiant du produit
+     * @param ligne Quantité à réserver (optionnelle, 1 par défaut)
+     * @return Le produit (200 OK), 400, 404 ou 409 CONFLICT si le stock est insuffisant
+     */
+    @PostMapping("/{id}/stock/reserve")
+    public Mono<ResponseEntity<?>> reserveStock(
+            @PathVariable("id") Long id,
+            @RequestBody(required = false) Mono<StockLine> ligne) {
+        return quantite(ligne).map(quantite -> {
+            try {
+                return stockResponse(productService.reserveStock(id, quantite));
+            } catch (InsufficientStockException e) {
+                return ResponseEntity.status(HttpStatus.CONFLICT)
+                        .body(new BatchItemResult(id, HttpStatus.CONFLICT.value(), e.getMessage()));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest()
+                        .body(new BatchItemResult(id, HttpStatus.BAD_REQUEST.value(), e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Libère des unités du stock d'un produit.
+     *
+     * <p><b>Endpoint:</b> POST /api/products/{id}/stock/release</p>
+     *
+     * @param id Identifiant du produit
+     * @param ligne Quantité à libérer (optionnelle, 1 par défaut)
+     * @return Le produit (200 OK), 400 ou 404
+     */
+    @PostMapping("/{id}/stock/release")
+    public Mono<ResponseEntity<?>> releaseStock(
+            @PathVariable("id") Long id,
+            @RequestBody(required = false) Mono<StockLine> ligne) {
+        return quantite(ligne).map(quantite -> {
+            try {
+                return stockResponse(productService.releaseStock(id, quantite));
+            } catch (IllegalArgumentException e) {
+                return ResponseEntity.badRequest()
+                        .body(new BatchItemResult(id, HttpStatus.BAD_REQUEST.value(), e.getMessage()));
+            }
+        });
+    }
+
+    /**
+     * Quantité d'une opération de stock, lue dans le corps facultatif, puis
+     * déportée hors de la boucle d'événements.
+     */
+    private static Mono<Integer> quantite(Mono<StockLine> ligne) {
+        return ligne.map(StockLine::getQuantite)
+                .defaultIfEmpty(1)
+                .publishOn(Schedulers.boundedElastic());
+    }
+
+    private static ResponseEntity<?> stockResponse(Optional<Product> product) {
+        return product.<ResponseEntity<?>>map(p -> ResponseEntity.ok().eTag(ETags.eTag(p.getVersion())).body(p))
+                .orElseGet(() -> ResponseEntity.notFound().build());
+    }
+
+    /**
+     * Recherche par terme dans le nom, insensible à la casse, en flux.
+     *
+     * <p><b>Endpoint:</b> GET /api/products/search?nom={terme}</p>
+     *
+     * @param nom Terme recherché
+     * @return Les produits correspondants (200 OK) ou 304 NOT MODIFIED
+     */
+    @GetMapping(value = "/search", produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Flux<Product>> searchProducts(@RequestParam("nom") String nom) {
+        return collection(Flux.fromStream(() -> productService.streamProductsByNom(nom)));
+    }
+
+    /**
+     * Produits d'une catégorie, en flux.
+     *
+     * <p><b>Endpoint:</b> GET /api/products/categorie/{categorie}</p>
+     *
+     * @param categorie Nom de la catégorie
+     * @return Les produits de la catégorie (200 OK) ou 304 NOT MODIFIED
+     */
+    @GetMapping(value = "/categorie/{categorie}",
+            produces = {MediaType.APPLICATION_JSON_VALUE, MediaType.APPLICATION_NDJSON_VALUE})
+    public ResponseEntity<Flux<Product>> getProductsByCategorie(@PathVariable("categorie") String categorie) {
+        return collection(Flux.fromStream(() -> productService.streamProductsByCategorie(categorie)));
+    }
+
+    /**
+     * Vérifie l'état de santé de l'API.
+     *
+     * <p><b>Endpoint:</b> GET /api/products/health</p>
+     *
+     * @return Le nombre total de produits (200 OK)
+     */
+    @GetMapping("/health")
+    public ResponseEntity<String> healthCheck() {
+        return ResponseEntity.ok("{\"status\":\"UP\",\"totalProducts\":" + productService.count() + "}");
+    }
+
+    /**
+     * Réponse de collection avec l'ETag et la date de modification du catalogue.
+     * Le flux n'est souscrit que si la réponse n'est pas 304.
+     */
+    private ResponseEntity<Flux<Product>> collection(Flux<Product> products) {
+        return ResponseEntity.ok()
+                .eTag(ETags.catalogETag(catalogInstance, productService.getCatalogVersion()))
+                .lastModified(productService.getCatalogLastModified())
+                .body(products);
+    }
+
+    /**
+     * Exécute une opération pouvant attendre le disque hors de la boucle d'événements.
+     */
+    private static <T> Mono<T> blocking(Callable<T> operation) {
+        return Mono.fromCallable(operation).subscribeOn(Schedulers.boundedElastic());
+    }
+}
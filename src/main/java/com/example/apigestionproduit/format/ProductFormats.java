@@ -0,0 +1,179 @@
+package com.example.apigestionproduit.format;
+
+import com.example.apigestionproduit.model.Product;
+import com.fasterxml.jackson.annotation.JsonFormat;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectReader;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import com.fasterxml.jackson.dataformat.cbor.CBORFactory;
+import com.fasterxml.jackson.dataformat.protobuf.ProtobufFactory;
+import com.fasterxml.jackson.dataformat.protobuf.schema.NativeProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchema;
+import com.fasterxml.jackson.dataformat.protobuf.schema.ProtobufSchemaLoader;
+import com.fasterxml.jackson.dataformat.smile.SmileFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Encodage et décodage des produits dans chaque {@link WireFormat}.
+ *
+ * <p>Les mappers binaires sont construits par le même {@link Jackson2ObjectMapperBuilder}
+ * que le mapper JSON de Spring : modules, fuseau et format des dates sont identiques.
+ * Ils n'indentent jamais. Pour Protobuf, les collections sont enveloppées dans le
+ * message {@code ProductList} du schéma.</p>
+ */
+@Component
+public class ProductFormats {
+
+    /**
+     * Emplacement du schéma Protobuf dans le classpath.
+     */
+    public static final String PROTO_SCHEMA = "/proto/product.proto";
+
+    private final Map<WireFormat, ObjectMapper> mappers = new EnumMap<>(WireFormat.class);
+    private final Map<WireFormat, ObjectWriter> listWriters = new EnumMap<>(WireFormat.class);
+    private final Map<WireFormat, ObjectWriter> productWriters = new EnumMap<>(WireFormat.class);
+    private final Map<WireFormat, ObjectReader> listReaders = new EnumMap<>(WireFormat.class);
+    private final Map<WireFormat, ObjectReader> productReaders = new EnumMap<>(WireFormat.class);
+
+    /**
+     * Constructeur.
+     *
+     * @param objectMapper Mapper JSON configuré par Spring (format JSON)
+     * @param builder Constructeur de mappers configuré par Spring (formats binaires)
+     */
+    @Autowired
+    public ProductFormats(ObjectMapper objectMapper, Jackson2ObjectMapperBuilder builder) {
+        mappers.put(WireFormat.JSON, objectMapper);
+        mappers.put(WireFormat.SMILE, binary(builder, new SmileFactory()));
+        mappers.put(WireFormat.CBOR, binary(builder, new CBORFactory()));
+
+        // Protobuf n'a pas de type décimal : le prix est écrit en texte, sans arrondi
+        ObjectMapper protobuf = binary(builder, new ProtobufFactory());
+        protobuf.configOverride(BigDecimal.class).setFormat(JsonFormat.Value.forShape(JsonFormat.Shape.STRING));
+        mappers.put(WireFormat.PROTOBUF, protobuf);
+
+        for (WireFormat format : WireFormat.values()) {
+            ObjectMapper mapper = mappers.get(format);
+            listWriters.put(format, mapper.writerFor(mapper.getTypeFactory()
+                    .constructCollectionType(List.class, Product.class)));
+            productWriters.put(format, mapper.writerFor(Product.class));
+            listReaders.put(format, mapper.readerForListOf(Product.class));
+            productReaders.put(format, mapper.readerFor(Product.class));
+        }
+
+        NativeProtobufSchema schema = loadSchema();
+        ProtobufSchema productSchema = schema.forType("Product");
+        ProtobufSchema listSchema = schema.forType("ProductList");
+        listWriters.put(WireFormat.PROTOBUF, protobuf.writerFor(ProductList.class).with(listSchema));
+        productWriters.put(WireFormat.PROTOBUF, protobuf.writerFor(Product.class).with(productSchema));
+        listReaders.put(WireFormat.PROTOBUF, protobuf.readerFor(ProductList.class).with(listSchema));
+        productReaders.put(WireFormat.PROTOBUF, protobuf.readerFor(Product.class).with(productSchema));
+    }
+
+    private static ObjectMapper binary(Jackson2ObjectMapperBuilder builder, JsonFactory factory) {
+        ObjectMapper mapper = builder.factory(factory).build();
+        mapper.disable(SerializationFeature.INDENT_OUTPUT);
+        return mapper;
+    }
+
+    private static NativeProtobufSchema loadSchema() {
+        try (InputStream in = ProductFormats.class.getResourceAsStream(PROTO_SCHEMA)) {
+            if (in == null) {
+                throw new IllegalStateException("Schéma Protobuf introuvable: " + PROTO_SCHEMA);
+            }
+            return ProtobufSchemaLoader.std.loadNative(in, false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Mapper d'un format, pour la lecture ou l'écriture en flux (Smile, CBOR, JSON).
+     * Le mapper Protobuf exige un schéma : utiliser les méthodes d'encodage.
+     *
+     * @param format Format
+     * @return Le mapper
+     */
+    public ObjectMapper mapper(WireFormat format) {
+        return mappers.get(format);
+    }
+
+    /**
+     * Encode une collection de produits.
+     *
+     * @param products Produits
+     * @param format Format
+     * @return Octets encodés
+     */
+    public byte[] writeProducts(List<Product> products, WireFormat format) {
+        try {
+            Object value = format == WireFormat.PROTOBUF ? new ProductList(products) : products;
+            return listWriters.get(format).writeValueAsBytes(value);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Encode un produit.
+     *
+     * @param product Produit
+     * @param format Format
+     * @return Octets encodés
+     */
+    public byte[] writeProduct(Product product, WireFormat format) {
+        try {
+            return productWriters.get(format).writeValueAsBytes(product);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Décode une collection de produits.
+     *
+     * @param in Octets encodés
+     * @param format Format
+     * @return Produits
+     * @throws IOException si le contenu n'est pas valide dans ce format
+     */
+    public List<Product> readProducts(InputStream in, WireFormat format) throws IOException {
+        if (format == WireFormat.PROTOBUF) {
+            List<Product> products = listReaders.get(format).<ProductList>readValue(in).produits();
+            return products == null ? List.of() : products;
+        }
+        return listReaders.get(format).readValue(in);
+    }
+
+    /**
+     * Décode un produit.
+     *
+     * @param in Octets encodés
+     * @param format Format
+     * @return Produit
+     * @throws IOException si le contenu n'est pas valide dans ce format
+     */
+    public Product readProduct(InputStream in, WireFormat format) throws IOException {
+        return productReaders.get(format).readValue(in);
+    }
+
+    /**
+     * Message {@code ProductList} du schéma Protobuf.
+     *
+     * @param produits Produits de la collection
+     */
+    record ProductList(List<Product> produits) {
+    }
+}
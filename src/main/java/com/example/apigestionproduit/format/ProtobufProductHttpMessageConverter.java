@@ -0,0 +1,97 @@
+package com.example.apigestionproduit.format;
+
+import com.example.apigestionproduit.model.Product;
+import org.springframework.core.ResolvableType;
+import org.springframework.http.HttpInputMessage;
+import org.springframework.http.HttpOutputMessage;
+import org.springframework.http.MediaType;
+import org.springframework.http.converter.AbstractGenericHttpMessageConverter;
+import org.springframework.http.converter.HttpMessageNotReadableException;
+
+import java.io.IOException;
+import java.lang.reflect.Type;
+import java.util.List;
+
+/**
+ * Convertisseur Spring MVC {@code application/x-protobuf} pour un produit et les
+ * listes de produits, selon le schéma {@code proto/product.proto}.
+ *
+ * <p>Les autres types de réponse (résultats de lot, modifications) n'ont pas de
+ * schéma : un client qui n'accepte que Protobuf reçoit 406 NOT ACCEPTABLE.</p>
+ */
+public class ProtobufProductHttpMessageConverter extends AbstractGenericHttpMessageConverter<Object> {
+
+    private final ProductFormats formats;
+
+    /**
+     * Constructeur.
+     *
+     * @param formats Encodeurs des produits
+     */
+    public ProtobufProductHttpMessageConverter(ProductFormats formats) {
+        super(WireFormat.PROTOBUF.mediaType());
+        this.formats = formats;
+    }
+
+    @Override
+    protected boolean supports(Class<?> clazz) {
+        return Product.class == clazz || List.class.isAssignableFrom(clazz);
+    }
+
+    @Override
+    public boolean canRead(Type type, Class<?> contextClass, MediaType mediaType) {
+        return isProductOrList(ResolvableType.forType(type)) && canRead(mediaType);
+    }
+
+    @Override
+    public boolean canWrite(Type type, Class<?> clazz, MediaType mediaType) {
+        // Type déclaré imprécis (ResponseEntity<?>) : seul un produit est reconnu à coup sûr
+        boolean supported = type == null ? clazz == Product.class
+                : isProductOrList(ResolvableType.forType(type)) || clazz == Product.class;
+        return supported && canWrite(mediaType);
+    }
+
+    private static boolean isProductOrList(ResolvableType type) {
+        Class<?> raw = type.resolve();
+        if (raw == Product.class) {
+            return true;
+        }
+        return raw != null && List.class.isAssignableFrom(raw) && type.getGeneric(0).resolve() == Product.class;
+    }
+
+    @Override
+    public Object read(Type type, Class<?> contextClass, HttpInputMessage inputMessage) throws IOException {
+        return ResolvableType.forType(type).resolve() == Product.class
+                ? readInternal(Product.class, inputMessage)
+                : readList(inputMessage);
+    }
+
+    @Override
+    protected Object readInternal(Class<?> clazz, HttpInputMessage inputMessage) throws IOException {
+        if (clazz != Product.class) {
+            return readList(inputMessage);
+        }
+        try {
+            return formats.readProduct(inputMessage.getBody(), WireFormat.PROTOBUF);
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Protobuf invalide: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    private List<Product> readList(HttpInputMessage inputMessage) throws IOException {
+        try {
+            return formats.readProducts(inputMessage.getBody(), WireFormat.PROTOBUF);
+        } catch (IOException e) {
+            throw new HttpMessageNotReadableException("Protobuf invalide: " + e.getMessage(), e, inputMessage);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    protected void writeInternal(Object value, Type type, HttpOutputMessage outputMessage) throws IOException {
+        byte[] body = value instanceof Product product
+                ? formats.writeProduct(product, WireFormat.PROTOBUF)
+                : formats.writeProducts((List<Product>) value, WireFormat.PROTOBUF);
+        outputMessage.getBody().write(body);
+    }
+}
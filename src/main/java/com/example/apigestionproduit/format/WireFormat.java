@@ -0,0 +1,94 @@
+package com.example.apigestionproduit.format;
+
+import org.springframework.http.InvalidMediaTypeException;
+import org.springframework.http.MediaType;
+
+import java.util.List;
+
+/**
+ * Formats d'échange des produits, choisis par négociation de contenu.
+ *
+ * <p>JSON reste le format par défaut. Les formats binaires s'adressent au trafic
+ * entre services : Smile et CBOR conservent le modèle de données JSON (mêmes noms de
+ * propriétés, mêmes types), Protobuf suit le schéma {@code proto/product.proto}.</p>
+ */
+public enum WireFormat {
+
+    JSON(MediaType.APPLICATION_JSON),
+    SMILE(MediaType.parseMediaType("application/x-jackson-smile")),
+    CBOR(MediaType.APPLICATION_CBOR),
+    PROTOBUF(MediaType.parseMediaType("application/x-protobuf"));
+
+    private final MediaType mediaType;
+
+    WireFormat(MediaType mediaType) {
+        this.mediaType = mediaType;
+    }
+
+    /**
+     * Type de contenu du format.
+     *
+     * @return Type MIME
+     */
+    public MediaType mediaType() {
+        return mediaType;
+    }
+
+    /**
+     * Format de réponse demandé par un en-tête Accept : celui de plus forte qualité
+     * parmi les types explicitement cités, JSON sinon (en-tête absent, illisible ou
+     * jokers seulement).
+     *
+     * @param accept Valeur de l'en-tête Accept (peut être null)
+     * @return Format de la réponse
+     */
+    public static WireFormat negotiate(String accept) {
+        if (accept == null || accept.isBlank()) {
+            return JSON;
+        }
+        List<MediaType> acceptable;
+        try {
+            acceptable = MediaType.parseMediaTypes(accept);
+        } catch (InvalidMediaTypeException e) {
+            return JSON;
+        }
+        WireFormat best = JSON;
+        double bestQuality = 0;
+        for (MediaType type : acceptable) {
+            double quality = type.getQualityValue();
+            if (quality <= bestQuality || type.isWildcardType() || type.isWildcardSubtype()) {
+                continue;
+            }
+            for (WireFormat format : values()) {
+                if (format.mediaType.equalsTypeAndSubtype(type)) {
+                    best = format;
+                    bestQuality = quality;
+                }
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Format d'un corps de requête d'après son en-tête Content-Type.
+     *
+     * @param contentType Valeur de l'en-tête Content-Type (peut être null)
+     * @return Format du corps, JSON si absent ou inconnu
+     */
+    public static WireFormat fromContentType(String contentType) {
+        if (contentType == null || contentType.isBlank()) {
+            return JSON;
+        }
+        try {
+            MediaType type = MediaType.parseMediaType(contentType);
+            for (WireFormat format : values()) {
+                if (format.mediaType.equalsTypeAndSubtype(type)) {
+                    return format;
+                }
+            }
+        } catch (InvalidMediaTypeException e) {
+            // Type illisible : traité comme du JSON, dont l'analyse signalera l'erreur
+        }
+        return JSON;
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.apigestionproduit.model;
+
+/**
+ * Résultat du traitement d'un élément d'une opération par lot.
+ *
+ * <p>Les résultats sont retournés dans l'ordre des éléments de la requête :
+ * le i-ème résultat correspond au i-ème élément envoyé.</p>
+ */
+public class BatchItemResult {
+
+    /**
+     * Identifiant du produit concerné (null si l'élément n'en fournissait pas).
+     */
+    private final Long id;
+
+    /**
+     * Code de statut HTTP propre à l'élément (201, 200, 204, 400, 404...).
+     */
+    private final int status;
+
+    /**
+     * Message d'erreur éventuel (null en cas de succès).
+     */
+    private final String erreur;
+
+    /**
+     * Constructeur.
+     *
+     * @param id Identifiant du produit concerné
+     * @param status Code de statut HTTP de l'élément
+     * @param erreur Message d'erreur (null en cas de succès)
+     */
+    public BatchItemResult(Long id, int status, String erreur) {
+        this.id = id;
+        this.status = status;
+        this.erreur = erreur;
+    }
+
+    /**
+     * Récupère l'identifiant du produit concerné.
+     * @return l'identifiant du produit
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Récupère le code de statut de l'élément.
+     * @return le code de statut HTTP
+     */
+    public int getStatus() {
+        return status;
+    }
+
+    /**
+     * Récupère le message d'erreur.
+     * @return le message d'erreur, ou null en cas de succès
+     */
+    public String getErreur() {
+        return erreur;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchItemResult{" +
+                "id=" + id +
+                ", status=" + status +
+                ", erreur='" + erreur + '\'' +
+                '}';
+    }
+}
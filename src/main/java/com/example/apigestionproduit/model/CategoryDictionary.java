@@ -0,0 +1,75 @@
+package com.example.apigestionproduit.model;
+
+import java.lang.ref.WeakReference;
+import java.util.Map;
+import java.util.WeakHashMap;
+
+/**
+ * Dictionnaire des catégories : une seule instance de {@code String} par catégorie
+ * distincte, partagée par tous les produits.
+ *
+ * <p>Les catégories sont peu nombreuses mais répétées sur chaque produit ; sans
+ * déduplication, chaque désérialisation JSON ou binaire crée sa propre copie.</p>
+ *
+ * <p>Les entrées sont des références faibles : une catégorie n'est conservée que tant
+ * qu'un produit (ou une requête en cours) la référence. Les catégories envoyées par un
+ * client puis abandonnées sont libérées par le ramasse-miettes ; la taille du
+ * dictionnaire suit celle des catégories en usage. Le dictionnaire est réparti en
+ * segments, chacun sous son propre verrou.</p>
+ */
+public final class CategoryDictionary {
+
+    private static final int STRIPES = 16;
+
+    /**
+     * Instance canonique de chaque catégorie, par segment : clé et valeur faibles.
+     */
+    @SuppressWarnings("unchecked")
+    private static final Map<String, WeakReference<String>>[] CATEGORIES = new Map[STRIPES];
+
+    static {
+        for (int i = 0; i < STRIPES; i++) {
+            CATEGORIES[i] = new WeakHashMap<>();
+        }
+    }
+
+    private CategoryDictionary() {
+    }
+
+    /**
+     * Retourne l'instance canonique d'une catégorie.
+     *
+     * @param categorie Catégorie (peut être null)
+     * @return L'instance partagée égale à {@code categorie}, ou null
+     */
+    public static String intern(String categorie) {
+        if (categorie == null) {
+            return null;
+        }
+        Map<String, WeakReference<String>> stripe = CATEGORIES[(categorie.hashCode() & 0x7fffffff) % STRIPES];
+        synchronized (stripe) {
+            WeakReference<String> reference = stripe.get(categorie);
+            String canonical = reference == null ? null : reference.get();
+            if (canonical != null) {
+                return canonical;
+            }
+            stripe.put(categorie, new WeakReference<>(categorie));
+            return categorie;
+        }
+    }
+
+    /**
+     * Retourne le nombre de catégories distinctes en usage.
+     *
+     * @return Taille du dictionnaire
+     */
+    public static int size() {
+        int size = 0;
+        for (Map<String, WeakReference<String>> stripe : CATEGORIES) {
+            synchronized (stripe) {
+                size += stripe.size();
+            }
+        }
+        return size;
+    }
+}
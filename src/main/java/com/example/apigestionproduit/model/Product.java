@@ -1,24 +1,70 @@
 package com.example.apigestionproduit.model;
 
 
+import com.fasterxml.jackson.annotation.JsonSetter;
+
 import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.time.Instant;
 import java.time.LocalDateTime;
+import java.time.ZoneId;
 
 /**
  * Classe représentant un produit dans le système de gestion.
  * Cette entité contient toutes les informations nécessaires pour décrire un produit.
  *
+ * <p>Représentation interne compacte : identifiant et stock en types primitifs, prix
+ * en centimes, dates en millisecondes depuis l'epoch et catégorie dédupliquée par
+ * {@link CategoryDictionary}. Les getters et setters conservent leurs types publics,
+ * le contrat JSON est donc inchangé. Une valeur absente est codée par une sentinelle.</p>
+ *
+ * <p>Les produits enregistrés par {@code ProductService} sont des instantanés : le service
+ * ne les modifie jamais, il les remplace atomiquement par une nouvelle instance
+ * ({@link #snapshot}) de version supérieure. Les setters servent uniquement à construire
+ * un produit (désérialisation JSON, données de création ou de modification).</p>
+ *
  * @author DJAKOU Ruben
  * @version 1.0
  * @since 2025-11-15
  */
 public class Product {
 
+    /**
+     * Nombre de décimales conservées sur le prix.
+     */
+    public static final int PRIX_SCALE = 2;
+
+    /**
+     * Sentinelle d'identifiant absent (les identifiants attribués commencent à 1).
+     */
+    public static final long NO_ID = 0L;
+
+    /**
+     * Sentinelle de prix absent.
+     */
+    public static final long NO_PRIX = Long.MIN_VALUE;
+
+    /**
+     * Sentinelle de stock absent.
+     */
+    public static final int NO_STOCK = Integer.MIN_VALUE;
+
+    /**
+     * Sentinelle de date absente.
+     */
+    public static final long NO_DATE = Long.MIN_VALUE;
+
     /**
      * Identifiant unique du produit.
      * Généré automatiquement lors de la création.
      */
-    private Long id;
+    private long id;
+
+    /**
+     * Version du produit : 1 à la création, incrémentée à chaque modification.
+     * Exposée comme ETag pour le contrôle de concurrence optimiste.
+     */
+    private long version;
 
     /**
      * Nom du produit.
@@ -33,39 +79,41 @@ public class Product {
     private String description;
 
     /**
-     * Prix unitaire du produit en devise locale.
+     * Prix unitaire du produit en centimes de la devise locale.
      * Doit être supérieur à zéro.
      */
-    private BigDecimal prix;
+    private long prixCentimes;
 
     /**
      * Quantité disponible en stock.
      * Valeur par défaut : 0
      */
-    private Integer quantiteStock;
+    private int quantiteStock;
 
     /**
      * Catégorie du produit (ex: Électronique, Alimentaire, etc.).
+     * Instance partagée issue de {@link CategoryDictionary}.
      */
     private String categorie;
 
     /**
-     * Date de création de l'enregistrement du produit.
+     * Date de création de l'enregistrement du produit (millisecondes epoch).
      */
-    private LocalDateTime dateCreation;
+    private long dateCreation;
 
     /**
-     * Date de dernière modification du produit.
+     * Date de dernière modification du produit (millisecondes epoch).
      */
-    private LocalDateTime dateModification;
+    private long dateModification;
 
     /**
      * Constructeur par défaut.
      * Initialise la date de création à la date actuelle.
      */
     public Product() {
-        this.dateCreation = LocalDateTime.now();
-        this.dateModification = LocalDateTime.now();
+        this.prixCentimes = NO_PRIX;
+        this.dateCreation = System.currentTimeMillis();
+        this.dateModification = this.dateCreation;
         this.quantiteStock = 0;
     }
 
@@ -81,14 +129,125 @@ public class Product {
      */
     public Product(Long id, String nom, String description, BigDecimal prix,
                    Integer quantiteStock, String categorie) {
-        this.id = id;
+        this.id = toId(id);
+        this.nom = nom;
+        this.description = description;
+        this.prixCentimes = toCentimes(prix);
+        this.quantiteStock = toStock(quantiteStock);
+        this.categorie = CategoryDictionary.intern(categorie);
+        this.dateCreation = System.currentTimeMillis();
+        this.dateModification = this.dateCreation;
+    }
+
+    /**
+     * Constructeur complet, dates comprises.
+     * Utilisé pour reconstruire un produit persisté sans altérer ses dates.
+     *
+     * @param id Identifiant du produit
+     * @param nom Nom du produit
+     * @param description Description du produit
+     * @param prix Prix du produit
+     * @param quantiteStock Quantité en stock
+     * @param categorie Catégorie du produit
+     * @param dateCreation Date de création
+     * @param dateModification Date de dernière modification
+     */
+    public Product(Long id, String nom, String description, BigDecimal prix,
+                   Integer quantiteStock, String categorie,
+                   LocalDateTime dateCreation, LocalDateTime dateModification) {
+        this.id = toId(id);
         this.nom = nom;
         this.description = description;
-        this.prix = prix;
-        this.quantiteStock = quantiteStock;
-        this.categorie = categorie;
-        this.dateCreation = LocalDateTime.now();
-        this.dateModification = LocalDateTime.now();
+        this.prixCentimes = toCentimes(prix);
+        this.quantiteStock = toStock(quantiteStock);
+        this.categorie = CategoryDictionary.intern(categorie);
+        this.dateCreation = toMillis(dateCreation);
+        this.dateModification = toMillis(dateModification);
+    }
+
+    /**
+     * Reconstruit un produit directement depuis sa représentation compacte,
+     * sans conversion. Utilisé par les formats binaires.
+     *
+     * @param id Identifiant ({@link #NO_ID} si absent)
+     * @param version Version du produit
+     * @param nom Nom du produit
+     * @param description Description du produit
+     * @param prixCentimes Prix en centimes ({@link #NO_PRIX} si absent)
+     * @param quantiteStock Quantité en stock ({@link #NO_STOCK} si absente)
+     * @param categorie Catégorie du produit
+     * @param dateCreation Date de création en millisecondes ({@link #NO_DATE} si absente)
+     * @param dateModification Date de modification en millisecondes ({@link #NO_DATE} si absente)
+     * @return Le produit reconstruit
+     */
+    public static Product ofCompact(long id, long version, String nom, String description, long prixCentimes,
+                                    int quantiteStock, String categorie,
+                                    long dateCreation, long dateModification) {
+        Product product = new Product();
+        product.id = id;
+        product.version = version;
+        product.nom = nom;
+        product.description = description;
+        product.prixCentimes = prixCentimes;
+        product.quantiteStock = quantiteStock;
+        product.categorie = CategoryDictionary.intern(categorie);
+        product.dateCreation = dateCreation;
+        product.dateModification = dateModification;
+        return product;
+    }
+
+    /**
+     * Crée un instantané du contenu de ce produit (nom, description, prix, stock,
+     * catégorie) avec l'identité, la version et les dates données.
+     * Ce produit n'est pas modifié.
+     *
+     * @param id Identifiant de l'instantané
+     * @param version Version de l'instantané
+     * @param dateCreation Date de création en millisecondes
+     * @param dateModification Date de modification en millisecondes
+     * @return Le nouvel instantané
+     */
+    public Product snapshot(long id, long version, long dateCreation, long dateModification) {
+        return ofCompact(id, version, nom, description, prixCentimes, quantiteStock, categorie,
+                dateCreation, dateModification);
+    }
+
+    /**
+     * Crée un instantané identique à ce produit, hormis le stock, la version et la
+     * date de modification. Ce produit n'est pas modifié.
+     *
+     * @param quantiteStock Nouvelle quantité en stock
+     * @param version Version de l'instantané
+     * @param dateModification Date de modification en millisecondes
+     * @return Le nouvel instantané
+     */
+    public Product withStock(int quantiteStock, long version, long dateModification) {
+        return ofCompact(id, version, nom, description, prixCentimes, quantiteStock, categorie,
+                dateCreation, dateModification);
+    }
+
+    // === CONVERSIONS ===
+
+    private static long toId(Long id) {
+        return id == null ? NO_ID : id;
+    }
+
+    private static int toStock(Integer quantiteStock) {
+        return quantiteStock == null ? NO_STOCK : quantiteStock;
+    }
+
+    private static long toCentimes(BigDecimal prix) {
+        return prix == null ? NO_PRIX
+                : prix.setScale(PRIX_SCALE, RoundingMode.HALF_UP).unscaledValue().longValueExact();
+    }
+
+    private static long toMillis(LocalDateTime date) {
+        return date == null ? NO_DATE : date.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+    }
+
+    private static LocalDateTime toDateTime(long millis) {
+        return millis == NO_DATE ? null
+                : LocalDateTime.ofInstant(Instant.ofEpochMilli(millis), ZoneId.systemDefault());
     }
 
     // === GETTERS ET SETTERS ===
@@ -98,7 +257,7 @@ public class Product {
      * @return l'identifiant unique du produit
      */
     public Long getId() {
-        return id;
+        return id == NO_ID ? null : id;
     }
 
     /**
@@ -106,7 +265,15 @@ public class Product {
      * @param id l'identifiant à attribuer
      */
     public void setId(Long id) {
-        this.id = id;
+        this.id = toId(id);
+    }
+
+    /**
+     * Récupère la version du produit.
+     * @return la version (0 tant que le produit n'est pas enregistré)
+     */
+    public long getVersion() {
+        return version;
     }
 
     /**
@@ -123,7 +290,7 @@ public class Product {
      */
     public void setNom(String nom) {
         this.nom = nom;
-        this.dateModification = LocalDateTime.now();
+        this.dateModification = System.currentTimeMillis();
     }
 
     /**
@@ -140,24 +307,25 @@ public class Product {
      */
     public void setDescription(String description) {
         this.description = description;
-        this.dateModification = LocalDateTime.now();
+        this.dateModification = System.currentTimeMillis();
     }
 
     /**
      * Récupère le prix du produit.
-     * @return le prix du produit
+     * @return le prix du produit, avec 2 décimales
      */
     public BigDecimal getPrix() {
-        return prix;
+        return prixCentimes == NO_PRIX ? null : BigDecimal.valueOf(prixCentimes, PRIX_SCALE);
     }
 
     /**
      * Définit le prix du produit.
+     * Le prix est arrondi au centime le plus proche.
      * @param prix le prix à attribuer
      */
     public void setPrix(BigDecimal prix) {
-        this.prix = prix;
-        this.dateModification = LocalDateTime.now();
+        this.prixCentimes = toCentimes(prix);
+        this.dateModification = System.currentTimeMillis();
     }
 
     /**
@@ -165,7 +333,7 @@ public class Product {
      * @return la quantité disponible
      */
     public Integer getQuantiteStock() {
-        return quantiteStock;
+        return quantiteStock == NO_STOCK ? null : quantiteStock;
     }
 
     /**
@@ -173,8 +341,8 @@ public class Product {
      * @param quantiteStock la quantité à attribuer
      */
     public void setQuantiteStock(Integer quantiteStock) {
-        this.quantiteStock = quantiteStock;
-        this.dateModification = LocalDateTime.now();
+        this.quantiteStock = toStock(quantiteStock);
+        this.dateModification = System.currentTimeMillis();
     }
 
     /**
@@ -190,8 +358,8 @@ public class Product {
      * @param categorie la catégorie à attribuer
      */
     public void setCategorie(String categorie) {
-        this.categorie = categorie;
-        this.dateModification = LocalDateTime.now();
+        this.categorie = CategoryDictionary.intern(categorie);
+        this.dateModification = System.currentTimeMillis();
     }
 
     /**
@@ -199,7 +367,7 @@ public class Product {
      * @return la date de création du produit
      */
     public LocalDateTime getDateCreation() {
-        return dateCreation;
+        return toDateTime(dateCreation);
     }
 
     /**
@@ -207,27 +375,80 @@ public class Product {
      * @return la date de dernière modification
      */
     public LocalDateTime getDateModification() {
-        return dateModification;
+        return toDateTime(dateModification);
     }
 
     /**
      * Met à jour la date de modification à la date actuelle.
      */
     public void updateDateModification() {
-        this.dateModification = LocalDateTime.now();
+        this.dateModification = System.currentTimeMillis();
+    }
+
+    /**
+     * Date de création lue d'un produit renvoyé tel qu'il a été reçu. Sans ce
+     * mutateur, Jackson écrirait la date texte dans le champ en millisecondes.
+     * Le service attribue de toute façon ses propres dates à l'enregistrement.
+     */
+    @JsonSetter("dateCreation")
+    private void readDateCreation(LocalDateTime date) {
+        this.dateCreation = toMillis(date);
+    }
+
+    /**
+     * Date de modification lue d'un produit renvoyé tel qu'il a été reçu.
+     */
+    @JsonSetter("dateModification")
+    private void readDateModification(LocalDateTime date) {
+        this.dateModification = toMillis(date);
+    }
+
+    // === ACCÈS COMPACTS (ignorés par Jackson) ===
+
+    /**
+     * Prix en centimes, sans allocation.
+     * @return le prix en centimes, ou {@link #NO_PRIX}
+     */
+    public long prixCentimes() {
+        return prixCentimes;
+    }
+
+    /**
+     * Quantité en stock, sans boxing.
+     * @return la quantité, ou {@link #NO_STOCK}
+     */
+    public int stock() {
+        return quantiteStock;
+    }
+
+    /**
+     * Date de création en millisecondes depuis l'epoch.
+     * @return la date, ou {@link #NO_DATE}
+     */
+    public long dateCreationMillis() {
+        return dateCreation;
+    }
+
+    /**
+     * Date de dernière modification en millisecondes depuis l'epoch.
+     * @return la date, ou {@link #NO_DATE}
+     */
+    public long dateModificationMillis() {
+        return dateModification;
     }
 
     @Override
     public String toString() {
         return "Product{" +
-                "id=" + id +
+                "id=" + getId() +
+                ", version=" + version +
                 ", nom='" + nom + '\'' +
                 ", description='" + description + '\'' +
-                ", prix=" + prix +
-                ", quantiteStock=" + quantiteStock +
+                ", prix=" + getPrix() +
+                ", quantiteStock=" + getQuantiteStock() +
                 ", categorie='" + categorie + '\'' +
-                ", dateCreation=" + dateCreation +
-                ", dateModification=" + dateModification +
+                ", dateCreation=" + getDateCreation() +
+                ", dateModification=" + getDateModification() +
                 '}';
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,93 @@
+package com.example.apigestionproduit.model;
+
+/**
+ * Événement du journal des modifications du catalogue.
+ *
+ * <p>Chaque création, modification (y compris de stock) ou suppression reçoit un
+ * numéro de séquence strictement croissant. Un événement de suppression est une
+ * pierre tombale : {@link #getProduit()} est null. Les événements portent l'état
+ * complet du produit : les rejouer plusieurs fois est sans effet supplémentaire.</p>
+ */
+public class ProductChange {
+
+    /**
+     * Nature de la modification.
+     */
+    public enum Type { CREATE, UPDATE, DELETE }
+
+    /**
+     * Numéro de séquence de la modification.
+     */
+    private final long sequence;
+
+    /**
+     * Nature de la modification.
+     */
+    private final Type type;
+
+    /**
+     * Identifiant du produit concerné.
+     */
+    private final Long id;
+
+    /**
+     * État du produit après la modification (null pour une suppression).
+     */
+    private final Product produit;
+
+    /**
+     * Constructeur.
+     *
+     * @param sequence Numéro de séquence
+     * @param type Nature de la modification
+     * @param id Identifiant du produit
+     * @param produit État après la modification (null pour une suppression)
+     */
+    public ProductChange(long sequence, Type type, Long id, Product produit) {
+        this.sequence = sequence;
+        this.type = type;
+        this.id = id;
+        this.produit = produit;
+    }
+
+    /**
+     * Récupère le numéro de séquence.
+     * @return le numéro de séquence
+     */
+    public long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Récupère la nature de la modification.
+     * @return CREATE, UPDATE ou DELETE
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Récupère l'identifiant du produit concerné.
+     * @return l'identifiant du produit
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Récupère l'état du produit après la modification.
+     * @return le produit, ou null pour une suppression
+     */
+    public Product getProduit() {
+        return produit;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductChange{" +
+                "sequence=" + sequence +
+                ", type=" + type +
+                ", id=" + id +
+                '}';
+    }
+}
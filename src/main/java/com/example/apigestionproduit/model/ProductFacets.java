@@ -0,0 +1,128 @@
+package com.example.apigestionproduit.model;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Décomptes du catalogue pour la navigation par facettes : produits par catégorie,
+ * par tranche de prix et par disponibilité.
+ *
+ * <p>Les catégories sont comparées sans tenir compte de la casse ; chacune est
+ * présentée sous le dernier libellé indexé. Seules les catégories et tranches non
+ * vides sont retournées, les catégories de la plus fournie à la moins fournie.</p>
+ */
+public class ProductFacets {
+
+    /**
+     * Tranche de prix : {@code min} inclus, {@code max} exclu (null pour la dernière tranche).
+     */
+    public static class Tranche {
+
+        private final BigDecimal min;
+        private final BigDecimal max;
+        private final long nombre;
+
+        /**
+         * Constructeur.
+         *
+         * @param min Prix minimal, inclus
+         * @param max Prix maximal, exclu (null si la tranche n'est pas bornée)
+         * @param nombre Nombre de produits dans la tranche
+         */
+        public Tranche(BigDecimal min, BigDecimal max, long nombre) {
+            this.min = min;
+            this.max = max;
+            this.nombre = nombre;
+        }
+
+        /**
+         * Récupère le prix minimal de la tranche.
+         * @return le prix minimal, inclus
+         */
+        public BigDecimal getMin() {
+            return min;
+        }
+
+        /**
+         * Récupère le prix maximal de la tranche.
+         * @return le prix maximal, exclu, ou null pour la dernière tranche
+         */
+        public BigDecimal getMax() {
+            return max;
+        }
+
+        /**
+         * Récupère le nombre de produits de la tranche.
+         * @return le nombre de produits
+         */
+        public long getNombre() {
+            return nombre;
+        }
+    }
+
+    private final long total;
+    private final Map<String, Long> categories;
+    private final List<Tranche> prix;
+    private final long enStock;
+    private final long enRupture;
+
+    /**
+     * Constructeur.
+     *
+     * @param total Nombre de produits décomptés
+     * @param categories Nombre de produits par catégorie, du plus grand au plus petit
+     * @param prix Nombre de produits par tranche de prix, par prix croissant
+     * @param enStock Nombre de produits dont le stock est positif
+     * @param enRupture Nombre de produits sans stock (nul ou non renseigné)
+     */
+    public ProductFacets(long total, Map<String, Long> categories, List<Tranche> prix,
+                         long enStock, long enRupture) {
+        this.total = total;
+        this.categories = categories;
+        this.prix = prix;
+        this.enStock = enStock;
+        this.enRupture = enRupture;
+    }
+
+    /**
+     * Récupère le nombre de produits décomptés.
+     * @return le nombre de produits
+     */
+    public long getTotal() {
+        return total;
+    }
+
+    /**
+     * Récupère le nombre de produits par catégorie.
+     * @return libellé de la catégorie vers nombre de produits
+     */
+    public Map<String, Long> getCategories() {
+        return categories;
+    }
+
+    /**
+     * Récupère le nombre de produits par tranche de prix.
+     * Les produits sans prix ne sont dans aucune tranche.
+     * @return les tranches non vides, par prix croissant
+     */
+    public List<Tranche> getPrix() {
+        return prix;
+    }
+
+    /**
+     * Récupère le nombre de produits disponibles.
+     * @return le nombre de produits dont le stock est positif
+     */
+    public long getEnStock() {
+        return enStock;
+    }
+
+    /**
+     * Récupère le nombre de produits en rupture.
+     * @return le nombre de produits de stock nul ou non renseigné
+     */
+    public long getEnRupture() {
+        return enRupture;
+    }
+}
@@ -0,0 +1,173 @@
+package com.example.apigestionproduit.model;
+
+import java.math.BigDecimal;
+import java.math.RoundingMode;
+import java.util.Comparator;
+
+/**
+ * Critères d'une requête multicritère sur le catalogue ({@code GET /api/products/query}).
+ *
+ * <p>Tous les critères sont optionnels et se combinent (ET logique). Les bornes de
+ * prix et de stock sont incluses.</p>
+ */
+public class ProductQuery {
+
+    /**
+     * Champ de tri des résultats.
+     */
+    public enum SortField {
+        /** Identifiant (ordre par défaut). */
+        ID,
+        /** Prix, puis identifiant. Les produits sans prix sont exclus. */
+        PRIX,
+        /** Quantité en stock, puis identifiant. Les produits sans stock sont exclus. */
+        QUANTITE_STOCK
+    }
+
+    private final BigDecimal prixMin;
+    private final BigDecimal prixMax;
+    private final Integer stockMin;
+    private final String categorie;
+    private final SortField sortField;
+    private final boolean descending;
+    private final int limit;
+
+    /**
+     * Constructeur.
+     *
+     * @param prixMin Prix minimal inclus (null : pas de borne)
+     * @param prixMax Prix maximal inclus (null : pas de borne)
+     * @param stockMin Stock minimal inclus (null : pas de borne)
+     * @param categorie Catégorie, insensible à la casse (null : toutes)
+     * @param sortField Champ de tri
+     * @param descending true pour un tri décroissant
+     * @param limit Nombre maximal de résultats (strictement positif)
+     */
+    public ProductQuery(BigDecimal prixMin, BigDecimal prixMax, Integer stockMin, String categorie,
+                        SortField sortField, boolean descending, int limit) {
+        this.prixMin = prixMin;
+        this.prixMax = prixMax;
+        this.stockMin = stockMin;
+        this.categorie = categorie;
+        this.sortField = sortField;
+        this.descending = descending;
+        this.limit = limit;
+    }
+
+    /**
+     * Requête construite à partir des paramètres HTTP.
+     *
+     * @param prixMin Prix minimal inclus (null : pas de borne)
+     * @param prixMax Prix maximal inclus (null : pas de borne)
+     * @param stockMin Stock minimal inclus (null : pas de borne)
+     * @param categorie Catégorie (null : toutes)
+     * @param sort Tri : {@code id}, {@code prix} ou {@code quantiteStock}, suivi
+     *             éventuellement de {@code ,asc} ou {@code ,desc}
+     * @param limit Nombre maximal de résultats (strictement positif)
+     * @return La requête
+     * @throws IllegalArgumentException si le tri est inconnu ou si une borne de prix
+     *                                  est hors de la plage représentable
+     */
+    public static ProductQuery of(BigDecimal prixMin, BigDecimal prixMax, Integer stockMin, String categorie,
+                                  String sort, int limit) {
+        String[] parts = sort.split(",", 2);
+        SortField sortField = switch (parts[0].trim()) {
+            case "id" -> SortField.ID;
+            case "prix" -> SortField.PRIX;
+            case "quantiteStock" -> SortField.QUANTITE_STOCK;
+            default -> throw new IllegalArgumentException("Tri inconnu: " + sort);
+        };
+        String direction = parts.length > 1 ? parts[1].trim() : "asc";
+        boolean descending = direction.equalsIgnoreCase("desc");
+        if (!descending && !direction.equalsIgnoreCase("asc")) {
+            throw new IllegalArgumentException("Sens de tri inconnu: " + sort);
+        }
+        checkPrix(prixMin);
+        checkPrix(prixMax);
+        return new ProductQuery(prixMin, prixMax, stockMin, categorie, sortField, descending, limit);
+    }
+
+    private static void checkPrix(BigDecimal prix) {
+        if (prix != null
+                && prix.setScale(Product.PRIX_SCALE, RoundingMode.UP).unscaledValue().bitLength() >= Long.SIZE) {
+            throw new IllegalArgumentException("Borne de prix hors de la plage représentable: " + prix);
+        }
+    }
+
+    /**
+     * Ordre des résultats : le champ de tri puis l'identifiant, dans le sens demandé.
+     *
+     * @return Le comparateur des produits
+     */
+    public Comparator<Product> order() {
+        Comparator<Product> byId = Comparator.comparingLong(Product::getId);
+        Comparator<Product> order = switch (sortField) {
+            case PRIX -> Comparator.comparingLong(Product::prixCentimes).thenComparing(byId);
+            case QUANTITE_STOCK -> Comparator.comparingInt(Product::stock).thenComparing(byId);
+            case ID -> byId;
+        };
+        return descending ? order.reversed() : order;
+    }
+
+    /**
+     * @return le prix minimal inclus, ou null
+     */
+    public BigDecimal getPrixMin() {
+        return prixMin;
+    }
+
+    /**
+     * @return le prix maximal inclus, ou null
+     */
+    public BigDecimal getPrixMax() {
+        return prixMax;
+    }
+
+    /**
+     * @return le stock minimal inclus, ou null
+     */
+    public Integer getStockMin() {
+        return stockMin;
+    }
+
+    /**
+     * @return la catégorie recherchée, ou null
+     */
+    public String getCategorie() {
+        return categorie;
+    }
+
+    /**
+     * @return le champ de tri
+     */
+    public SortField getSortField() {
+        return sortField;
+    }
+
+    /**
+     * @return true pour un tri décroissant
+     */
+    public boolean isDescending() {
+        return descending;
+    }
+
+    /**
+     * @return le nombre maximal de résultats
+     */
+    public int getLimit() {
+        return limit;
+    }
+
+    @Override
+    public String toString() {
+        return "ProductQuery{" +
+                "prixMin=" + prixMin +
+                ", prixMax=" + prixMax +
+                ", stockMin=" + stockMin +
+                ", categorie='" + categorie + '\'' +
+                ", sortField=" + sortField +
+                ", descending=" + descending +
+                ", limit=" + limit +
+                '}';
+    }
+}
@@ -0,0 +1,77 @@
+package com.example.apigestionproduit.model;
+
+/**
+ * Ligne d'une réservation ou d'une libération de stock : un produit et une quantité.
+ *
+ * <p>Pour les endpoints {@code /api/products/{id}/stock/...}, seul {@code quantite}
+ * est lu, l'identifiant venant du chemin.</p>
+ */
+public class StockLine {
+
+    /**
+     * Identifiant du produit concerné.
+     */
+    private Long id;
+
+    /**
+     * Nombre d'unités à réserver ou libérer (strictement positif).
+     */
+    private int quantite = 1;
+
+    /**
+     * Constructeur par défaut (désérialisation JSON).
+     */
+    public StockLine() {
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param id Identifiant du produit
+     * @param quantite Nombre d'unités
+     */
+    public StockLine(Long id, int quantite) {
+        this.id = id;
+        this.quantite = quantite;
+    }
+
+    /**
+     * Récupère l'identifiant du produit.
+     * @return l'identifiant du produit
+     */
+    public Long getId() {
+        return id;
+    }
+
+    /**
+     * Définit l'identifiant du produit.
+     * @param id l'identifiant du produit
+     */
+    public void setId(Long id) {
+        this.id = id;
+    }
+
+    /**
+     * Récupère la quantité.
+     * @return le nombre d'unités
+     */
+    public int getQuantite() {
+        return quantite;
+    }
+
+    /**
+     * Définit la quantité.
+     * @param quantite le nombre d'unités
+     */
+    public void setQuantite(int quantite) {
+        this.quantite = quantite;
+    }
+
+    @Override
+    public String toString() {
+        return "StockLine{" +
+                "id=" + id +
+                ", quantite=" + quantite +
+                '}';
+    }
+}
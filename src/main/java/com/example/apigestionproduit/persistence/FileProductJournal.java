@@ -0,0 +1,598 @@
+package com.example.apigestionproduit.persistence;
+
+import com.example.apigestionproduit.model.Product;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+/**
+ * Journal d'écriture (write-ahead log) sur disque, avec snapshots périodiques.
+ *
+ * <p><b>Journal :</b> les mutations sont ajoutées en binaire à des segments
+ * {@code products-NNNNNNNNNN.wal} via un {@link FileChannel}. Chaque enregistrement
+ * est de la forme {@code [int longueur][byte type][données][int CRC32C]}. Un thread
+ * dédié écrit les enregistrements accumulés et appelle {@code force} une seule fois
+ * par lot (group commit) : sous charge, un fsync couvre de nombreuses écritures.</p>
+ *
+ * <p><b>Snapshots :</b> périodiquement, le segment courant est clos et un nouveau
+ * est ouvert, puis l'ensemble des produits est écrit dans {@code products.snap}
+ * (fichier temporaire renommé atomiquement). Le snapshot référence le segment clos,
+ * qui est conservé pour couvrir les mutations en cours pendant la rotation ; les
+ * segments plus anciens sont supprimés.</p>
+ *
+ * <p><b>Reprise :</b> le snapshot puis les segments sont relus par fenêtres
+ * mappées en mémoire ({@link MappedByteBuffer}). Un enregistrement tronqué ou dont
+ * le CRC est invalide marque la fin du segment (écriture interrompue par un arrêt).
+ * Le rejeu est idempotent : un PUT contient l'état complet du produit.</p>
+ */
+public class FileProductJournal implements ProductJournal {
+
+    private static final Logger log = LoggerFactory.getLogger(FileProductJournal.class);
+
+    private static final byte TYPE_PUT = 1;
+    private static final byte TYPE_DELETE = 2;
+
+    private static final int SNAPSHOT_MAGIC = 0x50524F44;
+    private static final int SNAPSHOT_VERSION = 3;
+    private static final int SNAPSHOT_END = -1;
+    private static final String SNAPSHOT_FILE = "products.snap";
+    private static final Pattern SEGMENT_NAME = Pattern.compile("products-(\\d{10})\\.wal");
+
+    /**
+     * Taille des fenêtres mappées lors de la reprise.
+     */
+    private static final long MAP_WINDOW = 256L * 1024 * 1024;
+
+    private final Path directory;
+    private final boolean fsync;
+    private final long maxSegmentBytes;
+    private final Duration snapshotInterval;
+
+    /**
+     * Protège le tampon d'enregistrements en attente et les compteurs de séquence.
+     */
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition durable = lock.newCondition();
+    private ByteBuffer pending = ByteBuffer.allocate(1 << 20);
+    private long appendedSeq;
+    private long durableSeq;
+    private IOException failure;
+    private boolean running;
+
+    /**
+     * Protège le segment courant ; toujours acquis avant {@link #lock}.
+     */
+    private final ReentrantLock ioLock = new ReentrantLock();
+    private ByteBuffer spare = ByteBuffer.allocate(1 << 20);
+    private FileChannel channel;
+    private long segmentNumber;
+    private long segmentSize;
+
+    /**
+     * Tampon d'encodage propre à chaque thread écrivain, hors verrou.
+     */
+    private final ThreadLocal<ByteBuffer> scratch = ThreadLocal.withInitial(() -> ByteBuffer.allocate(4096));
+
+    private Thread flusher;
+    private ScheduledExecutorService snapshotter;
+    private Supplier<Iterable<Product>> snapshotSource;
+    private LongSupplier highWaterSource;
+
+    /**
+     * Constructeur.
+     *
+     * @param directory Répertoire des segments et du snapshot (créé si absent)
+     * @param fsync true pour forcer l'écriture sur disque à chaque lot
+     * @param maxSegmentBytes Taille au-delà de laquelle un nouveau segment est ouvert
+     * @param snapshotInterval Intervalle entre deux snapshots
+     */
+    public FileProductJournal(Path directory, boolean fsync, long maxSegmentBytes, Duration snapshotInterval) {
+        this.directory = directory;
+        this.fsync = fsync;
+        this.maxSegmentBytes = maxSegmentBytes;
+        this.snapshotInterval = snapshotInterval;
+    }
+
+    // === REPRISE ===
+
+    @Override
+    public long recover(Consumer<Product> onPut, LongConsumer onDelete) {
+        try {
+            Files.createDirectories(directory);
+            long[] highWater = {0};
+            long firstSegment = 0;
+
+            Path snapshot = directory.resolve(SNAPSHOT_FILE);
+            if (Files.exists(snapshot)) {
+                firstSegment = readSnapshot(snapshot, product -> {
+                    highWater[0] = Math.max(highWater[0], product.getId());
+                    onPut.accept(product);
+                }, highWater);
+            }
+
+            long lastSegment = firstSegment;
+            for (long number : listSegments()) {
+                if (number >= firstSegment) {
+                    replaySegment(segmentPath(number), product -> {
+                        highWater[0] = Math.max(highWater[0], product.getId());
+                        onPut.accept(product);
+                    }, id -> {
+                        highWater[0] = Math.max(highWater[0], id);
+                        onDelete.accept(id);
+                    });
+                }
+                lastSegment = Math.max(lastSegment, number);
+            }
+
+            ioLock.lock();
+            try {
+                openSegment(lastSegment + 1);
+            } finally {
+                ioLock.unlock();
+            }
+            startFlusher();
+            return highWater[0];
+        } catch (IOException e) {
+            throw new UncheckedIOException("Impossible de relire le journal " + directory, e);
+        }
+    }
+
+    private long readSnapshot(Path snapshot, Consumer<Product> onPut, long[] highWater) throws IOException {
+        try (FileChannel in = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            MappedReader reader = new MappedReader(in);
+            if (!reader.ensure(24)) {
+                throw new IOException("Snapshot tronqué: " + snapshot);
+            }
+            ByteBuffer buffer = reader.buffer();
+            if (buffer.getInt() != SNAPSHOT_MAGIC || buffer.getInt() != SNAPSHOT_VERSION) {
+                throw new IOException("Format de snapshot inconnu: " + snapshot);
+            }
+            long firstSegment = buffer.getLong();
+            highWater[0] = Math.max(highWater[0], buffer.getLong());
+
+            while (reader.ensure(4)) {
+                int length = reader.buffer().getInt();
+                if (length == SNAPSHOT_END) {
+                    return firstSegment;
+                }
+                if (!reader.ensure(length)) {
+                    break;
+                }
+                onPut.accept(ProductCodec.decode(reader.buffer()));
+            }
+            throw new IOException("Snapshot tronqué: " + snapshot);
+        }
+    }
+
+    private void replaySegment(Path segment, Consumer<Product> onPut, LongConsumer onDelete) throws IOException {
+        try (FileChannel in = FileChannel.open(segment, StandardOpenOption.READ)) {
+            if (in.size() == 0) {
+                return;
+            }
+            MappedReader reader = new MappedReader(in);
+            CRC32C crc = new CRC32C();
+
+            while (reader.ensure(4)) {
+                long recordStart = reader.position();
+                int length = reader.buffer().getInt();
+                if (length <= 0 || length > MAP_WINDOW - 4 || !reader.ensure(length + 4)) {
+                    log.warn("Fin de segment tronquée dans {} à la position {}", segment, recordStart);
+                    return;
+                }
+
+                ByteBuffer buffer = reader.buffer();
+                int start = buffer.position();
+                crc.reset();
+                crc.update(buffer.slice(start, length));
+                if ((int) crc.getValue() != buffer.getInt(start + length)) {
+                    log.warn("CRC invalide dans {} à la position {}", segment, recordStart);
+                    return;
+                }
+
+                byte type = buffer.get();
+                if (type == TYPE_PUT) {
+                    onPut.accept(ProductCodec.decode(buffer));
+                } else if (type == TYPE_DELETE) {
+                    onDelete.accept(buffer.getLong());
+                }
+                buffer.position(start + length + 4);
+            }
+        }
+    }
+
+    // === ÉCRITURE ===
+
+    @Override
+    public long logPut(Product product) {
+        ByteBuffer record = scratchFor(4 + 1 + ProductCodec.maxEncodedSize(product) + 4);
+        record.putInt(0).put(TYPE_PUT);
+        ProductCodec.encode(product, record);
+        return append(record);
+    }
+
+    @Override
+    public long logDelete(long id) {
+        ByteBuffer record = scratchFor(4 + 1 + 8 + 4);
+        record.putInt(0).put(TYPE_DELETE).putLong(id);
+        return append(record);
+    }
+
+    private ByteBuffer scratchFor(int size) {
+        ByteBuffer buffer = scratch.get();
+        if (buffer.capacity() < size) {
+            buffer = ByteBuffer.allocate(Math.max(size, buffer.capacity() * 2));
+            scratch.set(buffer);
+        }
+        buffer.clear();
+        return buffer;
+    }
+
+    /**
+     * Complète l'enregistrement (longueur et CRC) puis l'ajoute au tampon en attente.
+     */
+    private long append(ByteBuffer record) {
+        int length = record.position() - 4;
+        CRC32C crc = new CRC32C();
+        crc.update(record.array(), 4, length);
+        record.putInt(0, length);
+        record.putInt((int) crc.getValue());
+        record.flip();
+
+        lock.lock();
+        try {
+            if (!running) {
+                throw new IllegalStateException("Journal fermé ou non initialisé");
+            }
+            if (failure != null) {
+                // Écrivain arrêté : refusé avant d'être appliqué, plutôt qu'accumulé sans fin
+                throw new UncheckedIOException("Échec d'écriture du journal", failure);
+            }
+            if (pending.remaining() < record.remaining()) {
+                ByteBuffer larger = ByteBuffer.allocate(Math.max(pending.capacity() * 2,
+                        pending.position() + record.remaining()));
+                pending.flip();
+                larger.put(pending);
+                pending = larger;
+            }
+            pending.put(record);
+            notEmpty.signal();
+            return ++appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public void awaitDurable(long ticket) {
+        lock.lock();
+        try {
+            while (durableSeq < ticket && failure == null) {
+                durable.awaitUninterruptibly();
+            }
+            if (failure != null) {
+                throw new UncheckedIOException("Échec d'écriture du journal", failure);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void startFlusher() {
+        lock.lock();
+        try {
+            running = true;
+        } finally {
+            lock.unlock();
+        }
+        flusher = new Thread(this::flushLoop, "product-journal-flusher");
+        flusher.setDaemon(true);
+        flusher.start();
+    }
+
+    private void flushLoop() {
+        while (true) {
+            lock.lock();
+            try {
+                while (pending.position() == 0 && running) {
+                    notEmpty.awaitUninterruptibly();
+                }
+                if (pending.position() == 0) {
+                    return;
+                }
+            } finally {
+                lock.unlock();
+            }
+
+            ioLock.lock();
+            try {
+                flushPending();
+            } catch (IOException e) {
+                log.error("Échec d'écriture du journal", e);
+                return;
+            } finally {
+                ioLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Écrit et force sur disque tous les enregistrements en attente. Appelé sous {@link #ioLock}.
+     */
+    private void flushPending() throws IOException {
+        ByteBuffer batch;
+        long target;
+        lock.lock();
+        try {
+            batch = pending;
+            pending = spare;
+            target = appendedSeq;
+        } finally {
+            lock.unlock();
+        }
+
+        try {
+            batch.flip();
+            while (batch.hasRemaining()) {
+                segmentSize += channel.write(batch);
+            }
+            if (fsync) {
+                channel.force(false);
+            }
+            if (segmentSize >= maxSegmentBytes) {
+                openSegment(segmentNumber + 1);
+            }
+        } catch (IOException e) {
+            lock.lock();
+            try {
+                failure = e;
+                durable.signalAll();
+            } finally {
+                lock.unlock();
+            }
+            throw e;
+        } finally {
+            batch.clear();
+            spare = batch;
+        }
+
+        lock.lock();
+        try {
+            durableSeq = target;
+            durable.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Ferme le segment courant et en ouvre un nouveau. Appelé sous {@link #ioLock}.
+     */
+    private void openSegment(long number) throws IOException {
+        if (channel != null) {
+            channel.force(true);
+            channel.close();
+        }
+        channel = FileChannel.open(segmentPath(number),
+                StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        segmentNumber = number;
+        segmentSize = channel.size();
+    }
+
+    // === SNAPSHOTS ===
+
+    @Override
+    public void startSnapshots(Supplier<Iterable<Product>> products, LongSupplier highWater) {
+        this.snapshotSource = products;
+        this.highWaterSource = highWater;
+        snapshotter = Executors.newSingleThreadScheduledExecutor(runnable -> {
+            Thread thread = new Thread(runnable, "product-journal-snapshot");
+            thread.setDaemon(true);
+            return thread;
+        });
+        long period = snapshotInterval.toMillis();
+        snapshotter.scheduleWithFixedDelay(() -> {
+            try {
+                snapshot();
+            } catch (IOException | RuntimeException e) {
+                log.error("Échec du snapshot du catalogue", e);
+            }
+        }, period, period, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * Écrit un snapshot complet puis supprime les segments devenus inutiles.
+     *
+     * @throws IOException en cas d'erreur d'écriture
+     */
+    public void snapshot() throws IOException {
+        if (snapshotSource == null) {
+            throw new IllegalStateException("Snapshots non démarrés");
+        }
+
+        long closedSegment;
+        ioLock.lock();
+        try {
+            flushPending();
+            closedSegment = segmentNumber;
+            openSegment(segmentNumber + 1);
+        } finally {
+            ioLock.unlock();
+        }
+
+        Path temporary = directory.resolve(SNAPSHOT_FILE + ".tmp");
+        long count = 0;
+        try (FileChannel out = FileChannel.open(temporary, StandardOpenOption.CREATE,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+            buffer.putInt(SNAPSHOT_MAGIC).putInt(SNAPSHOT_VERSION)
+                    .putLong(closedSegment).putLong(highWaterSource.getAsLong());
+
+            for (Product product : snapshotSource.get()) {
+                int size = 4 + ProductCodec.maxEncodedSize(product);
+                if (buffer.remaining() < size) {
+                    drain(out, buffer);
+                    if (buffer.remaining() < size) {
+                        buffer = ByteBuffer.allocateDirect(size);
+                    }
+                }
+                int start = buffer.position();
+                buffer.putInt(0);
+                ProductCodec.encode(product, buffer);
+                buffer.putInt(start, buffer.position() - start - 4);
+                count++;
+            }
+            if (buffer.remaining() < 4) {
+                drain(out, buffer);
+            }
+            buffer.putInt(SNAPSHOT_END);
+            drain(out, buffer);
+            out.force(true);
+        }
+        Files.move(temporary, directory.resolve(SNAPSHOT_FILE),
+                StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (long number : listSegments()) {
+            if (number < closedSegment) {
+                Files.deleteIfExists(segmentPath(number));
+            }
+        }
+        log.info("Snapshot du catalogue écrit : {} produits, reprise à partir du segment {}", count, closedSegment);
+    }
+
+    private static void drain(FileChannel out, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            out.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    // === FERMETURE ===
+
+    @Override
+    public void close() {
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+        }
+        lock.lock();
+        try {
+            running = false;
+            notEmpty.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        if (flusher != null) {
+            try {
+                flusher.join();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+        ioLock.lock();
+        try {
+            if (channel != null) {
+                channel.force(true);
+                channel.close();
+                channel = null;
+            }
+        } catch (IOException e) {
+            log.error("Échec de fermeture du journal", e);
+        } finally {
+            ioLock.unlock();
+        }
+    }
+
+    // === FICHIERS ===
+
+    private Path segmentPath(long number) {
+        return directory.resolve(String.format("products-%010d.wal", number));
+    }
+
+    private List<Long> listSegments() throws IOException {
+        List<Long> numbers = new ArrayList<>();
+        try (Stream<Path> files = Files.list(directory)) {
+            files.forEach(file -> {
+                Matcher matcher = SEGMENT_NAME.matcher(file.getFileName().toString());
+                if (matcher.matches()) {
+                    numbers.add(Long.parseLong(matcher.group(1)));
+                }
+            });
+        }
+        numbers.sort(null);
+        return numbers;
+    }
+
+    /**
+     * Lecture séquentielle d'un fichier par fenêtres mappées en mémoire,
+     * pour ne pas dépendre de la limite de 2 Go d'un {@link MappedByteBuffer}.
+     */
+    private static final class MappedReader {
+
+        private final FileChannel channel;
+        private final long size;
+        private long windowStart;
+        private MappedByteBuffer window;
+
+        MappedReader(FileChannel channel) throws IOException {
+            this.channel = channel;
+            this.size = channel.size();
+            map(0);
+        }
+
+        private void map(long position) throws IOException {
+            windowStart = position;
+            window = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(MAP_WINDOW, size - position));
+        }
+
+        long position() {
+            return windowStart + window.position();
+        }
+
+        /**
+         * Garantit que {@code bytes} octets sont lisibles dans la fenêtre courante.
+         *
+         * @return false si le fichier ne contient plus assez d'octets
+         */
+        boolean ensure(int bytes) throws IOException {
+            if (window.remaining() >= bytes) {
+                return true;
+            }
+            long position = position();
+            if (position + bytes > size) {
+                return false;
+            }
+            map(position);
+            return window.remaining() >= bytes;
+        }
+
+        ByteBuffer buffer() {
+            return window;
+        }
+    }
+}
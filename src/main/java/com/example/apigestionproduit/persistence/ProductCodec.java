@@ -0,0 +1,104 @@
+package com.example.apigestionproduit.persistence;
+
+import com.example.apigestionproduit.model.Product;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Encodage binaire compact d'un {@link Product}.
+ *
+ * <p>Format (big-endian) :</p>
+ * <pre>
+ * long    id
+ * long    version
+ * string  nom, description, categorie   (int longueur UTF-8, -1 si null, puis octets)
+ * long    prix en centimes               (Long.MIN_VALUE si null)
+ * int     quantiteStock                  (Integer.MIN_VALUE si null)
+ * long    dateCreation, dateModification (millisecondes epoch, Long.MIN_VALUE si null)
+ * </pre>
+ *
+ * <p>Utilisé par le journal d'écriture, les snapshots et les moteurs de stockage binaires.</p>
+ */
+public final class ProductCodec {
+
+    private static final int NULL_LENGTH = -1;
+
+    private ProductCodec() {
+    }
+
+    /**
+     * Majorant de la taille encodée d'un produit, pour dimensionner un tampon.
+     *
+     * @param product Produit à encoder
+     * @return Nombre maximal d'octets écrits par {@link #encode(Product, ByteBuffer)}
+     */
+    public static int maxEncodedSize(Product product) {
+        return 8 + 8 + maxStringSize(product.getNom()) + maxStringSize(product.getDescription())
+                + maxStringSize(product.getCategorie())
+                + 8 + 4 + 2 * 8;
+    }
+
+    private static int maxStringSize(String value) {
+        return 4 + (value == null ? 0 : value.length() * 3);
+    }
+
+    /**
+     * Écrit un produit à la position courante du tampon.
+     *
+     * @param product Produit à encoder (son identifiant doit être renseigné)
+     * @param buffer Tampon de destination, d'au moins {@link #maxEncodedSize(Product)} octets restants
+     */
+    public static void encode(Product product, ByteBuffer buffer) {
+        buffer.putLong(product.getId());
+        buffer.putLong(product.getVersion());
+        putString(buffer, product.getNom());
+        putString(buffer, product.getDescription());
+        putString(buffer, product.getCategorie());
+        buffer.putLong(product.prixCentimes());
+        buffer.putInt(product.stock());
+        buffer.putLong(product.dateCreationMillis());
+        buffer.putLong(product.dateModificationMillis());
+    }
+
+    /**
+     * Lit un produit à la position courante du tampon.
+     *
+     * @param buffer Tampon source
+     * @return Le produit décodé
+     */
+    public static Product decode(ByteBuffer buffer) {
+        long id = buffer.getLong();
+        long version = buffer.getLong();
+        String nom = getString(buffer);
+        String description = getString(buffer);
+        String categorie = getString(buffer);
+        long prixCentimes = buffer.getLong();
+        int stock = buffer.getInt();
+        long dateCreation = buffer.getLong();
+        long dateModification = buffer.getLong();
+
+        return Product.ofCompact(id, version, nom, description, prixCentimes, stock,
+                categorie, dateCreation, dateModification);
+    }
+
+    private static void putString(ByteBuffer buffer, String value) {
+        if (value == null) {
+            buffer.putInt(NULL_LENGTH);
+            return;
+        }
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        buffer.putInt(bytes.length);
+        buffer.put(bytes);
+    }
+
+    private static String getString(ByteBuffer buffer) {
+        int length = buffer.getInt();
+        if (length == NULL_LENGTH) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        buffer.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
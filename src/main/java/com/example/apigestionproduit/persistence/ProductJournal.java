@@ -0,0 +1,97 @@
+package com.example.apigestionproduit.persistence;
+
+import com.example.apigestionproduit.model.Product;
+
+import java.util.function.Consumer;
+import java.util.function.LongConsumer;
+import java.util.function.LongSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Journal de persistance des mutations du catalogue.
+ *
+ * <p>{@code ProductService} appelle {@link #logPut(Product)} ou {@link #logDelete(long)}
+ * sous le verrou de l'entrée modifiée, ce qui garantit que l'ordre du journal suit celui
+ * des modifications d'un même produit. Le ticket retourné est ensuite passé à
+ * {@link #awaitDurable(long)}, hors verrou, pour attendre l'écriture sur disque.</p>
+ */
+public interface ProductJournal extends AutoCloseable {
+
+    /**
+     * Journal inactif : aucune persistance, aucun état restauré.
+     */
+    ProductJournal NONE = new ProductJournal() {
+        @Override
+        public long recover(Consumer<Product> onPut, LongConsumer onDelete) {
+            return 0;
+        }
+
+        @Override
+        public void startSnapshots(Supplier<Iterable<Product>> products, LongSupplier highWater) {
+        }
+
+        @Override
+        public long logPut(Product product) {
+            return 0;
+        }
+
+        @Override
+        public long logDelete(long id) {
+            return 0;
+        }
+
+        @Override
+        public void awaitDurable(long ticket) {
+        }
+
+        @Override
+        public void close() {
+        }
+    };
+
+    /**
+     * Rejoue l'état persisté (dernier snapshot puis journal).
+     *
+     * @param onPut Appelé pour chaque produit créé ou modifié, dans l'ordre du journal
+     * @param onDelete Appelé pour chaque identifiant supprimé, dans l'ordre du journal
+     * @return Le plus grand identifiant jamais attribué (0 si aucun état persisté)
+     */
+    long recover(Consumer<Product> onPut, LongConsumer onDelete);
+
+    /**
+     * Démarre la prise périodique de snapshots, qui permet de tronquer le journal.
+     *
+     * @param products Fournit une vue des produits courants
+     * @param highWater Fournit le plus grand identifiant attribué
+     */
+    void startSnapshots(Supplier<Iterable<Product>> products, LongSupplier highWater);
+
+    /**
+     * Ajoute au journal l'état complet d'un produit créé ou modifié.
+     *
+     * @param product Produit dans son nouvel état
+     * @return Ticket à passer à {@link #awaitDurable(long)}
+     */
+    long logPut(Product product);
+
+    /**
+     * Ajoute au journal la suppression d'un produit.
+     *
+     * @param id Identifiant du produit supprimé
+     * @return Ticket à passer à {@link #awaitDurable(long)}
+     */
+    long logDelete(long id);
+
+    /**
+     * Attend que l'enregistrement correspondant au ticket soit durable.
+     *
+     * @param ticket Ticket retourné par {@code logPut} ou {@code logDelete}
+     */
+    void awaitDurable(long ticket);
+
+    /**
+     * Écrit les enregistrements en attente et libère les ressources.
+     */
+    @Override
+    void close();
+}
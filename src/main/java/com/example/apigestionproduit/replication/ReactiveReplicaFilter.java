@@ -0,0 +1,62 @@
+package com.example.apigestionproduit.replication;
+
+import org.springframework.core.Ordered;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.server.reactive.ServerHttpResponse;
+import org.springframework.web.server.ServerWebExchange;
+import org.springframework.web.server.WebFilter;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+/**
+ * Règles d'accès à une réplique sur la pile réactive : mêmes règles que {@link ReplicaFilter}
+ * (écritures refusées par 405, lectures refusées par 503 au-delà de la borne de fraîcheur),
+ * appliquées aux chemins {@code /api/products}.
+ */
+public class ReactiveReplicaFilter implements WebFilter, Ordered {
+
+    private static final String PRODUCTS = "/api/products";
+
+    private final ReplicationClient client;
+    private final long maxStalenessMillis;
+
+    /**
+     * Constructeur.
+     *
+     * @param client Suivi du primaire
+     * @param maxStalenessMillis Retard maximal toléré pour servir une lecture
+     */
+    public ReactiveReplicaFilter(ReplicationClient client, long maxStalenessMillis) {
+        this.client = client;
+        this.maxStalenessMillis = maxStalenessMillis;
+    }
+
+    @Override
+    public Mono<Void> filter(ServerWebExchange exchange, WebFilterChain chain) {
+        String path = exchange.getRequest().getPath().pathWithinApplication().value();
+        if (!path.equals(PRODUCTS) && !path.startsWith(PRODUCTS + "/")) {
+            return chain.filter(exchange);
+        }
+        HttpMethod method = exchange.getRequest().getMethod();
+        ServerHttpResponse response = exchange.getResponse();
+        if (!HttpMethod.GET.equals(method) && !HttpMethod.HEAD.equals(method) && !HttpMethod.OPTIONS.equals(method)) {
+            response.getHeaders().set(HttpHeaders.ALLOW, "GET, HEAD, OPTIONS");
+            response.setStatusCode(HttpStatus.METHOD_NOT_ALLOWED);
+            return response.setComplete();
+        }
+        if (!client.isFresh(maxStalenessMillis)) {
+            response.getHeaders().set(HttpHeaders.RETRY_AFTER, "1");
+            response.setStatusCode(HttpStatus.SERVICE_UNAVAILABLE);
+            return response.setComplete();
+        }
+        response.getHeaders().set(ReplicaFilter.LAG_HEADER, Long.toString(client.lagMillis()));
+        return chain.filter(exchange);
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE + 10;
+    }
+}
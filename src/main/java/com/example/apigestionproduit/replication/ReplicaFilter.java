@@ -0,0 +1,63 @@
+package com.example.apigestionproduit.replication;
+
+import jakarta.servlet.FilterChain;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.springframework.http.HttpHeaders;
+import org.springframework.web.filter.OncePerRequestFilter;
+
+import java.io.IOException;
+
+/**
+ * Règles d'accès à une réplique : lecture seule, dans la borne de fraîcheur.
+ *
+ * <ul>
+ *   <li>Écritures (POST, PUT, DELETE...) : 405 METHOD NOT ALLOWED, à adresser au primaire ;</li>
+ *   <li>Lectures lorsque le retard dépasse {@code produits.replication.max-staleness} (ou
+ *       avant la première synchronisation) : 503 SERVICE UNAVAILABLE avec
+ *       {@code Retry-After}, pour que le client ou l'équilibreur de charge se reporte
+ *       sur une autre réplique ou sur le primaire.</li>
+ * </ul>
+ *
+ * <p>Les réponses servies indiquent le retard de la réplique ({@code X-Produits-Retard}, en ms).</p>
+ */
+public class ReplicaFilter extends OncePerRequestFilter {
+
+    /**
+     * En-tête des réponses : retard de la réplique en millisecondes.
+     */
+    public static final String LAG_HEADER = "X-Produits-Retard";
+
+    private final ReplicationClient client;
+    private final long maxStalenessMillis;
+
+    /**
+     * Constructeur.
+     *
+     * @param client Suivi du primaire
+     * @param maxStalenessMillis Retard maximal toléré pour servir une lecture
+     */
+    public ReplicaFilter(ReplicationClient client, long maxStalenessMillis) {
+        this.client = client;
+        this.maxStalenessMillis = maxStalenessMillis;
+    }
+
+    @Override
+    protected void doFilterInternal(HttpServletRequest request, HttpServletResponse response, FilterChain chain)
+            throws ServletException, IOException {
+        String method = request.getMethod();
+        if (!method.equals("GET") && !method.equals("HEAD") && !method.equals("OPTIONS")) {
+            response.setHeader(HttpHeaders.ALLOW, "GET, HEAD, OPTIONS");
+            response.setStatus(HttpServletResponse.SC_METHOD_NOT_ALLOWED);
+            return;
+        }
+        if (!client.isFresh(maxStalenessMillis)) {
+            response.setHeader(HttpHeaders.RETRY_AFTER, "1");
+            response.setStatus(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+            return;
+        }
+        response.setHeader(LAG_HEADER, Long.toString(client.lagMillis()));
+        chain.doFilter(request, response);
+    }
+}
@@ -0,0 +1,231 @@
+package com.example.apigestionproduit.replication;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.service.ProductService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.TimeGauge;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.SocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Côté réplique de la réplication ({@code produits.replication.role=replica}) : suit un
+ * primaire et applique ses modifications, dans leur ordre, au catalogue local et à
+ * ses index ({@link ProductService#applyReplicated(long, Product)}).
+ *
+ * <p>Au premier contact, la réplique reçoit le catalogue complet ; les produits locaux
+ * absents du primaire (données de démonstration) sont alors supprimés. Elle suit
+ * ensuite le journal des modifications. Après une coupure, elle se reconnecte et
+ * reprend à sa dernière séquence, ou reçoit de nouveau le catalogue complet si le
+ * primaire ne la conserve plus.</p>
+ *
+ * <p>Retard ({@code produits.replication.retard}) : temps écoulé depuis le dernier
+ * battement du primaire, reçu après toutes les modifications qu'il annonçait. La
+ * réplique est à jour à ce retard près ; avant la première synchronisation complète,
+ * le retard court depuis le démarrage.</p>
+ */
+public class ReplicationClient implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationClient.class);
+
+    private final ProductService productService;
+    private final SocketAddress primary;
+    private final long reconnectDelayMillis;
+    private final Thread follower;
+    private volatile boolean running = true;
+    private volatile SocketChannel channel;
+
+    /**
+     * Dernière séquence du primaire appliquée localement.
+     */
+    private volatile long appliedSequence = ReplicationProtocol.NO_SEQUENCE;
+
+    /**
+     * Instant (nanoTime) où la réplique était à jour pour la dernière fois ; à défaut, le démarrage.
+     */
+    private volatile long freshAt = System.nanoTime();
+    private volatile boolean synced;
+
+    private final Counter applied;
+    private final Counter snapshots;
+
+    /**
+     * Constructeur : démarre le suivi du primaire.
+     *
+     * @param productService Catalogue local de la réplique
+     * @param registry Registre des métriques
+     * @param primary Adresse du canal de réplication du primaire
+     * @param reconnectDelayMillis Attente avant une nouvelle connexion au primaire
+     */
+    public ReplicationClient(ProductService productService, MeterRegistry registry,
+                             SocketAddress primary, long reconnectDelayMillis) {
+        this.productService = productService;
+        this.primary = primary;
+        this.reconnectDelayMillis = reconnectDelayMillis;
+
+        TimeGauge.builder("produits.replication.retard", this, TimeUnit.NANOSECONDS,
+                        client -> System.nanoTime() - client.freshAt)
+                .description("Retard de la réplique sur le primaire")
+                .register(registry);
+        this.applied = Counter.builder("produits.replication.applications")
+                .description("Modifications du primaire appliquées par la réplique")
+                .register(registry);
+        this.snapshots = Counter.builder("produits.replication.catalogues")
+                .description("Catalogues complets reçus du primaire")
+                .register(registry);
+
+        this.follower = new Thread(this::followLoop, "replication-follower");
+        follower.setDaemon(true);
+        follower.start();
+    }
+
+    /**
+     * Retard de la réplique sur le primaire.
+     *
+     * @return Millisecondes écoulées depuis le dernier instant où la réplique était à jour
+     */
+    public long lagMillis() {
+        return TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - freshAt);
+    }
+
+    /**
+     * Indique si les lectures peuvent être servies.
+     *
+     * @param maxStalenessMillis Retard maximal toléré
+     * @return true si le catalogue complet a été reçu et que le retard est dans la borne
+     */
+    public boolean isFresh(long maxStalenessMillis) {
+        return synced && lagMillis() <= maxStalenessMillis;
+    }
+
+    /**
+     * Dernière séquence du primaire appliquée.
+     *
+     * @return Séquence, ou -1 avant la première synchronisation
+     */
+    public long appliedSequence() {
+        return appliedSequence;
+    }
+
+    private void followLoop() {
+        while (running) {
+            try (SocketChannel connection = SocketChannel.open(primary)) {
+                channel = connection;
+                follow(connection);
+            } catch (IOException e) {
+                if (running) {
+                    log.info("Primaire injoignable ({}), nouvel essai dans {} ms", e.getMessage(),
+                            reconnectDelayMillis);
+                }
+            } catch (RuntimeException e) {
+                log.error("Échec d'application d'une modification répliquée", e);
+            }
+            if (running) {
+                try {
+                    Thread.sleep(reconnectDelayMillis);
+                } catch (InterruptedException e) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private void follow(SocketChannel connection) throws IOException {
+        DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(connection)));
+        DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(connection),
+                64 * 1024));
+        out.writeInt(ReplicationProtocol.MAGIC);
+        out.writeLong(appliedSequence);
+        out.flush();
+        if (in.readInt() != ReplicationProtocol.MAGIC) {
+            throw new IOException("Protocole de réplication inconnu");
+        }
+
+        long snapshotSequence = ReplicationProtocol.NO_SEQUENCE;
+        Set<Long> received = null;
+        while (running) {
+            byte type = in.readByte();
+            switch (type) {
+                case ReplicationProtocol.SNAPSHOT -> {
+                    snapshotSequence = in.readLong();
+                    received = new HashSet<>();
+                }
+                case ReplicationProtocol.PUT -> {
+                    Product product = ReplicationProtocol.readProduct(in);
+                    productService.applyReplicated(product.getId(), product);
+                    received.add(product.getId());
+                }
+                case ReplicationProtocol.SNAPSHOT_END -> {
+                    removeAbsent(received);
+                    received = null;
+                    appliedSequence = snapshotSequence;
+                    snapshots.increment();
+                }
+                case ReplicationProtocol.CHANGE -> {
+                    long sequence = in.readLong();
+                    long id = in.readLong();
+                    productService.applyReplicated(id, ReplicationProtocol.readProduct(in));
+                    appliedSequence = sequence;
+                    applied.increment();
+                }
+                case ReplicationProtocol.HEARTBEAT -> {
+                    // Les modifications annoncées précèdent le battement dans le flux
+                    if (appliedSequence >= in.readLong()) {
+                        freshAt = System.nanoTime();
+                        synced = true;
+                    }
+                }
+                default -> throw new IOException("Enregistrement de réplication inconnu: " + type);
+            }
+        }
+    }
+
+    /**
+     * Supprime les produits locaux absents du catalogue complet reçu.
+     */
+    private void removeAbsent(Set<Long> received) {
+        List<Long> absent = new ArrayList<>();
+        Long after = null;
+        List<Product> page;
+        do {
+            page = productService.getProductsPage(after, 1024);
+            for (Product product : page) {
+                if (!received.contains(product.getId())) {
+                    absent.add(product.getId());
+                }
+            }
+            if (!page.isEmpty()) {
+                after = page.get(page.size() - 1).getId();
+            }
+        } while (!page.isEmpty());
+        absent.forEach(id -> productService.applyReplicated(id, null));
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        follower.interrupt();
+        SocketChannel current = channel;
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                // Connexion déjà perdue
+            }
+        }
+    }
+}
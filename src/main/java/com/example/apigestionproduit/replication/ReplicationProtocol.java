@@ -0,0 +1,91 @@
+package com.example.apigestionproduit.replication;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.persistence.ProductCodec;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.net.UnixDomainSocketAddress;
+import java.nio.ByteBuffer;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * Protocole de réplication entre un primaire et ses répliques.
+ *
+ * <p>À la connexion, la réplique envoie {@link #MAGIC} puis la dernière séquence du
+ * primaire qu'elle a appliquée ({@link #NO_SEQUENCE} au premier démarrage). Le primaire
+ * répond {@link #MAGIC}, puis envoie un flux d'enregistrements ordonnés :</p>
+ * <ul>
+ *   <li>{@link #SNAPSHOT} (séquence), des {@link #PUT} (produit), puis {@link #SNAPSHOT_END} :
+ *       catalogue complet, lorsque la séquence de la réplique n'est plus dans le journal
+ *       des modifications du primaire ;</li>
+ *   <li>{@link #CHANGE} (séquence, identifiant, produit ou suppression) : une modification ;</li>
+ *   <li>{@link #HEARTBEAT} (séquence) : toutes les modifications jusqu'à cette séquence ont été envoyées.</li>
+ * </ul>
+ *
+ * <p>Les produits sont encodés par {@link ProductCodec}, comme dans le journal sur disque.</p>
+ */
+public final class ReplicationProtocol {
+
+    static final int MAGIC = 0x50524550;
+    static final long NO_SEQUENCE = -1;
+
+    static final byte SNAPSHOT = 'S';
+    static final byte PUT = 'P';
+    static final byte SNAPSHOT_END = 'E';
+    static final byte CHANGE = 'C';
+    static final byte HEARTBEAT = 'H';
+
+    private static final Pattern HOST_PORT = Pattern.compile("([^/:]+|\\[[^\\]]+\\]):(\\d+)");
+
+    private ReplicationProtocol() {
+    }
+
+    /**
+     * Adresse du canal de réplication : {@code hote:port} (TCP) ou chemin d'un socket
+     * de domaine Unix (ex. {@code ./data/replication.sock}).
+     *
+     * @param address Valeur de {@code produits.replication.address}
+     * @return L'adresse du socket
+     */
+    public static SocketAddress address(String address) {
+        Matcher hostPort = HOST_PORT.matcher(address);
+        if (hostPort.matches()) {
+            return new InetSocketAddress(hostPort.group(1), Integer.parseInt(hostPort.group(2)));
+        }
+        return UnixDomainSocketAddress.of(address);
+    }
+
+    /**
+     * Écrit un produit (ou son absence) : longueur puis octets, -1 si null.
+     */
+    static void writeProduct(DataOutputStream out, Product product) throws IOException {
+        if (product == null) {
+            out.writeInt(-1);
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(ProductCodec.maxEncodedSize(product));
+        ProductCodec.encode(product, buffer);
+        out.writeInt(buffer.position());
+        out.write(buffer.array(), 0, buffer.position());
+    }
+
+    /**
+     * Lit un produit écrit par {@link #writeProduct}.
+     *
+     * @return Le produit, ou null pour une suppression
+     */
+    static Product readProduct(DataInputStream in) throws IOException {
+        int length = in.readInt();
+        if (length < 0) {
+            return null;
+        }
+        byte[] bytes = new byte[length];
+        in.readFully(bytes);
+        return ProductCodec.decode(ByteBuffer.wrap(bytes));
+    }
+}
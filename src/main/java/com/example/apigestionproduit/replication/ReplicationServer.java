@@ -0,0 +1,271 @@
+package com.example.apigestionproduit.replication;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.model.ProductChange;
+import com.example.apigestionproduit.service.ProductService;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.SocketAddress;
+import java.net.StandardProtocolFamily;
+import java.net.UnixDomainSocketAddress;
+import java.nio.channels.Channels;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.nio.file.Files;
+import java.util.List;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Côté primaire de la réplication : diffuse les modifications du catalogue aux
+ * répliques connectées ({@code produits.replication.role=primary}).
+ *
+ * <p>Chaque réplique est servie par un thread qui lit le journal des modifications
+ * du service à partir de la séquence de la réplique, comme le flux SSE : les écritures
+ * se contentent de réveiller ces threads et ne sont jamais ralenties par une réplique.
+ * Une réplique dont la séquence n'est plus dans le journal (premier démarrage, retard
+ * supérieur à {@code produits.changes.capacity}) reçoit d'abord le catalogue complet,
+ * lu page par page, puis les modifications postérieures.</p>
+ *
+ * <p>Un battement, envoyé après chaque lot de modifications et au moins toutes les
+ * {@code heartbeat} millisecondes, permet à la réplique de mesurer son retard.</p>
+ */
+public class ReplicationServer implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ReplicationServer.class);
+
+    /**
+     * Nombre maximal de modifications lues dans le journal par passe, et taille des
+     * pages du catalogue complet.
+     */
+    private static final int BATCH = 1024;
+
+    private final ProductService productService;
+    private final SocketAddress address;
+    private final long heartbeatNanos;
+    private final ServerSocketChannel server;
+    private final Thread acceptor;
+    private volatile boolean running = true;
+
+    private final Set<Session> sessions = ConcurrentHashMap.newKeySet();
+    private final AtomicInteger replicaCount = new AtomicInteger();
+    private final Counter records;
+    private final Counter snapshots;
+
+    /**
+     * Constructeur : ouvre le canal de réplication et accepte les répliques.
+     *
+     * @param productService Catalogue du primaire
+     * @param registry Registre des métriques
+     * @param address Adresse d'écoute (TCP, ou socket de domaine Unix)
+     * @param heartbeatMillis Intervalle maximal entre deux battements
+     */
+    public ReplicationServer(ProductService productService, MeterRegistry registry,
+                             SocketAddress address, long heartbeatMillis) {
+        this.productService = productService;
+        this.address = address;
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+        try {
+            if (address instanceof UnixDomainSocketAddress unix) {
+                // Fichier laissé par un arrêt brutal du primaire
+                Files.deleteIfExists(unix.getPath());
+                this.server = ServerSocketChannel.open(StandardProtocolFamily.UNIX);
+            } else {
+                this.server = ServerSocketChannel.open();
+            }
+            server.bind(address);
+        } catch (IOException e) {
+            throw new UncheckedIOException("Canal de réplication indisponible: " + address, e);
+        }
+
+        Gauge.builder("produits.replication.repliques", replicaCount, AtomicInteger::get)
+                .description("Répliques connectées au primaire")
+                .register(registry);
+        this.records = Counter.builder("produits.replication.envois")
+                .description("Modifications envoyées aux répliques")
+                .register(registry);
+        this.snapshots = Counter.builder("produits.replication.catalogues")
+                .description("Catalogues complets envoyés à des répliques")
+                .register(registry);
+
+        this.acceptor = new Thread(this::acceptLoop, "replication-acceptor");
+        acceptor.setDaemon(true);
+        acceptor.start();
+        productService.addChangeListener((before, after) -> {
+            for (Session session : sessions) {
+                LockSupport.unpark(session.thread);
+            }
+        });
+    }
+
+    /**
+     * Adresse effective d'écoute (port attribué si le port demandé est 0).
+     *
+     * @return L'adresse du canal de réplication
+     */
+    public SocketAddress localAddress() {
+        try {
+            return server.getLocalAddress();
+        } catch (IOException e) {
+            return address;
+        }
+    }
+
+    /**
+     * Nombre de répliques connectées.
+     *
+     * @return Nombre de répliques
+     */
+    public int replicaCount() {
+        return replicaCount.get();
+    }
+
+    private void acceptLoop() {
+        while (running) {
+            try {
+                SocketChannel channel = server.accept();
+                Session session = new Session(channel);
+                sessions.add(session);
+                session.thread.start();
+            } catch (ClosedChannelException e) {
+                return;
+            } catch (IOException e) {
+                log.warn("Connexion de réplique refusée", e);
+            }
+        }
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        try {
+            server.close();
+        } catch (IOException e) {
+            log.warn("Fermeture du canal de réplication", e);
+        }
+        sessions.forEach(Session::close);
+        if (address instanceof UnixDomainSocketAddress unix) {
+            try {
+                Files.deleteIfExists(unix.getPath());
+            } catch (IOException e) {
+                log.warn("Suppression du socket de réplication", e);
+            }
+        }
+    }
+
+    /**
+     * Connexion d'une réplique, servie par son propre thread.
+     */
+    private final class Session {
+
+        private final SocketChannel channel;
+        private final Thread thread;
+
+        Session(SocketChannel channel) {
+            this.channel = channel;
+            this.thread = new Thread(this::run, "replication-session");
+            thread.setDaemon(true);
+        }
+
+        private void run() {
+            replicaCount.incrementAndGet();
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(Channels.newInputStream(channel)));
+                 DataOutputStream out = new DataOutputStream(
+                         new BufferedOutputStream(Channels.newOutputStream(channel), 64 * 1024))) {
+                if (in.readInt() != ReplicationProtocol.MAGIC) {
+                    log.warn("Réplique rejetée : protocole inconnu");
+                    return;
+                }
+                long since = in.readLong();
+                out.writeInt(ReplicationProtocol.MAGIC);
+
+                // Reprise depuis la séquence de la réplique si le journal la contient encore
+                long cursor = since != ReplicationProtocol.NO_SEQUENCE
+                        && productService.getChangesSince(since, 0).isPresent()
+                        ? since : sendCatalog(out);
+                while (running) {
+                    int read = 0;
+                    Optional<List<ProductChange>> changes = productService.getChangesSince(cursor, BATCH);
+                    if (changes.isEmpty()) {
+                        log.warn("Réplique en retard sur toute la fenêtre du journal : envoi du catalogue complet");
+                        cursor = sendCatalog(out);
+                        continue;
+                    }
+                    for (ProductChange change : changes.get()) {
+                        out.writeByte(ReplicationProtocol.CHANGE);
+                        out.writeLong(change.getSequence());
+                        out.writeLong(change.getId());
+                        ReplicationProtocol.writeProduct(out, change.getProduit());
+                        cursor = change.getSequence();
+                        read++;
+                    }
+                    records.increment(read);
+                    out.writeByte(ReplicationProtocol.HEARTBEAT);
+                    out.writeLong(cursor);
+                    out.flush();
+                    if (read < BATCH) {
+                        LockSupport.parkNanos(this, heartbeatNanos);
+                    }
+                }
+            } catch (IOException e) {
+                if (running) {
+                    log.info("Réplique déconnectée: {}", e.getMessage());
+                }
+            } finally {
+                replicaCount.decrementAndGet();
+                sessions.remove(this);
+                close();
+            }
+        }
+
+        /**
+         * Envoie le catalogue complet, page par page.
+         *
+         * @return Séquence à partir de laquelle envoyer ensuite les modifications
+         */
+        private long sendCatalog(DataOutputStream out) throws IOException {
+            snapshots.increment();
+            // Lue avant le parcours : toute modification postérieure sera renvoyée ensuite
+            long sequence = productService.getPublishedSequence();
+            out.writeByte(ReplicationProtocol.SNAPSHOT);
+            out.writeLong(sequence);
+            Long after = null;
+            List<Product> page;
+            do {
+                page = productService.getProductsPage(after, BATCH);
+                for (Product product : page) {
+                    out.writeByte(ReplicationProtocol.PUT);
+                    ReplicationProtocol.writeProduct(out, product);
+                }
+                if (!page.isEmpty()) {
+                    after = page.get(page.size() - 1).getId();
+                }
+            } while (page.size() == BATCH);
+            out.writeByte(ReplicationProtocol.SNAPSHOT_END);
+            return sequence;
+        }
+
+        void close() {
+            try {
+                channel.close();
+            } catch (IOException e) {
+                // Connexion déjà perdue
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+package com.example.apigestionproduit.repository;
+
+import com.example.apigestionproduit.model.Product;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.BiFunction;
+
+/**
+ * Moteur de stockage par défaut : une {@link ConcurrentHashMap} sur le tas.
+ * Les produits sont stockés tels quels, sans copie.
+ *
+ * <p>Les lectures ne prennent aucun verrou. Les écritures d'un même identifiant sont
+ * sérialisées par un {@link ReentrantLock} partitionné plutôt que par
+ * {@code ConcurrentHashMap.compute} : celui-ci exécute la fonction de mise à jour dans
+ * un bloc {@code synchronized}, où l'attente du verrou du journal immobiliserait le
+ * thread porteur d'un thread virtuel (pinning).</p>
+ */
+public class InMemoryProductRepository implements ProductRepository {
+
+    /**
+     * Nombre de partitions de verrous (puissance de deux).
+     */
+    private static final int STRIPES = 64;
+
+    /**
+     * Stockage en mémoire des produits.
+     * Utilise ConcurrentHashMap pour la sécurité des threads.
+     */
+    private final Map<Long, Product> products = new ConcurrentHashMap<>();
+
+    /**
+     * Verrous des écritures, partitionnés par identifiant.
+     */
+    private final ReentrantLock[] locks = new ReentrantLock[STRIPES];
+
+    /**
+     * Constructeur.
+     */
+    public InMemoryProductRepository() {
+        for (int i = 0; i < STRIPES; i++) {
+            locks[i] = new ReentrantLock();
+        }
+    }
+
+    private ReentrantLock lock(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return locks[(int) (h >>> 40) & (STRIPES - 1)];
+    }
+
+    @Override
+    public Product get(Long id) {
+        return products.get(id);
+    }
+
+    @Override
+    public boolean containsKey(Long id) {
+        return products.containsKey(id);
+    }
+
+    @Override
+    public Product compute(Long id, BiFunction<Long, Product, Product> remapping) {
+        ReentrantLock lock = lock(id);
+        lock.lock();
+        try {
+            return store(id, remapping.apply(id, products.get(id)));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @Override
+    public Product computeIfPresent(Long id, BiFunction<Long, Product, Product> remapping) {
+        ReentrantLock lock = lock(id);
+        lock.lock();
+        try {
+            Product current = products.get(id);
+            if (current == null) {
+                return null;
+            }
+            return store(id, remapping.apply(id, current));
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private Product store(Long id, Product result) {
+        if (result == null) {
+            products.remove(id);
+        } else {
+            products.put(id, result);
+        }
+        return result;
+    }
+
+    @Override
+    public long size() {
+        return products.size();
+    }
+
+    @Override
+    public Iterable<Product> values() {
+        return products.values();
+    }
+}
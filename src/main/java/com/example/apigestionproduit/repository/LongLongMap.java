@@ -0,0 +1,178 @@
+package com.example.apigestionproduit.repository;
+
+/**
+ * Table de hachage long → long à adressage ouvert, sans objet par entrée.
+ *
+ * <p>Sondage linéaire, suppression par décalage arrière (pas de pierres tombales).
+ * La clé 0 est réservée pour marquer une case vide : elle n'est jamais présente
+ * ({@link #get(long)} et {@link #remove(long)} la disent absente). Non thread-safe : chaque
+ * partition d'{@link OffHeapProductRepository} protège la sienne par un verrou.</p>
+ */
+final class LongLongMap {
+
+    /**
+     * Valeur retournée par {@link #get(long)} pour une clé absente.
+     */
+    static final long MISSING = -1L;
+
+    private static final float LOAD_FACTOR = 0.6f;
+
+    private long[] keys;
+    private long[] values;
+    private int size;
+    private int resizeAt;
+
+    LongLongMap(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(16, (int) (expectedSize / LOAD_FACTOR)) - 1) << 1;
+        allocate(capacity);
+    }
+
+    private void allocate(int capacity) {
+        keys = new long[capacity];
+        values = new long[capacity];
+        resizeAt = (int) (capacity * LOAD_FACTOR);
+    }
+
+    private static int slot(long key, int mask) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32)) & mask;
+    }
+
+    int size() {
+        return size;
+    }
+
+    long get(long key) {
+        if (key == 0) {
+            return MISSING;
+        }
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                return values[i];
+            }
+            if (k == 0) {
+                return MISSING;
+            }
+        }
+    }
+
+    /**
+     * Associe une valeur à une clé.
+     *
+     * @return L'ancienne valeur, ou {@link #MISSING}
+     */
+    long put(long key, long value) {
+        if (key == 0) {
+            throw new IllegalArgumentException("La clé 0 est réservée");
+        }
+        int mask = keys.length - 1;
+        for (int i = slot(key, mask); ; i = (i + 1) & mask) {
+            long k = keys[i];
+            if (k == key) {
+                long previous = values[i];
+                values[i] = value;
+                return previous;
+            }
+            if (k == 0) {
+                keys[i] = key;
+                values[i] = value;
+                if (++size > resizeAt) {
+                    rehash(keys.length << 1);
+                }
+                return MISSING;
+            }
+        }
+    }
+
+    /**
+     * Retire une clé.
+     *
+     * @return L'ancienne valeur, ou {@link #MISSING}
+     */
+    long remove(long key) {
+        if (key == 0) {
+            return MISSING;
+        }
+        int mask = keys.length - 1;
+        int i = slot(key, mask);
+        while (keys[i] != key) {
+            if (keys[i] == 0) {
+                return MISSING;
+            }
+            i = (i + 1) & mask;
+        }
+        long previous = values[i];
+        size--;
+
+        // Décalage arrière : ramène les entrées suivantes du même groupe
+        int hole = i;
+        for (int j = (hole + 1) & mask; keys[j] != 0; j = (j + 1) & mask) {
+            int ideal = slot(keys[j], mask);
+            if (((j - ideal) & mask) >= ((j - hole) & mask)) {
+                keys[hole] = keys[j];
+                values[hole] = values[j];
+                hole = j;
+            }
+        }
+        keys[hole] = 0;
+        values[hole] = 0;
+        return previous;
+    }
+
+    /**
+     * Copie les clés présentes.
+     *
+     * @return Tableau des clés, dans l'ordre de la table
+     */
+    long[] keys() {
+        long[] result = new long[size];
+        int n = 0;
+        for (long key : keys) {
+            if (key != 0) {
+                result[n++] = key;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Appelle l'action pour chaque couple clé/valeur.
+     *
+     * @param action Action à appliquer
+     */
+    void forEach(EntryConsumer action) {
+        for (int i = 0; i < keys.length; i++) {
+            if (keys[i] != 0) {
+                action.accept(keys[i], values[i]);
+            }
+        }
+    }
+
+    private void rehash(int capacity) {
+        long[] oldKeys = keys;
+        long[] oldValues = values;
+        allocate(capacity);
+        int mask = capacity - 1;
+        for (int i = 0; i < oldKeys.length; i++) {
+            long key = oldKeys[i];
+            if (key != 0) {
+                int j = slot(key, mask);
+                while (keys[j] != 0) {
+                    j = (j + 1) & mask;
+                }
+                keys[j] = key;
+                values[j] = oldValues[i];
+            }
+        }
+    }
+
+    /**
+     * Consommateur de couples long/long, sans boxing.
+     */
+    @FunctionalInterface
+    interface EntryConsumer {
+        void accept(long key, long value);
+    }
+}
@@ -0,0 +1,306 @@
+package com.example.apigestionproduit.repository;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.persistence.ProductCodec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.function.BiFunction;
+
+/**
+ * Moteur de stockage hors tas : les produits sont sérialisés ({@link ProductCodec})
+ * dans des blocs fournis par un {@link SlabAllocator}, en mémoire directe ou projetés
+ * depuis des fichiers.
+ *
+ * <p>Le catalogue est réparti en partitions selon l'identifiant. Chaque partition a
+ * son verrou lecture/écriture, ses blocs et un index primitif identifiant → adresse
+ * ({@link LongLongMap}) : le tas ne contient que deux tableaux de {@code long} par
+ * partition, quel que soit le nombre de produits, ce qui soulage le ramasse-miettes.</p>
+ *
+ * <p>Les écritures ajoutent toujours en fin de bloc ; l'ancienne version devient de
+ * l'espace mort. Quand l'espace mort d'une partition dépasse son espace vivant, la
+ * partition est compactée dans de nouveaux blocs.</p>
+ *
+ * <p>Chaque lecture désérialise une copie : modifier le produit retourné n'a aucun
+ * effet tant qu'il n'est pas réécrit par {@link #compute}.</p>
+ */
+public class OffHeapProductRepository implements ProductRepository {
+
+    /**
+     * Nombre de partitions par défaut (puissance de deux).
+     */
+    public static final int DEFAULT_STRIPES = 64;
+
+    /**
+     * Taille par défaut d'un bloc, en octets.
+     */
+    public static final int DEFAULT_SLAB_SIZE = 8 * 1024 * 1024;
+
+    private final SlabAllocator allocator;
+    private final int slabSize;
+    private final Stripe[] stripes;
+
+    /**
+     * Constructeur avec le partitionnement et la taille de bloc par défaut.
+     *
+     * @param allocator Fournisseur des blocs de stockage
+     */
+    public OffHeapProductRepository(SlabAllocator allocator) {
+        this(allocator, DEFAULT_STRIPES, DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * Constructeur.
+     *
+     * @param allocator Fournisseur des blocs de stockage
+     * @param stripeCount Nombre de partitions (arrondi à la puissance de deux supérieure)
+     * @param slabSize Taille d'un bloc en octets
+     */
+    public OffHeapProductRepository(SlabAllocator allocator, int stripeCount, int slabSize) {
+        this.allocator = allocator;
+        this.slabSize = slabSize;
+        int count = Integer.highestOneBit(Math.max(1, stripeCount - 1)) << 1;
+        this.stripes = new Stripe[count];
+        for (int i = 0; i < count; i++) {
+            stripes[i] = new Stripe();
+        }
+    }
+
+    private Stripe stripe(long id) {
+        long h = id * 0x9E3779B97F4A7C15L;
+        return stripes[(int) (h >>> 40) & (stripes.length - 1)];
+    }
+
+    @Override
+    public Product get(Long id) {
+        Stripe stripe = stripe(id);
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.read(id);
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public boolean containsKey(Long id) {
+        Stripe stripe = stripe(id);
+        stripe.lock.readLock().lock();
+        try {
+            return stripe.index.get(id) != LongLongMap.MISSING;
+        } finally {
+            stripe.lock.readLock().unlock();
+        }
+    }
+
+    @Override
+    public Product compute(Long id, BiFunction<Long, Product, Product> remapping) {
+        Stripe stripe = stripe(id);
+        stripe.lock.writeLock().lock();
+        try {
+            Product result = remapping.apply(id, stripe.read(id));
+            stripe.store(id, result);
+            return result;
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public Product computeIfPresent(Long id, BiFunction<Long, Product, Product> remapping) {
+        Stripe stripe = stripe(id);
+        stripe.lock.writeLock().lock();
+        try {
+            Product current = stripe.read(id);
+            if (current == null) {
+                return null;
+            }
+            Product result = remapping.apply(id, current);
+            stripe.store(id, result);
+            return result;
+        } finally {
+            stripe.lock.writeLock().unlock();
+        }
+    }
+
+    @Override
+    public long size() {
+        long size = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                size += stripe.index.size();
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return size;
+    }
+
+    /**
+     * Parcourt les produits partition par partition : seule la partition en cours
+     * est désérialisée à un instant donné.
+     */
+    @Override
+    public Iterable<Product> values() {
+        return () -> new Iterator<>() {
+            private int next;
+            private Iterator<Product> current = Collections.emptyIterator();
+
+            @Override
+            public boolean hasNext() {
+                while (!current.hasNext() && next < stripes.length) {
+                    current = stripes[next++].snapshot().iterator();
+                }
+                return current.hasNext();
+            }
+
+            @Override
+            public Product next() {
+                if (!hasNext()) {
+                    throw new NoSuchElementException();
+                }
+                return current.next();
+            }
+        };
+    }
+
+    /**
+     * Nombre d'octets occupés dans les blocs (vivants et morts), pour le suivi mémoire.
+     *
+     * @return Octets utilisés
+     */
+    public long usedBytes() {
+        long used = 0;
+        for (Stripe stripe : stripes) {
+            stripe.lock.readLock().lock();
+            try {
+                used += stripe.liveBytes + stripe.deadBytes;
+            } finally {
+                stripe.lock.readLock().unlock();
+            }
+        }
+        return used;
+    }
+
+    @Override
+    public void close() {
+        for (Stripe stripe : stripes) {
+            stripe.lock.writeLock().lock();
+            try {
+                stripe.slabs.forEach(allocator::release);
+                stripe.slabs.clear();
+                stripe.index = new LongLongMap(16);
+            } finally {
+                stripe.lock.writeLock().unlock();
+            }
+        }
+        allocator.close();
+    }
+
+    /**
+     * Partition : verrou, index primitif et blocs. Tous les accès se font sous {@link #lock}.
+     *
+     * <p>Adresse d'un enregistrement : numéro de bloc sur les 32 bits de poids fort,
+     * position dans le bloc sur les 32 bits de poids faible. Enregistrement :
+     * {@code [int longueur][produit encodé]}.</p>
+     */
+    private final class Stripe {
+
+        private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+        private final List<ByteBuffer> slabs = new ArrayList<>();
+        private LongLongMap index = new LongLongMap(1024);
+        private long liveBytes;
+        private long deadBytes;
+
+        private Product read(long id) {
+            long address = index.get(id);
+            if (address == LongLongMap.MISSING) {
+                return null;
+            }
+            // Copie de position : plusieurs lecteurs partagent le même bloc
+            ByteBuffer view = slabs.get((int) (address >>> 32)).duplicate();
+            view.position((int) address + 4);
+            return ProductCodec.decode(view);
+        }
+
+        private int recordLength(long address) {
+            return slabs.get((int) (address >>> 32)).getInt((int) address) + 4;
+        }
+
+        private void store(long id, Product product) {
+            long previous = product == null ? index.remove(id) : index.put(id, append(product));
+            if (previous != LongLongMap.MISSING) {
+                int length = recordLength(previous);
+                liveBytes -= length;
+                deadBytes += length;
+            }
+            if (deadBytes > liveBytes && deadBytes > slabSize) {
+                compact();
+            }
+        }
+
+        private long append(Product product) {
+            int needed = 4 + ProductCodec.maxEncodedSize(product);
+            ByteBuffer slab = slabs.isEmpty() ? null : slabs.get(slabs.size() - 1);
+            if (slab == null || slab.remaining() < needed) {
+                slab = allocator.allocate(Math.max(slabSize, needed));
+                slabs.add(slab);
+            }
+
+            int start = slab.position();
+            slab.position(start + 4);
+            ProductCodec.encode(product, slab);
+            int length = slab.position() - start - 4;
+            slab.putInt(start, length);
+            liveBytes += length + 4;
+            return ((long) (slabs.size() - 1) << 32) | start;
+        }
+
+        /**
+         * Réécrit les enregistrements vivants dans de nouveaux blocs, puis rend les anciens.
+         */
+        private void compact() {
+            List<ByteBuffer> oldSlabs = new ArrayList<>(slabs);
+            List<ByteBuffer> newSlabs = new ArrayList<>();
+            LongLongMap newIndex = new LongLongMap(index.size());
+
+            index.forEach((id, address) -> {
+                ByteBuffer source = oldSlabs.get((int) (address >>> 32));
+                int length = source.getInt((int) address) + 4;
+                ByteBuffer target = newSlabs.isEmpty() ? null : newSlabs.get(newSlabs.size() - 1);
+                if (target == null || target.remaining() < length) {
+                    target = allocator.allocate(Math.max(slabSize, length));
+                    newSlabs.add(target);
+                }
+                int start = target.position();
+                target.put(source.slice((int) address, length));
+                newIndex.put(id, ((long) (newSlabs.size() - 1) << 32) | start);
+            });
+
+            slabs.clear();
+            slabs.addAll(newSlabs);
+            index = newIndex;
+            deadBytes = 0;
+            oldSlabs.forEach(allocator::release);
+        }
+
+        private List<Product> snapshot() {
+            lock.readLock().lock();
+            try {
+                List<Product> products = new ArrayList<>(index.size());
+                for (long id : index.keys()) {
+                    products.add(read(id));
+                }
+                return products;
+            } finally {
+                lock.readLock().unlock();
+            }
+        }
+    }
+}
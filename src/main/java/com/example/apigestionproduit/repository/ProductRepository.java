@@ -0,0 +1,79 @@
+package com.example.apigestionproduit.repository;
+
+import com.example.apigestionproduit.model.Product;
+
+import java.util.function.BiFunction;
+
+/**
+ * Moteur de stockage des produits utilisé par {@code ProductService}.
+ *
+ * <p>Le contrat reprend celui de {@link java.util.concurrent.ConcurrentHashMap} :
+ * {@link #compute} et {@link #computeIfPresent} sont atomiques pour un identifiant
+ * donné, la fonction étant appelée une seule fois, sous le verrou de l'entrée.
+ * {@code ProductService} s'appuie sur cette garantie pour tenir ses index secondaires
+ * et son journal cohérents avec le stockage.</p>
+ *
+ * <p>Un moteur peut retourner des copies des produits stockés (moteurs sérialisés) :
+ * modifier un produit obtenu par {@link #get} n'a aucun effet tant qu'il n'est pas
+ * réécrit par {@code compute}.</p>
+ */
+public interface ProductRepository extends AutoCloseable {
+
+    /**
+     * Récupère un produit.
+     *
+     * @param id Identifiant du produit
+     * @return Le produit, ou null s'il n'existe pas
+     */
+    Product get(Long id);
+
+    /**
+     * Indique si un produit existe.
+     *
+     * @param id Identifiant du produit
+     * @return true si le produit existe
+     */
+    boolean containsKey(Long id);
+
+    /**
+     * Calcule atomiquement la nouvelle valeur d'un produit.
+     *
+     * @param id Identifiant du produit
+     * @param remapping Reçoit l'identifiant et la valeur courante (null si absente) ;
+     *                  retourne la nouvelle valeur, ou null pour supprimer le produit
+     * @return La nouvelle valeur, ou null si le produit a été supprimé
+     */
+    Product compute(Long id, BiFunction<Long, Product, Product> remapping);
+
+    /**
+     * Calcule atomiquement la nouvelle valeur d'un produit existant.
+     *
+     * @param id Identifiant du produit
+     * @param remapping Reçoit l'identifiant et la valeur courante ; retourne la nouvelle
+     *                  valeur, ou null pour supprimer le produit
+     * @return La nouvelle valeur, ou null si le produit est absent ou a été supprimé
+     */
+    Product computeIfPresent(Long id, BiFunction<Long, Product, Product> remapping);
+
+    /**
+     * Retourne le nombre de produits stockés.
+     *
+     * @return Nombre de produits
+     */
+    long size();
+
+    /**
+     * Parcourt les produits stockés.
+     * Le parcours est faiblement cohérent : il tolère les modifications concurrentes.
+     *
+     * @return Vue itérable des produits
+     */
+    Iterable<Product> values();
+
+    /**
+     * Libère les ressources du moteur (mémoire hors tas, fichiers).
+     */
+    @Override
+    default void close() {
+    }
+}
@@ -0,0 +1,223 @@
+package com.example.apigestionproduit.repository;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
+
+/**
+ * Fournit les blocs de mémoire (slabs) où {@link OffHeapProductRepository} écrit
+ * les produits sérialisés.
+ */
+public interface SlabAllocator extends AutoCloseable {
+
+    /**
+     * Alloue un bloc.
+     *
+     * @param capacity Taille du bloc en octets
+     * @return Un tampon vierge de la capacité demandée
+     */
+    ByteBuffer allocate(int capacity);
+
+    /**
+     * Restitue un bloc devenu inutile (après compactage).
+     *
+     * @param slab Bloc alloué par {@link #allocate(int)}
+     */
+    void release(ByteBuffer slab);
+
+    /**
+     * Libère toutes les ressources de l'allocateur.
+     */
+    @Override
+    void close();
+
+    /**
+     * Blocs en mémoire directe, hors du tas Java (plafonnée par {@code -XX:MaxDirectMemorySize}).
+     *
+     * @return Un allocateur de mémoire directe
+     */
+    static SlabAllocator direct() {
+        return new SlabAllocator() {
+            @Override
+            public ByteBuffer allocate(int capacity) {
+                return ByteBuffer.allocateDirect(capacity);
+            }
+
+            @Override
+            public void release(ByteBuffer slab) {
+                // La mémoire directe est rendue quand le tampon est collecté
+            }
+
+            @Override
+            public void close() {
+            }
+        };
+    }
+
+    /**
+     * Blocs projetés en mémoire depuis des fichiers ({@code slab-N.bin}) : les
+     * données vivent dans le cache de pages du système et peuvent dépasser la RAM.
+     * Les fichiers sont supprimés à la libération des blocs et à la fermeture.
+     *
+     * <p>Les fichiers ne sont qu'un espace de travail, la durabilité venant du journal :
+     * chaque allocateur écrit dans son propre sous-répertoire ({@code run-*}), verrouillé
+     * tant qu'il est ouvert. Les sous-répertoires que plus personne ne verrouille (arrêt
+     * brutal d'une exécution précédente) sont supprimés à la création d'un allocateur ;
+     * plusieurs instances peuvent partager le même répertoire.</p>
+     *
+     * @param directory Répertoire des fichiers de blocs (créé si absent)
+     * @return Un allocateur adossé à des fichiers
+     */
+    static SlabAllocator mappedFiles(Path directory) {
+        return new MappedFileSlabAllocator(directory);
+    }
+
+    /**
+     * Allocateur de blocs projetés depuis des fichiers.
+     */
+    final class MappedFileSlabAllocator implements SlabAllocator {
+
+        private static final String RUN_PREFIX = "run-";
+        private static final String LOCK_FILE = ".lock";
+
+        /**
+         * Sérialise, dans la JVM, la création des allocateurs (le verrou de fichier
+         * du répertoire ne protège que d'un autre processus).
+         */
+        private static final Object CREATION = new Object();
+
+        private final Path directory;
+        private final FileChannel lockChannel;
+        private final FileLock lock;
+        private final AtomicLong sequence = new AtomicLong();
+        /**
+         * Fichier de chaque bloc, par identité (l'égalité d'un ByteBuffer dépend de son contenu).
+         */
+        private final Map<ByteBuffer, Path> files = Collections.synchronizedMap(new IdentityHashMap<>());
+
+        private MappedFileSlabAllocator(Path parent) {
+            synchronized (CREATION) {
+                try {
+                    Files.createDirectories(parent);
+                    // Nettoyage et création sous le verrou du répertoire : aucun sous-répertoire
+                    // n'est vu entre sa création et son verrouillage
+                    try (FileChannel parentChannel = FileChannel.open(parent.resolve(LOCK_FILE),
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE);
+                         FileLock ignored = parentChannel.lock()) {
+                        removeStaleFiles(parent);
+                        this.directory = Files.createTempDirectory(parent, RUN_PREFIX);
+                        this.lockChannel = FileChannel.open(directory.resolve(LOCK_FILE),
+                                StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+                        this.lock = lockChannel.lock();
+                    }
+                } catch (IOException e) {
+                    throw new UncheckedIOException("Impossible de préparer le répertoire des blocs " + parent, e);
+                }
+            }
+        }
+
+        /**
+         * Supprime les fichiers laissés par des exécutions interrompues : les
+         * sous-répertoires dont le verrou est libre, et les blocs posés directement
+         * dans le répertoire par les versions précédentes.
+         */
+        private static void removeStaleFiles(Path parent) throws IOException {
+            try (DirectoryStream<Path> entries = Files.newDirectoryStream(parent)) {
+                for (Path entry : entries) {
+                    String name = entry.getFileName().toString();
+                    if (Files.isDirectory(entry) && name.startsWith(RUN_PREFIX) && !inUse(entry)) {
+                        deleteRecursively(entry);
+                    } else if (Files.isRegularFile(entry) && name.startsWith("slab-") && name.endsWith(".bin")) {
+                        Files.deleteIfExists(entry);
+                    }
+                }
+            }
+        }
+
+        private static boolean inUse(Path run) throws IOException {
+            Path lockFile = run.resolve(LOCK_FILE);
+            if (!Files.exists(lockFile)) {
+                return false;
+            }
+            try (FileChannel channel = FileChannel.open(lockFile, StandardOpenOption.WRITE)) {
+                FileLock held = channel.tryLock();
+                if (held == null) {
+                    return true;
+                }
+                held.release();
+                return false;
+            } catch (OverlappingFileLockException e) {
+                // Verrouillé par un autre allocateur de cette JVM
+                return true;
+            }
+        }
+
+        private static void deleteRecursively(Path root) throws IOException {
+            try (Stream<Path> paths = Files.walk(root)) {
+                for (Path path : paths.sorted(Comparator.reverseOrder()).toList()) {
+                    Files.deleteIfExists(path);
+                }
+            }
+        }
+
+        @Override
+        public ByteBuffer allocate(int capacity) {
+            Path file = directory.resolve("slab-" + sequence.incrementAndGet() + ".bin");
+            try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW,
+                    StandardOpenOption.READ, StandardOpenOption.WRITE, StandardOpenOption.SPARSE)) {
+                ByteBuffer slab = channel.map(FileChannel.MapMode.READ_WRITE, 0, capacity);
+                files.put(slab, file);
+                return slab;
+            } catch (IOException e) {
+                throw new UncheckedIOException("Impossible d'allouer le bloc " + file, e);
+            }
+        }
+
+        @Override
+        public void release(ByteBuffer slab) {
+            Path file = files.remove(slab);
+            if (file != null) {
+                try {
+                    // Le fichier reste projeté jusqu'à la collecte du tampon
+                    Files.deleteIfExists(file);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            }
+        }
+
+        @Override
+        public void close() {
+            List<ByteBuffer> slabs;
+            synchronized (files) {
+                slabs = new ArrayList<>(files.keySet());
+            }
+            slabs.forEach(this::release);
+            if (!lockChannel.isOpen()) {
+                return;
+            }
+            try {
+                lock.release();
+                lockChannel.close();
+                deleteRecursively(directory);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package com.example.apigestionproduit.service;
+
+import java.util.Collections;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Index secondaire des produits par catégorie.
+ *
+ * <p>Associe chaque catégorie normalisée à l'ensemble des identifiants des produits
+ * qui lui appartiennent. Une recherche par catégorie coûte ainsi un temps
+ * proportionnel au nombre de résultats, et non plus à la taille du catalogue.</p>
+ *
+ * <p>Les ajouts et retraits passent par {@code compute} sur la catégorie concernée :
+ * un ensemble vidé est retiré de l'index de manière atomique, sans qu'un ajout
+ * concurrent puisse être perdu.</p>
+ */
+class CategoryIndex {
+
+    /**
+     * Catégorie normalisée vers l'ensemble des identifiants de produits.
+     */
+    private final Map<String, Set<Long>> idsByCategorie = new ConcurrentHashMap<>();
+
+    /**
+     * Normalise une catégorie pour l'indexation.
+     * La comparaison reste insensible à la casse, comme {@code equalsIgnoreCase}.
+     *
+     * @param categorie Catégorie brute (peut être null)
+     * @return La clé normalisée, ou null si la catégorie est null
+     */
+    static String normalize(String categorie) {
+        return categorie == null ? null : categorie.toLowerCase(Locale.ROOT);
+    }
+
+    /**
+     * Ajoute un produit à l'index de sa catégorie.
+     *
+     * @param id Identifiant du produit
+     * @param categorie Catégorie du produit (ignorée si null)
+     */
+    void add(Long id, String categorie) {
+        String key = normalize(categorie);
+        if (key == null) {
+            return;
+        }
+        idsByCategorie.compute(key, (k, ids) -> {
+            Set<Long> target = ids != null ? ids : ConcurrentHashMap.newKeySet();
+            target.add(id);
+            return target;
+        });
+    }
+
+    /**
+     * Retire un produit de l'index de sa catégorie.
+     *
+     * @param id Identifiant du produit
+     * @param categorie Catégorie sous laquelle le produit était indexé
+     */
+    void remove(Long id, String categorie) {
+        String key = normalize(categorie);
+        if (key == null) {
+            return;
+        }
+        idsByCategorie.computeIfPresent(key, (k, ids) -> {
+            ids.remove(id);
+            return ids.isEmpty() ? null : ids;
+        });
+    }
+
+    /**
+     * Déplace un produit d'une catégorie vers une autre.
+     * Sans effet si les deux catégories sont équivalentes.
+     *
+     * @param id Identifiant du produit
+     * @param ancienneCategorie Catégorie précédente
+     * @param nouvelleCategorie Nouvelle catégorie
+     */
+    void move(Long id, String ancienneCategorie, String nouvelleCategorie) {
+        if (Objects.equals(normalize(ancienneCategorie), normalize(nouvelleCategorie))) {
+            return;
+        }
+        remove(id, ancienneCategorie);
+        add(id, nouvelleCategorie);
+    }
+
+    /**
+     * Retourne les identifiants des produits d'une catégorie.
+     *
+     * @param categorie Catégorie recherchée
+     * @return Vue non modifiable des identifiants (vide si aucun produit)
+     */
+    Set<Long> idsFor(String categorie) {
+        String key = normalize(categorie);
+        Set<Long> ids = key == null ? null : idsByCategorie.get(key);
+        return ids == null ? Collections.emptySet() : Collections.unmodifiableSet(ids);
+    }
+
+    /**
+     * Retourne le nombre de catégories distinctes indexées.
+     *
+     * @return Nombre de catégories
+     */
+    int categoryCount() {
+        return idsByCategorie.size();
+    }
+}
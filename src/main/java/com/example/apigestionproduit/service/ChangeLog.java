@@ -0,0 +1,164 @@
+package com.example.apigestionproduit.service;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.model.ProductChange;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeSet;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Journal borné, en mémoire, des modifications du catalogue.
+ *
+ * <p>Les événements sont rangés dans un tampon circulaire de capacité fixe : au-delà,
+ * les plus anciens sont écrasés et un client en retard doit resynchroniser tout le
+ * catalogue. Le numéro de séquence est attribué sous le verrou de l'entrée du produit
+ * (dans le {@code compute}), donc deux modifications d'un même produit sont toujours
+ * journalisées dans leur ordre d'application.</p>
+ *
+ * <p>La séquence démarre à l'heure de démarrage en microsecondes : les numéros
+ * restent croissants d'un démarrage à l'autre, et une séquence obtenue d'une
+ * instance précédente est reconnue comme antérieure à la fenêtre.</p>
+ *
+ * <p>L'état est protégé par un {@link ReentrantLock} et non par {@code synchronized} :
+ * {@link #append} est appelé sous le verrou d'un produit, et un thread virtuel qui
+ * attendrait un moniteur y immobiliserait son thread porteur.</p>
+ */
+final class ChangeLog {
+
+    /**
+     * Capacité par défaut du journal, en événements.
+     */
+    static final int DEFAULT_CAPACITY = 100_000;
+
+    private final ReentrantLock lock = new ReentrantLock();
+
+    private final ProductChange[] ring;
+
+    /**
+     * Séquence de démarrage : l'état à cet instant n'est pas dans le journal.
+     */
+    private final long base;
+
+    /**
+     * Dernière séquence attribuée.
+     */
+    private long last;
+
+    /**
+     * Séquences attribuées dont le produit n'est pas encore visible dans le catalogue.
+     */
+    private final TreeSet<Long> pending = new TreeSet<>();
+
+    /**
+     * Constructeur.
+     *
+     * @param capacity Nombre maximal d'événements conservés
+     */
+    ChangeLog(int capacity) {
+        this(capacity, System.currentTimeMillis() * 1000);
+    }
+
+    ChangeLog(int capacity, long base) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("Capacité du journal des modifications invalide: " + capacity);
+        }
+        this.ring = new ProductChange[capacity];
+        this.base = base;
+        this.last = base;
+    }
+
+    /**
+     * Journalise une modification. Doit être appelé sous le verrou de l'entrée du
+     * produit, puis suivi de {@link #publish(long)} une fois la modification visible.
+     *
+     * @param id Identifiant du produit
+     * @param before État précédent (null pour une création)
+     * @param after Nouvel état (null pour une suppression)
+     * @return Numéro de séquence attribué
+     */
+    long append(Long id, Product before, Product after) {
+        ProductChange.Type type = before == null ? ProductChange.Type.CREATE
+                : after == null ? ProductChange.Type.DELETE : ProductChange.Type.UPDATE;
+        lock.lock();
+        try {
+            long sequence = ++last;
+            ring[(int) (sequence % ring.length)] = new ProductChange(sequence, type, id, after);
+            pending.add(sequence);
+            return sequence;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Signale qu'une modification journalisée est visible dans le catalogue.
+     *
+     * @param sequence Séquence retournée par {@link #append}
+     */
+    void publish(long sequence) {
+        lock.lock();
+        try {
+            pending.remove(sequence);
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Séquence jusqu'à laquelle toutes les modifications sont visibles : un
+     * catalogue lu après cet appel contient au moins ces modifications. C'est le
+     * point de départ d'une resynchronisation complète.
+     *
+     * @return Séquence publiée
+     */
+    long publishedSequence() {
+        lock.lock();
+        try {
+            return pending.isEmpty() ? last : pending.first() - 1;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Modifications postérieures à une séquence, dans l'ordre.
+     *
+     * @param since Dernière séquence déjà appliquée par le client
+     * @param limit Nombre maximal d'événements
+     * @return Les événements (éventuellement aucun), ou null si {@code since} est
+     *         hors de la fenêtre conservée et qu'une resynchronisation est nécessaire
+     */
+    List<ProductChange> since(long since, int limit) {
+        lock.lock();
+        try {
+            long oldest = Math.max(base + 1, last - ring.length + 1);
+            if (since < oldest - 1 || since > last) {
+                return null;
+            }
+            long end = Math.min(last, since + limit);
+            List<ProductChange> changes = new ArrayList<>((int) (end - since));
+            for (long sequence = since + 1; sequence <= end; sequence++) {
+                changes.add(ring[(int) (sequence % ring.length)]);
+            }
+            return changes;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Dernière séquence attribuée.
+     *
+     * @return Séquence
+     */
+    long lastSequence() {
+        lock.lock();
+        try {
+            return last;
+        } finally {
+            lock.unlock();
+        }
+    }
+}
@@ -0,0 +1,193 @@
+package com.example.apigestionproduit.service;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.model.ProductFacets;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Compteurs des facettes du catalogue : produits par catégorie, par tranche de prix
+ * et par disponibilité.
+ *
+ * <p>Les compteurs sont tenus à jour à chaque création, modification et suppression,
+ * sous le verrou de l'entrée du produit : lire les facettes coûte un temps
+ * proportionnel au nombre de facettes, pas au nombre de produits. Les compteurs sont
+ * des {@link LongAdder} : les écritures concurrentes ne se disputent pas une même
+ * case mémoire. Une lecture concurrente d'écritures peut voir un produit dans son
+ * ancienne et sa nouvelle facette, comme un parcours du catalogue.</p>
+ *
+ * <p>Une catégorie vidée garde son compteur, à zéro, et n'est plus retournée.</p>
+ */
+class FacetCounters {
+
+    /**
+     * Bornes des tranches de prix, en centimes : [0, 10 €[, [10 €, 20 €[, ... [1000 €, +inf[.
+     * Un prix négatif compte dans la première tranche.
+     */
+    static final long[] PRICE_BOUNDS = {1_000, 2_000, 5_000, 10_000, 20_000, 50_000, 100_000};
+
+    /**
+     * Compteur d'une catégorie et libellé sous lequel elle est présentée.
+     */
+    private static final class CategoryCount {
+
+        final LongAdder count = new LongAdder();
+        volatile String libelle;
+
+        CategoryCount(String libelle) {
+            this.libelle = libelle;
+        }
+    }
+
+    /**
+     * Catégorie normalisée vers son compteur.
+     */
+    private final Map<String, CategoryCount> categories = new ConcurrentHashMap<>();
+
+    private final LongAdder total = new LongAdder();
+    private final LongAdder[] prices = new LongAdder[PRICE_BOUNDS.length + 1];
+    private final LongAdder inStock = new LongAdder();
+
+    /**
+     * Constructeur : tous les compteurs à zéro.
+     */
+    FacetCounters() {
+        for (int i = 0; i < prices.length; i++) {
+            prices[i] = new LongAdder();
+        }
+    }
+
+    /**
+     * Décompte un produit ajouté au catalogue.
+     *
+     * @param product Produit ajouté
+     */
+    void add(Product product) {
+        count(product, 1);
+    }
+
+    /**
+     * Retire un produit supprimé du catalogue.
+     *
+     * @param product Produit tel qu'il était décompté
+     */
+    void remove(Product product) {
+        count(product, -1);
+    }
+
+    /**
+     * Déplace un produit modifié vers ses nouvelles facettes.
+     * Seuls les compteurs des facettes qui changent sont modifiés.
+     *
+     * @param before Produit tel qu'il était décompté
+     * @param after Nouvel état du produit
+     */
+    void move(Product before, Product after) {
+        String oldCategory = CategoryIndex.normalize(before.getCategorie());
+        String newCategory = CategoryIndex.normalize(after.getCategorie());
+        if (!Objects.equals(oldCategory, newCategory)) {
+            countCategory(oldCategory, before.getCategorie(), -1);
+            countCategory(newCategory, after.getCategorie(), 1);
+        } else if (newCategory != null && !after.getCategorie().equals(before.getCategorie())) {
+            categories.get(newCategory).libelle = after.getCategorie();
+        }
+        int oldBucket = bucket(before.prixCentimes());
+        int newBucket = bucket(after.prixCentimes());
+        if (oldBucket != newBucket) {
+            countPrice(oldBucket, -1);
+            countPrice(newBucket, 1);
+        }
+        boolean wasInStock = before.stock() > 0;
+        if (wasInStock != after.stock() > 0) {
+            inStock.add(wasInStock ? -1 : 1);
+        }
+    }
+
+    private void count(Product product, int delta) {
+        total.add(delta);
+        countCategory(CategoryIndex.normalize(product.getCategorie()), product.getCategorie(), delta);
+        countPrice(bucket(product.prixCentimes()), delta);
+        if (product.stock() > 0) {
+            inStock.add(delta);
+        }
+    }
+
+    private void countCategory(String key, String libelle, int delta) {
+        if (key == null) {
+            return;
+        }
+        CategoryCount category = categories.computeIfAbsent(key, k -> new CategoryCount(libelle));
+        if (delta > 0) {
+            category.libelle = libelle;
+        }
+        category.count.add(delta);
+    }
+
+    private void countPrice(int bucket, int delta) {
+        if (bucket >= 0) {
+            prices[bucket].add(delta);
+        }
+    }
+
+    /**
+     * Tranche d'un prix.
+     *
+     * @param prixCentimes Prix en centimes, ou {@link Product#NO_PRIX}
+     * @return Indice de la tranche, ou -1 pour un produit sans prix
+     */
+    static int bucket(long prixCentimes) {
+        if (prixCentimes == Product.NO_PRIX) {
+            return -1;
+        }
+        int i = Arrays.binarySearch(PRICE_BOUNDS, prixCentimes);
+        // Une borne appartient à la tranche qu'elle ouvre
+        return i >= 0 ? i + 1 : -i - 1;
+    }
+
+    /**
+     * Lit les compteurs.
+     *
+     * @return Les facettes non vides
+     */
+    ProductFacets snapshot() {
+        List<Map.Entry<String, Long>> counts = new ArrayList<>(categories.size());
+        categories.forEach((key, category) -> {
+            long count = category.count.sum();
+            if (count > 0) {
+                counts.add(Map.entry(category.libelle, count));
+            }
+        });
+        counts.sort(Map.Entry.<String, Long>comparingByValue().reversed().thenComparing(Map.Entry.comparingByKey()));
+        Map<String, Long> byCategory = new LinkedHashMap<>();
+        for (Map.Entry<String, Long> entry : counts) {
+            byCategory.put(entry.getKey(), entry.getValue());
+        }
+
+        List<ProductFacets.Tranche> tranches = new ArrayList<>();
+        for (int i = 0; i < prices.length; i++) {
+            long count = prices[i].sum();
+            if (count > 0) {
+                tranches.add(new ProductFacets.Tranche(
+                        i == 0 ? BigDecimal.ZERO.setScale(Product.PRIX_SCALE) : euros(PRICE_BOUNDS[i - 1]),
+                        i == PRICE_BOUNDS.length ? null : euros(PRICE_BOUNDS[i]),
+                        count));
+            }
+        }
+
+        long products = total.sum();
+        long available = inStock.sum();
+        return new ProductFacets(products, byCategory, tranches, available, products - available);
+    }
+
+    private static BigDecimal euros(long centimes) {
+        return BigDecimal.valueOf(centimes, Product.PRIX_SCALE);
+    }
+}
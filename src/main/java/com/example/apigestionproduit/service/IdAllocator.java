@@ -0,0 +1,85 @@
+package com.example.apigestionproduit.service;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Attribution des identifiants des nouveaux produits.
+ *
+ * <p>Par défaut, les identifiants se suivent à partir de 1. En mode réparti, chaque nœud
+ * n'attribue que les identifiants dont il est propriétaire (voir
+ * {@code cluster.ShardIdAllocator}) : deux nœuds ne peuvent pas attribuer le même
+ * identifiant, sans coordination entre eux.</p>
+ */
+public interface IdAllocator {
+
+    /**
+     * Identifiants consécutifs, dans un seul nœud.
+     *
+     * @return Un nouvel allocateur, dont le premier identifiant est 1
+     */
+    static IdAllocator sequential() {
+        AtomicLong next = new AtomicLong(1);
+        return new IdAllocator() {
+            @Override
+            public long next() {
+                return next.getAndIncrement();
+            }
+
+            @Override
+            public long[] next(int count) {
+                // Un seul bloc contigu, réservé en une opération
+                long first = next.getAndAdd(count);
+                long[] ids = new long[count];
+                for (int i = 0; i < count; i++) {
+                    ids[i] = first + i;
+                }
+                return ids;
+            }
+
+            @Override
+            public void advancePast(long highWater) {
+                next.accumulateAndGet(highWater + 1, Math::max);
+            }
+
+            @Override
+            public long highWater() {
+                return next.get() - 1;
+            }
+        };
+    }
+
+    /**
+     * Attribue un identifiant.
+     *
+     * @return Identifiant jamais attribué
+     */
+    long next();
+
+    /**
+     * Attribue plusieurs identifiants, pour un lot.
+     *
+     * @param count Nombre d'identifiants
+     * @return Identifiants croissants, jamais attribués
+     */
+    default long[] next(int count) {
+        long[] ids = new long[count];
+        for (int i = 0; i < count; i++) {
+            ids[i] = next();
+        }
+        return ids;
+    }
+
+    /**
+     * Reprend l'attribution après un identifiant restauré depuis le disque.
+     *
+     * @param highWater Plus grand identifiant déjà attribué
+     */
+    void advancePast(long highWater);
+
+    /**
+     * Plus grand identifiant attribué (ou dépassé), conservé dans les snapshots.
+     *
+     * @return 0 si aucun identifiant n'a été attribué
+     */
+    long highWater();
+}
@@ -0,0 +1,47 @@
+package com.example.apigestionproduit.service;
+
+/**
+ * Levée lorsqu'une réservation demande plus d'unités que le stock disponible.
+ * Le stock n'est pas modifié.
+ */
+public class InsufficientStockException extends RuntimeException {
+
+    private final long id;
+    private final int requested;
+    private final int available;
+
+    /**
+     * Constructeur.
+     *
+     * @param id Identifiant du produit
+     * @param requested Quantité demandée
+     * @param available Quantité disponible au moment de la demande
+     */
+    public InsufficientStockException(long id, int requested, int available) {
+        super("Produit " + id + " : " + requested + " unité(s) demandée(s), " + available + " disponible(s)");
+        this.id = id;
+        this.requested = requested;
+        this.available = available;
+    }
+
+    /**
+     * @return l'identifiant du produit
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return la quantité demandée
+     */
+    public int getRequested() {
+        return requested;
+    }
+
+    /**
+     * @return la quantité disponible au moment de la demande
+     */
+    public int getAvailable() {
+        return available;
+    }
+}
@@ -0,0 +1,192 @@
+package com.example.apigestionproduit.service;
+
+import java.text.Normalizer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.regex.Pattern;
+
+/**
+ * Index inversé de trigrammes sur le nom des produits.
+ *
+ * <p>Chaque nom est normalisé une seule fois, à l'indexation, puis découpé en
+ * trigrammes (séquences de 3 caractères). Une recherche par sous-chaîne
+ * n'examine que les produits partageant le trigramme le plus rare de la requête,
+ * avant la vérification finale par {@code contains} sur le nom déjà normalisé.</p>
+ *
+ * <p>Deux modes de normalisation sont supportés :</p>
+ * <ul>
+ *   <li>insensible à la casse (par défaut) ;</li>
+ *   <li>insensible à la casse et aux accents ("mecanique" trouve "Clavier Mécanique").</li>
+ * </ul>
+ */
+class NameIndex {
+
+    /**
+     * Longueur des n-grammes indexés.
+     */
+    static final int GRAM = 3;
+
+    /**
+     * Marques diacritiques combinantes, retirées après décomposition NFD.
+     */
+    private static final Pattern DIACRITIQUES = Pattern.compile("\\p{M}+");
+
+    /**
+     * Active la suppression des accents lors de la normalisation.
+     */
+    private final boolean accentInsensitive;
+
+    /**
+     * Nom normalisé de chaque produit indexé.
+     */
+    private final Map<Long, String> normalizedNames = new ConcurrentHashMap<>();
+
+    /**
+     * Trigramme (3 caractères empaquetés dans un long) vers les identifiants.
+     */
+    private final Map<Long, Set<Long>> postings = new ConcurrentHashMap<>();
+
+    /**
+     * Constructeur.
+     *
+     * @param accentInsensitive true pour ignorer les accents en plus de la casse
+     */
+    NameIndex(boolean accentInsensitive) {
+        this.accentInsensitive = accentInsensitive;
+    }
+
+    /**
+     * Normalise un texte selon le mode de l'index.
+     *
+     * @param text Texte brut
+     * @return Texte en minuscules, éventuellement sans accents
+     */
+    String normalize(String text) {
+        String lower = text.toLowerCase(Locale.ROOT);
+        if (!accentInsensitive || isAscii(lower)) {
+            return lower;
+        }
+        return DIACRITIQUES.matcher(Normalizer.normalize(lower, Normalizer.Form.NFD)).replaceAll("");
+    }
+
+    private static boolean isAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) > 0x7F) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Clé d'un trigramme : les 3 caractères empaquetés, puis multipliés par une
+     * constante impaire (bijection) pour bien répartir les bits dans la table de hachage.
+     * Sans ce mélange, les trigrammes ASCII se concentrent sur peu de cases.
+     */
+    private static long gram(String text, int offset) {
+        long packed = ((long) text.charAt(offset) << 32)
+                | ((long) text.charAt(offset + 1) << 16)
+                | text.charAt(offset + 2);
+        return packed * 0x9E3779B97F4A7C15L;
+    }
+
+    /**
+     * Indexe (ou réindexe) le nom d'un produit.
+     * Doit être appelé sous le verrou de l'entrée du produit dans la map principale.
+     *
+     * @param id Identifiant du produit
+     * @param nom Nouveau nom (null pour retirer le produit de l'index)
+     */
+    void put(Long id, String nom) {
+        String normalized = nom == null ? null : normalize(nom);
+        String previous = normalized == null ? normalizedNames.remove(id) : normalizedNames.put(id, normalized);
+
+        if (previous != null && previous.equals(normalized)) {
+            return;
+        }
+        if (previous != null) {
+            for (int i = 0; i + GRAM <= previous.length(); i++) {
+                postings.computeIfPresent(gram(previous, i), (g, ids) -> {
+                    ids.remove(id);
+                    return ids.isEmpty() ? null : ids;
+                });
+            }
+        }
+        if (normalized != null) {
+            for (int i = 0; i + GRAM <= normalized.length(); i++) {
+                postings.compute(gram(normalized, i), (g, ids) -> {
+                    Set<Long> target = ids != null ? ids : ConcurrentHashMap.newKeySet();
+                    target.add(id);
+                    return target;
+                });
+            }
+        }
+    }
+
+    /**
+     * Retire un produit de l'index.
+     *
+     * @param id Identifiant du produit
+     */
+    void remove(Long id) {
+        put(id, null);
+    }
+
+    /**
+     * Recherche les produits dont le nom contient le terme.
+     *
+     * <p>Pour un terme d'au moins 3 caractères, seuls les produits de la liste de
+     * trigrammes la plus courte sont vérifiés. Un terme plus court retombe sur un
+     * parcours des noms normalisés, sans allocation par produit.</p>
+     *
+     * @param terme Terme recherché
+     * @return Identifiants des produits correspondants
+     */
+    List<Long> search(String terme) {
+        String query = normalize(terme);
+
+        if (query.length() < GRAM) {
+            List<Long> ids = new ArrayList<>();
+            normalizedNames.forEach((id, name) -> {
+                if (name.contains(query)) {
+                    ids.add(id);
+                }
+            });
+            return ids;
+        }
+
+        Set<Long> candidates = null;
+        for (int i = 0; i + GRAM <= query.length(); i++) {
+            Set<Long> ids = postings.get(gram(query, i));
+            if (ids == null) {
+                return Collections.emptyList();
+            }
+            if (candidates == null || ids.size() < candidates.size()) {
+                candidates = ids;
+            }
+        }
+
+        List<Long> ids = new ArrayList<>();
+        for (Long id : candidates) {
+            String name = normalizedNames.get(id);
+            if (name != null && name.contains(query)) {
+                ids.add(id);
+            }
+        }
+        return ids;
+    }
+
+    /**
+     * Retourne le nombre de trigrammes distincts indexés.
+     *
+     * @return Nombre de trigrammes
+     */
+    int gramCount() {
+        return postings.size();
+    }
+}
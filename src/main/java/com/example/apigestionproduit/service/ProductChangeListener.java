@@ -0,0 +1,24 @@
+package com.example.apigestionproduit.service;
+
+import com.example.apigestionproduit.model.Product;
+
+/**
+ * Observateur des modifications du catalogue.
+ *
+ * <p>Appelé par {@link ProductService} après chaque création, modification (y compris
+ * de stock) ou suppression, une fois le nouvel état visible des lecteurs et hors du
+ * verrou du produit. Les appels pour un même produit suivent l'ordre des modifications
+ * seulement s'ils proviennent du même thread ; l'observateur doit être rapide et ne
+ * pas lever d'exception.</p>
+ */
+@FunctionalInterface
+public interface ProductChangeListener {
+
+    /**
+     * Signale la modification d'un produit.
+     *
+     * @param before État précédent (null pour une création)
+     * @param after Nouvel état (null pour une suppression)
+     */
+    void onProductChanged(Product before, Product after);
+}
@@ -0,0 +1,128 @@
+package com.example.apigestionproduit.service;
+
+import io.micrometer.core.instrument.Clock;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Métriques Micrometer de {@link ProductService}.
+ *
+ * <p>Tous les compteurs sont enregistrés une fois, à la construction : le chemin
+ * critique se limite à deux lectures d'horloge et un {@code record}, sans recherche
+ * dans le registre ni allocation (pas de lambda capturante, pas de tags dynamiques).</p>
+ *
+ * <ul>
+ *   <li>{@code produits.service.operations} : durée par opération (tag {@code operation}),
+ *       avec histogramme et percentiles p50/p99/p999 ;</li>
+ *   <li>{@code produits.service.resultats} : nombre de produits retournés par les
+ *       recherches (tag {@code operation}) ;</li>
+ *   <li>{@code produits.service.lots} : taille des lots des opérations groupées.</li>
+ * </ul>
+ */
+final class ProductMetrics {
+
+    static final String OPERATIONS = "produits.service.operations";
+    static final String RESULTATS = "produits.service.resultats";
+    static final String LOTS = "produits.service.lots";
+
+    private final Clock clock;
+
+    final Timer getAll;
+    final Timer page;
+    final Timer getById;
+    final Timer create;
+    final Timer createBatch;
+    final Timer update;
+    final Timer updateBatch;
+    final Timer delete;
+    final Timer deleteBatch;
+    final Timer search;
+    final Timer relevance;
+    final Timer category;
+    final Timer reserve;
+    final Timer release;
+    final Timer query;
+    final Timer facets;
+
+    final DistributionSummary searchResults;
+    final DistributionSummary relevanceResults;
+    final DistributionSummary categoryResults;
+    final DistributionSummary queryResults;
+    final DistributionSummary batchSize;
+
+    /**
+     * Constructeur : enregistre toutes les métriques dans le registre.
+     *
+     * @param registry Registre Micrometer
+     */
+    ProductMetrics(MeterRegistry registry) {
+        this.clock = registry.config().clock();
+        this.getAll = timer(registry, "getAll");
+        this.page = timer(registry, "page");
+        this.getById = timer(registry, "getById");
+        this.create = timer(registry, "create");
+        this.createBatch = timer(registry, "createBatch");
+        this.update = timer(registry, "update");
+        this.updateBatch = timer(registry, "updateBatch");
+        this.delete = timer(registry, "delete");
+        this.deleteBatch = timer(registry, "deleteBatch");
+        this.search = timer(registry, "search");
+        this.relevance = timer(registry, "relevance");
+        this.category = timer(registry, "category");
+        this.reserve = timer(registry, "reserve");
+        this.release = timer(registry, "release");
+        this.query = timer(registry, "query");
+        this.facets = timer(registry, "facets");
+
+        this.searchResults = resultats(registry, "search");
+        this.relevanceResults = resultats(registry, "relevance");
+        this.categoryResults = resultats(registry, "category");
+        this.queryResults = resultats(registry, "query");
+        this.batchSize = DistributionSummary.builder(LOTS)
+                .description("Nombre de produits par opération groupée")
+                .baseUnit("produits")
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static Timer timer(MeterRegistry registry, String operation) {
+        return Timer.builder(OPERATIONS)
+                .description("Durée des opérations du service produits")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.99, 0.999)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    private static DistributionSummary resultats(MeterRegistry registry, String operation) {
+        return DistributionSummary.builder(RESULTATS)
+                .description("Nombre de produits retournés")
+                .baseUnit("produits")
+                .tag("operation", operation)
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .register(registry);
+    }
+
+    /**
+     * Début d'une mesure.
+     *
+     * @return Instant monotone en nanosecondes
+     */
+    long start() {
+        return clock.monotonicTime();
+    }
+
+    /**
+     * Fin d'une mesure.
+     *
+     * @param timer Timer de l'opération
+     * @param start Valeur retournée par {@link #start()}
+     */
+    void stop(Timer timer, long start) {
+        timer.record(clock.monotonicTime() - start, TimeUnit.NANOSECONDS);
+    }
+}
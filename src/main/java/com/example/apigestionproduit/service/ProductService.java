@@ -1,19 +1,43 @@
 package com.example.apigestionproduit.service;
 
+import com.example.apigestionproduit.model.BatchItemResult;
 import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.model.ProductChange;
+import com.example.apigestionproduit.model.ProductFacets;
+import com.example.apigestionproduit.model.ProductQuery;
+import com.example.apigestionproduit.model.StockLine;
+import com.example.apigestionproduit.persistence.ProductJournal;
+import com.example.apigestionproduit.repository.InMemoryProductRepository;
+import com.example.apigestionproduit.repository.ProductRepository;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.composite.CompositeMeterRegistry;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
 import java.math.BigDecimal;
+import java.math.RoundingMode;
 import java.util.*;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Stream;
 
 /**
  * Service de gestion des produits.
  * Implémente la logique métier pour les opérations CRUD sur les produits.
  *
- * Cette classe utilise une Map en mémoire pour stocker les produits.
- * En production, elle devrait être remplacée par une persistance en base de données.
+ * Le stockage est délégué à un {@link ProductRepository} (en mémoire par défaut).
+ * Lorsque la persistance est activée, chaque mutation est journalisée sur disque
+ * ({@link ProductJournal}) et l'état est restauré au démarrage.
+ *
+ * Les produits enregistrés sont des instantanés immuables : chaque création ou
+ * modification enregistre une nouvelle instance, de version supérieure, par un
+ * {@code compute} atomique. Un lecteur voit donc toujours un produit complet.
+ *
+ * Chaque opération est mesurée par des métriques Micrometer ({@link ProductMetrics}),
+ * complétées de jauges sur la taille du catalogue et des index.
  *
  * @author DJAKOU Ruben
  * @version 1.0
@@ -23,21 +47,227 @@ import java.util.concurrent.atomic.AtomicLong;
 public class ProductService {
 
     /**
-     * Stockage en mémoire des produits.
-     * Utilise ConcurrentHashMap pour la sécurité des threads.
+     * Version attendue signifiant « quelle que soit la version courante ».
+     */
+    public static final long ANY_VERSION = -1;
+
+    /**
+     * Moteur de stockage des produits (en mémoire par défaut).
+     * Ses opérations compute sont atomiques par identifiant.
+     */
+    private final ProductRepository productsDB;
+
+    /**
+     * Générateur d'identifiants uniques pour les produits
+     * (consécutifs, ou propres au nœud en mode réparti).
+     */
+    private final IdAllocator idGenerator;
+
+    /**
+     * Index secondaire catégorie normalisée → identifiants.
+     * Maintenu à chaque création, mise à jour et suppression.
+     */
+    private final CategoryIndex categoryIndex = new CategoryIndex();
+
+    /**
+     * Identifiants triés, pour la pagination par curseur (keyset) sur l'id.
+     */
+    private final NavigableSet<Long> orderedIds = new ConcurrentSkipListSet<>();
+
+    /**
+     * Index inversé de trigrammes sur les noms normalisés.
+     * Maintenu à chaque création, mise à jour et suppression.
+     */
+    private final NameIndex nameIndex;
+
+    /**
+     * Index inversé de mots sur le nom, la catégorie et la description, pour la
+     * recherche par pertinence. Maintenu à chaque création, mise à jour et suppression.
+     */
+    private final TextIndex textIndex;
+
+    /**
+     * Index trié prix (centimes) puis identifiant, pour les requêtes par intervalle de prix.
+     */
+    private final SortedIndex priceIndex = new SortedIndex();
+
+    /**
+     * Index trié stock puis identifiant, pour les requêtes par stock minimal.
+     */
+    private final SortedIndex stockIndex = new SortedIndex();
+
+    /**
+     * Compteurs des facettes (catégorie, tranche de prix, disponibilité).
+     * Maintenus à chaque création, mise à jour et suppression.
+     */
+    private final FacetCounters facets = new FacetCounters();
+
+    /**
+     * Taille en dessous de laquelle une catégorie demandée est parcourue entièrement,
+     * les résultats étant alors triés par un tas borné, plutôt que de filtrer un
+     * parcours trié de tout le catalogue.
+     */
+    static final int CATEGORY_SCAN_LIMIT = 4096;
+
+    /**
+     * Journal de persistance des mutations ({@link ProductJournal#NONE} si désactivé).
+     */
+    private final ProductJournal journal;
+
+    /**
+     * Métriques des opérations, enregistrées une fois pour toutes.
      */
-    private final Map<Long, Product> productsDB = new ConcurrentHashMap<>();
+    private final ProductMetrics metrics;
 
     /**
-     * Générateur d'identifiants uniques pour les produits.
+     * Observateurs des modifications (cache de réponses...), notifiés hors verrou.
      */
-    private final AtomicLong idGenerator = new AtomicLong(1);
+    private final List<ProductChangeListener> changeListeners = new CopyOnWriteArrayList<>();
+
+    /**
+     * Version globale du catalogue, incrémentée après chaque modification visible.
+     */
+    private final AtomicLong catalogVersion = new AtomicLong();
+
+    /**
+     * Date (epoch millis) de la dernière modification du catalogue.
+     */
+    private final AtomicLong catalogLastModified = new AtomicLong(System.currentTimeMillis());
+
+    /**
+     * Journal borné des modifications, pour la synchronisation incrémentale.
+     */
+    private final ChangeLog changeLog;
 
     /**
      * Constructeur initialisant quelques produits de démonstration.
+     * La recherche par nom est insensible à la casse uniquement.
      */
     public ProductService() {
-        initializeDemoData();
+        this(false);
+    }
+
+    /**
+     * Constructeur sans persistance, avec données de démonstration.
+     *
+     * @param accentInsensitive true pour que la recherche par nom ignore aussi les accents
+     */
+    public ProductService(boolean accentInsensitive) {
+        this(accentInsensitive, ProductJournal.NONE);
+    }
+
+    /**
+     * Constructeur avec persistance, sur le moteur de stockage en mémoire.
+     *
+     * @param accentInsensitive true pour que la recherche par nom ignore aussi les accents
+     * @param journal Journal de persistance
+     */
+    public ProductService(boolean accentInsensitive, ProductJournal journal) {
+        this(accentInsensitive, new InMemoryProductRepository(), journal);
+    }
+
+    /**
+     * Constructeur sans registre de métriques : les mesures sont ignorées.
+     *
+     * @param accentInsensitive true pour que la recherche par nom ignore aussi les accents
+     * @param repository Moteur de stockage
+     * @param journal Journal de persistance
+     */
+    public ProductService(boolean accentInsensitive, ProductRepository repository, ProductJournal journal) {
+        // Un registre composite sans registre enfant fournit des métriques inactives
+        this(accentInsensitive, repository, journal, new CompositeMeterRegistry());
+    }
+
+    /**
+     * Constructeur avec la capacité par défaut du journal des modifications.
+     *
+     * @param accentInsensitive true pour que la recherche par nom ignore aussi les accents
+     * @param repository Moteur de stockage
+     * @param journal Journal de persistance
+     * @param meterRegistry Registre des métriques
+     */
+    public ProductService(boolean accentInsensitive, ProductRepository repository, ProductJournal journal,
+                          MeterRegistry meterRegistry) {
+        this(accentInsensitive, repository, journal, meterRegistry, ChangeLog.DEFAULT_CAPACITY);
+    }
+
+    /**
+     * Constructeur avec des identifiants consécutifs.
+     *
+     * @param accentInsensitive true pour que la recherche par nom ignore aussi les accents
+     * @param repository Moteur de stockage
+     * @param journal Journal de persistance
+     * @param meterRegistry Registre des métriques
+     * @param changeLogCapacity Nombre de modifications conservées pour la synchronisation incrémentale
+     */
+    public ProductService(boolean accentInsensitive, ProductRepository repository, ProductJournal journal,
+                          MeterRegistry meterRegistry, int changeLogCapacity) {
+        this(accentInsensitive, repository, journal, meterRegistry, changeLogCapacity, IdAllocator.sequential());
+    }
+
+    /**
+     * Constructeur utilisé par Spring, configurable depuis application.properties.
+     *
+     * <p>Si un journal de persistance est configuré, l'état persisté est restauré et
+     * le générateur d'identifiants repart après le plus grand identifiant attribué.
+     * Les données de démonstration ne sont créées que si aucun état n'a été persisté.</p>
+     *
+     * @param accentInsensitive true pour que la recherche par nom ignore aussi les accents
+     *                          (propriété {@code produits.search.accent-insensitive})
+     * @param repository Moteur de stockage (propriété {@code produits.storage.engine})
+     * @param journal Journal de persistance ({@link ProductJournal#NONE} pour un stockage volatil)
+     * @param meterRegistry Registre des métriques (Prometheus via Actuator)
+     * @param changeLogCapacity Nombre de modifications conservées pour la synchronisation
+     *                          incrémentale (propriété {@code produits.changes.capacity})
+     * @param idAllocator Attribution des identifiants (propres au nœud si {@code produits.cluster.enabled})
+     */
+    @Autowired
+    public ProductService(
+            @Value("${produits.search.accent-insensitive:false}") boolean accentInsensitive,
+            ProductRepository repository,
+            ProductJournal journal,
+            MeterRegistry meterRegistry,
+            @Value("${produits.changes.capacity:100000}") int changeLogCapacity,
+            IdAllocator idAllocator) {
+        this.idGenerator = idAllocator;
+        this.nameIndex = new NameIndex(accentInsensitive);
+        this.textIndex = new TextIndex(nameIndex::normalize);
+        this.changeLog = new ChangeLog(changeLogCapacity);
+        this.productsDB = repository;
+        this.journal = journal;
+        this.metrics = new ProductMetrics(meterRegistry);
+        registerGauges(meterRegistry);
+
+        long highWater = journal.recover(this::restore, this::restoreDelete);
+        if (highWater > 0) {
+            idGenerator.advancePast(highWater);
+        } else {
+            initializeDemoData();
+        }
+        journal.startSnapshots(productsDB::values, idGenerator::highWater);
+    }
+
+    /**
+     * Jauges lues à chaque collecte : aucun coût sur le chemin des requêtes.
+     *
+     * @param registry Registre des métriques
+     */
+    private void registerGauges(MeterRegistry registry) {
+        Gauge.builder("produits.catalogue.taille", productsDB, ProductRepository::size)
+                .description("Nombre de produits dans le catalogue")
+                .register(registry);
+        Gauge.builder("produits.index.categories", categoryIndex, CategoryIndex::categoryCount)
+                .description("Nombre de catégories distinctes indexées")
+                .register(registry);
+        Gauge.builder("produits.index.trigrammes", nameIndex, NameIndex::gramCount)
+                .description("Nombre de trigrammes distincts dans l'index des noms")
+                .register(registry);
+        Gauge.builder("produits.index.mots", textIndex, TextIndex::termCount)
+                .description("Nombre de mots distincts dans l'index de recherche par pertinence")
+                .register(registry);
+        Gauge.builder("produits.index.identifiants", orderedIds, Set::size)
+                .description("Nombre d'identifiants dans l'index de pagination")
+                .register(registry);
     }
 
     /**
@@ -64,7 +294,37 @@ public class ProductService {
      * @return Liste de tous les produits
      */
     public List<Product> getAllProducts() {
-        return new ArrayList<>(productsDB.values());
+        long start = metrics.start();
+        List<Product> products = new ArrayList<>((int) productsDB.size());
+        productsDB.values().forEach(products::add);
+        metrics.stop(metrics.getAll, start);
+        return products;
+    }
+
+    /**
+     * Récupère une page de produits triés par identifiant croissant.
+     * Pagination par curseur : la page commence après l'identifiant {@code after},
+     * ce qui évite tout parcours des pages précédentes.
+     *
+     * @param after Dernier identifiant de la page précédente (null pour la première page)
+     * @param limit Nombre maximal de produits à retourner
+     * @return Liste d'au plus {@code limit} produits d'identifiant strictement supérieur à {@code after}
+     */
+    public List<Product> getProductsPage(Long after, int limit) {
+        long start = metrics.start();
+        NavigableSet<Long> ids = after == null ? orderedIds : orderedIds.tailSet(after, false);
+        List<Product> products = new ArrayList<>(Math.min(limit, 1024));
+
+        Iterator<Long> iterator = ids.iterator();
+        while (products.size() < limit && iterator.hasNext()) {
+            Product product = productsDB.get(iterator.next());
+            // Le produit a pu être supprimé entre la lecture de l'index et celle de la map
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        metrics.stop(metrics.page, start);
+        return products;
     }
 
     /**
@@ -74,7 +334,10 @@ public class ProductService {
      * @return Optional contenant le produit si trouvé, vide sinon
      */
     public Optional<Product> getProductById(Long id) {
-        return Optional.ofNullable(productsDB.get(id));
+        long start = metrics.start();
+        Product product = productsDB.get(id);
+        metrics.stop(metrics.getById, start);
+        return Optional.ofNullable(product);
     }
 
     /**
@@ -82,17 +345,80 @@ public class ProductService {
      * Génère automatiquement un identifiant unique.
      *
      * @param product Produit à créer (l'ID sera ignoré et régénéré)
-     * @return Le produit créé avec son nouvel identifiant
+     * @return Le produit enregistré, avec son nouvel identifiant et la version 1
      */
     public Product createProduct(Product product) {
+        long start = metrics.start();
         // Génération d'un nouvel ID
-        Long newId = idGenerator.getAndIncrement();
-        product.setId(newId);
+        Long newId = idGenerator.next();
+        long[] ticket = {0};
+        Product created = insert(newId, product, ticket);
+        journal.awaitDurable(ticket[0]);
+        metrics.stop(metrics.create, start);
+        return created;
+    }
+
+    /**
+     * Crée plusieurs produits en une seule passe.
+     * Les identifiants sont réservés en une seule fois auprès du générateur
+     * (un bloc contigu hors mode réparti).
+     *
+     * @param products Produits à créer (les ID seront ignorés et régénérés)
+     * @return Un résultat par produit, dans l'ordre de la liste (201 avec l'ID attribué, 400 si l'élément est nul)
+     */
+    public List<BatchItemResult> createProducts(List<Product> products) {
+        long start = metrics.start();
+        int count = 0;
+        for (Product product : products) {
+            if (product != null) {
+                count++;
+            }
+        }
+        long[] ids = idGenerator.next(count);
+        List<BatchItemResult> results = new ArrayList<>(products.size());
+        long[] ticket = {0};
+
+        int next = 0;
+        for (Product product : products) {
+            if (product == null) {
+                results.add(new BatchItemResult(null, 400, "Produit manquant"));
+                continue;
+            }
+            Long newId = ids[next++];
+            insert(newId, product, ticket);
+            results.add(new BatchItemResult(newId, 201, null));
+        }
+        // Une seule attente de durabilité pour tout le lot
+        journal.awaitDurable(ticket[0]);
+        metrics.stop(metrics.createBatch, start);
+        metrics.batchSize.record(products.size());
+        return results;
+    }
 
-        // Sauvegarde dans la "base de données" mémoire
-        productsDB.put(newId, product);
+    /**
+     * Enregistre un instantané du produit sous l'identifiant donné, met à jour les
+     * index et journalise. Le produit reçu n'est pas modifié.
+     *
+     * @param newId Identifiant attribué
+     * @param product Données du produit à enregistrer
+     * @param ticket Reçoit le ticket de journalisation à attendre avant de répondre
+     * @return L'instantané enregistré (version 1)
+     */
+    private Product insert(Long newId, Product product, long[] ticket) {
+        long now = System.currentTimeMillis();
+        Product created = product.snapshot(newId, 1, now, now);
 
-        return product;
+        // Sauvegarde dans la "base de données" mémoire et indexation
+        long[] sequence = {0};
+        productsDB.compute(newId, (id, previous) -> {
+            // Journalisé d'abord : un refus du journal ne laisse aucune trace dans les index
+            ticket[0] = journal.logPut(created);
+            index(id, created);
+            sequence[0] = changeLog.append(id, null, created);
+            return created;
+        });
+        fireChange(null, created, sequence[0]);
+        return created;
     }
 
     /**
@@ -104,24 +430,127 @@ public class ProductService {
      * @return Optional contenant le produit mis à jour si trouvé, vide sinon
      */
     public Optional<Product> updateProduct(Long id, Product productDetails) {
-        Product existingProduct = productsDB.get(id);
+        return updateProduct(id, productDetails, ANY_VERSION);
+    }
+
+    /**
+     * Met à jour un produit existant si sa version courante est celle attendue.
+     * La vérification et le remplacement sont atomiques.
+     *
+     * @param id Identifiant du produit à modifier
+     * @param productDetails Nouvelles informations du produit
+     * @param expectedVersion Version attendue, ou {@link #ANY_VERSION} pour une mise à jour inconditionnelle
+     * @return Optional contenant le nouvel instantané si trouvé, vide sinon
+     * @throws VersionConflictException si la version courante diffère de {@code expectedVersion}
+     */
+    public Optional<Product> updateProduct(Long id, Product productDetails, long expectedVersion) {
+        long start = metrics.start();
+        long[] ticket = {0};
+        Product updatedProduct = applyUpdate(id, productDetails, expectedVersion, ticket);
+        journal.awaitDurable(ticket[0]);
+        metrics.stop(metrics.update, start);
+        return Optional.ofNullable(updatedProduct);
+    }
+
+    /**
+     * Applique une mise à jour sans attendre sa durabilité.
+     *
+     * <p>Le produit courant n'est jamais modifié : un nouvel instantané, de version
+     * supérieure, le remplace dans {@code computeIfPresent}. Celui-ci sérialise les
+     * écritures sur un même produit, ce qui rend la vérification de version atomique
+     * et garde les index cohérents en cas de changement de catégorie ou de nom.</p>
+     *
+     * @param id Identifiant du produit à modifier
+     * @param productDetails Nouvelles informations du produit
+     * @param expectedVersion Version attendue, ou {@link #ANY_VERSION}
+     * @param ticket Reçoit le ticket de journalisation
+     * @return Le produit mis à jour, ou null s'il n'existe pas
+     * @throws VersionConflictException si la version courante diffère de {@code expectedVersion}
+     */
+    private Product applyUpdate(Long id, Product productDetails, long expectedVersion, long[] ticket) {
+        Product[] before = {null};
+        long[] sequence = {0};
+        Product result = productsDB.computeIfPresent(id, (key, existingProduct) -> {
+            if (expectedVersion != ANY_VERSION && existingProduct.getVersion() != expectedVersion) {
+                // L'exception laisse l'entrée inchangée
+                throw new VersionConflictException(key, expectedVersion, existingProduct.getVersion());
+            }
+            Product updated = productDetails.snapshot(key, existingProduct.getVersion() + 1,
+                    existingProduct.dateCreationMillis(), System.currentTimeMillis());
 
-        if (existingProduct == null) {
-            return Optional.empty();
+            ticket[0] = journal.logPut(updated);
+            categoryIndex.move(key, existingProduct.getCategorie(), updated.getCategorie());
+            moveValues(key, existingProduct, updated);
+            nameIndex.put(key, updated.getNom());
+            if (!Objects.equals(existingProduct.getNom(), updated.getNom())
+                    || !Objects.equals(existingProduct.getCategorie(), updated.getCategorie())
+                    || !Objects.equals(existingProduct.getDescription(), updated.getDescription())) {
+                textIndex.put(key, updated.getNom(), updated.getCategorie(), updated.getDescription());
+            }
+            sequence[0] = changeLog.append(key, existingProduct, updated);
+            before[0] = existingProduct;
+            return updated;
+        });
+        if (result != null) {
+            fireChange(before[0], result, sequence[0]);
         }
+        return result;
+    }
 
-        // Mise à jour des champs
-        existingProduct.setNom(productDetails.getNom());
-        existingProduct.setDescription(productDetails.getDescription());
-        existingProduct.setPrix(productDetails.getPrix());
-        existingProduct.setQuantiteStock(productDetails.getQuantiteStock());
-        existingProduct.setCategorie(productDetails.getCategorie());
-        existingProduct.updateDateModification();
+    /**
+     * Met à jour plusieurs produits en une seule passe.
+     * Chaque produit doit porter l'identifiant du produit à modifier.
+     *
+     * @param products Nouvelles informations des produits, identifiant compris
+     * @return Un résultat par produit, dans l'ordre de la liste (200, 400 nul ou sans ID, 404 inexistant)
+     */
+    public List<BatchItemResult> updateProducts(List<Product> products) {
+        long start = metrics.start();
+        List<BatchItemResult> results = new ArrayList<>(products.size());
+        long[] ticket = {0};
 
-        // Sauvegarde des modifications
-        productsDB.put(id, existingProduct);
+        for (Product productDetails : products) {
+            Long id = productDetails == null ? null : productDetails.getId();
+            if (productDetails == null) {
+                results.add(new BatchItemResult(null, 400, "Produit manquant"));
+            } else if (id == null) {
+                results.add(new BatchItemResult(null, 400, "Identifiant manquant"));
+            } else if (applyUpdate(id, productDetails, ANY_VERSION, ticket) != null) {
+                results.add(new BatchItemResult(id, 200, null));
+            } else {
+                results.add(new BatchItemResult(id, 404, "Produit inexistant"));
+            }
+        }
+        journal.awaitDurable(ticket[0]);
+        metrics.stop(metrics.updateBatch, start);
+        metrics.batchSize.record(products.size());
+        return results;
+    }
+
+    /**
+     * Supprime plusieurs produits en une seule passe.
+     *
+     * @param ids Identifiants des produits à supprimer
+     * @return Un résultat par identifiant, dans l'ordre de la liste (204, 400 si nul, ou 404)
+     */
+    public List<BatchItemResult> deleteProducts(List<Long> ids) {
+        long start = metrics.start();
+        List<BatchItemResult> results = new ArrayList<>(ids.size());
+        long[] ticket = {0};
 
-        return Optional.of(existingProduct);
+        for (Long id : ids) {
+            if (id == null) {
+                results.add(new BatchItemResult(null, 400, "Identifiant manquant"));
+            } else if (applyDelete(id, ticket)) {
+                results.add(new BatchItemResult(id, 204, null));
+            } else {
+                results.add(new BatchItemResult(id, 404, "Produit inexistant"));
+            }
+        }
+        journal.awaitDurable(ticket[0]);
+        metrics.stop(metrics.deleteBatch, start);
+        metrics.batchSize.record(ids.size());
+        return results;
     }
 
     /**
@@ -131,34 +560,626 @@ public class ProductService {
      * @return true si le produit a été supprimé, false s'il n'existait pas
      */
     public boolean deleteProduct(Long id) {
-        return productsDB.remove(id) != null;
+        long start = metrics.start();
+        long[] ticket = {0};
+        boolean deleted = applyDelete(id, ticket);
+        journal.awaitDurable(ticket[0]);
+        metrics.stop(metrics.delete, start);
+        return deleted;
+    }
+
+    /**
+     * Applique une suppression sans attendre sa durabilité.
+     *
+     * @param id Identifiant du produit à supprimer
+     * @param ticket Reçoit le ticket de journalisation
+     * @return true si le produit existait
+     */
+    private boolean applyDelete(Long id, long[] ticket) {
+        Product[] deleted = {null};
+        long[] sequence = {0};
+        productsDB.computeIfPresent(id, (key, existingProduct) -> {
+            ticket[0] = journal.logDelete(key);
+            unindex(key, existingProduct);
+            sequence[0] = changeLog.append(key, existingProduct, null);
+            deleted[0] = existingProduct;
+            return null;
+        });
+        if (deleted[0] != null) {
+            fireChange(deleted[0], null, sequence[0]);
+        }
+        return deleted[0] != null;
+    }
+
+    /**
+     * Réserve des unités du stock d'un produit, sans jamais le rendre négatif.
+     *
+     * <p>La lecture du stock, la vérification et le remplacement par un nouvel
+     * instantané sont atomiques : des réservations concurrentes sur un même produit
+     * ne peuvent ni se perdre ni survendre.</p>
+     *
+     * @param id Identifiant du produit
+     * @param quantite Nombre d'unités à réserver (strictement positif)
+     * @return Optional contenant le produit après réservation, vide s'il n'existe pas
+     * @throws InsufficientStockException si le stock disponible est inférieur à {@code quantite}
+     * @throws IllegalArgumentException si {@code quantite} n'est pas strictement positive
+     */
+    public Optional<Product> reserveStock(Long id, int quantite) {
+        checkQuantite(quantite);
+        long start = metrics.start();
+        long[] ticket = {0};
+        Product product = applyStockDelta(id, -quantite, ticket);
+        journal.awaitDurable(ticket[0]);
+        metrics.stop(metrics.reserve, start);
+        return Optional.ofNullable(product);
+    }
+
+    /**
+     * Libère (rend au stock) des unités d'un produit, de façon atomique.
+     *
+     * @param id Identifiant du produit
+     * @param quantite Nombre d'unités à libérer (strictement positif)
+     * @return Optional contenant le produit après libération, vide s'il n'existe pas
+     * @throws IllegalArgumentException si {@code quantite} n'est pas strictement positive
+     *                                  ou si le stock dépasserait {@link Integer#MAX_VALUE}
+     */
+    public Optional<Product> releaseStock(Long id, int quantite) {
+        checkQuantite(quantite);
+        long start = metrics.start();
+        long[] ticket = {0};
+        Product product = applyStockDelta(id, quantite, ticket);
+        journal.awaitDurable(ticket[0]);
+        metrics.stop(metrics.release, start);
+        return Optional.ofNullable(product);
+    }
+
+    /**
+     * Réserve plusieurs lignes en tout ou rien.
+     *
+     * <p>Les lignes sont réservées dans l'ordre. Si l'une échoue, les lignes déjà
+     * réservées sont libérées et aucune réservation n'est conservée.</p>
+     *
+     * @param lignes Lignes à réserver (produit et quantité)
+     * @return Un résultat par ligne : tous 200 en cas de succès ; sinon 400 (ligne nulle,
+     *         identifiant ou quantité invalide), 404 (produit inexistant) ou 409 (stock
+     *         insuffisant) pour la ligne en échec et 424 pour les autres lignes, annulées
+     */
+    public List<BatchItemResult> reserveStock(List<StockLine> lignes) {
+        long start = metrics.start();
+        long[] ticket = {0};
+        int failed = -1;
+        BatchItemResult failure = null;
+
+        for (int i = 0; i < lignes.size() && failure == null; i++) {
+            StockLine ligne = lignes.get(i);
+            if (ligne == null || ligne.getId() == null || ligne.getQuantite() <= 0) {
+                failure = new BatchItemResult(ligne == null ? null : ligne.getId(), 400,
+                        "Identifiant ou quantité invalide");
+            } else {
+                try {
+                    if (applyStockDelta(ligne.getId(), -ligne.getQuantite(), ticket) == null) {
+                        failure = new BatchItemResult(ligne.getId(), 404, "Produit inexistant");
+                    }
+                } catch (InsufficientStockException e) {
+                    failure = new BatchItemResult(ligne.getId(), 409, e.getMessage());
+                }
+            }
+            if (failure != null) {
+                failed = i;
+            }
+        }
+
+        List<BatchItemResult> results = new ArrayList<>(lignes.size());
+        for (int i = 0; i < lignes.size(); i++) {
+            // Lignes nulles : seulement à partir de la ligne en échec, jamais réservées
+            Long id = lignes.get(i) == null ? null : lignes.get(i).getId();
+            if (failure == null) {
+                results.add(new BatchItemResult(id, 200, null));
+            } else if (i == failed) {
+                results.add(failure);
+            } else {
+                if (i < failed) {
+                    // Compensation : la ligne avait été réservée
+                    applyStockDelta(id, lignes.get(i).getQuantite(), ticket);
+                }
+                results.add(new BatchItemResult(id, 424, "Réservation annulée"));
+            }
+        }
+        journal.awaitDurable(ticket[0]);
+        metrics.stop(metrics.reserve, start);
+        metrics.batchSize.record(lignes.size());
+        return results;
+    }
+
+    private static void checkQuantite(int quantite) {
+        if (quantite <= 0) {
+            throw new IllegalArgumentException("La quantité doit être strictement positive");
+        }
+    }
+
+    /**
+     * Ajoute {@code delta} au stock d'un produit, sans attendre la durabilité.
+     * Un stock absent compte pour 0.
+     *
+     * @param id Identifiant du produit
+     * @param delta Variation du stock (négative pour une réservation)
+     * @param ticket Reçoit le ticket de journalisation
+     * @return Le nouvel instantané, ou null si le produit n'existe pas
+     * @throws InsufficientStockException si le stock deviendrait négatif
+     */
+    private Product applyStockDelta(Long id, int delta, long[] ticket) {
+        Product[] before = {null};
+        long[] sequence = {0};
+        Product result = productsDB.computeIfPresent(id, (key, existingProduct) -> {
+            Integer stock = existingProduct.getQuantiteStock();
+            int disponible = stock == null ? 0 : stock;
+            long nouveauStock = (long) disponible + delta;
+            if (nouveauStock < 0) {
+                throw new InsufficientStockException(key, -delta, disponible);
+            }
+            if (nouveauStock > Integer.MAX_VALUE) {
+                throw new IllegalArgumentException("Stock maximal dépassé");
+            }
+            Product updated = existingProduct.withStock((int) nouveauStock,
+                    existingProduct.getVersion() + 1, System.currentTimeMillis());
+            ticket[0] = journal.logPut(updated);
+            moveValues(key, existingProduct, updated);
+            sequence[0] = changeLog.append(key, existingProduct, updated);
+            before[0] = existingProduct;
+            return updated;
+        });
+        if (result != null) {
+            fireChange(before[0], result, sequence[0]);
+        }
+        return result;
+    }
+
+    /**
+     * Enregistre un observateur des modifications du catalogue.
+     *
+     * @param listener Observateur notifié après chaque création, modification ou suppression
+     */
+    public void addChangeListener(ProductChangeListener listener) {
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Publie la modification dans le journal des modifications, avance la version du
+     * catalogue et notifie les observateurs. Appelé après le {@code compute}, hors
+     * verrou : le nouvel état est déjà visible de tout lecteur, donc une réponse
+     * calculée sous l'ancienne version ne peut pas être plus récente.
+     */
+    private void fireChange(Product before, Product after, long sequence) {
+        changeLog.publish(sequence);
+        long modified = after != null ? after.dateModificationMillis() : System.currentTimeMillis();
+        catalogLastModified.accumulateAndGet(modified, Math::max);
+        catalogVersion.incrementAndGet();
+        for (ProductChangeListener listener : changeListeners) {
+            listener.onProductChanged(before, after);
+        }
+    }
+
+    /**
+     * Forme normalisée d'un terme de recherche par nom, telle que comparée par
+     * {@link #searchProductsByNom(String)} (casse, et accents selon la configuration).
+     *
+     * @param text Terme ou nom brut
+     * @return Le texte normalisé
+     */
+    public String normalizeNom(String text) {
+        return nameIndex.normalize(text);
+    }
+
+    /**
+     * Forme normalisée d'une catégorie, telle que comparée par
+     * {@link #getProductsByCategorie(String)}.
+     *
+     * @param categorie Catégorie brute (peut être null)
+     * @return La catégorie normalisée, ou null
+     */
+    public String normalizeCategorie(String categorie) {
+        return CategoryIndex.normalize(categorie);
+    }
+
+    /**
+     * Ajoute un produit à tous les index secondaires.
+     * Appelé sous le verrou de l'entrée du produit dans le moteur de stockage.
+     */
+    private void index(Long id, Product product) {
+        categoryIndex.add(id, product.getCategorie());
+        nameIndex.put(id, product.getNom());
+        textIndex.put(id, product.getNom(), product.getCategorie(), product.getDescription());
+        orderedIds.add(id);
+        facets.add(product);
+        if (product.prixCentimes() != Product.NO_PRIX) {
+            priceIndex.add(id, product.prixCentimes());
+        }
+        if (product.stock() != Product.NO_STOCK) {
+            stockIndex.add(id, product.stock());
+        }
+    }
+
+    /**
+     * Retire un produit de tous les index secondaires.
+     * Appelé sous le verrou de l'entrée du produit dans le moteur de stockage.
+     */
+    private void unindex(Long id, Product product) {
+        categoryIndex.remove(id, product.getCategorie());
+        nameIndex.remove(id);
+        textIndex.remove(id);
+        orderedIds.remove(id);
+        facets.remove(product);
+        if (product.prixCentimes() != Product.NO_PRIX) {
+            priceIndex.remove(id, product.prixCentimes());
+        }
+        if (product.stock() != Product.NO_STOCK) {
+            stockIndex.remove(id, product.stock());
+        }
+    }
+
+    /**
+     * Met à jour les index triés (prix, stock) et les compteurs des facettes lors du
+     * remplacement d'un produit.
+     * Appelé sous le verrou de l'entrée du produit dans le moteur de stockage.
+     */
+    private void moveValues(Long id, Product before, Product after) {
+        facets.move(before, after);
+        priceIndex.move(id, before.prixCentimes(), after.prixCentimes(), Product.NO_PRIX);
+        stockIndex.move(id, before.stock(), after.stock(), Product.NO_STOCK);
+    }
+
+    /**
+     * Réapplique un produit relu depuis le journal, sans le journaliser à nouveau.
+     *
+     * @param product Produit dans son état persisté
+     */
+    private void restore(Product product) {
+        productsDB.compute(product.getId(), (id, previous) -> {
+            if (previous != null) {
+                unindex(id, previous);
+            }
+            index(id, product);
+            return product;
+        });
+    }
+
+    /**
+     * Réapplique une suppression relue depuis le journal, sans la journaliser à nouveau.
+     *
+     * @param id Identifiant du produit supprimé
+     */
+    private void restoreDelete(long id) {
+        productsDB.computeIfPresent(id, (key, previous) -> {
+            unindex(key, previous);
+            return null;
+        });
+    }
+
+    /**
+     * Applique une modification reçue du primaire (mode réplique) : le produit est
+     * enregistré tel quel, avec son identifiant et sa version, ou supprimé.
+     *
+     * <p>Comme une écriture locale, la modification met à jour les index, reçoit une
+     * séquence dans le journal des modifications et notifie les observateurs (cache des
+     * réponses, flux SSE de la réplique). Elle n'est pas journalisée sur disque : une
+     * réplique se resynchronise auprès du primaire à chaque démarrage.</p>
+     *
+     * @param id Identifiant du produit
+     * @param after État du produit sur le primaire, null pour une suppression
+     */
+    public void applyReplicated(long id, Product after) {
+        Product[] before = {null};
+        long[] sequence = {0};
+        productsDB.compute(id, (key, previous) -> {
+            if (previous == null && after == null) {
+                return null;
+            }
+            if (previous != null) {
+                unindex(key, previous);
+            }
+            if (after != null) {
+                index(key, after);
+            }
+            before[0] = previous;
+            sequence[0] = changeLog.append(key, previous, after);
+            return after;
+        });
+        if (sequence[0] != 0) {
+            idGenerator.advancePast(id);
+            fireChange(before[0], after, sequence[0]);
+        }
     }
 
     /**
      * Recherche des produits par catégorie.
+     * S'appuie sur l'index secondaire : le coût est proportionnel au nombre de résultats.
      *
      * @param categorie Catégorie à rechercher
      * @return Liste des produits appartenant à cette catégorie
      */
     public List<Product> getProductsByCategorie(String categorie) {
-        return productsDB.values().stream()
-                .filter(p -> p.getCategorie() != null &&
-                        p.getCategorie().equalsIgnoreCase(categorie))
-                .toList();
+        long start = metrics.start();
+        Set<Long> ids = categoryIndex.idsFor(categorie);
+        List<Product> products = new ArrayList<>(ids.size());
+
+        for (Long id : ids) {
+            Product product = productsDB.get(id);
+            // Revérification : le produit a pu changer de catégorie entre-temps
+            if (product != null && product.getCategorie() != null &&
+                    product.getCategorie().equalsIgnoreCase(categorie)) {
+                products.add(product);
+            }
+        }
+        metrics.stop(metrics.category, start);
+        metrics.categoryResults.record(products.size());
+        return products;
     }
 
     /**
      * Recherche des produits dont le nom contient le terme recherché.
-     * La recherche est insensible à la casse.
+     * La recherche est insensible à la casse (et aux accents si le mode est activé).
+     * Les candidats sont réduits par l'index de trigrammes avant la vérification finale.
      *
      * @param nom Terme à rechercher dans le nom
      * @return Liste des produits correspondants
      */
     public List<Product> searchProductsByNom(String nom) {
-        return productsDB.values().stream()
-                .filter(p -> p.getNom() != null &&
-                        p.getNom().toLowerCase().contains(nom.toLowerCase()))
-                .toList();
+        long start = metrics.start();
+        List<Long> ids = nameIndex.search(nom);
+        List<Product> products = new ArrayList<>(ids.size());
+
+        for (Long id : ids) {
+            Product product = productsDB.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        metrics.stop(metrics.search, start);
+        metrics.searchResults.record(products.size());
+        return products;
+    }
+
+    /**
+     * Recherche par pertinence : les mots de la requête sont cherchés dans le nom, la
+     * catégorie et la description, et les produits classés par score BM25 (un mot du
+     * nom pèse plus qu'un mot de la description, un mot rare plus qu'un mot courant).
+     *
+     * <p>Seuls les {@code limit} meilleurs produits sont retenus, par un tas borné :
+     * les candidats ne sont jamais triés. Une requête très courante (nombreux
+     * candidats) est notée en parallèle sur le pool fork-join commun.</p>
+     *
+     * @param texte Mots recherchés, séparés par des espaces ou de la ponctuation
+     * @param limit Nombre maximal de résultats
+     * @return Au plus {@code limit} produits contenant au moins un des mots, du plus
+     *         pertinent au moins pertinent
+     */
+    public List<Product> searchProducts(String texte, int limit) {
+        long start = metrics.start();
+        List<Long> ids = textIndex.search(texte, limit);
+        List<Product> products = new ArrayList<>(ids.size());
+
+        for (Long id : ids) {
+            Product product = productsDB.get(id);
+            if (product != null) {
+                products.add(product);
+            }
+        }
+        metrics.stop(metrics.relevance, start);
+        metrics.relevanceResults.record(products.size());
+        return products;
+    }
+
+    /**
+     * Variante paresseuse de {@link #searchProductsByNom(String)} : seuls les
+     * identifiants sont collectés, chaque produit est lu au moment où le flux le
+     * consomme. Destinée aux réponses en flux (contrôleur réactif).
+     *
+     * @param nom Terme à rechercher dans le nom
+     * @return Flux des produits correspondants, à consommer une seule fois
+     */
+    public Stream<Product> streamProductsByNom(String nom) {
+        return nameIndex.search(nom).stream()
+                .map(productsDB::get)
+                .filter(Objects::nonNull);
+    }
+
+    /**
+     * Variante paresseuse de {@link #getProductsByCategorie(String)}, parcourant
+     * l'index de la catégorie sans copier ses identifiants.
+     *
+     * @param categorie Catégorie recherchée
+     * @return Flux des produits de la catégorie, à consommer une seule fois
+     */
+    public Stream<Product> streamProductsByCategorie(String categorie) {
+        return categoryIndex.idsFor(categorie).stream()
+                .map(productsDB::get)
+                // Revérification : le produit a pu changer de catégorie entre-temps
+                .filter(product -> product != null && product.getCategorie() != null
+                        && product.getCategorie().equalsIgnoreCase(categorie));
+    }
+
+    /**
+     * Requête multicritère : intervalle de prix, stock minimal, catégorie, tri et limite.
+     *
+     * <p>Le plan d'exécution dépend des critères :</p>
+     * <ul>
+     *   <li>catégorie de moins de {@value #CATEGORY_SCAN_LIMIT} produits : parcours de la
+     *       catégorie, puis sélection des {@code limit} premiers par un tas borné
+     *       (O(c log k), sans tri du catalogue) ;</li>
+     *   <li>tri par prix ou par stock : parcours de l'index trié correspondant à partir
+     *       de la borne, dans le sens du tri, arrêté dès {@code limit} résultats
+     *       (O(log n + k) lorsque les autres critères filtrent peu) ;</li>
+     *   <li>tri par identifiant avec bornes de prix ou de stock : parcours de l'intervalle
+     *       de l'index trié et tas borné ; sans borne, parcours des identifiants triés.</li>
+     * </ul>
+     *
+     * <p>Chaque candidat est relu puis revérifié sur tous les critères : un produit
+     * modifié pendant la requête n'est jamais retourné s'il ne correspond plus.</p>
+     *
+     * @param query Critères de la requête
+     * @return Au plus {@code limit} produits correspondants, dans l'ordre demandé
+     * @throws ArithmeticException si une borne de prix dépasse la capacité d'un prix en centimes
+     */
+    public List<Product> queryProducts(ProductQuery query) {
+        long start = metrics.start();
+        Criteria criteria = new Criteria(query);
+        ProductQuery.SortField sort = query.getSortField();
+        boolean descending = query.isDescending();
+        boolean priceBounded = query.getPrixMin() != null || query.getPrixMax() != null;
+
+        Set<Long> categoryIds = query.getCategorie() == null ? null : categoryIndex.idsFor(query.getCategorie());
+        List<Product> products;
+        if (categoryIds != null && categoryIds.size() <= CATEGORY_SCAN_LIMIT) {
+            products = topK(categoryIds.iterator(), criteria, query.getLimit());
+        } else if (sort == ProductQuery.SortField.PRIX) {
+            products = firstK(entryIds(priceIndex.range(criteria.prixMin, criteria.prixMax, descending)),
+                    criteria, query.getLimit());
+        } else if (sort == ProductQuery.SortField.QUANTITE_STOCK) {
+            products = firstK(entryIds(stockIndex.range(criteria.stockMin, Integer.MAX_VALUE, descending)),
+                    criteria, query.getLimit());
+        } else if (priceBounded) {
+            products = topK(entryIds(priceIndex.range(criteria.prixMin, criteria.prixMax, false)),
+                    criteria, query.getLimit());
+        } else if (query.getStockMin() != null) {
+            products = topK(entryIds(stockIndex.range(criteria.stockMin, Integer.MAX_VALUE, false)),
+                    criteria, query.getLimit());
+        } else {
+            products = firstK(descending ? orderedIds.descendingIterator() : orderedIds.iterator(),
+                    criteria, query.getLimit());
+        }
+
+        metrics.stop(metrics.query, start);
+        metrics.queryResults.record(products.size());
+        return products;
+    }
+
+    /**
+     * Candidats déjà dans l'ordre demandé : garde les {@code limit} premiers qui correspondent.
+     */
+    private List<Product> firstK(Iterator<Long> ids, Criteria criteria, int limit) {
+        List<Product> products = new ArrayList<>(Math.min(limit, 1024));
+        while (products.size() < limit && ids.hasNext()) {
+            Product product = productsDB.get(ids.next());
+            if (product != null && criteria.test(product)) {
+                products.add(product);
+            }
+        }
+        return products;
+    }
+
+    /**
+     * Candidats dans un ordre quelconque : sélection des {@code limit} meilleurs par un
+     * tas borné dont la racine est le moins bon résultat retenu.
+     */
+    private List<Product> topK(Iterator<Long> ids, Criteria criteria, int limit) {
+        PriorityQueue<Product> heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, criteria.order.reversed());
+        while (ids.hasNext()) {
+            Product product = productsDB.get(ids.next());
+            if (product != null && criteria.test(product)) {
+                if (heap.size() < limit) {
+                    heap.add(product);
+                } else if (criteria.order.compare(product, heap.peek()) < 0) {
+                    heap.poll();
+                    heap.add(product);
+                }
+            }
+        }
+        List<Product> products = new ArrayList<>(heap);
+        products.sort(criteria.order);
+        return products;
+    }
+
+    private static Iterator<Long> entryIds(Iterator<SortedIndex.Entry> entries) {
+        return new Iterator<>() {
+            @Override
+            public boolean hasNext() {
+                return entries.hasNext();
+            }
+
+            @Override
+            public Long next() {
+                return entries.next().id;
+            }
+        };
+    }
+
+    /**
+     * Critères d'une requête convertis dans la représentation compacte des produits,
+     * et ordre de tri correspondant.
+     */
+    private static final class Criteria {
+
+        final long prixMin;
+        final long prixMax;
+        final long stockMin;
+        final String categorie;
+        final boolean priceFiltered;
+        final boolean stockFiltered;
+        final Comparator<Product> order;
+
+        Criteria(ProductQuery query) {
+            // Bornes incluses, arrondies vers l'intérieur de l'intervalle au centime
+            this.prixMin = query.getPrixMin() == null ? Long.MIN_VALUE + 1
+                    : toCentimes(query.getPrixMin(), RoundingMode.CEILING);
+            this.prixMax = query.getPrixMax() == null ? Long.MAX_VALUE
+                    : toCentimes(query.getPrixMax(), RoundingMode.FLOOR);
+            this.stockMin = query.getStockMin() == null ? Integer.MIN_VALUE + 1 : query.getStockMin();
+            this.categorie = query.getCategorie();
+            ProductQuery.SortField sort = query.getSortField();
+            // Un tri sur un champ exclut les produits sans valeur pour ce champ
+            this.priceFiltered = sort == ProductQuery.SortField.PRIX
+                    || query.getPrixMin() != null || query.getPrixMax() != null;
+            this.stockFiltered = sort == ProductQuery.SortField.QUANTITE_STOCK || query.getStockMin() != null;
+            this.order = query.order();
+        }
+
+        private static long toCentimes(BigDecimal prix, RoundingMode rounding) {
+            return prix.setScale(Product.PRIX_SCALE, rounding).unscaledValue().longValueExact();
+        }
+
+        boolean test(Product product) {
+            long prix = product.prixCentimes();
+            if (priceFiltered && (prix == Product.NO_PRIX || prix < prixMin || prix > prixMax)) {
+                return false;
+            }
+            int stock = product.stock();
+            if (stockFiltered && (stock == Product.NO_STOCK || stock < stockMin)) {
+                return false;
+            }
+            return categorie == null
+                    || (product.getCategorie() != null && product.getCategorie().equalsIgnoreCase(categorie));
+        }
+    }
+
+    /**
+     * Facettes du catalogue : nombre de produits par catégorie, par tranche de prix et
+     * par disponibilité.
+     *
+     * <p>Sans terme, les compteurs maintenus à chaque écriture sont lus directement
+     * (coût proportionnel au nombre de facettes). Avec un terme, seuls les produits
+     * dont le nom le contient, comme {@link #searchProductsByNom(String)}, sont décomptés
+     * (coût proportionnel au nombre de résultats).</p>
+     *
+     * @param nom Terme recherché dans le nom, ou null pour tout le catalogue
+     * @return Les facettes non vides
+     */
+    public ProductFacets getFacets(String nom) {
+        long start = metrics.start();
+        ProductFacets result;
+        if (nom == null) {
+            result = facets.snapshot();
+        } else {
+            FacetCounters matching = new FacetCounters();
+            for (Long id : nameIndex.search(nom)) {
+                Product product = productsDB.get(id);
+                if (product != null) {
+                    matching.add(product);
+                }
+            }
+            result = matching.snapshot();
+        }
+        metrics.stop(metrics.facets, start);
+        return result;
     }
 
     /**
@@ -171,6 +1192,50 @@ public class ProductService {
         return productsDB.containsKey(id);
     }
 
+    /**
+     * Modifications postérieures à une séquence, dans l'ordre de leur application.
+     *
+     * @param since Dernière séquence déjà appliquée par le client
+     * @param limit Nombre maximal d'événements
+     * @return Les événements (liste vide si aucune modification), ou un Optional vide si
+     *         {@code since} n'est plus dans la fenêtre conservée : le client doit alors
+     *         resynchroniser le catalogue complet depuis {@link #getPublishedSequence()}
+     */
+    public Optional<List<ProductChange>> getChangesSince(long since, int limit) {
+        return Optional.ofNullable(changeLog.since(since, limit));
+    }
+
+    /**
+     * Séquence jusqu'à laquelle toutes les modifications sont visibles. Lue avant un
+     * téléchargement complet du catalogue, elle est le point de départ des demandes
+     * de modifications suivantes.
+     *
+     * @return Séquence publiée
+     */
+    public long getPublishedSequence() {
+        return changeLog.publishedSequence();
+    }
+
+    /**
+     * Version globale du catalogue : elle change à chaque création, modification
+     * ou suppression. Lue avant de calculer une réponse de liste, elle en identifie
+     * le contenu (ETag des collections).
+     *
+     * @return Version courante, croissante pendant la vie du service
+     */
+    public long getCatalogVersion() {
+        return catalogVersion.get();
+    }
+
+    /**
+     * Date de la dernière modification du catalogue.
+     *
+     * @return Epoch millis de la dernière écriture (ou du démarrage)
+     */
+    public long getCatalogLastModified() {
+        return catalogLastModified.get();
+    }
+
     /**
      * Retourne le nombre total de produits.
      *
@@ -0,0 +1,108 @@
+package com.example.apigestionproduit.service;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.NavigableSet;
+import java.util.concurrent.ConcurrentSkipListSet;
+
+/**
+ * Index trié des produits sur une valeur numérique (prix en centimes, stock).
+ *
+ * <p>Les entrées sont ordonnées par valeur puis par identifiant, ce qui rend chaque
+ * entrée unique et l'ordre total : une requête par intervalle coûte O(log n) pour
+ * se positionner, puis O(1) par entrée parcourue, dans un sens ou dans l'autre.</p>
+ *
+ * <p>Comme les autres index secondaires, il est maintenu sous le verrou de l'entrée
+ * du produit dans le moteur de stockage ; les lectures sont sans verrou.</p>
+ */
+class SortedIndex {
+
+    /**
+     * Entrée de l'index : valeur puis identifiant.
+     */
+    static final class Entry implements Comparable<Entry> {
+
+        final long value;
+        final long id;
+
+        Entry(long value, long id) {
+            this.value = value;
+            this.id = id;
+        }
+
+        @Override
+        public int compareTo(Entry other) {
+            int byValue = Long.compare(value, other.value);
+            return byValue != 0 ? byValue : Long.compare(id, other.id);
+        }
+
+        @Override
+        public boolean equals(Object other) {
+            return other instanceof Entry entry && entry.value == value && entry.id == id;
+        }
+
+        @Override
+        public int hashCode() {
+            return Long.hashCode(value * 31 + id);
+        }
+    }
+
+    private final NavigableSet<Entry> entries = new ConcurrentSkipListSet<>();
+
+    /**
+     * Indexe un produit.
+     *
+     * @param id Identifiant du produit
+     * @param value Valeur indexée
+     */
+    void add(long id, long value) {
+        entries.add(new Entry(value, id));
+    }
+
+    /**
+     * Retire un produit de l'index.
+     *
+     * @param id Identifiant du produit
+     * @param value Valeur sous laquelle il était indexé
+     */
+    void remove(long id, long value) {
+        entries.remove(new Entry(value, id));
+    }
+
+    /**
+     * Déplace un produit d'une valeur à une autre. Un produit sans valeur n'est pas indexé.
+     *
+     * @param id Identifiant du produit
+     * @param oldValue Ancienne valeur
+     * @param newValue Nouvelle valeur
+     * @param absent Valeur signifiant l'absence (le produit n'est pas ou plus indexé)
+     */
+    void move(long id, long oldValue, long newValue, long absent) {
+        if (oldValue == newValue) {
+            return;
+        }
+        if (oldValue != absent) {
+            remove(id, oldValue);
+        }
+        if (newValue != absent) {
+            add(id, newValue);
+        }
+    }
+
+    /**
+     * Parcourt les entrées dont la valeur est comprise entre deux bornes incluses.
+     *
+     * @param min Borne inférieure incluse
+     * @param max Borne supérieure incluse
+     * @param descending true pour un parcours par valeur décroissante
+     * @return Itérateur faiblement cohérent sur les entrées
+     */
+    Iterator<Entry> range(long min, long max, boolean descending) {
+        if (min > max) {
+            return Collections.emptyIterator();
+        }
+        NavigableSet<Entry> range = entries.subSet(
+                new Entry(min, Long.MIN_VALUE), true, new Entry(max, Long.MAX_VALUE), true);
+        return descending ? range.descendingIterator() : range.iterator();
+    }
+}
@@ -0,0 +1,415 @@
+package com.example.apigestionproduit.service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableSet;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListSet;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.UnaryOperator;
+import java.util.regex.Pattern;
+
+/**
+ * Index inversé de mots sur le nom, la catégorie et la description des produits,
+ * pour la recherche par pertinence (BM25).
+ *
+ * <p>Chaque produit est découpé une seule fois, à l'indexation, en mots normalisés
+ * (comme la recherche par nom : casse, et accents selon la configuration). Un mot du
+ * nom compte pour {@value #NOM_WEIGHT} occurrences, un mot de la catégorie pour
+ * {@value #CATEGORIE_WEIGHT}, un mot de la description pour une : un produit dont le
+ * nom contient le terme passe avant un produit qui ne le cite qu'en description.</p>
+ *
+ * <p>Score d'un produit d pour les mots t de la requête (k1 = {@value #K1}, b = {@value #B}) :</p>
+ * <pre>
+ * somme idf(t) * tf(t, d) * (k1 + 1) / (tf(t, d) + k1 * (1 - b + b * |d| / longueur moyenne))
+ * idf(t) = ln(1 + (N - df(t) + 0.5) / (df(t) + 0.5))
+ * </pre>
+ *
+ * <p>Un produit est retourné s'il contient au moins un mot de la requête. Les listes
+ * des mots, triées par identifiant, sont parcourues du mot le plus rare au plus courant ;
+ * chaque candidat n'est noté qu'une fois, sur tous les mots de la requête, et les
+ * meilleurs sont conservés dans un tas borné (aucun tri des candidats). Chaque liste
+ * connaît la plus grande fréquence et la plus petite longueur de ses produits, donc le
+ * score maximal qu'un de ses mots peut apporter : dès que les résultats retenus
+ * dépassent ce que les listes restantes peuvent offrir, le parcours s'arrête. Une
+ * requête mêlant un mot rare et des mots présents dans tout le catalogue n'examine
+ * donc que quelques produits des listes courantes.</p>
+ *
+ * <p>Lorsqu'une liste d'au moins {@value #PARALLEL_SCORING} produits doit être
+ * parcourue entièrement, sa notation est répartie sur le pool fork-join commun,
+ * chaque tâche conservant ses meilleurs résultats dans son propre tas borné.</p>
+ */
+class TextIndex {
+
+    static final int NOM_WEIGHT = 3;
+    static final int CATEGORIE_WEIGHT = 2;
+    static final double K1 = 1.2;
+    static final double B = 0.75;
+
+    /**
+     * Taille de liste à partir de laquelle la notation est parallélisée.
+     */
+    static final int PARALLEL_SCORING = 20_000;
+
+    /**
+     * Séparateurs de mots : tout ce qui n'est ni lettre ni chiffre.
+     */
+    private static final Pattern SEPARATEURS = Pattern.compile("[^\\p{L}\\p{N}]+");
+
+    private final UnaryOperator<String> normalizer;
+
+    /**
+     * Mots de chaque produit indexé, avec leurs occurrences pondérées.
+     */
+    private final Map<Long, Document> documents = new ConcurrentHashMap<>();
+
+    /**
+     * Mot vers la liste des produits qui le contiennent.
+     */
+    private final Map<String, Postings> postings = new ConcurrentHashMap<>();
+
+    /**
+     * Somme des longueurs (pondérées) des produits indexés.
+     */
+    private final LongAdder totalLength = new LongAdder();
+
+    /**
+     * Constructeur.
+     *
+     * @param normalizer Normalisation des textes, partagée avec la recherche par nom
+     */
+    TextIndex(UnaryOperator<String> normalizer) {
+        this.normalizer = normalizer;
+    }
+
+    /**
+     * Mots d'un produit : triés, avec leurs occurrences pondérées, et longueur totale.
+     */
+    private record Document(String[] terms, int[] frequencies, int length) {
+
+        int frequency(String term) {
+            int i = Arrays.binarySearch(terms, term);
+            return i < 0 ? 0 : frequencies[i];
+        }
+    }
+
+    /**
+     * Produits contenant un mot, par identifiant croissant. Les bornes ne font que
+     * s'élargir (une suppression ne les resserre pas) : elles restent des majorants.
+     * Modifiée uniquement dans un {@code compute} de {@link #postings}.
+     */
+    private static final class Postings {
+
+        final NavigableSet<Long> ids = new ConcurrentSkipListSet<>();
+        volatile int size;
+        volatile int maxFrequency;
+        volatile int minLength = Integer.MAX_VALUE;
+    }
+
+    /**
+     * Indexe (ou réindexe) un produit.
+     * Doit être appelé sous le verrou de l'entrée du produit dans le moteur de stockage.
+     *
+     * @param id Identifiant du produit
+     * @param nom Nom (peut être null)
+     * @param categorie Catégorie (peut être null)
+     * @param description Description (peut être null)
+     */
+    void put(Long id, String nom, String categorie, String description) {
+        Map<String, Integer> counts = new HashMap<>();
+        addTerms(counts, nom, NOM_WEIGHT);
+        addTerms(counts, categorie, CATEGORIE_WEIGHT);
+        addTerms(counts, description, 1);
+
+        String[] terms = counts.keySet().toArray(new String[0]);
+        Arrays.sort(terms);
+        int[] frequencies = new int[terms.length];
+        int length = 0;
+        for (int i = 0; i < terms.length; i++) {
+            frequencies[i] = counts.get(terms[i]);
+            length += frequencies[i];
+        }
+        Document previous = documents.put(id, new Document(terms, frequencies, length));
+
+        if (previous != null) {
+            totalLength.add(-previous.length());
+            for (String term : previous.terms()) {
+                if (Arrays.binarySearch(terms, term) < 0) {
+                    removePosting(term, id);
+                }
+            }
+        }
+        totalLength.add(length);
+        for (int i = 0; i < terms.length; i++) {
+            int frequency = frequencies[i];
+            int documentLength = length;
+            postings.compute(terms[i], (t, list) -> {
+                Postings target = list != null ? list : new Postings();
+                if (target.ids.add(id)) {
+                    target.size++;
+                }
+                target.maxFrequency = Math.max(target.maxFrequency, frequency);
+                target.minLength = Math.min(target.minLength, documentLength);
+                return target;
+            });
+        }
+    }
+
+    /**
+     * Retire un produit de l'index.
+     *
+     * @param id Identifiant du produit
+     */
+    void remove(Long id) {
+        Document previous = documents.remove(id);
+        if (previous == null) {
+            return;
+        }
+        totalLength.add(-previous.length());
+        for (String term : previous.terms()) {
+            removePosting(term, id);
+        }
+    }
+
+    private void removePosting(String term, Long id) {
+        postings.computeIfPresent(term, (t, list) -> {
+            if (list.ids.remove(id)) {
+                list.size--;
+            }
+            return list.size == 0 ? null : list;
+        });
+    }
+
+    private void addTerms(Map<String, Integer> counts, String text, int weight) {
+        if (text == null) {
+            return;
+        }
+        for (String term : tokenize(text)) {
+            counts.merge(term, weight, Integer::sum);
+        }
+    }
+
+    /**
+     * Découpe un texte en mots normalisés.
+     *
+     * @param text Texte brut
+     * @return Mots non vides, dans l'ordre du texte
+     */
+    List<String> tokenize(String text) {
+        List<String> terms = new ArrayList<>();
+        for (String term : SEPARATEURS.split(normalizer.apply(text))) {
+            if (!term.isEmpty()) {
+                terms.add(term);
+            }
+        }
+        return terms;
+    }
+
+    /**
+     * Recherche les produits les plus pertinents pour un texte libre.
+     *
+     * @param text Requête (un ou plusieurs mots)
+     * @param limit Nombre maximal de résultats
+     * @return Identifiants des produits, du plus pertinent au moins pertinent
+     *         (à score égal, par identifiant croissant parmi les produits retenus)
+     */
+    List<Long> search(String text, int limit) {
+        long documentCount = documents.size();
+        if (documentCount == 0 || limit <= 0) {
+            return List.of();
+        }
+        double averageLength = Math.max(1.0, (double) totalLength.sum() / documentCount);
+
+        // Mots connus de la requête, du plus rare au plus courant
+        List<Map.Entry<String, Postings>> known = new ArrayList<>();
+        for (String term : new LinkedHashSet<>(tokenize(text))) {
+            Postings list = postings.get(term);
+            if (list != null) {
+                known.add(Map.entry(term, list));
+            }
+        }
+        if (known.isEmpty()) {
+            return List.of();
+        }
+        known.sort(Comparator.comparingInt(entry -> entry.getValue().size));
+
+        String[] terms = new String[known.size()];
+        double[] idf = new double[known.size()];
+        List<Postings> lists = new ArrayList<>(known.size());
+        for (int i = 0; i < terms.length; i++) {
+            terms[i] = known.get(i).getKey();
+            lists.add(known.get(i).getValue());
+            double df = lists.get(i).size;
+            idf[i] = Math.log(1 + (documentCount - df + 0.5) / (df + 0.5));
+        }
+
+        // maxScore[i] : majorant du score d'un produit ne contenant que les mots i et suivants
+        double[] maxScore = new double[terms.length + 1];
+        for (int i = terms.length - 1; i >= 0; i--) {
+            Postings list = lists.get(i);
+            int tf = list.maxFrequency;
+            double norm = K1 * (1 - B + B * list.minLength / averageLength);
+            maxScore[i] = maxScore[i + 1] + idf[i] * tf * (K1 + 1) / (tf + norm);
+        }
+
+        Scorer scorer = new Scorer(terms, idf, averageLength);
+        TopK best = new TopK(limit);
+        for (int i = 0; i < lists.size(); i++) {
+            if (best.isFull() && maxScore[i] <= best.minScore()) {
+                // Les produits restants ne contiennent que des mots trop courants pour entrer
+                break;
+            }
+            NavigableSet<Long> ids = lists.get(i).ids;
+            int list = i;
+            Iterator<Long> iterator = ids.iterator();
+            Long last = null;
+            // Remplissage du tas dans l'ordre des identifiants
+            while (!best.isFull() && iterator.hasNext()) {
+                last = iterator.next();
+                if (!scoredBefore(lists, list, last)) {
+                    best.offer(last, scorer.score(last));
+                }
+            }
+            if (!iterator.hasNext() || maxScore[i] <= best.minScore()) {
+                continue;
+            }
+            if (lists.get(i).size >= PARALLEL_SCORING) {
+                // Un produit présent dans une liste déjà parcourue a déjà été noté
+                best.merge(ids.tailSet(last, false).parallelStream()
+                        .filter(id -> !scoredBefore(lists, list, id))
+                        .collect(() -> new TopK(limit), (top, id) -> top.offer(id, scorer.score(id)), TopK::merge));
+                continue;
+            }
+            while (iterator.hasNext() && maxScore[i] > best.minScore()) {
+                Long id = iterator.next();
+                if (!scoredBefore(lists, list, id)) {
+                    best.offer(id, scorer.score(id));
+                }
+            }
+        }
+        return best.ids();
+    }
+
+    private static boolean scoredBefore(List<Postings> lists, int list, Long id) {
+        for (int j = 0; j < list; j++) {
+            if (lists.get(j).ids.contains(id)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Notation BM25 d'un produit pour les mots de la requête.
+     */
+    private final class Scorer {
+
+        private final String[] terms;
+        private final double[] idf;
+        private final double averageLength;
+
+        Scorer(String[] terms, double[] idf, double averageLength) {
+            this.terms = terms;
+            this.idf = idf;
+            this.averageLength = averageLength;
+        }
+
+        /**
+         * @return Score du produit, ou une valeur négative s'il n'est plus indexé
+         */
+        double score(Long id) {
+            Document document = documents.get(id);
+            if (document == null) {
+                return -1;
+            }
+            double norm = K1 * (1 - B + B * document.length() / averageLength);
+            double score = 0;
+            for (int i = 0; i < terms.length; i++) {
+                int tf = document.frequency(terms[i]);
+                if (tf > 0) {
+                    score += idf[i] * tf * (K1 + 1) / (tf + norm);
+                }
+            }
+            return score;
+        }
+    }
+
+    private record Hit(long id, double score) {
+    }
+
+    /**
+     * Meilleurs résultats : tas borné dont la racine est le moins bon résultat retenu.
+     */
+    private static final class TopK {
+
+        /**
+         * Du meilleur au moins bon : score décroissant, puis identifiant croissant.
+         */
+        private static final Comparator<Hit> ORDER = Comparator.comparingDouble(Hit::score).reversed()
+                .thenComparingLong(Hit::id);
+
+        private final int limit;
+        private final PriorityQueue<Hit> heap;
+
+        TopK(int limit) {
+            this.limit = limit;
+            this.heap = new PriorityQueue<>(Math.min(limit, 1024) + 1, ORDER.reversed());
+        }
+
+        void offer(long id, double score) {
+            if (score < 0) {
+                return;
+            }
+            Hit hit = new Hit(id, score);
+            if (heap.size() < limit) {
+                heap.add(hit);
+            } else if (ORDER.compare(hit, heap.peek()) < 0) {
+                heap.poll();
+                heap.add(hit);
+            }
+        }
+
+        boolean isFull() {
+            return heap.size() >= limit;
+        }
+
+        /**
+         * @return Score du moins bon résultat retenu (tas plein uniquement)
+         */
+        double minScore() {
+            return heap.peek().score();
+        }
+
+        void merge(TopK other) {
+            for (Hit hit : other.heap) {
+                offer(hit.id(), hit.score());
+            }
+        }
+
+        List<Long> ids() {
+            List<Hit> hits = new ArrayList<>(heap);
+            hits.sort(ORDER);
+            List<Long> ids = new ArrayList<>(hits.size());
+            for (Hit hit : hits) {
+                ids.add(hit.id());
+            }
+            return ids;
+        }
+    }
+
+    /**
+     * Retourne le nombre de mots distincts indexés.
+     *
+     * @return Nombre de mots
+     */
+    int termCount() {
+        return postings.size();
+    }
+}
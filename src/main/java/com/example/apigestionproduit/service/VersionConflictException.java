@@ -0,0 +1,38 @@
+package com.example.apigestionproduit.service;
+
+/**
+ * Levée lorsqu'une modification conditionnelle vise une version qui n'est plus
+ * la version courante du produit (contrôle de concurrence optimiste).
+ */
+public class VersionConflictException extends RuntimeException {
+
+    private final long id;
+    private final long currentVersion;
+
+    /**
+     * Constructeur.
+     *
+     * @param id Identifiant du produit
+     * @param expectedVersion Version attendue par l'appelant
+     * @param currentVersion Version courante du produit
+     */
+    public VersionConflictException(long id, long expectedVersion, long currentVersion) {
+        super("Produit " + id + " : version attendue " + expectedVersion + ", version courante " + currentVersion);
+        this.id = id;
+        this.currentVersion = currentVersion;
+    }
+
+    /**
+     * @return l'identifiant du produit
+     */
+    public long getId() {
+        return id;
+    }
+
+    /**
+     * @return la version courante du produit
+     */
+    public long getCurrentVersion() {
+        return currentVersion;
+    }
+}
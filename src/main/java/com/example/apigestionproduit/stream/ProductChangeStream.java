@@ -0,0 +1,515 @@
+package com.example.apigestionproduit.stream;
+
+import com.example.apigestionproduit.model.ProductChange;
+import com.example.apigestionproduit.service.ProductService;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Optional;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Flux Server-Sent Events des modifications du catalogue.
+ *
+ * <p>Aucun thread n'est dédié à une connexion :</p>
+ * <ul>
+ *   <li>les écritures de {@link ProductService} se contentent de réveiller un unique
+ *       thread de diffusion ; elles ne sont jamais bloquées par un abonné ;</li>
+ *   <li>le thread de diffusion lit les nouveaux événements dans le journal des
+ *       modifications, les sérialise une seule fois, puis les dépose dans le tampon
+ *       de chaque abonné ;</li>
+ *   <li>un petit pool d'envoi vide les tampons vers les {@link SseEmitter} (requêtes
+ *       asynchrones du conteneur), au plus une tâche par abonné à la fois.</li>
+ * </ul>
+ *
+ * <p>Un envoi est une écriture bloquante sur la connexion : un client qui ne lit plus
+ * immobilise le thread qui lui écrit. Chaque envoi a donc une échéance
+ * ({@code sendTimeout}), surveillée par le thread de diffusion : un abonné dont l'envoi
+ * la dépasse est abandonné, son thread interrompu, et un thread d'envoi supplémentaire
+ * le remplace jusqu'à ce que l'écriture bloquée se termine. Les autres abonnés
+ * continuent d'être servis par autant de threads qu'à l'ordinaire.</p>
+ *
+ * <p>Le tampon d'un abonné est indexé par produit : tant qu'un envoi est en cours,
+ * un nouvel événement sur le même produit remplace le précédent. Si le nombre de
+ * produits en attente dépasse {@code bufferSize}, l'abonné est trop lent : il reçoit
+ * un événement {@value #EVENT_RESYNC} et sa connexion est fermée.</p>
+ *
+ * <p>L'identifiant SSE de chaque événement est sa séquence dans le journal : un
+ * client qui se reconnecte avec {@code Last-Event-ID} reçoit les modifications
+ * manquées, ou {@value #EVENT_RESYNC} si elles ne sont plus conservées.</p>
+ */
+public class ProductChangeStream implements AutoCloseable {
+
+    private static final Logger log = LoggerFactory.getLogger(ProductChangeStream.class);
+
+    /**
+     * Nom des événements de modification (données : {@link ProductChange} en JSON).
+     */
+    public static final String EVENT_CHANGE = "change";
+
+    /**
+     * Nom de l'événement demandant une resynchronisation complète.
+     */
+    public static final String EVENT_RESYNC = "resync";
+
+    /**
+     * Nombre maximal d'événements lus dans le journal par passe de diffusion.
+     */
+    private static final int DISPATCH_BATCH = 1024;
+
+    /**
+     * Nombre maximal de threads d'envoi ajoutés pour remplacer des envois bloqués.
+     */
+    private static final int MAX_REPLACEMENTS = 256;
+
+    private final ProductService productService;
+    private final ObjectWriter writer;
+    private final int bufferSize;
+    private final int maxSubscribers;
+    private final long timeoutMillis;
+    private final long heartbeatNanos;
+    private final long sendTimeoutNanos;
+
+    private final ThreadPoolExecutor senders;
+    private final Object sendersResize = new Object();
+    private int replacements;
+    private final Thread dispatcher;
+    private volatile boolean running = true;
+
+    /**
+     * Abonnés en attente d'enregistrement par le thread de diffusion.
+     */
+    private final Queue<Subscriber> joining = new ConcurrentLinkedQueue<>();
+    private final AtomicInteger subscriberCount = new AtomicInteger();
+
+    private final Counter sent;
+    private final Counter coalesced;
+    private final Counter dropped;
+
+    /**
+     * Constructeur : démarre le thread de diffusion.
+     *
+     * @param productService Service dont les modifications sont diffusées
+     * @param writer Writer JSON des événements
+     * @param registry Registre des métriques
+     * @param bufferSize Nombre maximal de produits en attente par abonné
+     * @param maxSubscribers Nombre maximal d'abonnés simultanés
+     * @param senderThreads Nombre de threads d'envoi
+     * @param timeoutMillis Durée maximale d'une connexion (le client se reconnecte ensuite)
+     * @param heartbeatMillis Intervalle des commentaires de maintien de connexion
+     * @param sendTimeoutMillis Durée maximale d'un envoi à un abonné avant son abandon
+     */
+    public ProductChangeStream(ProductService productService, ObjectWriter writer, MeterRegistry registry,
+                               int bufferSize, int maxSubscribers, int senderThreads,
+                               long timeoutMillis, long heartbeatMillis, long sendTimeoutMillis) {
+        this.productService = productService;
+        this.writer = writer;
+        this.bufferSize = bufferSize;
+        this.maxSubscribers = maxSubscribers;
+        this.timeoutMillis = timeoutMillis;
+        this.heartbeatNanos = TimeUnit.MILLISECONDS.toNanos(heartbeatMillis);
+        this.sendTimeoutNanos = TimeUnit.MILLISECONDS.toNanos(sendTimeoutMillis);
+
+        Gauge.builder("produits.stream.abonnes", subscriberCount, AtomicInteger::get)
+                .description("Abonnés connectés au flux des modifications")
+                .register(registry);
+        this.sent = events(registry, "envoye");
+        this.coalesced = events(registry, "fusionne");
+        this.dropped = Counter.builder("produits.stream.abandons")
+                .description("Abonnés déconnectés car trop lents (tampon plein ou envoi bloqué)")
+                .register(registry);
+
+        AtomicInteger threadNumber = new AtomicInteger();
+        this.senders = new ThreadPoolExecutor(senderThreads, senderThreads, 1, TimeUnit.MINUTES,
+                new LinkedBlockingQueue<>(), runnable -> {
+                    Thread thread = new Thread(runnable, "product-stream-sender-" + threadNumber.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                });
+        this.dispatcher = new Thread(this::dispatchLoop, "product-stream-dispatcher");
+        dispatcher.setDaemon(true);
+        dispatcher.start();
+        productService.addChangeListener((before, after) -> LockSupport.unpark(dispatcher));
+    }
+
+    private static Counter events(MeterRegistry registry, String issue) {
+        return Counter.builder("produits.stream.evenements")
+                .description("Événements du flux, envoyés ou fusionnés avec un plus récent")
+                .tag("issue", issue)
+                .register(registry);
+    }
+
+    /**
+     * Ouvre un abonnement.
+     *
+     * @param lastEventId Dernière séquence reçue lors d'une connexion précédente (peut être null)
+     * @return L'émetteur SSE, ou null si le nombre maximal d'abonnés est atteint
+     */
+    public SseEmitter subscribe(Long lastEventId) {
+        return subscribe(lastEventId, new SseEmitter(timeoutMillis));
+    }
+
+    SseEmitter subscribe(Long lastEventId, SseEmitter emitter) {
+        if (subscriberCount.incrementAndGet() > maxSubscribers) {
+            subscriberCount.decrementAndGet();
+            return null;
+        }
+        Subscriber subscriber = new Subscriber(emitter, lastEventId);
+        emitter.onCompletion(subscriber::close);
+        emitter.onTimeout(subscriber::close);
+        emitter.onError(error -> subscriber.close());
+        joining.add(subscriber);
+        LockSupport.unpark(dispatcher);
+        return emitter;
+    }
+
+    /**
+     * Nombre d'abonnés connectés.
+     *
+     * @return Nombre d'abonnés
+     */
+    public int subscriberCount() {
+        return subscriberCount.get();
+    }
+
+    // === DIFFUSION ===
+
+    private void dispatchLoop() {
+        long cursor = productService.getPublishedSequence();
+        List<Subscriber> subscribers = new ArrayList<>();
+        long nextHeartbeat = System.nanoTime() + heartbeatNanos;
+
+        while (running) {
+            try {
+                for (Subscriber joined; (joined = joining.poll()) != null; ) {
+                    join(joined, cursor);
+                    subscribers.add(joined);
+                }
+
+                int read = 0;
+                Optional<List<ProductChange>> changes = productService.getChangesSince(cursor, DISPATCH_BATCH);
+                if (changes.isEmpty()) {
+                    // Diffusion en retard sur toute la fenêtre du journal
+                    log.warn("Flux des modifications en retard : resynchronisation des abonnés");
+                    subscribers.forEach(Subscriber::resync);
+                    cursor = productService.getPublishedSequence();
+                } else if (!changes.get().isEmpty()) {
+                    List<Event> events = toEvents(changes.get());
+                    read = events.size();
+                    cursor = events.get(read - 1).sequence();
+                    for (Subscriber subscriber : subscribers) {
+                        subscriber.offer(events);
+                    }
+                }
+
+                long now = System.nanoTime();
+                for (Subscriber subscriber : subscribers) {
+                    subscriber.abandonIfStalled(now);
+                }
+                subscribers.removeIf(Subscriber::isClosed);
+                if (now - nextHeartbeat >= 0) {
+                    subscribers.forEach(Subscriber::heartbeat);
+                    nextHeartbeat = now + heartbeatNanos;
+                }
+                if (read < DISPATCH_BATCH) {
+                    // Réveil au plus tard à mi-échéance d'envoi, pour repérer les envois bloqués
+                    LockSupport.parkNanos(this, Math.min(heartbeatNanos, sendTimeoutNanos / 2));
+                }
+            } catch (RuntimeException e) {
+                log.error("Échec de diffusion du flux des modifications", e);
+                // Nouvel essai au prochain battement, sans boucler sur l'erreur
+                LockSupport.parkNanos(this, heartbeatNanos);
+            }
+        }
+        subscribers.forEach(Subscriber::complete);
+    }
+
+    /**
+     * Enregistre un abonné à la position courante de la diffusion, après lui avoir
+     * rejoué les événements manqués depuis {@code Last-Event-ID}.
+     */
+    private void join(Subscriber subscriber, long cursor) {
+        Long since = subscriber.lastEventId;
+        if (since == null || since == cursor) {
+            return;
+        }
+        long missed = cursor - since;
+        Optional<List<ProductChange>> replay = missed < 0 || missed > bufferSize
+                ? Optional.empty()
+                : productService.getChangesSince(since, (int) missed);
+        if (replay.isEmpty()) {
+            subscriber.notifyResync();
+        } else if (!replay.get().isEmpty()) {
+            subscriber.offer(toEvents(replay.get()));
+        }
+    }
+
+    private List<Event> toEvents(List<ProductChange> changes) {
+        List<Event> events = new ArrayList<>(changes.size());
+        try {
+            for (ProductChange change : changes) {
+                events.add(new Event(change.getSequence(), change.getId(), writer.writeValueAsString(change)));
+            }
+        } catch (JsonProcessingException e) {
+            throw new UncheckedIOException(e);
+        }
+        return events;
+    }
+
+    @Override
+    public void close() {
+        running = false;
+        LockSupport.unpark(dispatcher);
+        try {
+            dispatcher.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        senders.shutdown();
+    }
+
+    /**
+     * Ajoute (+1) ou retire (-1) un thread d'envoi, en remplacement d'un thread bloqué.
+     *
+     * @return false si le nombre maximal de remplacements est atteint
+     */
+    private boolean resizeSenders(int delta) {
+        synchronized (sendersResize) {
+            if (delta > 0 && replacements == MAX_REPLACEMENTS) {
+                return false;
+            }
+            replacements += delta;
+            int size = senders.getCorePoolSize() + delta;
+            if (delta > 0) {
+                senders.setMaximumPoolSize(size);
+                senders.setCorePoolSize(size);
+            } else {
+                senders.setCorePoolSize(size);
+                senders.setMaximumPoolSize(size);
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Événement sérialisé, partagé par tous les abonnés.
+     */
+    private record Event(long sequence, Long id, String json) {
+    }
+
+    /**
+     * Abonné : tampon des événements en attente, indexé par produit.
+     * Toutes les transitions d'état se font sous le moniteur de l'abonné.
+     */
+    private final class Subscriber {
+
+        private final SseEmitter emitter;
+        private final Long lastEventId;
+        private final LinkedHashMap<Long, Event> pending = new LinkedHashMap<>();
+        private boolean scheduled;
+        private boolean heartbeat;
+        private boolean resyncNotice;
+        private boolean dropping;
+        private boolean closed;
+
+        /**
+         * Thread dont l'envoi est en cours et échéance de cet envoi.
+         */
+        private Thread sending;
+        private long sendDeadline;
+        private boolean abandoned;
+        private boolean replaced;
+
+        private Subscriber(SseEmitter emitter, Long lastEventId) {
+            this.emitter = emitter;
+            this.lastEventId = lastEventId;
+        }
+
+        synchronized void offer(List<Event> events) {
+            if (closed || dropping) {
+                return;
+            }
+            for (Event event : events) {
+                // Retiré puis remis en fin : l'ordre d'envoi reste celui des séquences
+                if (pending.remove(event.id()) != null) {
+                    coalesced.increment();
+                }
+                pending.put(event.id(), event);
+            }
+            if (pending.size() > bufferSize) {
+                pending.clear();
+                dropping = true;
+                dropped.increment();
+            }
+            schedule();
+        }
+
+        synchronized void heartbeat() {
+            if (!closed) {
+                heartbeat = true;
+                schedule();
+            }
+        }
+
+        synchronized void notifyResync() {
+            resyncNotice = true;
+            schedule();
+        }
+
+        synchronized void resync() {
+            if (!closed && !dropping) {
+                pending.clear();
+                dropping = true;
+                schedule();
+            }
+        }
+
+        private void schedule() {
+            if (!scheduled && !closed) {
+                scheduled = true;
+                try {
+                    senders.execute(this::drain);
+                } catch (RejectedExecutionException e) {
+                    scheduled = false;
+                }
+            }
+        }
+
+        /**
+         * Vide le tampon vers l'émetteur. Les événements arrivés pendant l'envoi sont
+         * fusionnés dans le tampon puis envoyés au tour suivant.
+         */
+        private void drain() {
+            while (true) {
+                List<Event> batch;
+                boolean sendHeartbeat;
+                boolean sendResync;
+                boolean terminate;
+                synchronized (this) {
+                    if (closed || (pending.isEmpty() && !heartbeat && !resyncNotice && !dropping)) {
+                        scheduled = false;
+                        return;
+                    }
+                    batch = new ArrayList<>(pending.values());
+                    pending.clear();
+                    sendHeartbeat = heartbeat;
+                    sendResync = resyncNotice || dropping;
+                    terminate = dropping;
+                    heartbeat = false;
+                    resyncNotice = false;
+                }
+
+                try {
+                    if (sendResync) {
+                        send(SseEmitter.event().name(EVENT_RESYNC)
+                                .data(Long.toString(productService.getPublishedSequence())));
+                    }
+                    for (Event event : batch) {
+                        send(SseEmitter.event()
+                                .id(Long.toString(event.sequence()))
+                                .name(EVENT_CHANGE)
+                                .data(event.json()));
+                        sent.increment();
+                    }
+                    if (sendHeartbeat && batch.isEmpty()) {
+                        send(SseEmitter.event().comment(""));
+                    }
+                    if (terminate) {
+                        complete();
+                        return;
+                    }
+                } catch (IOException | IllegalStateException e) {
+                    // Client parti : l'émetteur est déjà terminé ou le sera par le conteneur
+                    close();
+                    emitter.completeWithError(e);
+                    return;
+                }
+            }
+        }
+
+        /**
+         * Envoie un événement sous échéance.
+         *
+         * @throws IOException si l'envoi échoue ou si l'abonné a été abandonné pendant l'envoi
+         */
+        private void send(SseEmitter.SseEventBuilder event) throws IOException {
+            synchronized (this) {
+                sending = Thread.currentThread();
+                sendDeadline = System.nanoTime() + sendTimeoutNanos;
+            }
+            try {
+                emitter.send(event);
+            } finally {
+                boolean release;
+                synchronized (this) {
+                    sending = null;
+                    release = replaced;
+                    replaced = false;
+                }
+                if (release) {
+                    // L'écriture bloquée s'est terminée : le thread de remplacement est retiré
+                    resizeSenders(-1);
+                }
+            }
+            synchronized (this) {
+                if (abandoned) {
+                    throw new IOException("Envoi à l'abonné au-delà de l'échéance");
+                }
+            }
+        }
+
+        /**
+         * Abandonne l'abonné si son envoi en cours a dépassé l'échéance. Appelé par le
+         * thread de diffusion, qui ne touche pas à l'émetteur : il peut être verrouillé
+         * par l'envoi bloqué.
+         */
+        synchronized void abandonIfStalled(long now) {
+            if (sending == null || abandoned || now - sendDeadline < 0) {
+                return;
+            }
+            abandoned = true;
+            replaced = resizeSenders(1);
+            pending.clear();
+            dropped.increment();
+            close();
+            // Sous le moniteur : le thread n'a pas encore quitté cet envoi
+            sending.interrupt();
+            log.debug("Abonné du flux abandonné : envoi bloqué au-delà de l'échéance");
+        }
+
+        void complete() {
+            close();
+            emitter.complete();
+        }
+
+        synchronized void close() {
+            if (!closed) {
+                closed = true;
+                pending.clear();
+                subscriberCount.decrementAndGet();
+            }
+        }
+
+        synchronized boolean isClosed() {
+            return closed;
+        }
+    }
+}
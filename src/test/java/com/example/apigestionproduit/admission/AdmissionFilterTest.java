@@ -0,0 +1,229 @@
+package com.example.apigestionproduit.admission;
+
+import com.example.apigestionproduit.cluster.ShardRoutingFilter;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.ServletRequest;
+import jakarta.servlet.ServletResponse;
+import jakarta.servlet.http.HttpServletResponse;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.http.HttpHeaders;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class AdmissionFilterTest {
+
+    private static final long MILLI = TimeUnit.MILLISECONDS.toNanos(1);
+
+    private final AtomicLong clock = new AtomicLong(TimeUnit.HOURS.toNanos(1));
+    private SimpleMeterRegistry registry;
+    private AdmissionFilter filter;
+
+    @BeforeEach
+    void setUp() {
+        registry = new SimpleMeterRegistry();
+        // 100 jetons par seconde, seau de 50 : 5 pages de liste, 50 lectures par identifiant
+        filter = new AdmissionFilter(new AdmissionFilter.Settings(100, 50,
+                Map.of(Endpoint.LIST, 10, Endpoint.SEARCH, 5, Endpoint.READ, 1, Endpoint.WRITE, 2, Endpoint.STREAM, 10),
+                1_000, "X-Api-Key", Set.of("10.0.0.2"), 4, 1, 8, 2.0), registry, clock::get);
+    }
+
+    @Test
+    void classifiesEndpointsByCost() {
+        assertThat(Endpoint.classify("GET", "/api/products", null)).isEqualTo(Endpoint.LIST);
+        assertThat(Endpoint.classify("GET", "/api/products", "application/x-ndjson")).isEqualTo(Endpoint.STREAM);
+        assertThat(Endpoint.classify("GET", "/api/products/stream", null)).isEqualTo(Endpoint.STREAM);
+        assertThat(Endpoint.classify("GET", "/api/products/search", null)).isEqualTo(Endpoint.SEARCH);
+        assertThat(Endpoint.classify("GET", "/api/products/categorie/Informatique", null)).isEqualTo(Endpoint.SEARCH);
+        assertThat(Endpoint.classify("GET", "/api/products/facets", null)).isEqualTo(Endpoint.SEARCH);
+        assertThat(Endpoint.classify("GET", "/api/products/42", null)).isEqualTo(Endpoint.READ);
+        assertThat(Endpoint.classify("POST", "/api/products/search", null)).isEqualTo(Endpoint.WRITE);
+        assertThat(Endpoint.classify("DELETE", "/api/products/42", null)).isEqualTo(Endpoint.WRITE);
+    }
+
+    @Test
+    void tokenBucketAdmitsBurstThenRefillsAtRate() {
+        long now = 0;
+        TokenBucket bucket = new TokenBucket(10 * MILLI, 5, now);
+        for (int i = 0; i < 5; i++) {
+            assertThat(bucket.tryAcquire(1, now)).isZero();
+        }
+        assertThat(bucket.tryAcquire(1, now)).isEqualTo(10 * MILLI);
+        // Un jeton par intervalle, jamais plus que la capacité
+        assertThat(bucket.tryAcquire(1, now + 10 * MILLI)).isZero();
+        assertThat(bucket.tryAcquire(1, now + 10 * MILLI)).isPositive();
+        now += TimeUnit.SECONDS.toNanos(10);
+        assertThat(bucket.tryAcquire(5, now)).isZero();
+        assertThat(bucket.tryAcquire(1, now)).isPositive();
+    }
+
+    @Test
+    void listRequestsExhaustTheirBucketBeforeReadsByIdAndPerClient() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            assertThat(send("GET", "/api/products", "a").getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        }
+        MockHttpServletResponse rejected = send("GET", "/api/products", "a");
+        assertThat(rejected.getStatus()).isEqualTo(429);
+        assertThat(rejected.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+
+        // Autres classes et autres clients : seaux distincts
+        for (int i = 0; i < 50; i++) {
+            assertThat(send("GET", "/api/products/" + i, "a").getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+        }
+        assertThat(send("GET", "/api/products/1", "a").getStatus()).isEqualTo(429);
+        assertThat(send("GET", "/api/products", "b").getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+
+        // Requête d'un autre nœud : déjà décomptée par le nœud qui l'a reçue
+        MockHttpServletRequest forwarded = request("GET", "/api/products", "a");
+        forwarded.addHeader(ShardRoutingFilter.SHARD_HEADER, "b");
+        forwarded.setRemoteAddr("10.0.0.2");
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(forwarded, response, new MockFilterChain());
+        assertThat(response.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+
+        // Même en-tête venant d'un client : ignoré
+        MockHttpServletRequest spoofed = request("GET", "/api/products", "a");
+        spoofed.addHeader(ShardRoutingFilter.SHARD_HEADER, "b");
+        response = new MockHttpServletResponse();
+        filter.doFilter(spoofed, response, new MockFilterChain());
+        assertThat(response.getStatus()).isEqualTo(429);
+
+        // Une page de liste après 10 jetons de remplissage
+        clock.addAndGet(100 * MILLI);
+        assertThat(send("GET", "/api/products", "a").getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+
+        assertThat(registry.get("produits.admission.admises").tag("acces", "list").counter().count()).isEqualTo(8);
+        assertThat(registry.get("produits.admission.admises").tag("acces", "read").counter().count()).isEqualTo(50);
+        assertThat(registry.get("produits.admission.rejets").tag("acces", "list").tag("motif", "client")
+                .counter().count()).isEqualTo(2);
+        assertThat(registry.get("produits.admission.rejets").tag("acces", "read").tag("motif", "client")
+                .counter().count()).isEqualTo(1);
+        assertThat(registry.get("produits.admission.clients").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void batchWritesAreChargedPerItem() throws Exception {
+        MockHttpServletRequest batch = request("POST", "/api/products/batch", "a");
+        filter.doFilter(batch, new MockHttpServletResponse(), new MockFilterChain());
+        AdmissionFilter.BatchCharge charge = (AdmissionFilter.BatchCharge) batch.getAttribute(
+                AdmissionFilter.BATCH_CHARGE);
+
+        // 2 jetons à l'admission, puis 2 par élément : 24 éléments dans un seau de 50
+        assertThat(charge.tryCharge(20)).isZero();
+        assertThat(charge.tryCharge(4)).isZero();
+        assertThat(charge.tryCharge(1)).isEqualTo(20 * MILLI);
+        assertThat(send("DELETE", "/api/products/1", "a").getStatus()).isEqualTo(429);
+        // Un lot plus grand que le seau le vide sans jamais être refusé indéfiniment
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(1));
+        assertThat(charge.tryCharge(1_000)).isZero();
+
+        MockHttpServletRequest read = request("GET", "/api/products/1", "a");
+        filter.doFilter(read, new MockHttpServletResponse(), new MockFilterChain());
+        assertThat(read.getAttribute(AdmissionFilter.BATCH_CHARGE)).isNull();
+    }
+
+    @Test
+    void concurrencyLimitKeepsRoomForCheapRequests() {
+        ConcurrencyLimit limit = new ConcurrencyLimit(4, 1, 8, 2.0);
+        // Requêtes coûteuses : trois quarts de la limite
+        for (int i = 0; i < 3; i++) {
+            assertThat(limit.tryAcquire(true)).isTrue();
+        }
+        assertThat(limit.tryAcquire(true)).isFalse();
+        assertThat(limit.tryAcquire(false)).isTrue();
+        assertThat(limit.tryAcquire(false)).isFalse();
+        assertThat(limit.inFlight()).isEqualTo(4);
+    }
+
+    @Test
+    void concurrencyLimitShrinksWhenLatencyRisesAndGrowsBackWhenUsed() {
+        ConcurrencyLimit limit = new ConcurrencyLimit(64, 8, 1024, 2.0);
+        for (int i = 0; i < 20; i++) {
+            saturate(limit, MILLI);
+        }
+        int steady = limit.limit();
+        assertThat(steady).isGreaterThan(64);
+
+        // Latence multipliée par 20 : la limite baisse, même peu utilisée
+        for (int i = 0; i < 50; i++) {
+            assertThat(limit.tryAcquire(false)).isTrue();
+            limit.release(20 * MILLI);
+        }
+        int low = limit.limit();
+        assertThat(low).isLessThan(steady / 4);
+
+        // Latence revenue : la limite remonte dès qu'elle est utilisée
+        for (int i = 0; i < 20; i++) {
+            saturate(limit, MILLI);
+        }
+        assertThat(limit.limit()).isGreaterThan(low * 2);
+        assertThat(limit.inFlight()).isZero();
+    }
+
+    @Test
+    void overloadedServerAnswers503() throws Exception {
+        AdmissionFilter saturated = new AdmissionFilter(new AdmissionFilter.Settings(100, 50,
+                Map.of(Endpoint.LIST, 10, Endpoint.SEARCH, 5, Endpoint.READ, 1, Endpoint.WRITE, 2, Endpoint.STREAM, 10),
+                1_000, "", Set.of(), 1, 1, 1, 2.0), registry, clock::get);
+        MockHttpServletResponse inner = new MockHttpServletResponse();
+        MockFilterChain reentrant = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response)
+                    throws IOException, ServletException {
+                // Deuxième requête pendant le traitement de la première
+                saturated.doFilter(request("GET", "/api/products/2", null), inner, new MockFilterChain());
+            }
+        };
+        saturated.doFilter(request("GET", "/api/products/1", null), new MockHttpServletResponse(), reentrant);
+        assertThat(inner.getStatus()).isEqualTo(HttpServletResponse.SC_SERVICE_UNAVAILABLE);
+        assertThat(inner.getHeader(HttpHeaders.RETRY_AFTER)).isEqualTo("1");
+        assertThat(registry.get("produits.admission.rejets").tag("acces", "read").tag("motif", "surcharge")
+                .counter().count()).isEqualTo(1);
+
+        // Les flux ne prennent pas de place dans la limite
+        MockHttpServletResponse stream = new MockHttpServletResponse();
+        MockFilterChain streaming = new MockFilterChain() {
+            @Override
+            public void doFilter(ServletRequest request, ServletResponse response)
+                    throws IOException, ServletException {
+                saturated.doFilter(request("GET", "/api/products/stream", null), stream, new MockFilterChain());
+            }
+        };
+        saturated.doFilter(request("GET", "/api/products/1", null), new MockHttpServletResponse(), streaming);
+        assertThat(stream.getStatus()).isEqualTo(HttpServletResponse.SC_OK);
+    }
+
+    private static void saturate(ConcurrencyLimit limit, long rtt) {
+        int slots = limit.limit();
+        for (int i = 0; i < slots; i++) {
+            limit.tryAcquire(false);
+        }
+        for (int i = 0; i < slots; i++) {
+            limit.release(rtt);
+        }
+    }
+
+    private MockHttpServletResponse send(String method, String path, String client) throws Exception {
+        MockHttpServletResponse response = new MockHttpServletResponse();
+        filter.doFilter(request(method, path, client), response, new MockFilterChain());
+        return response;
+    }
+
+    private static MockHttpServletRequest request(String method, String path, String client) {
+        MockHttpServletRequest request = new MockHttpServletRequest(method, path);
+        if (client != null) {
+            request.addHeader("X-Api-Key", client);
+        }
+        return request;
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.apigestionproduit.benchmark;
+
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.CommandLineOptionException;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.Options;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+/**
+ * Point d'entrée des benchmarks JMH, utilisé par le profil Maven {@code benchmark}.
+ *
+ * <p>Les arguments sont ceux de la ligne de commande JMH (sélection des benchmarks,
+ * {@code -p param=valeurs}, {@code -f}, {@code -wi}...). Le lanceur exécute en plus une
+ * passe par nombre de threads de {@code -Djmh.threads} (liste séparée par des virgules)
+ * et écrit chaque passe en JSON dans {@code -Djmh.resultDir} :
+ * {@code jmh-result-<threads>t.json}. Ces fichiers se comparent d'un build à l'autre
+ * (par exemple avec JMH Visualizer).</p>
+ *
+ * <p><b>Exécution:</b></p>
+ * <pre>
+ * mvn -Pbenchmark verify
+ * mvn -Pbenchmark verify -Djmh.args="ProductServiceBenchmark -p tailleCatalogue=1000,100000" -Djmh.threads=1,4
+ * </pre>
+ */
+public final class BenchmarkRunner {
+
+    private BenchmarkRunner() {
+    }
+
+    public static void main(String[] args) throws CommandLineOptionException, IOException, RunnerException {
+        CommandLineOptions ligneDeCommande = new CommandLineOptions(args);
+        Path resultDir = Paths.get(System.getProperty("jmh.resultDir", "target/jmh"));
+        Files.createDirectories(resultDir);
+
+        for (String valeur : System.getProperty("jmh.threads", "1").split(",")) {
+            int threads = Integer.parseInt(valeur.trim());
+            Options options = new OptionsBuilder()
+                    .parent(ligneDeCommande)
+                    .threads(threads)
+                    .resultFormat(ResultFormatType.JSON)
+                    .result(resultDir.resolve("jmh-result-" + threads + "t.json").toString())
+                    .build();
+            new Runner(options).run();
+        }
+    }
+}
@@ -0,0 +1,58 @@
+package com.example.apigestionproduit.benchmark;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.service.ProductService;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Construction des catalogues de test partagés par les benchmarks.
+ */
+final class Catalogues {
+
+    /**
+     * Nombre de catégories réparties uniformément dans le catalogue.
+     */
+    static final int CATEGORIES = 50;
+
+    private static final int LOT = 10_000;
+
+    private Catalogues() {
+    }
+
+    /**
+     * Produit de test numéro {@code i} : nom "Produit i", catégorie "Categorie (i % 50)".
+     *
+     * @param i Numéro du produit
+     * @return Un nouveau produit sans identifiant
+     */
+    static Product produit(int i) {
+        return new Product(null, "Produit " + i, "Description du produit " + i,
+                BigDecimal.valueOf(1000 + i % 10_000, 2), i % 100, "Categorie " + (i % CATEGORIES));
+    }
+
+    /**
+     * Crée un service sans persistance contenant {@code taille} produits
+     * (en plus des produits de démonstration), insérés par lots.
+     *
+     * @param taille Nombre de produits à créer
+     * @return Le service rempli
+     */
+    static ProductService remplir(int taille) {
+        ProductService service = new ProductService();
+        List<Product> lot = new ArrayList<>(LOT);
+        for (int i = 0; i < taille; i++) {
+            lot.add(produit(i));
+            if (lot.size() == LOT) {
+                service.createProducts(lot);
+                lot = new ArrayList<>(LOT);
+            }
+        }
+        if (!lot.isEmpty()) {
+            service.createProducts(lot);
+        }
+        return service;
+    }
+}
@@ -0,0 +1,68 @@
+package com.example.apigestionproduit.benchmark;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure le coût de {@link ProductService#getProductsByCategorie(String)}.
+ *
+ * <p>La catégorie interrogée contient toujours {@code tailleResultat} produits ;
+ * seul le reste du catalogue grossit. Avec l'index secondaire, le temps doit
+ * rester stable quand {@code tailleCatalogue} augmente, et ne varier qu'avec
+ * {@code tailleResultat}.</p>
+ *
+ * <p><b>Exécution:</b></p>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="CategoryLookupBenchmark"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CategoryLookupBenchmark {
+
+    @Param({"10000", "100000", "2000000"})
+    public int tailleCatalogue;
+
+    @Param({"10", "1000"})
+    public int tailleResultat;
+
+    private ProductService service;
+
+    @Setup(Level.Trial)
+    public void remplirCatalogue() {
+        service = new ProductService();
+        BigDecimal prix = new BigDecimal("9.99");
+        for (int i = 0; i < tailleResultat; i++) {
+            service.createProduct(new Product(null, "Cible " + i, null, prix, 1, "Cible"));
+        }
+        for (int i = tailleResultat; i < tailleCatalogue; i++) {
+            service.createProduct(new Product(null, "Produit " + i, null, prix, 1, "Categorie " + (i % 50)));
+        }
+    }
+
+    @Benchmark
+    public List<Product> getProductsByCategorie() {
+        return service.getProductsByCategorie("cible");
+    }
+}
@@ -0,0 +1,222 @@
+package com.example.apigestionproduit.benchmark;
+
+import com.example.apigestionproduit.ApiGestionProduitApplication;
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.service.ProductService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Test de charge HTTP comparant l'exécution des requêtes sur threads de plateforme
+ * (pool Tomcat), sur threads virtuels ({@code spring.threads.virtual.enabled}) et sur
+ * la pile réactive WebFlux/Netty ({@code spring.main.web-application-type=reactive}).
+ *
+ * <p>Pour chaque mode, l'application est démarrée sur un port libre avec la
+ * persistance activée et {@code fsync} : les écritures attendent le disque, ce qui
+ * reproduit l'attente d'entrées/sorties qui sature le pool de threads. Chaque
+ * connexion simulée enchaîne ses requêtes (boucle fermée) : 80 % de lectures
+ * {@code GET /api/products/{id}}, 10 % de réservations et 10 % de libérations de stock.
+ * Le débit et les percentiles de latence sont mesurés après l'échauffement.</p>
+ *
+ * <p><b>Exécution:</b></p>
+ * <pre>
+ * mvn -Pjava21,loadtest verify -Dloadtest.connections=5000 -Dloadtest.duration=PT30S
+ * </pre>
+ *
+ * <p>Le mode {@code virtual} est ignoré sous Java &lt; 21. Résultats affichés et écrits
+ * dans {@code target/loadtest/resultats.txt}.</p>
+ */
+public final class HttpLoadTest {
+
+    private static final int PRODUITS = 1000;
+    private static final int MAX_SAMPLES = 1 << 23;
+
+    private HttpLoadTest() {
+    }
+
+    public static void main(String[] args) throws Exception {
+        int connections = Integer.getInteger("loadtest.connections", 5000);
+        Duration duration = Duration.parse(System.getProperty("loadtest.duration", "PT30S"));
+        Duration warmup = Duration.parse(System.getProperty("loadtest.warmup", "PT10S"));
+        String[] modes = System.getProperty("loadtest.modes", "platform,virtual,reactive").split(",");
+
+        List<String> lignes = new ArrayList<>();
+        lignes.add(String.format(Locale.ROOT, "%-9s %11s %10s %10s %10s %10s %10s %8s",
+                "mode", "connexions", "req/s", "p50 ms", "p99 ms", "p999 ms", "max ms", "erreurs"));
+        for (String mode : modes) {
+            boolean virtual = mode.trim().equals("virtual");
+            if (virtual && Runtime.version().feature() < 21) {
+                System.out.println("Mode virtual ignoré : Java " + Runtime.version().feature()
+                        + " (Java 21 requis, profil Maven java21)");
+                continue;
+            }
+            lignes.add(run(mode.trim(), virtual, mode.trim().equals("reactive"), connections, warmup, duration));
+        }
+
+        lignes.forEach(System.out::println);
+        Path resultDir = Paths.get("target", "loadtest");
+        Files.createDirectories(resultDir);
+        Files.write(resultDir.resolve("resultats.txt"), lignes);
+    }
+
+    private static String run(String mode, boolean virtual, boolean reactive, int connections,
+                              Duration warmup, Duration duration)
+            throws IOException, InterruptedException {
+        Path data = Files.createTempDirectory("loadtest-" + mode);
+        // Arguments de ligne de commande : prioritaires sur application.properties
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(ApiGestionProduitApplication.class)
+                .run("--server.port=0",
+                        "--spring.main.banner-mode=off",
+                        "--spring.devtools.restart.enabled=false",
+                        "--spring.devtools.livereload.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--spring.threads.virtual.enabled=" + virtual,
+                        "--spring.main.web-application-type=" + (reactive ? "reactive" : "servlet"),
+                        "--server.tomcat.max-connections=" + (connections + 1000),
+                        "--server.tomcat.accept-count=" + connections,
+                        "--produits.persistence.enabled=true",
+                        "--produits.persistence.fsync=true",
+                        "--produits.persistence.directory=" + data);
+        ExecutorService clientExecutor = Executors.newFixedThreadPool(4);
+        try {
+            ProductService service = context.getBean(ProductService.class);
+            long premier = 0;
+            for (int i = 0; i < PRODUITS; i++) {
+                Product created = service.createProduct(new Product(null, "Produit " + i, null,
+                        new BigDecimal("9.99"), Integer.MAX_VALUE / 2, "Charge"));
+                premier = i == 0 ? created.getId() : premier;
+            }
+            int port = context.getEnvironment().getRequiredProperty("local.server.port", Integer.class);
+            HttpClient client = HttpClient.newBuilder()
+                    .version(HttpClient.Version.HTTP_1_1)
+                    .executor(clientExecutor)
+                    .connectTimeout(Duration.ofSeconds(30))
+                    .build();
+
+            Load load = new Load(client, "http://localhost:" + port + "/api/products/", premier,
+                    System.nanoTime() + warmup.toNanos(), System.nanoTime() + warmup.plus(duration).toNanos(),
+                    connections);
+            load.start();
+            load.await(warmup.plus(duration).plusMinutes(2));
+            return load.summary(mode, duration);
+        } finally {
+            context.close();
+            clientExecutor.shutdownNow();
+        }
+    }
+
+    /**
+     * Connexions simulées en boucle fermée, latences enregistrées après l'échauffement.
+     */
+    private static final class Load {
+
+        private final HttpClient client;
+        private final String baseUrl;
+        private final long premier;
+        private final long measureFrom;
+        private final long deadline;
+        private final int connections;
+        private final CountDownLatch done;
+
+        private final AtomicLongArray samples = new AtomicLongArray(MAX_SAMPLES);
+        private final AtomicInteger sampleCount = new AtomicInteger();
+        private final LongAdder completed = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+
+        Load(HttpClient client, String baseUrl, long premier, long measureFrom, long deadline, int connections) {
+            this.client = client;
+            this.baseUrl = baseUrl;
+            this.premier = premier;
+            this.measureFrom = measureFrom;
+            this.deadline = deadline;
+            this.connections = connections;
+            this.done = new CountDownLatch(connections);
+        }
+
+        void start() {
+            for (int i = 0; i < connections; i++) {
+                next();
+            }
+        }
+
+        void await(Duration timeout) throws InterruptedException {
+            done.await(timeout.toMillis(), TimeUnit.MILLISECONDS);
+        }
+
+        private void next() {
+            if (System.nanoTime() - deadline >= 0) {
+                done.countDown();
+                return;
+            }
+            ThreadLocalRandom random = ThreadLocalRandom.current();
+            long id = premier + random.nextInt(PRODUITS);
+            int tirage = random.nextInt(10);
+            HttpRequest request = tirage < 8
+                    ? HttpRequest.newBuilder(URI.create(baseUrl + id)).GET().build()
+                    : HttpRequest.newBuilder(URI.create(baseUrl + id + (tirage == 8 ? "/stock/reserve" : "/stock/release")))
+                            .POST(HttpRequest.BodyPublishers.noBody()).build();
+
+            long start = System.nanoTime();
+            client.sendAsync(request, HttpResponse.BodyHandlers.discarding())
+                    .whenComplete((response, failure) -> {
+                        long end = System.nanoTime();
+                        if (end - measureFrom >= 0 && end - deadline < 0) {
+                            if (failure != null || response.statusCode() >= 400) {
+                                errors.increment();
+                            } else {
+                                completed.increment();
+                                int index = sampleCount.getAndIncrement();
+                                if (index < MAX_SAMPLES) {
+                                    samples.set(index, end - start);
+                                }
+                            }
+                        }
+                        next();
+                    });
+        }
+
+        String summary(String mode, Duration duration) {
+            int count = Math.min(sampleCount.get(), MAX_SAMPLES);
+            long[] latencies = new long[count];
+            for (int i = 0; i < count; i++) {
+                latencies[i] = samples.get(i);
+            }
+            Arrays.sort(latencies);
+            double seconds = duration.toNanos() / 1e9;
+            return String.format(Locale.ROOT, "%-9s %11d %10.0f %10.2f %10.2f %10.2f %10.2f %8d",
+                    mode, connections, completed.sum() / seconds,
+                    percentile(latencies, 0.5), percentile(latencies, 0.99), percentile(latencies, 0.999),
+                    count == 0 ? 0 : latencies[count - 1] / 1e6, errors.sum());
+        }
+
+        private static double percentile(long[] sorted, double p) {
+            if (sorted.length == 0) {
+                return 0;
+            }
+            return sorted[(int) Math.min(sorted.length - 1, Math.ceil(p * sorted.length) - 1)] / 1e6;
+        }
+    }
+}
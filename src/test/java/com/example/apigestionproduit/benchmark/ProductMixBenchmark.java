@@ -0,0 +1,71 @@
+package com.example.apigestionproduit.benchmark;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Débit d'un mélange lectures / écritures sur {@link ProductService}.
+ *
+ * <p>Chaque opération est une lecture par identifiant ({@code getProductById}) ou,
+ * avec la probabilité {@code partEcriture} %, une mise à jour ({@code updateProduct})
+ * d'un produit tiré au hasard. Le nombre de threads se règle à l'exécution
+ * ({@code -Djmh.threads=1,4,16}, voir {@link BenchmarkRunner}) pour observer la
+ * contention entre écrivains et lecteurs.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ProductMixBenchmark {
+
+    @Param({"1000", "1000000", "10000000"})
+    public int tailleCatalogue;
+
+    @Param({"0", "5", "20", "50"})
+    public int partEcriture;
+
+    private ProductService service;
+
+    @Setup(Level.Trial)
+    public void remplirCatalogue() {
+        service = Catalogues.remplir(tailleCatalogue);
+    }
+
+    /**
+     * Produit modifié réutilisé, propre à chaque thread.
+     */
+    @State(Scope.Thread)
+    public static class Modification {
+        final Product details = Catalogues.produit(0);
+    }
+
+    @Benchmark
+    public Optional<Product> operation(Modification modification) {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        long id = random.nextLong(1, tailleCatalogue + 1);
+        if (random.nextInt(100) < partEcriture) {
+            modification.details.setPrix(BigDecimal.valueOf(random.nextLong(100, 100_000), 2));
+            return service.updateProduct(id, modification.details);
+        }
+        return service.getProductById(id);
+    }
+}
@@ -0,0 +1,76 @@
+package com.example.apigestionproduit.benchmark;
+
+import com.example.apigestionproduit.model.Product;
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Coût de sérialisation JSON d'une liste de produits, chemin des réponses REST.
+ *
+ * <p>L'{@link ObjectMapper} reproduit la configuration de {@code application.properties}
+ * (format de date, fuseau UTC, indentation) ; {@code indentation=false} mesure le gain
+ * d'une sortie compacte.</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ProductSerializationBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int tailleListe;
+
+    @Param({"true", "false"})
+    public boolean indentation;
+
+    private ObjectMapper objectMapper;
+    private List<Product> produits;
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        objectMapper = Jackson2ObjectMapperBuilder.json()
+                .dateFormat(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss"))
+                .timeZone(TimeZone.getTimeZone("UTC"))
+                .build();
+        objectMapper.configure(SerializationFeature.INDENT_OUTPUT, indentation);
+
+        produits = new ArrayList<>(tailleListe);
+        for (int i = 0; i < tailleListe; i++) {
+            Product product = Catalogues.produit(i);
+            product.setId(i + 1L);
+            produits.add(product);
+        }
+    }
+
+    @Benchmark
+    public byte[] serialiserListe() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(produits);
+    }
+
+    @Benchmark
+    public byte[] serialiserProduit() throws JsonProcessingException {
+        return objectMapper.writeValueAsBytes(produits.get(0));
+    }
+}
@@ -0,0 +1,119 @@
+package com.example.apigestionproduit.benchmark;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.model.ProductQuery;
+import com.example.apigestionproduit.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Mesure chaque opération publique de {@link ProductService} selon la taille du catalogue.
+ *
+ * <p>Les identifiants sont tirés au hasard dans le catalogue, par thread. Les résultats
+ * de {@code getProductsByCategorie} grossissent avec le catalogue (1/50e des produits),
+ * ceux de {@code getAllProducts} couvrent tout le catalogue : ces deux mesures suivent
+ * le coût de construction des listes, les autres le coût unitaire.</p>
+ *
+ * <p>{@code createProduct} fait grossir le catalogue pendant la mesure ; l'écart reste
+ * négligeable devant {@code tailleCatalogue} à partir de 100K produits.</p>
+ *
+ * <p><b>Exécution:</b> voir {@link BenchmarkRunner} ({@code mvn -Pbenchmark verify}).</p>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class ProductServiceBenchmark {
+
+    @Param({"1000", "100000", "1000000", "10000000"})
+    public int tailleCatalogue;
+
+    private ProductService service;
+
+    @Setup(Level.Trial)
+    public void remplirCatalogue() {
+        service = Catalogues.remplir(tailleCatalogue);
+    }
+
+    /**
+     * Données propres à chaque thread : produit modifié réutilisé.
+     */
+    @State(Scope.Thread)
+    public static class Modification {
+        final Product details = Catalogues.produit(0);
+    }
+
+    private long idAleatoire() {
+        return ThreadLocalRandom.current().nextLong(1, tailleCatalogue + 1);
+    }
+
+    @Benchmark
+    public Product createProduct() {
+        return service.createProduct(Catalogues.produit(ThreadLocalRandom.current().nextInt(tailleCatalogue)));
+    }
+
+    @Benchmark
+    public Optional<Product> updateProduct(Modification modification) {
+        long id = idAleatoire();
+        Product details = modification.details;
+        details.setNom("Produit " + id);
+        details.setPrix(BigDecimal.valueOf(ThreadLocalRandom.current().nextLong(100, 100_000), 2));
+        return service.updateProduct(id, details);
+    }
+
+    @Benchmark
+    public Optional<Product> getProductById() {
+        return service.getProductById(idAleatoire());
+    }
+
+    @Benchmark
+    public List<Product> searchProductsByNom() {
+        return service.searchProductsByNom("produit " + ThreadLocalRandom.current().nextInt(tailleCatalogue));
+    }
+
+    @Benchmark
+    public List<Product> searchProducts() {
+        // Un mot rare (numéro) et deux mots présents dans tout le catalogue
+        return service.searchProducts("produit " + ThreadLocalRandom.current().nextInt(tailleCatalogue)
+                + " description", 20);
+    }
+
+    @Benchmark
+    public List<Product> getProductsByCategorie() {
+        return service.getProductsByCategorie("categorie " + ThreadLocalRandom.current().nextInt(Catalogues.CATEGORIES));
+    }
+
+    /**
+     * Intervalle de prix trié par prix, 50 premiers résultats : indépendant de la
+     * taille du catalogue grâce à l'index trié.
+     */
+    @Benchmark
+    public List<Product> queryProductsByPrix() {
+        return service.queryProducts(new ProductQuery(new BigDecimal("20"), new BigDecimal("100"), 1,
+                null, ProductQuery.SortField.PRIX, false, 50));
+    }
+
+    @Benchmark
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    public List<Product> getAllProducts() {
+        return service.getAllProducts();
+    }
+}
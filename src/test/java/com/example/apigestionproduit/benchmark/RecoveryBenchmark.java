@@ -0,0 +1,106 @@
+package com.example.apigestionproduit.benchmark;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.persistence.FileProductJournal;
+import com.example.apigestionproduit.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * Mesure le temps de reprise au démarrage : relecture du snapshot et du journal.
+ *
+ * <p>Le catalogue est écrit une fois par essai ; {@code partJournal} en pourcentage
+ * est rejoué depuis le journal, le reste depuis le snapshot. Chaque mesure construit
+ * un nouveau {@link ProductService} sur le même répertoire.</p>
+ *
+ * <p><b>Exécution (10M produits : prévoir -Xmx8g et ~3 Go de disque):</b></p>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=org.openjdk.jmh.Main -Dexec.args="RecoveryBenchmark -p tailleCatalogue=10000000"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SingleShotTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 1)
+@Measurement(iterations = 3)
+@Fork(value = 1, jvmArgsAppend = "-Xmx8g")
+public class RecoveryBenchmark {
+
+    @Param({"1000000", "10000000"})
+    public int tailleCatalogue;
+
+    @Param({"10"})
+    public int partJournal;
+
+    private Path directory;
+
+    private FileProductJournal journal() {
+        return new FileProductJournal(directory, false, 512L * 1024 * 1024, Duration.ofDays(1));
+    }
+
+    @Setup(Level.Trial)
+    public void ecrireCatalogue() throws IOException {
+        directory = Files.createTempDirectory("recovery-benchmark");
+        FileProductJournal journal = journal();
+        ProductService service = new ProductService(false, journal);
+
+        int avantSnapshot = tailleCatalogue - tailleCatalogue / 100 * partJournal;
+        BigDecimal prix = new BigDecimal("24.99");
+        List<Product> lot = new ArrayList<>(10_000);
+        for (int i = 0; i < tailleCatalogue; i++) {
+            lot.add(new Product(null, "Produit " + i, "Description du produit " + i, prix, i % 100,
+                    "Categorie " + (i % 50)));
+            if (lot.size() == 10_000) {
+                service.createProducts(lot);
+                lot = new ArrayList<>(10_000);
+            }
+            if (i + 1 == avantSnapshot) {
+                journal.snapshot();
+            }
+        }
+        service.createProducts(lot);
+        journal.close();
+    }
+
+    @TearDown(Level.Trial)
+    public void nettoyer() throws IOException {
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+    }
+
+    @Benchmark
+    public long recover() {
+        FileProductJournal journal = journal();
+        try {
+            return new ProductService(false, journal).count();
+        } finally {
+            journal.close();
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package com.example.apigestionproduit.benchmark;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.service.InsufficientStockException;
+import com.example.apigestionproduit.service.ProductService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.math.BigDecimal;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Contention des réservations de stock sur un produit très demandé (vente flash).
+ *
+ * <p>Tous les threads réservent une unité du même produit ; {@code produitsChauds}
+ * répartit la charge sur plusieurs produits pour comparer. Le stock est remis au
+ * maximum à chaque itération : la mesure porte sur les réservations acceptées.
+ * {@code reserverPuisLiberer} garde le stock stable, comme un panier abandonné.</p>
+ *
+ * <p>Par défaut 64 threads ; pour des milliers de réservations concurrentes :</p>
+ * <pre>
+ * mvn -Pbenchmark verify -Djmh.args="StockReservationBenchmark" -Djmh.threads=64,512,2048
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(64)
+@Fork(1)
+public class StockReservationBenchmark {
+
+    @Param({"1", "16"})
+    public int produitsChauds;
+
+    private ProductService service;
+    private long premierId;
+
+    @Setup(Level.Trial)
+    public void creerProduits() {
+        service = Catalogues.remplir(1000);
+        premierId = service.count() + 1;
+        for (int i = 0; i < produitsChauds; i++) {
+            service.createProduct(new Product(null, "Vente flash " + i, null,
+                    new BigDecimal("99.00"), 0, "Promotions"));
+        }
+    }
+
+    @Setup(Level.Iteration)
+    public void remplirStock() {
+        for (int i = 0; i < produitsChauds; i++) {
+            long id = premierId + i;
+            int stock = service.getProductById(id).orElseThrow().getQuantiteStock();
+            service.releaseStock(id, Integer.MAX_VALUE - stock);
+        }
+    }
+
+    private long produitChaud() {
+        return premierId + ThreadLocalRandom.current().nextInt(produitsChauds);
+    }
+
+    @Benchmark
+    public Object reserver() {
+        try {
+            return service.reserveStock(produitChaud(), 1);
+        } catch (InsufficientStockException e) {
+            return e;
+        }
+    }
+
+    @Benchmark
+    public Object reserverPuisLiberer() {
+        long id = produitChaud();
+        service.reserveStock(id, 1);
+        return service.releaseStock(id, 1);
+    }
+}
@@ -0,0 +1,98 @@
+package com.example.apigestionproduit.benchmark;
+
+import com.example.apigestionproduit.format.ProductFormats;
+import com.example.apigestionproduit.format.WireFormat;
+import com.example.apigestionproduit.model.Product;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TimeZone;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Taille encodée et débit d'encodage / de décodage d'une liste de produits dans
+ * chaque format négociable : JSON indenté (configuration par défaut), JSON compact
+ * (profil prod), Smile, CBOR et Protobuf.
+ *
+ * <p>La taille en octets de la liste encodée est rapportée comme compteur secondaire
+ * ({@code octets}) à côté du débit.</p>
+ *
+ * <pre>
+ * mvn -Pbenchmark verify -Djmh.args="WireFormatBenchmark -p tailleListe=100"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class WireFormatBenchmark {
+
+    @Param({"1", "100", "10000"})
+    public int tailleListe;
+
+    @Param({"JSON_INDENTE", "JSON", "SMILE", "CBOR", "PROTOBUF"})
+    public String format;
+
+    private ProductFormats formats;
+    private WireFormat wireFormat;
+    private List<Product> produits;
+    private byte[] encode;
+
+    /**
+     * Taille de la liste encodée, publiée avec chaque résultat.
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Taille {
+        public long octets;
+    }
+
+    @Setup(Level.Trial)
+    public void preparer() {
+        boolean indente = format.equals("JSON_INDENTE");
+        Jackson2ObjectMapperBuilder builder = Jackson2ObjectMapperBuilder.json()
+                .dateFormat(new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ss"))
+                .timeZone(TimeZone.getTimeZone("UTC"))
+                .featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS);
+        formats = new ProductFormats(builder.build().configure(SerializationFeature.INDENT_OUTPUT, indente), builder);
+        wireFormat = indente ? WireFormat.JSON : WireFormat.valueOf(format);
+
+        produits = new ArrayList<>(tailleListe);
+        for (int i = 0; i < tailleListe; i++) {
+            produits.add(Catalogues.produit(i).snapshot(i + 1L, 1, System.currentTimeMillis(), System.currentTimeMillis()));
+        }
+        encode = formats.writeProducts(produits, wireFormat);
+    }
+
+    @Benchmark
+    public byte[] encoder(Taille taille) {
+        byte[] octets = formats.writeProducts(produits, wireFormat);
+        taille.octets = octets.length;
+        return octets;
+    }
+
+    @Benchmark
+    public List<Product> decoder() throws IOException {
+        return formats.readProducts(new ByteArrayInputStream(encode), wireFormat);
+    }
+}
@@ -0,0 +1,165 @@
+package com.example.apigestionproduit.cache;
+
+import com.example.apigestionproduit.cache.ProductResponseCache.CachedResponse;
+import com.example.apigestionproduit.compression.ContentEncoding;
+import com.example.apigestionproduit.format.WireFormat;
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Supplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductResponseCacheTest {
+
+    private ProductService service;
+    private SimpleMeterRegistry registry;
+    private ProductResponseCache cache;
+    private final AtomicInteger loads = new AtomicInteger();
+
+    @BeforeEach
+    void setUp() {
+        service = new ProductService();
+        registry = new SimpleMeterRegistry();
+        cache = new ProductResponseCache(service, registry, true, 1024 * 1024);
+    }
+
+    private Supplier<CachedResponse> loader(String body) {
+        return () -> {
+            loads.incrementAndGet();
+            return CachedResponse.of(body.getBytes(StandardCharsets.UTF_8));
+        };
+    }
+
+    private static Product souris(String categorie) {
+        return new Product(null, "Souris Sans Fil", null, new BigDecimal("29.99"), 1, categorie);
+    }
+
+    @Test
+    void categoryChangeOnlyEvictsThatCategory() {
+        cache.category("Accessoires", WireFormat.JSON, ContentEncoding.IDENTITY, loader("a"));
+        cache.category("Électronique", WireFormat.JSON, ContentEncoding.IDENTITY, loader("e"));
+        assertThat(loads).hasValue(2);
+
+        // Produit 2 : "Souris Sans Fil", catégorie Accessoires
+        service.updateProduct(2L, souris("Accessoires"));
+
+        cache.category("électronique", WireFormat.JSON, ContentEncoding.IDENTITY, loader("e"));
+        assertThat(loads).as("Électronique reste en cache").hasValue(2);
+        cache.category("Accessoires", WireFormat.JSON, ContentEncoding.IDENTITY, loader("a2"));
+        assertThat(loads).hasValue(3);
+        assertThat(registry.get("produits.cache.invalidations").tag("type", "categorie").counter().count())
+                .isEqualTo(1.0);
+    }
+
+    @Test
+    void categoryMoveEvictsOldAndNewCategory() {
+        cache.category("Accessoires", WireFormat.JSON, ContentEncoding.IDENTITY, loader("a"));
+        cache.category("Bureau", WireFormat.JSON, ContentEncoding.IDENTITY, loader("b"));
+
+        service.updateProduct(2L, souris("Bureau"));
+
+        cache.category("Accessoires", WireFormat.JSON, ContentEncoding.IDENTITY, loader("a2"));
+        cache.category("Bureau", WireFormat.JSON, ContentEncoding.IDENTITY, loader("b2"));
+        assertThat(loads).hasValue(4);
+    }
+
+    @Test
+    void searchEntriesAreEvictedOnlyWhenTheNameMatches() {
+        cache.search("souris", WireFormat.JSON, ContentEncoding.IDENTITY, loader("s"));
+        cache.search("clavier", WireFormat.JSON, ContentEncoding.IDENTITY, loader("c"));
+
+        service.createProduct(new Product(null, "Souris Verticale", null, new BigDecimal("49.90"), 3, "Accessoires"));
+
+        cache.search("clavier", WireFormat.JSON, ContentEncoding.IDENTITY, loader("c"));
+        assertThat(loads).hasValue(2);
+        CachedResponse souris = cache.search("SOURIS", WireFormat.JSON, ContentEncoding.IDENTITY, loader("s2"));
+        assertThat(new String(souris.body(), StandardCharsets.UTF_8)).isEqualTo("s2");
+        assertThat(loads).hasValue(3);
+    }
+
+    @Test
+    void pagesAreEvictedOnlyWhenTheChangeFallsInTheirRange() {
+        // Page [1] suivie de 2, page [2, 3] dernière page
+        cache.page(null, 1, WireFormat.JSON, ContentEncoding.IDENTITY, () -> {
+            loads.incrementAndGet();
+            return new CachedResponse(new byte[1], 1, 2);
+        });
+        cache.page(1L, 2, WireFormat.JSON, ContentEncoding.IDENTITY, () -> {
+            loads.incrementAndGet();
+            return new CachedResponse(new byte[2], 3, ProductResponseCache.NO_NEXT);
+        });
+
+        service.createProduct(new Product(null, "Nouveau", null, BigDecimal.ONE, 1, "Divers"));
+
+        cache.page(null, 1, WireFormat.JSON, ContentEncoding.IDENTITY, loader("x"));
+        assertThat(loads).as("la première page ne contient pas le produit 4").hasValue(2);
+        cache.page(1L, 2, WireFormat.JSON, ContentEncoding.IDENTITY, loader("y"));
+        assertThat(loads).as("la dernière page s'étend au produit 4").hasValue(3);
+    }
+
+    @Test
+    void pagesFarBelowTheChangeAreNotCandidates() {
+        // Pages successives de 2 produits : ]0, 2], ]2, 4], ..., ]18, 20]
+        for (long after = 0; after < 20; after += 2) {
+            long next = after + 2;
+            cache.page(after == 0 ? null : after, 2, WireFormat.JSON, ContentEncoding.IDENTITY, () -> {
+                loads.incrementAndGet();
+                return new CachedResponse(new byte[1], next - 1, next);
+            });
+        }
+
+        // Produit 3 : seule la page ]2, 4] le contient
+        service.updateProduct(3L, new Product(null, "Écran", null, BigDecimal.TEN, 1, "Électronique"));
+
+        assertThat(registry.get("produits.cache.invalidations").tag("type", "liste").counter().count())
+                .isEqualTo(1.0);
+        cache.page(2L, 2, WireFormat.JSON, ContentEncoding.IDENTITY, loader("p"));
+        cache.page(4L, 2, WireFormat.JSON, ContentEncoding.IDENTITY, loader("p"));
+        cache.page(null, 2, WireFormat.JSON, ContentEncoding.IDENTITY, loader("p"));
+        assertThat(loads).hasValue(11);
+    }
+
+    @Test
+    void indexesFollowEvictionsAndInvalidations() {
+        ProductResponseCache small = new ProductResponseCache(service, new SimpleMeterRegistry(), true, 4096);
+        for (int i = 0; i < 200; i++) {
+            small.search("terme" + i, WireFormat.JSON, ContentEncoding.IDENTITY, loader("x".repeat(100)));
+        }
+        assertThat(small.indexedKeys()).isEqualTo(small.size()).isLessThan(200);
+
+        small.clear();
+        small.search("souris", WireFormat.JSON, ContentEncoding.IDENTITY, loader("s"));
+        assertThat(small.indexedKeys()).isEqualTo(1);
+        service.updateProduct(2L, souris("Accessoires"));
+        assertThat(small.indexedKeys()).isZero();
+    }
+
+    @Test
+    void responseLoadedDuringAWriteIsNotKept() {
+        cache.category("Accessoires", WireFormat.JSON, ContentEncoding.IDENTITY, () -> {
+            loads.incrementAndGet();
+            // Écriture concurrente survenue pendant le calcul de la réponse
+            service.updateProduct(2L, souris("Accessoires"));
+            return CachedResponse.of(new byte[0]);
+        });
+
+        cache.category("Accessoires", WireFormat.JSON, ContentEncoding.IDENTITY, loader("a"));
+        assertThat(loads).hasValue(2);
+    }
+
+    @Test
+    void disabledCacheAlwaysLoads() {
+        ProductResponseCache disabled = new ProductResponseCache(service, new SimpleMeterRegistry(), false, 1024);
+        disabled.search("souris", WireFormat.JSON, ContentEncoding.IDENTITY, loader("s"));
+        disabled.search("souris", WireFormat.JSON, ContentEncoding.IDENTITY, loader("s"));
+        assertThat(loads).hasValue(2);
+        assertThat(disabled.size()).isZero();
+    }
+}
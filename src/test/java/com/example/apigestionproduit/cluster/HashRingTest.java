@@ -0,0 +1,76 @@
+package com.example.apigestionproduit.cluster;
+
+import org.junit.jupiter.api.Test;
+
+import java.net.URI;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.stream.IntStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class HashRingTest {
+
+    private static List<HashRing.Node> nodes(int count) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> new HashRing.Node("n" + i, URI.create("http://localhost:" + (8080 + i))))
+                .toList();
+    }
+
+    @Test
+    void productsAreSpreadEvenlyAcrossNodes() {
+        HashRing ring = new HashRing(nodes(4), 128);
+        Map<String, Integer> counts = new HashMap<>();
+        for (long id = 1; id <= 100_000; id++) {
+            counts.merge(ring.owner(id).id(), 1, Integer::sum);
+        }
+
+        assertThat(counts).hasSize(4);
+        assertThat(counts.values()).allSatisfy(count -> assertThat(count).isBetween(20_000, 30_000));
+    }
+
+    @Test
+    void addingANodeOnlyMovesItsShare() {
+        HashRing before = new HashRing(nodes(4), 128);
+        HashRing after = new HashRing(nodes(5), 128);
+        int moved = 0;
+        for (long id = 1; id <= 100_000; id++) {
+            String owner = after.owner(id).id();
+            if (!owner.equals(before.owner(id).id())) {
+                moved++;
+                // Seul le nouveau nœud récupère des produits
+                assertThat(owner).isEqualTo("n4");
+            }
+        }
+        assertThat(moved).isBetween(12_000, 28_000);
+    }
+
+    @Test
+    void allocatorsOfDifferentNodesNeverOverlap() {
+        HashRing ring = new HashRing(nodes(3), 64);
+        Set<Long> ids = new HashSet<>();
+        for (HashRing.Node node : ring.nodes()) {
+            ShardIdAllocator allocator = new ShardIdAllocator(ring, node);
+            allocator.advancePast(10);
+            for (long id : allocator.next(1000)) {
+                assertThat(id).isGreaterThan(10);
+                assertThat(ring.owner(id)).isEqualTo(node);
+                assertThat(ids.add(id)).isTrue();
+            }
+            assertThat(allocator.highWater()).isGreaterThanOrEqualTo(ids.stream().mapToLong(Long::longValue)
+                    .filter(id -> ring.owner(id).equals(node)).max().orElseThrow());
+        }
+    }
+
+    @Test
+    void invalidMembershipIsRejected() {
+        HashRing.Node node = new HashRing.Node("a", URI.create("http://localhost:8080"));
+        assertThatThrownBy(() -> new HashRing(List.of(), 16)).isInstanceOf(IllegalArgumentException.class);
+        assertThatThrownBy(() -> new HashRing(List.of(node, node), 16)).isInstanceOf(IllegalArgumentException.class);
+        assertThat(new HashRing(List.of(node), 16).node("b")).isNull();
+    }
+}
@@ -0,0 +1,118 @@
+package com.example.apigestionproduit.cluster;
+
+import com.example.apigestionproduit.ApiGestionProduitApplication;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.ServerSocket;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Cluster de plusieurs nœuds de l'API sur localhost, dans la JVM courante : un
+ * contexte Spring et un port par nœud, nœuds nommés n0, n1...
+ *
+ * <p>Utilisé par les tests du mode réparti ; peut aussi être lancé seul pour
+ * essayer le cluster avec curl :</p>
+ * <pre>
+ * mvn test-compile exec:java -Dexec.classpathScope=test \
+ *     -Dexec.mainClass=com.example.apigestionproduit.cluster.LocalCluster -Dexec.args=3
+ * </pre>
+ */
+public final class LocalCluster implements AutoCloseable {
+
+    private final List<URI> uris;
+    private final List<ConfigurableApplicationContext> nodes = new ArrayList<>();
+
+    /**
+     * Démarre les nœuds.
+     *
+     * @param size Nombre de nœuds
+     * @param properties Propriétés supplémentaires, communes à tous les nœuds (nom=valeur)
+     */
+    public LocalCluster(int size, String... properties) {
+        List<Integer> ports = IntStream.range(0, size).mapToObj(i -> freePort()).toList();
+        this.uris = ports.stream().map(port -> URI.create("http://localhost:" + port)).toList();
+        String members = IntStream.range(0, size)
+                .mapToObj(i -> "n" + i + "=" + uris.get(i))
+                .collect(Collectors.joining(","));
+        try {
+            for (int i = 0; i < size; i++) {
+                List<String> args = new ArrayList<>(List.of(
+                        "--server.port=" + ports.get(i),
+                        "--spring.main.banner-mode=off",
+                        "--spring.devtools.restart.enabled=false",
+                        "--spring.devtools.livereload.enabled=false",
+                        "--logging.level.root=WARN",
+                        "--produits.cluster.enabled=true",
+                        "--produits.cluster.nodes=" + members,
+                        "--produits.cluster.node-id=n" + i));
+                for (String property : properties) {
+                    args.add("--" + property);
+                }
+                nodes.add(new SpringApplicationBuilder(ApiGestionProduitApplication.class)
+                        .run(args.toArray(String[]::new)));
+            }
+        } catch (RuntimeException e) {
+            close();
+            throw e;
+        }
+    }
+
+    private static int freePort() {
+        try (ServerSocket socket = new ServerSocket(0)) {
+            return socket.getLocalPort();
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * URL de base d'un nœud.
+     *
+     * @param node Numéro du nœud
+     * @return Ex. http://localhost:54321
+     */
+    public URI uri(int node) {
+        return uris.get(node);
+    }
+
+    /**
+     * Contexte Spring d'un nœud.
+     *
+     * @param node Numéro du nœud
+     * @return Le contexte
+     */
+    public ConfigurableApplicationContext context(int node) {
+        return nodes.get(node);
+    }
+
+    /**
+     * Arrête un nœud, qui reste membre de l'anneau (panne simulée).
+     *
+     * @param node Numéro du nœud
+     */
+    public void stop(int node) {
+        nodes.get(node).close();
+    }
+
+    @Override
+    public void close() {
+        nodes.forEach(ConfigurableApplicationContext::close);
+    }
+
+    public static void main(String[] args) throws InterruptedException {
+        int size = args.length > 0 ? Integer.parseInt(args[0]) : 3;
+        LocalCluster cluster = new LocalCluster(size);
+        Runtime.getRuntime().addShutdownHook(new Thread(cluster::close));
+        for (int i = 0; i < size; i++) {
+            System.out.println("n" + i + " : " + cluster.uri(i) + "/api/products");
+        }
+        Thread.currentThread().join();
+    }
+}
@@ -0,0 +1,260 @@
+package com.example.apigestionproduit.cluster;
+
+import com.example.apigestionproduit.model.ProductFacets;
+import com.example.apigestionproduit.service.ProductService;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.MethodOrderer;
+import org.junit.jupiter.api.Order;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestMethodOrder;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+@TestMethodOrder(MethodOrderer.OrderAnnotation.class)
+class ShardedClusterTest {
+
+    private static final int NODES = 3;
+
+    private static LocalCluster cluster;
+    private static HashRing ring;
+
+    private final HttpClient client = HttpClient.newBuilder().version(HttpClient.Version.HTTP_1_1).build();
+    private final ObjectMapper mapper = new ObjectMapper();
+
+    @BeforeAll
+    static void startCluster() {
+        cluster = new LocalCluster(NODES, "produits.cluster.timeout=PT2S", "produits.list.max-limit=50");
+        ring = cluster.context(0).getBean(HashRing.class);
+    }
+
+    @AfterAll
+    static void stopCluster() {
+        cluster.close();
+    }
+
+    private HttpResponse<String> send(int node, String method, String path, String json, String... headers)
+            throws IOException, InterruptedException {
+        HttpRequest.Builder builder = HttpRequest.newBuilder(URI.create(cluster.uri(node) + path))
+                .method(method, json == null ? HttpRequest.BodyPublishers.noBody()
+                        : HttpRequest.BodyPublishers.ofString(json))
+                .header("Content-Type", "application/json");
+        if (headers.length > 0) {
+            builder.headers(headers);
+        }
+        return client.send(builder.build(), HttpResponse.BodyHandlers.ofString());
+    }
+
+    private long create(int node, String nom, String categorie) throws Exception {
+        HttpResponse<String> created = send(node, "POST", "/api/products", """
+                {"nom": "%s", "description": "Produit réparti", "prix": 19.90, "quantiteStock": 5, "categorie": "%s"}
+                """.formatted(nom, categorie));
+        assertThat(created.statusCode()).isEqualTo(201);
+        return mapper.readTree(created.body()).get("id").asLong();
+    }
+
+    private static List<Long> ids(JsonNode products) {
+        List<Long> ids = new ArrayList<>();
+        products.forEach(product -> ids.add(product.get("id").asLong()));
+        return ids;
+    }
+
+    @Test
+    @Order(1)
+    void productsAreCreatedOnTheReceivingNodeAndRoutedByIdFromAnyNode() throws Exception {
+        long id = create(0, "Câble Réparti", "Connectique");
+        assertThat(ring.owner(id).id()).isEqualTo("n0");
+
+        for (int node = 0; node < NODES; node++) {
+            HttpResponse<String> read = send(node, "GET", "/api/products/" + id, null);
+            assertThat(read.statusCode()).isEqualTo(200);
+            assertThat(read.headers().firstValue(ShardRoutingFilter.NODE_HEADER)).hasValue("n0");
+            assertThat(mapper.readTree(read.body()).get("nom").asText()).isEqualTo("Câble Réparti");
+        }
+
+        HttpResponse<String> updated = send(2, "PUT", "/api/products/" + id, """
+                {"nom": "Câble Réparti", "description": "Modifié", "prix": 21.00, "quantiteStock": 5, "categorie": "Connectique"}
+                """);
+        assertThat(updated.statusCode()).isEqualTo(200);
+        assertThat(send(1, "POST", "/api/products/" + id + "/stock/reserve", "{\"quantite\": 2}").statusCode())
+                .isEqualTo(200);
+
+        JsonNode read = mapper.readTree(send(1, "GET", "/api/products/" + id, null).body());
+        assertThat(read.get("description").asText()).isEqualTo("Modifié");
+        assertThat(read.get("quantiteStock").asInt()).isEqualTo(3);
+        assertThat(cluster.context(0).getBean(ProductService.class).getProductById(id)).isPresent();
+        assertThat(cluster.context(1).getBean(ProductService.class).getProductById(id)).isEmpty();
+
+        assertThat(send(2, "DELETE", "/api/products/" + id, null).statusCode()).isEqualTo(204);
+        assertThat(send(1, "GET", "/api/products/" + id, null).statusCode()).isEqualTo(404);
+    }
+
+    @Test
+    @Order(2)
+    void idsAreUniqueAndOwnedByTheAllocatingNode() throws Exception {
+        Set<Long> ids = new HashSet<>();
+        for (int node = 0; node < NODES; node++) {
+            for (int i = 0; i < 10; i++) {
+                long id = create(node, "Unique " + node + "-" + i, "Tests");
+                assertThat(ids.add(id)).isTrue();
+                assertThat(ring.owner(id).id()).isEqualTo("n" + node);
+            }
+        }
+    }
+
+    @Test
+    @Order(3)
+    void searchAndCategoryGatherEveryShard() throws Exception {
+        List<Long> created = new ArrayList<>();
+        for (int node = 0; node < NODES; node++) {
+            created.add(create(node, "Lampe Dispersée " + node, "Luminaires"));
+        }
+        created.sort(null);
+
+        HttpResponse<String> search = send(1, "GET", "/api/products/search?nom=lampe", null);
+        assertThat(search.statusCode()).isEqualTo(200);
+        assertThat(ids(mapper.readTree(search.body()))).isEqualTo(created);
+        assertThat(search.headers().firstValue(ShardRoutingFilter.MISSING_HEADER)).isEmpty();
+
+        HttpResponse<String> category = send(2, "GET", "/api/products/categorie/Luminaires", null);
+        assertThat(ids(mapper.readTree(category.body()))).isEqualTo(created);
+
+        // ETag combiné : 304 tant qu'aucune partition n'a changé
+        String etag = category.headers().firstValue("ETag").orElseThrow();
+        assertThat(send(0, "GET", "/api/products/categorie/Luminaires", null, "If-None-Match", etag).statusCode())
+                .isEqualTo(304);
+        create(1, "Lampe Dispersée bis", "Luminaires");
+        HttpResponse<String> changed = send(0, "GET", "/api/products/categorie/Luminaires", null,
+                "If-None-Match", etag);
+        assertThat(changed.statusCode()).isEqualTo(200);
+        assertThat(mapper.readTree(changed.body()).size()).isEqualTo(NODES + 1);
+    }
+
+    @Test
+    @Order(4)
+    void listPagesMergeShardsById() throws Exception {
+        long total = 0;
+        for (int node = 0; node < NODES; node++) {
+            total += cluster.context(node).getBean(ProductService.class).count();
+        }
+
+        List<Long> all = new ArrayList<>();
+        String next = "/api/products?limit=4";
+        while (next != null) {
+            HttpResponse<String> page = send(2, "GET", next, null);
+            assertThat(page.statusCode()).isEqualTo(200);
+            List<Long> ids = ids(mapper.readTree(page.body()));
+            assertThat(ids).hasSizeLessThanOrEqualTo(4).isSorted();
+            all.addAll(ids);
+            next = page.headers().firstValue("Link")
+                    .map(link -> URI.create(link.substring(1, link.indexOf('>'))))
+                    .map(uri -> uri.getRawPath() + "?" + uri.getRawQuery())
+                    .orElse(null);
+        }
+        assertThat(all).hasSize((int) total).doesNotHaveDuplicates().isSorted();
+    }
+
+    @Test
+    @Order(5)
+    void facetsSumTheCountsOfEveryShard() throws Exception {
+        long total = 0;
+        long enStock = 0;
+        long luminaires = 0;
+        for (int node = 0; node < NODES; node++) {
+            ProductFacets facets = cluster.context(node).getBean(ProductService.class).getFacets(null);
+            total += facets.getTotal();
+            enStock += facets.getEnStock();
+            luminaires += facets.getCategories().getOrDefault("Luminaires", 0L);
+        }
+
+        HttpResponse<String> response = send(1, "GET", "/api/products/facets", null);
+        assertThat(response.statusCode()).isEqualTo(200);
+        JsonNode facets = mapper.readTree(response.body());
+        assertThat(facets.get("total").asLong()).isEqualTo(total);
+        assertThat(facets.get("enStock").asLong()).isEqualTo(enStock);
+        assertThat(facets.get("categories").get("Luminaires").asLong()).isEqualTo(luminaires).isEqualTo(NODES + 1);
+        long parTranche = 0;
+        for (JsonNode tranche : facets.get("prix")) {
+            parTranche += tranche.get("nombre").asLong();
+        }
+        assertThat(parTranche).isEqualTo(total);
+
+        assertThat(mapper.readTree(send(2, "GET", "/api/products/facets?nom=lampe", null).body())
+                .get("total").asLong()).isEqualTo(NODES + 1);
+        String etag = response.headers().firstValue("ETag").orElseThrow();
+        assertThat(send(0, "GET", "/api/products/facets", null, "If-None-Match", etag).statusCode())
+                .isEqualTo(304);
+    }
+
+    @Test
+    @Order(6)
+    void queryMergesTheShardsBySortKeyWithinLimit() throws Exception {
+        for (int node = 0; node < NODES; node++) {
+            for (int i = 0; i < 2; i++) {
+                HttpResponse<String> created = send(node, "POST", "/api/products", """
+                        {"nom": "Requête %d-%d", "prix": %d.00, "quantiteStock": 1, "categorie": "Requêtes"}
+                        """.formatted(node, i, 10 + 10 * node + i));
+                assertThat(created.statusCode()).isEqualTo(201);
+            }
+        }
+
+        HttpResponse<String> response = send(0, "GET", "/api/products/query?categorie=Requêtes&sort=prix,desc&limit=3",
+                null);
+        assertThat(response.statusCode()).isEqualTo(200);
+        List<Double> prix = new ArrayList<>();
+        mapper.readTree(response.body()).forEach(product -> prix.add(product.get("prix").asDouble()));
+        assertThat(prix).containsExactly(31.0, 30.0, 21.0);
+
+        assertThat(send(1, "GET", "/api/products/query?sort=nom", null).statusCode()).isEqualTo(400);
+    }
+
+    @Test
+    @Order(7)
+    void requestsSpanningShardsAreRejectedExplicitly() throws Exception {
+        assertThat(send(0, "PUT", "/api/products/batch", "[{\"id\": 1, \"nom\": \"A\"}]").statusCode())
+                .isEqualTo(501);
+        assertThat(send(1, "DELETE", "/api/products/batch", "[1, 2]").statusCode()).isEqualTo(501);
+        assertThat(send(2, "POST", "/api/products/stock/reserve", "[{\"id\": 1, \"quantite\": 1}]").statusCode())
+                .isEqualTo(501);
+        assertThat(send(1, "GET", "/api/products/search?q=lampe", null).statusCode()).isEqualTo(501);
+        // La création par lot reste locale : identifiants attribués par le nœud qui la reçoit
+        assertThat(send(0, "POST", "/api/products/batch", "[{\"nom\": \"Lot\"}]").statusCode()).isEqualTo(200);
+    }
+
+    @Test
+    void clusterModeRefusesTheReactiveStack() {
+        assertThatThrownBy(() -> new LocalCluster(1, "spring.main.web-application-type=reactive"))
+                .hasStackTraceContaining("requiert la pile servlet");
+    }
+
+    @Test
+    @Order(Integer.MAX_VALUE)
+    void unreachableShardGivesPartialGatherAndUnavailableOwner() throws Exception {
+        long id = 1;
+        while (!ring.owner(id).id().equals("n2")) {
+            id++;
+        }
+        cluster.stop(2);
+
+        HttpResponse<String> search = send(0, "GET", "/api/products/search?nom=lampe", null);
+        assertThat(search.statusCode()).isEqualTo(200);
+        assertThat(search.headers().firstValue(ShardRoutingFilter.MISSING_HEADER)).hasValue("n2");
+        assertThat(search.headers().firstValue("ETag")).isEmpty();
+        assertThat(mapper.readTree(search.body()).size()).isEqualTo(3);
+
+        assertThat(send(1, "GET", "/api/products/" + id, null).statusCode()).isEqualTo(503);
+    }
+}
@@ -0,0 +1,65 @@
+package com.example.apigestionproduit.compression;
+
+import com.github.luben.zstd.Zstd;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumSet;
+import java.util.Set;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class ResponseCompressorTest {
+
+    private static final Set<ContentEncoding> ALL = EnumSet.of(ContentEncoding.GZIP, ContentEncoding.ZSTD);
+
+    private final SimpleMeterRegistry registry = new SimpleMeterRegistry();
+    private final ResponseCompressor compressor = new ResponseCompressor(registry, true, 1024, 6, 6);
+
+    @Test
+    void negotiationFollowsQualityThenServerPreference() {
+        assertThat(ContentEncoding.negotiate(null, ALL)).isEqualTo(ContentEncoding.IDENTITY);
+        assertThat(ContentEncoding.negotiate("gzip, deflate, br", ALL)).isEqualTo(ContentEncoding.GZIP);
+        assertThat(ContentEncoding.negotiate("gzip, zstd", ALL)).isEqualTo(ContentEncoding.ZSTD);
+        assertThat(ContentEncoding.negotiate("zstd;q=0.5, gzip", ALL)).isEqualTo(ContentEncoding.GZIP);
+        assertThat(ContentEncoding.negotiate("*", ALL)).isEqualTo(ContentEncoding.ZSTD);
+        assertThat(ContentEncoding.negotiate("*;q=0.8, zstd;q=0", ALL)).isEqualTo(ContentEncoding.GZIP);
+        assertThat(ContentEncoding.negotiate("GZIP;Q=0.3, identity", ALL)).isEqualTo(ContentEncoding.IDENTITY);
+        assertThat(ContentEncoding.negotiate("gzip", EnumSet.noneOf(ContentEncoding.class)))
+                .isEqualTo(ContentEncoding.IDENTITY);
+    }
+
+    @Test
+    void compressedBodiesDecompressToTheOriginalAndAreMeasured() throws Exception {
+        byte[] body = "{\"nom\" : \"Souris Sans Fil\"}\n".repeat(200).getBytes(StandardCharsets.UTF_8);
+
+        byte[] gzip = compressor.compress(body, ContentEncoding.GZIP);
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(gzip))) {
+            assertThat(in.readAllBytes()).isEqualTo(body);
+        }
+        byte[] zstd = compressor.compress(body, ContentEncoding.ZSTD);
+        assertThat(Zstd.decompress(zstd, body.length)).isEqualTo(body);
+
+        assertThat(registry.get("produits.compression.octets").tag("encodage", "gzip").tag("sens", "entree")
+                .counter().count()).isEqualTo(body.length);
+        assertThat(registry.get("produits.compression.octets").tag("encodage", "zstd").tag("sens", "sortie")
+                .counter().count()).isEqualTo(zstd.length);
+        assertThat(registry.get("produits.compression.ratio").tag("encodage", "gzip")
+                .summary().max()).isLessThan(0.1);
+        assertThat(registry.get("produits.compression.cpu").tag("encodage", "zstd").timer().count()).isEqualTo(1);
+    }
+
+    @Test
+    void thresholdAndSettingsAreApplied() {
+        assertThat(compressor.worthCompressing(1023)).isFalse();
+        assertThat(compressor.worthCompressing(1024)).isTrue();
+        assertThat(new ResponseCompressor(registry, false, 1024, 6, 6).negotiate("gzip"))
+                .isEqualTo(ContentEncoding.IDENTITY);
+        assertThatThrownBy(() -> new ResponseCompressor(registry, true, 1024, 10, 6))
+                .isInstanceOf(IllegalArgumentException.class);
+    }
+}
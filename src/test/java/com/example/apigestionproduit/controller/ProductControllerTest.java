@@ -0,0 +1,511 @@
+package com.example.apigestionproduit.controller;
+
+import com.example.apigestionproduit.format.ProductFormats;
+import com.github.luben.zstd.Zstd;
+import com.example.apigestionproduit.format.WireFormat;
+import com.example.apigestionproduit.model.Product;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.actuate.observability.AutoConfigureObservability;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.zip.GZIPInputStream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.not;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest(properties = {"produits.list.max-limit=2", "produits.compression.min-size=256"})
+@AutoConfigureMockMvc
+@AutoConfigureObservability
+class ProductControllerTest {
+
+    @Autowired
+    private MockMvc mockMvc;
+
+    @Autowired
+    private ProductFormats formats;
+
+    @Test
+    void getAllProductsPagesByIdWithNextLink() throws Exception {
+        mockMvc.perform(get("/api/products").param("limit", "1"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(1))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("after=1")));
+
+        mockMvc.perform(get("/api/products").param("after", "2").param("limit", "5"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(3))
+                .andExpect(header().doesNotExist(HttpHeaders.LINK));
+    }
+
+    @Test
+    void getAllProductsWithoutParametersIsCapped() throws Exception {
+        mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(header().exists(HttpHeaders.LINK));
+    }
+
+    @Test
+    void getAllProductsRejectsNonPositiveLimit() throws Exception {
+        mockMvc.perform(get("/api/products").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void getAllProductsStreamsNdjson() throws Exception {
+        MvcResult result = mockMvc.perform(get("/api/products")
+                        .header(HttpHeaders.ACCEPT, ProductController.APPLICATION_NDJSON))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        String body = mockMvc.perform(asyncDispatch(result))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getContentAsString();
+
+        String[] lignes = body.split("\n");
+        assertThat(lignes).hasSize(3);
+        assertThat(lignes[0]).startsWith("{\"id\":1,");
+        assertThat(lignes).allSatisfy(ligne -> assertThat(ligne).startsWith("{").endsWith("}"));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void batchEndpointsApplyEachItemAndReportItsStatus() throws Exception {
+        mockMvc.perform(post("/api/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"nom\":\"A\",\"categorie\":\"Lot\"},null,{\"nom\":\"B\",\"categorie\":\"Lot\"}]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(3))
+                .andExpect(jsonPath("$[0].id").value(4))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[2].id").value(5))
+                .andExpect(jsonPath("$[2].status").value(201));
+
+        mockMvc.perform(put("/api/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":4,\"nom\":\"A2\"},{\"id\":99,\"nom\":\"X\"},{\"nom\":\"sans id\"},null]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(200))
+                .andExpect(jsonPath("$[1].status").value(404))
+                .andExpect(jsonPath("$[2].status").value(400))
+                .andExpect(jsonPath("$[3].status").value(400));
+
+        mockMvc.perform(delete("/api/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[5, 5, null]"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(204))
+                .andExpect(jsonPath("$[1].status").value(404))
+                .andExpect(jsonPath("$[2].status").value(400));
+
+        mockMvc.perform(get("/api/products/categorie/Lot"))
+                .andExpect(jsonPath("$.length()").value(0));
+        mockMvc.perform(get("/api/products/4"))
+                .andExpect(jsonPath("$.nom").value("A2"));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void batchKeepsAppliedItemsWhenJsonBreaksMidway() throws Exception {
+        mockMvc.perform(post("/api/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"nom\":\"A\"},{\"nom\":"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].status").value(201))
+                .andExpect(jsonPath("$[1].status").value(400));
+
+        mockMvc.perform(post("/api/products/batch")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nom\":\"pas un tableau\"}"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void prometheusEndpointExposesServiceAndHttpMetrics() throws Exception {
+        mockMvc.perform(get("/api/products/search").param("nom", "souris"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/actuator/prometheus"))
+                .andExpect(status().isOk())
+                .andExpect(content().string(containsString("produits_service_operations_seconds_count{application=\"api-gestion-produit\",operation=\"search\"")))
+                .andExpect(content().string(containsString("produits_service_resultats_produits_sum")))
+                .andExpect(content().string(containsString("produits_catalogue_taille")))
+                .andExpect(content().string(containsString("http_server_requests_seconds_bucket")))
+                .andExpect(content().string(containsString("quantile=\"0.999\"")));
+    }
+
+    @Test
+    void facetsCountCategoriesPricesAndStock() throws Exception {
+        String etag = mockMvc.perform(get("/api/products/facets"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.total").value(3))
+                .andExpect(jsonPath("$.categories.Accessoires").value(2))
+                .andExpect(jsonPath("$.prix.length()").value(3))
+                .andExpect(jsonPath("$.prix[0].min").value(20.0))
+                .andExpect(jsonPath("$.prix[0].nombre").value(1))
+                .andExpect(jsonPath("$.enStock").value(3))
+                .andExpect(jsonPath("$.enRupture").value(0))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+
+        mockMvc.perform(get("/api/products/facets").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/products/facets").param("nom", "clavier"))
+                .andExpect(jsonPath("$.total").value(1))
+                .andExpect(jsonPath("$.categories.Accessoires").value(1));
+    }
+
+    @Test
+    void relevanceSearchRanksAcrossFieldsWithinLimit() throws Exception {
+        mockMvc.perform(get("/api/products/search").param("q", "clavier accessoires"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.ETAG))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].nom").value("Clavier Mécanique"))
+                .andExpect(jsonPath("$[1].nom").value("Souris Sans Fil"));
+        mockMvc.perform(get("/api/products/search").param("q", "bluetooth").param("limit", "5"))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].id").value(2));
+        mockMvc.perform(get("/api/products/search").param("q", "souris").param("limit", "0"))
+                .andExpect(status().isBadRequest());
+        mockMvc.perform(get("/api/products/search").param("nom", "souris"))
+                .andExpect(jsonPath("$[0].id").value(2));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void putWithIfMatchRequiresCurrentVersion() throws Exception {
+        String body = "{\"nom\":\"Souris Pro\",\"prix\":39.99,\"quantiteStock\":5,\"categorie\":\"Accessoires\"}";
+        String etag = mockMvc.perform(get("/api/products/2"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(1))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        assertThat(etag).isEqualTo("\"1\"");
+
+        mockMvc.perform(put("/api/products/2").header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""))
+                .andExpect(jsonPath("$.version").value(2));
+
+        mockMvc.perform(put("/api/products/2").header(HttpHeaders.IF_MATCH, etag)
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isPreconditionFailed())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+
+        mockMvc.perform(put("/api/products/2").header(HttpHeaders.IF_MATCH, "W/\"2\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isPreconditionFailed());
+
+        // L'ETag d'un autre format désigne la même version
+        mockMvc.perform(put("/api/products/2").header(HttpHeaders.IF_MATCH, "\"2-cbor\"")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(3));
+
+        mockMvc.perform(put("/api/products/2").header(HttpHeaders.IF_MATCH, "*")
+                        .contentType(MediaType.APPLICATION_JSON).content(body))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.version").value(4));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void conditionalGetAnswersNotModifiedUntilTheCatalogChanges() throws Exception {
+        MvcResult produit = mockMvc.perform(get("/api/products/1"))
+                .andExpect(status().isOk())
+                .andExpect(header().exists(HttpHeaders.LAST_MODIFIED))
+                .andReturn();
+        String etag = produit.getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/products/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified())
+                .andExpect(content().string(""));
+        // L'ETag JSON ne valide pas la représentation CBOR du même produit
+        String produitCborEtag = mockMvc.perform(get("/api/products/1").accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"1-cbor\""))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/products/1").accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, produitCborEtag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(HttpHeaders.ACCEPT)));
+        mockMvc.perform(get("/api/products/1").header(HttpHeaders.IF_MODIFIED_SINCE,
+                        produit.getResponse().getHeader(HttpHeaders.LAST_MODIFIED)))
+                .andExpect(status().isNotModified());
+
+        String listeEtag = mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, listeEtag))
+                .andExpect(status().isNotModified())
+                .andExpect(header().string(HttpHeaders.ETAG, listeEtag))
+                .andExpect(header().stringValues(HttpHeaders.VARY,
+                        hasItem(HttpHeaders.ACCEPT + ", " + HttpHeaders.ACCEPT_ENCODING)));
+
+        // Chaque format a son propre ETag : l'ETag JSON ne valide pas la réponse CBOR
+        String cborEtag = mockMvc.perform(get("/api/products").accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, listeEtag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(listeEtag)))
+                .andReturn().getResponse().getHeader(HttpHeaders.ETAG);
+        mockMvc.perform(get("/api/products").accept(MediaType.APPLICATION_CBOR)
+                        .header(HttpHeaders.IF_NONE_MATCH, cborEtag))
+                .andExpect(status().isNotModified());
+
+        mockMvc.perform(post("/api/products/3/stock/reserve"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/products").header(HttpHeaders.IF_NONE_MATCH, listeEtag))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, not(listeEtag)));
+        mockMvc.perform(get("/api/products/1").header(HttpHeaders.IF_NONE_MATCH, etag))
+                .andExpect(status().isNotModified());
+        mockMvc.perform(get("/api/products/3").header(HttpHeaders.IF_NONE_MATCH, "\"1\""))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void changesEndpointPagesThroughDeltasAndRequestsResyncOutsideTheWindow() throws Exception {
+        String sequence = mockMvc.perform(get("/api/products/changes").param("since", "0"))
+                .andExpect(status().isGone())
+                .andReturn().getResponse().getHeader(ProductController.CATALOG_SEQUENCE);
+        long depart = Long.parseLong(sequence);
+
+        mockMvc.perform(put("/api/products/2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nom\":\"Souris Pro\",\"prix\":39.99,\"quantiteStock\":5,\"categorie\":\"Accessoires\"}"))
+                .andExpect(status().isOk());
+        mockMvc.perform(delete("/api/products/3")).andExpect(status().isNoContent());
+        mockMvc.perform(post("/api/products/1/stock/reserve")).andExpect(status().isOk());
+
+        // max-limit=2 : deux événements puis un lien vers la suite
+        mockMvc.perform(get("/api/products/changes").param("since", sequence))
+                .andExpect(status().isOk())
+                .andExpect(header().string(ProductController.CATALOG_SEQUENCE, Long.toString(depart + 3)))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("since=" + (depart + 2))))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].type").value("UPDATE"))
+                .andExpect(jsonPath("$[0].produit.nom").value("Souris Pro"))
+                .andExpect(jsonPath("$[1].type").value("DELETE"))
+                .andExpect(jsonPath("$[1].id").value(3))
+                .andExpect(jsonPath("$[1].produit").doesNotExist());
+
+        mockMvc.perform(get("/api/products/changes").param("since", Long.toString(depart + 2)))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.LINK))
+                .andExpect(jsonPath("$.length()").value(1))
+                .andExpect(jsonPath("$[0].sequence").value(depart + 3))
+                .andExpect(jsonPath("$[0].produit.quantiteStock").value(9));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void streamPushesChangesAsServerSentEvents() throws Exception {
+        MvcResult flux = mockMvc.perform(get("/api/products/stream").header(HttpHeaders.ACCEPT, "text/event-stream"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+
+        mockMvc.perform(post("/api/products/2/stock/reserve")).andExpect(status().isOk());
+
+        long limite = System.currentTimeMillis() + 10_000;
+        while (!flux.getResponse().getContentAsString().contains("event:change")
+                && System.currentTimeMillis() < limite) {
+            Thread.sleep(20);
+        }
+        assertThat(flux.getResponse().getContentType()).startsWith("text/event-stream");
+        assertThat(flux.getResponse().getContentAsString())
+                .contains("event:change")
+                .contains("\"quantiteStock\":49");
+
+        mockMvc.perform(get("/api/products/stream").header("Last-Event-ID", "abc"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void cachedListResponsesReflectUpdates() throws Exception {
+        mockMvc.perform(get("/api/products/categorie/Accessoires"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2));
+        mockMvc.perform(get("/api/products/search").param("nom", "souris"))
+                .andExpect(jsonPath("$[0].quantiteStock").value(50));
+        mockMvc.perform(get("/api/products").param("after", "1").param("limit", "1"))
+                .andExpect(jsonPath("$[0].nom").value("Souris Sans Fil"));
+
+        mockMvc.perform(put("/api/products/2")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("{\"nom\":\"Souris Pro\",\"prix\":39.99,\"quantiteStock\":5,\"categorie\":\"Bureau\"}"))
+                .andExpect(status().isOk());
+
+        mockMvc.perform(get("/api/products/categorie/Accessoires"))
+                .andExpect(jsonPath("$.length()").value(1));
+        mockMvc.perform(get("/api/products/categorie/Bureau"))
+                .andExpect(jsonPath("$[0].id").value(2));
+        mockMvc.perform(get("/api/products/search").param("nom", "souris"))
+                .andExpect(jsonPath("$[0].quantiteStock").value(5));
+        mockMvc.perform(get("/api/products").param("after", "1").param("limit", "1"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].nom").value("Souris Pro"))
+                .andExpect(header().string(HttpHeaders.LINK, containsString("after=2")));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void stockEndpointsReserveAndReleaseAtomically() throws Exception {
+        mockMvc.perform(post("/api/products/1/stock/reserve")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"quantite\":4}"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantiteStock").value(6))
+                .andExpect(header().string(HttpHeaders.ETAG, "\"2\""));
+
+        mockMvc.perform(post("/api/products/1/stock/reserve")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"quantite\":7}"))
+                .andExpect(status().isConflict())
+                .andExpect(jsonPath("$.status").value(409));
+
+        mockMvc.perform(post("/api/products/1/stock/release"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.quantiteStock").value(7));
+
+        mockMvc.perform(post("/api/products/1/stock/reserve")
+                        .contentType(MediaType.APPLICATION_JSON).content("{\"quantite\":0}"))
+                .andExpect(status().isBadRequest());
+
+        mockMvc.perform(post("/api/products/99/stock/reserve"))
+                .andExpect(status().isNotFound());
+
+        mockMvc.perform(post("/api/products/stock/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":1,\"quantite\":1},{\"id\":99,\"quantite\":1}]"))
+                .andExpect(status().isNotFound())
+                .andExpect(jsonPath("$[0].status").value(424))
+                .andExpect(jsonPath("$[1].status").value(404));
+
+        mockMvc.perform(post("/api/products/stock/reserve")
+                        .contentType(MediaType.APPLICATION_JSON)
+                        .content("[{\"id\":1,\"quantite\":1},null,{\"id\":3,\"quantite\":1}]"))
+                .andExpect(status().isBadRequest())
+                .andExpect(jsonPath("$[0].status").value(424))
+                .andExpect(jsonPath("$[1].status").value(400))
+                .andExpect(jsonPath("$[2].status").value(424));
+
+        mockMvc.perform(get("/api/products/1"))
+                .andExpect(jsonPath("$.quantiteStock").value(7));
+    }
+
+    @Test
+    void queryFiltersByPriceRangeAndCategorySortedByPrice() throws Exception {
+        mockMvc.perform(get("/api/products/query")
+                        .param("prixMin", "20").param("prixMax", "200")
+                        .param("categorie", "accessoires").param("sort", "prix,desc"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[0].nom").value("Clavier Mécanique"))
+                .andExpect(jsonPath("$[1].nom").value("Souris Sans Fil"));
+
+        mockMvc.perform(get("/api/products/query").param("stockMin", "20").param("sort", "quantiteStock"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].quantiteStock").value(25))
+                .andExpect(jsonPath("$[1].quantiteStock").value(50));
+
+        mockMvc.perform(get("/api/products/query").param("sort", "nom"))
+                .andExpect(status().isBadRequest());
+    }
+
+    @Test
+    void collectionsAreCompressedByAcceptEncodingAboveMinSize() throws Exception {
+        byte[] identity = mockMvc.perform(get("/api/products"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString(HttpHeaders.ACCEPT_ENCODING))))
+                .andReturn().getResponse().getContentAsByteArray();
+
+        MvcResult gzip = mockMvc.perform(get("/api/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip, deflate"))
+                .andExpect(status().isOk())
+                .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "gzip"))
+                .andExpect(header().string(HttpHeaders.ETAG, containsString("W/")))
+                .andExpect(header().exists(HttpHeaders.LINK))
+                .andReturn();
+        byte[] compressed = gzip.getResponse().getContentAsByteArray();
+        try (GZIPInputStream in = new GZIPInputStream(new ByteArrayInputStream(compressed))) {
+            assertThat(in.readAllBytes()).isEqualTo(identity);
+        }
+
+        // Préférence du serveur à qualité égale ; variante servie depuis le cache
+        for (int i = 0; i < 2; i++) {
+            byte[] zstd = mockMvc.perform(get("/api/products").header(HttpHeaders.ACCEPT_ENCODING, "gzip, zstd"))
+                    .andExpect(header().string(HttpHeaders.CONTENT_ENCODING, "zstd"))
+                    .andReturn().getResponse().getContentAsByteArray();
+            assertThat(Zstd.decompress(zstd, identity.length)).isEqualTo(identity);
+        }
+
+        // Réponse plus petite que produits.compression.min-size : envoyée telle quelle
+        mockMvc.perform(get("/api/products/search").param("nom", "introuvable")
+                        .header(HttpHeaders.ACCEPT_ENCODING, "gzip"))
+                .andExpect(status().isOk())
+                .andExpect(header().doesNotExist(HttpHeaders.CONTENT_ENCODING))
+                .andExpect(jsonPath("$.length()").value(0));
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void binaryFormatsAreNegotiatedByAcceptAndContentType() throws Exception {
+        for (WireFormat format : List.of(WireFormat.SMILE, WireFormat.CBOR, WireFormat.PROTOBUF)) {
+            byte[] page = mockMvc.perform(get("/api/products").param("limit", "5")
+                            .accept(format.mediaType()))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(format.mediaType()))
+                    .andExpect(header().stringValues(HttpHeaders.VARY, hasItem(containsString(HttpHeaders.ACCEPT))))
+                    .andReturn().getResponse().getContentAsByteArray();
+            List<Product> products = formats.readProducts(new ByteArrayInputStream(page), format);
+            assertThat(products).extracting(Product::getNom)
+                    .containsExactly("Ordinateur Portable", "Souris Sans Fil");
+
+            byte[] one = mockMvc.perform(get("/api/products/3").accept(format.mediaType()))
+                    .andExpect(status().isOk())
+                    .andExpect(content().contentType(format.mediaType()))
+                    .andReturn().getResponse().getContentAsByteArray();
+            assertThat(formats.readProduct(new ByteArrayInputStream(one), format).getPrix())
+                    .isEqualByComparingTo("129.99");
+        }
+
+        // Le JSON par défaut n'est pas affecté par les entrées binaires du cache
+        mockMvc.perform(get("/api/products").param("limit", "5"))
+                .andExpect(content().contentType(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$[0].nom").value("Ordinateur Portable"));
+
+        Product tapis = new Product(null, "Tapis", null, new BigDecimal("9.99"), 4, "Bureau");
+        mockMvc.perform(post("/api/products")
+                        .contentType(WireFormat.SMILE.mediaType())
+                        .content(formats.writeProduct(tapis, WireFormat.SMILE)))
+                .andExpect(status().isCreated())
+                .andExpect(jsonPath("$.nom").value("Tapis"));
+
+        mockMvc.perform(post("/api/products/batch")
+                        .contentType(WireFormat.CBOR.mediaType())
+                        .accept(MediaType.APPLICATION_JSON)
+                        .content(formats.writeProducts(List.of(tapis), WireFormat.CBOR)))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$[0].status").value(201));
+    }
+}
@@ -0,0 +1,152 @@
+package com.example.apigestionproduit.controller;
+
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.reactive.AutoConfigureWebTestClient;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.context.ApplicationContext;
+import org.springframework.http.HttpHeaders;
+import org.springframework.http.MediaType;
+import org.springframework.test.annotation.DirtiesContext;
+import org.springframework.test.web.reactive.server.WebTestClient;
+import reactor.core.publisher.Flux;
+import reactor.test.StepVerifier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+@SpringBootTest(properties = "spring.main.web-application-type=reactive")
+@AutoConfigureWebTestClient
+class ReactiveProductControllerTest {
+
+    @Autowired
+    private WebTestClient client;
+
+    @Autowired
+    private ApplicationContext context;
+
+    @Test
+    void reactiveModeReplacesTheServletController() {
+        assertThat(context.getBeanNamesForType(ReactiveProductController.class)).hasSize(1);
+        assertThat(context.getBeanNamesForType(ProductController.class)).isEmpty();
+    }
+
+    @Test
+    void listStreamsAllProductsWithCursorAndLimit() {
+        client.get().uri("/api/products")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(3)
+                .jsonPath("$[0].id").isEqualTo(1);
+
+        client.get().uri("/api/products?after=1&limit=1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].id").isEqualTo(2);
+
+        client.get().uri("/api/products?limit=0")
+                .exchange()
+                .expectStatus().isBadRequest();
+    }
+
+    @Test
+    void ndjsonIsConsumedWithBackpressure() {
+        // Une ligne NDJSON par produit, délivrée à la demande
+        Flux<String> lignes = client.get().uri("/api/products")
+                .accept(MediaType.APPLICATION_NDJSON)
+                .exchange()
+                .expectStatus().isOk()
+                .returnResult(String.class)
+                .getResponseBody();
+
+        StepVerifier.create(lignes, 1)
+                .expectNextMatches(l -> l.startsWith("{\"id\":1,"))
+                .thenRequest(2)
+                .expectNextMatches(l -> l.startsWith("{\"id\":2,"))
+                .expectNextMatches(l -> l.startsWith("{\"id\":3,"))
+                .verifyComplete();
+    }
+
+    @Test
+    void searchAndCategoryReadTheSharedService() {
+        client.get().uri("/api/products/search?nom=souris")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(1)
+                .jsonPath("$[0].nom").isEqualTo("Souris Sans Fil");
+
+        client.get().uri("/api/products/categorie/accessoires")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody()
+                .jsonPath("$.length()").isEqualTo(2);
+    }
+
+    @Test
+    @DirtiesContext(methodMode = DirtiesContext.MethodMode.AFTER_METHOD)
+    void crudHonoursETagsAndConditionalRequests() {
+        String etag = client.get().uri("/api/products/1")
+                .exchange()
+                .expectStatus().isOk()
+                .expectHeader().exists(HttpHeaders.ETAG)
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+
+        client.get().uri("/api/products/1")
+                .header(HttpHeaders.IF_NONE_MATCH, etag)
+                .exchange()
+                .expectStatus().isNotModified();
+
+        String catalogETag = client.get().uri("/api/products")
+                .exchange()
+                .returnResult(String.class)
+                .getResponseHeaders().getETag();
+
+        client.put().uri("/api/products/1")
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"nom\":\"Ordinateur Portable Pro\",\"prix\":999.99,\"quantiteStock\":5,\"categorie\":\"Électronique\"}")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.nom").isEqualTo("Ordinateur Portable Pro");
+
+        client.put().uri("/api/products/1")
+                .header(HttpHeaders.IF_MATCH, etag)
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"nom\":\"Périmé\",\"prix\":1,\"quantiteStock\":1,\"categorie\":\"Électronique\"}")
+                .exchange()
+                .expectStatus().isEqualTo(412);
+
+        client.get().uri("/api/products")
+                .header(HttpHeaders.IF_NONE_MATCH, catalogETag)
+                .exchange()
+                .expectStatus().isOk();
+
+        client.post().uri("/api/products")
+                .contentType(MediaType.APPLICATION_JSON)
+                .bodyValue("{\"nom\":\"Tapis\",\"prix\":9.99,\"quantiteStock\":1,\"categorie\":\"Accessoires\"}")
+                .exchange()
+                .expectStatus().isCreated()
+                .expectBody().jsonPath("$.id").isEqualTo(4);
+
+        client.post().uri("/api/products/4/stock/reserve")
+                .exchange()
+                .expectStatus().isOk()
+                .expectBody().jsonPath("$.quantiteStock").isEqualTo(0);
+
+        client.post().uri("/api/products/4/stock/reserve")
+                .exchange()
+                .expectStatus().isEqualTo(409);
+
+        client.delete().uri("/api/products/4")
+                .exchange()
+                .expectStatus().isNoContent();
+
+        client.delete().uri("/api/products/4")
+                .exchange()
+                .expectStatus().isNotFound();
+    }
+}
@@ -0,0 +1,71 @@
+package com.example.apigestionproduit.format;
+
+import com.example.apigestionproduit.model.Product;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.params.ParameterizedTest;
+import org.junit.jupiter.params.provider.EnumSource;
+import org.springframework.http.converter.json.Jackson2ObjectMapperBuilder;
+
+import java.io.ByteArrayInputStream;
+import java.math.BigDecimal;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductFormatsTest {
+
+    private final ProductFormats formats = new ProductFormats(
+            Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS).build(),
+            Jackson2ObjectMapperBuilder.json().featuresToDisable(SerializationFeature.WRITE_DATES_AS_TIMESTAMPS));
+
+    private static Product produit(long id, String nom, String prix) {
+        return new Product(null, nom, "Description de " + nom, new BigDecimal(prix), 7, "Accessoires")
+                .snapshot(id, 3, 1_735_725_600_000L, 1_735_729_200_000L);
+    }
+
+    @ParameterizedTest
+    @EnumSource(WireFormat.class)
+    void productsRoundTripWithoutLoss(WireFormat format) throws Exception {
+        List<Product> products = List.of(produit(1, "Souris Sans Fil", "29.99"), produit(2, "Clavier", "0.10"));
+
+        List<Product> decoded = formats.readProducts(
+                new ByteArrayInputStream(formats.writeProducts(products, format)), format);
+
+        assertThat(decoded).hasSize(2);
+        assertThat(decoded.get(0).getId()).isEqualTo(1L);
+        assertThat(decoded.get(0).getNom()).isEqualTo("Souris Sans Fil");
+        assertThat(decoded.get(0).getPrix()).isEqualByComparingTo("29.99");
+        assertThat(decoded.get(1).getPrix()).isEqualByComparingTo("0.10");
+        assertThat(decoded.get(1).getQuantiteStock()).isEqualTo(7);
+        assertThat(decoded.get(1).getCategorie()).isEqualTo("Accessoires");
+
+        Product single = formats.readProduct(
+                new ByteArrayInputStream(formats.writeProduct(products.get(0), format)), format);
+        assertThat(single.getDescription()).isEqualTo("Description de Souris Sans Fil");
+    }
+
+    @Test
+    void binaryFormatsAreSmallerThanJson() {
+        List<Product> products = List.of(produit(1, "Souris Sans Fil", "29.99"), produit(2, "Clavier", "129.99"));
+        int json = formats.writeProducts(products, WireFormat.JSON).length;
+
+        assertThat(formats.writeProducts(products, WireFormat.SMILE).length).isLessThan(json);
+        assertThat(formats.writeProducts(products, WireFormat.CBOR).length).isLessThan(json);
+        assertThat(formats.writeProducts(products, WireFormat.PROTOBUF).length).isLessThan(json);
+    }
+
+    @Test
+    void negotiationPicksTheBestExplicitFormat() {
+        assertThat(WireFormat.negotiate(null)).isEqualTo(WireFormat.JSON);
+        assertThat(WireFormat.negotiate("*/*")).isEqualTo(WireFormat.JSON);
+        assertThat(WireFormat.negotiate("application/cbor")).isEqualTo(WireFormat.CBOR);
+        assertThat(WireFormat.negotiate("application/json;q=0.5, application/x-jackson-smile"))
+                .isEqualTo(WireFormat.SMILE);
+        assertThat(WireFormat.negotiate("application/x-protobuf;q=0.2, application/json"))
+                .isEqualTo(WireFormat.JSON);
+        assertThat(WireFormat.negotiate("pas un type")).isEqualTo(WireFormat.JSON);
+        assertThat(WireFormat.fromContentType("application/x-jackson-smile")).isEqualTo(WireFormat.SMILE);
+        assertThat(WireFormat.fromContentType("application/json;charset=UTF-8")).isEqualTo(WireFormat.JSON);
+    }
+}
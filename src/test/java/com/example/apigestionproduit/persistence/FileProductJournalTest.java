@@ -0,0 +1,132 @@
+package com.example.apigestionproduit.persistence;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.service.ProductService;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.math.BigDecimal;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Stream;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class FileProductJournalTest {
+
+    @TempDir
+    Path directory;
+
+    private FileProductJournal journal() {
+        return new FileProductJournal(directory, true, 1024 * 1024, Duration.ofHours(1));
+    }
+
+    private static Product produit(String nom) {
+        return new Product(null, nom, "description", new BigDecimal("19.90"), 3, "Tests");
+    }
+
+    @Test
+    void stateAndIdGeneratorSurviveRestart() {
+        FileProductJournal journal = journal();
+        ProductService service = new ProductService(false, journal);
+        Product cree = service.createProduct(produit("Écran"));
+        service.updateProduct(2L, produit("Souris modifiée"));
+        service.deleteProduct(1L);
+        service.createProducts(List.of(produit("A"), produit("B")));
+        service.deleteProduct(6L);
+        journal.close();
+
+        ProductService relu = new ProductService(false, journal());
+
+        assertThat(relu.count()).isEqualTo(4);
+        assertThat(relu.getProductById(1L)).isEmpty();
+        assertThat(relu.getProductById(2L)).get().extracting(Product::getNom).isEqualTo("Souris modifiée");
+        assertThat(relu.getProductById(cree.getId())).get()
+                .satisfies(p -> {
+                    assertThat(p.getPrix()).isEqualByComparingTo("19.90");
+                    assertThat(p.getDateCreation()).isEqualTo(cree.getDateCreation());
+                });
+        assertThat(relu.getProductsByCategorie("tests")).hasSize(3);
+        // L'identifiant 6, supprimé, ne doit pas être réattribué
+        assertThat(relu.createProduct(produit("Suivant")).getId()).isEqualTo(7L);
+    }
+
+    @Test
+    void snapshotTruncatesLogAndRecoveryCombinesBoth() throws IOException {
+        FileProductJournal journal = journal();
+        ProductService service = new ProductService(false, journal);
+        for (int i = 0; i < 100; i++) {
+            service.createProduct(produit("Produit " + i));
+        }
+        journal.snapshot();
+        service.deleteProduct(10L);
+        service.createProduct(produit("Après snapshot"));
+        journal.snapshot();
+        service.updateProduct(11L, produit("Dernière modification"));
+        journal.close();
+
+        try (Stream<Path> files = Files.list(directory)) {
+            assertThat(files.filter(f -> f.toString().endsWith(".wal")).count()).isLessThanOrEqualTo(3);
+        }
+
+        ProductService relu = new ProductService(false, journal());
+        assertThat(relu.count()).isEqualTo(103);
+        assertThat(relu.getProductById(10L)).isEmpty();
+        assertThat(relu.getProductById(11L)).get().extracting(Product::getNom).isEqualTo("Dernière modification");
+        assertThat(relu.searchProductsByNom("après")).hasSize(1);
+    }
+
+    @Test
+    void tornTailIsIgnoredOnRecovery() throws IOException {
+        FileProductJournal journal = journal();
+        ProductService service = new ProductService(false, journal);
+        service.createProduct(produit("Conservé"));
+        journal.close();
+
+        Path segment;
+        try (Stream<Path> files = Files.list(directory)) {
+            segment = files.filter(f -> f.toString().endsWith(".wal")).sorted().findFirst().orElseThrow();
+        }
+        try (FileChannel channel = FileChannel.open(segment, StandardOpenOption.WRITE)) {
+            // Simule un enregistrement interrompu par un arrêt brutal
+            channel.truncate(channel.size() - 3);
+        }
+
+        ProductService relu = new ProductService(false, journal());
+        assertThat(relu.count()).isEqualTo(3);
+        assertThat(relu.searchProductsByNom("conservé")).isEmpty();
+    }
+
+    @Test
+    void writesAreRefusedOnceTheJournalHasFailed() throws IOException {
+        // Un segment par lot : l'ouverture du suivant échoue une fois le répertoire supprimé
+        FileProductJournal journal = new FileProductJournal(directory, true, 1, Duration.ofHours(1));
+        ProductService service = new ProductService(false, journal);
+        try (Stream<Path> files = Files.walk(directory)) {
+            for (Path file : files.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        }
+
+        assertThatThrownBy(() -> service.createProduct(produit("Écrit puis échoué")))
+                .isInstanceOf(UncheckedIOException.class);
+        long count = service.count();
+
+        // Refusée avant d'être appliquée : ni catalogue ni index
+        assertThatThrownBy(() -> service.createProduct(produit("Fantôme")))
+                .isInstanceOf(UncheckedIOException.class);
+        assertThat(service.count()).isEqualTo(count);
+        assertThat(service.searchProductsByNom("fantôme")).isEmpty();
+        assertThat(service.getProductsByCategorie("tests")).hasSize(1);
+        assertThat(service.getFacets(null).getTotal()).isEqualTo(count);
+        journal.close();
+    }
+}
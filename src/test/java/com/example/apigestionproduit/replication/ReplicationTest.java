@@ -0,0 +1,203 @@
+package com.example.apigestionproduit.replication;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.service.ProductService;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.http.HttpStatus;
+import org.springframework.mock.http.server.reactive.MockServerHttpRequest;
+import org.springframework.mock.web.MockFilterChain;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.mock.web.MockHttpServletResponse;
+import org.springframework.mock.web.server.MockServerWebExchange;
+import org.springframework.web.server.WebFilterChain;
+import reactor.core.publisher.Mono;
+
+import java.math.BigDecimal;
+import java.net.SocketAddress;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BooleanSupplier;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ReplicationTest {
+
+    private static final long HEARTBEAT = 50;
+
+    @TempDir
+    Path directory;
+
+    private SocketAddress address;
+    private ProductService primary;
+    private ReplicationServer server;
+    private ProductService replicaA;
+    private ProductService replicaB;
+    private SimpleMeterRegistry registryA;
+    private ReplicationClient clientA;
+    private ReplicationClient clientB;
+
+    @BeforeEach
+    void setUp() {
+        address = ReplicationProtocol.address(directory.resolve("replication.sock").toString());
+        primary = new ProductService();
+        // Modifications antérieures aux répliques : reçues par le catalogue complet
+        primary.deleteProduct(2L);
+        primary.createProduct(new Product(null, "Clavier", "Mécanique", new BigDecimal("89.90"), 12, "Informatique"));
+        server = new ReplicationServer(primary, new SimpleMeterRegistry(), address, HEARTBEAT);
+
+        replicaA = new ProductService();
+        replicaB = new ProductService();
+        registryA = new SimpleMeterRegistry();
+        clientA = new ReplicationClient(replicaA, registryA, address, HEARTBEAT);
+        clientB = new ReplicationClient(replicaB, new SimpleMeterRegistry(), address, HEARTBEAT);
+    }
+
+    @AfterEach
+    void tearDown() {
+        clientA.close();
+        clientB.close();
+        server.close();
+    }
+
+    @Test
+    void replicasCatchUpFromCatalogThenTailChanges() throws InterruptedException {
+        await(() -> sameCatalog(replicaA) && sameCatalog(replicaB));
+        assertThat(replicaA.existsById(2L)).isFalse();
+        assertThat(server.replicaCount()).isEqualTo(2);
+
+        Product created = primary.createProduct(
+                new Product(null, "Souris", "Sans fil", new BigDecimal("24.50"), 30, "Informatique"));
+        primary.updateProduct(1L,
+                new Product(null, "Ordinateur", "Portable", new BigDecimal("999.00"), 5, "Informatique"));
+        primary.reserveStock(created.getId(), 4);
+        primary.deleteProduct(3L);
+        await(() -> sameCatalog(replicaA) && sameCatalog(replicaB));
+
+        assertThat(replicaA.getProductById(created.getId())).get()
+                .extracting(Product::getQuantiteStock).isEqualTo(26);
+        assertThat(replicaB.searchProductsByNom("souris")).extracting(Product::getId).containsExactly(created.getId());
+        assertThat(replicaB.getProductsByCategorie("Informatique")).extracting(Product::getId)
+                .containsExactlyInAnyOrderElementsOf(
+                        primary.getProductsByCategorie("Informatique").stream().map(Product::getId).toList());
+        assertThat(clientA.appliedSequence()).isEqualTo(primary.getPublishedSequence());
+
+        // Identifiants alloués après ceux du primaire (promotion d'une réplique)
+        Product local = replicaA.createProduct(
+                new Product(null, "Écran", "27 pouces", new BigDecimal("199.00"), 3, "Informatique"));
+        assertThat(local.getId()).isGreaterThan(created.getId());
+    }
+
+    @Test
+    void lagStaysWithinHeartbeatWhileConnected() throws InterruptedException {
+        await(() -> clientA.isFresh(HEARTBEAT * 10));
+        Thread.sleep(HEARTBEAT * 4);
+
+        assertThat(clientA.isFresh(HEARTBEAT * 10)).isTrue();
+        assertThat(registryA.get("produits.replication.retard").timeGauge().value(TimeUnit.MILLISECONDS))
+                .isLessThan(HEARTBEAT * 10);
+        assertThat(registryA.get("produits.replication.catalogues").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void replicaResumesFromItsSequenceAfterPrimaryRestart() throws InterruptedException {
+        await(() -> clientA.isFresh(HEARTBEAT * 10) && clientB.isFresh(HEARTBEAT * 10));
+
+        server.close();
+        Product created = primary.createProduct(
+                new Product(null, "Casque", "Audio", new BigDecimal("59.00"), 8, "Audio"));
+        await(() -> !clientA.isFresh(HEARTBEAT * 4));
+        assertThat(replicaA.existsById(created.getId())).isFalse();
+
+        server = new ReplicationServer(primary, new SimpleMeterRegistry(), address, HEARTBEAT);
+        await(() -> sameCatalog(replicaA) && clientA.isFresh(HEARTBEAT * 10));
+
+        // Reprise dans le journal : pas de second catalogue complet
+        assertThat(registryA.get("produits.replication.catalogues").counter().count()).isEqualTo(1);
+        assertThat(registryA.get("produits.replication.applications").counter().count()).isEqualTo(1);
+    }
+
+    @Test
+    void replicaFilterRejectsWritesAndStaleReads() throws Exception {
+        ReplicaFilter filter = new ReplicaFilter(clientA, HEARTBEAT * 10);
+
+        MockHttpServletResponse write = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("POST", "/api/products"), write, new MockFilterChain());
+        assertThat(write.getStatus()).isEqualTo(405);
+        assertThat(write.getHeader("Allow")).contains("GET");
+
+        await(() -> clientA.isFresh(HEARTBEAT * 10));
+        MockHttpServletResponse read = new MockHttpServletResponse();
+        MockFilterChain chain = new MockFilterChain();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/products/1"), read, chain);
+        assertThat(read.getStatus()).isEqualTo(200);
+        assertThat(chain.getRequest()).isNotNull();
+        assertThat(read.getHeader(ReplicaFilter.LAG_HEADER)).isNotNull();
+
+        server.close();
+        await(() -> !clientA.isFresh(HEARTBEAT * 10));
+        MockHttpServletResponse stale = new MockHttpServletResponse();
+        filter.doFilter(new MockHttpServletRequest("GET", "/api/products/1"), stale, new MockFilterChain());
+        assertThat(stale.getStatus()).isEqualTo(503);
+        assertThat(stale.getHeader("Retry-After")).isEqualTo("1");
+    }
+
+    @Test
+    void reactiveReplicaFilterAppliesTheSameRules() throws Exception {
+        ReactiveReplicaFilter filter = new ReactiveReplicaFilter(clientA, HEARTBEAT * 10);
+        AtomicBoolean passed = new AtomicBoolean();
+        WebFilterChain chain = exchange -> {
+            passed.set(true);
+            return Mono.empty();
+        };
+
+        MockServerWebExchange write = MockServerWebExchange.from(MockServerHttpRequest.delete("/api/products/1"));
+        filter.filter(write, chain).block();
+        assertThat(write.getResponse().getStatusCode()).isEqualTo(HttpStatus.METHOD_NOT_ALLOWED);
+
+        await(() -> clientA.isFresh(HEARTBEAT * 10));
+        MockServerWebExchange read = MockServerWebExchange.from(MockServerHttpRequest.get("/api/products/1"));
+        filter.filter(read, chain).block();
+        assertThat(passed).isTrue();
+        assertThat(read.getResponse().getHeaders().getFirst(ReplicaFilter.LAG_HEADER)).isNotNull();
+
+        passed.set(false);
+        server.close();
+        await(() -> !clientA.isFresh(HEARTBEAT * 10));
+        MockServerWebExchange stale = MockServerWebExchange.from(MockServerHttpRequest.get("/api/products"));
+        filter.filter(stale, chain).block();
+        assertThat(stale.getResponse().getStatusCode()).isEqualTo(HttpStatus.SERVICE_UNAVAILABLE);
+        assertThat(passed).isFalse();
+    }
+
+    private boolean sameCatalog(ProductService replica) {
+        List<Product> expected = primary.getAllProducts();
+        List<Product> actual = replica.getAllProducts();
+        if (expected.size() != actual.size()) {
+            return false;
+        }
+        for (Product product : expected) {
+            Product copy = replica.getProductById(product.getId()).orElse(null);
+            if (copy == null || !Objects.equals(copy.getNom(), product.getNom())
+                    || !Objects.equals(copy.getQuantiteStock(), product.getQuantiteStock())
+                    || copy.getVersion() != product.getVersion()) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("délai dépassé").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+}
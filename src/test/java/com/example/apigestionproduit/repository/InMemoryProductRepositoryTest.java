@@ -0,0 +1,9 @@
+package com.example.apigestionproduit.repository;
+
+class InMemoryProductRepositoryTest extends ProductRepositoryContractTest {
+
+    @Override
+    protected ProductRepository createRepository() {
+        return new InMemoryProductRepository();
+    }
+}
@@ -0,0 +1,53 @@
+package com.example.apigestionproduit.repository;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class MappedFileProductRepositoryTest extends ProductRepositoryContractTest {
+
+    @TempDir
+    Path directory;
+
+    @Override
+    protected ProductRepository createRepository() {
+        return new OffHeapProductRepository(SlabAllocator.mappedFiles(directory), 4, 16 * 1024);
+    }
+
+    @Test
+    void allocatorsOnTheSameDirectoryDoNotCollide() {
+        repository.compute(1L, (id, previous) -> produit(1, "Premier"));
+
+        // Deuxième allocateur pendant que le premier est ouvert, puis un troisième après sa fermeture
+        try (ProductRepository second = createRepository()) {
+            second.compute(1L, (id, previous) -> produit(1, "Second"));
+            assertThat(second.get(1L).getNom()).isEqualTo("Second");
+        }
+        try (ProductRepository third = createRepository()) {
+            third.compute(1L, (id, previous) -> produit(1, "Troisième"));
+            assertThat(third.get(1L).getNom()).isEqualTo("Troisième");
+        }
+        assertThat(repository.get(1L).getNom()).isEqualTo("Premier");
+    }
+
+    @Test
+    void filesLeftByAnUncleanStopAreRemoved() throws IOException {
+        // Exécution interrompue : sous-répertoire non verrouillé, et bloc d'une version précédente
+        Path crashed = Files.createDirectories(directory.resolve("run-arret-brutal"));
+        Files.createFile(crashed.resolve(".lock"));
+        Files.createFile(crashed.resolve("slab-1.bin"));
+        Files.createFile(directory.resolve("slab-1.bin"));
+
+        try (ProductRepository next = createRepository()) {
+            next.compute(1L, (id, previous) -> produit(1, "Reprise"));
+            assertThat(next.get(1L).getNom()).isEqualTo("Reprise");
+        }
+        assertThat(crashed).doesNotExist();
+        assertThat(directory.resolve("slab-1.bin")).doesNotExist();
+    }
+}
@@ -0,0 +1,28 @@
+package com.example.apigestionproduit.repository;
+
+import com.example.apigestionproduit.model.Product;
+import org.junit.jupiter.api.Test;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class OffHeapProductRepositoryTest extends ProductRepositoryContractTest {
+
+    @Override
+    protected ProductRepository createRepository() {
+        // Petits blocs et peu de partitions pour exercer le compactage
+        return new OffHeapProductRepository(SlabAllocator.direct(), 4, 16 * 1024);
+    }
+
+    @Test
+    void compactionBoundsUsedMemory() {
+        OffHeapProductRepository offHeap = (OffHeapProductRepository) repository;
+        for (int round = 0; round < 100; round++) {
+            for (long id = 1; id <= 100; id++) {
+                Product product = produit(id, "Produit " + id);
+                offHeap.compute(id, (key, previous) -> product);
+            }
+        }
+        // 100 produits vivants : l'espace mort ne peut dépasser l'espace vivant que d'un bloc par partition
+        assertThat(offHeap.usedBytes()).isLessThan(2 * 100 * 200 + 4 * 16 * 1024);
+    }
+}
@@ -0,0 +1,169 @@
+package com.example.apigestionproduit.repository;
+
+import com.example.apigestionproduit.model.Product;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+/**
+ * Contrat commun à tous les moteurs de stockage : chaque moteur a sa sous-classe.
+ */
+abstract class ProductRepositoryContractTest {
+
+    protected ProductRepository repository;
+
+    protected abstract ProductRepository createRepository() throws Exception;
+
+    @BeforeEach
+    void setUp() throws Exception {
+        repository = createRepository();
+    }
+
+    @AfterEach
+    void tearDown() {
+        repository.close();
+    }
+
+    protected static Product produit(long id, String nom) {
+        return new Product(id, nom, "Description de " + nom, new BigDecimal("12.50"), 7, "Catégorie");
+    }
+
+    private void put(Product product) {
+        repository.compute(product.getId(), (id, previous) -> product);
+    }
+
+    @Test
+    void storesAndReadsAllFields() {
+        Product product = produit(1, "Écran 27\"");
+        put(product);
+
+        Product lu = repository.get(1L);
+        assertThat(lu.getId()).isEqualTo(1L);
+        assertThat(lu.getNom()).isEqualTo("Écran 27\"");
+        assertThat(lu.getDescription()).isEqualTo(product.getDescription());
+        assertThat(lu.getPrix()).isEqualByComparingTo("12.50");
+        assertThat(lu.getQuantiteStock()).isEqualTo(7);
+        assertThat(lu.getCategorie()).isEqualTo("Catégorie");
+        assertThat(lu.getDateCreation()).isEqualTo(product.getDateCreation());
+        assertThat(repository.containsKey(1L)).isTrue();
+        assertThat(repository.get(2L)).isNull();
+        assertThat(repository.containsKey(2L)).isFalse();
+    }
+
+    @Test
+    void idZeroIsNeverStored() {
+        put(produit(1, "Premier"));
+        put(produit(2, "Second"));
+
+        assertThat(repository.get(0L)).isNull();
+        assertThat(repository.containsKey(0L)).isFalse();
+        assertThat(repository.compute(0L, (id, previous) -> {
+            assertThat(previous).isNull();
+            return null;
+        })).isNull();
+        assertThat(repository.computeIfPresent(0L, (id, previous) -> null)).isNull();
+
+        assertThat(repository.size()).isEqualTo(2);
+        assertThat(repository.get(1L).getNom()).isEqualTo("Premier");
+        assertThat(repository.get(2L).getNom()).isEqualTo("Second");
+    }
+
+    @Test
+    void keepsNullFields() {
+        put(new Product(3L, null, null, null, null, null, null, null));
+
+        Product lu = repository.get(3L);
+        assertThat(lu.getNom()).isNull();
+        assertThat(lu.getPrix()).isNull();
+        assertThat(lu.getQuantiteStock()).isNull();
+        assertThat(lu.getDateModification()).isNull();
+    }
+
+    @Test
+    void computeReceivesCurrentValueAndReplacesIt() {
+        put(produit(1, "Avant"));
+
+        Product resultat = repository.compute(1L, (id, previous) -> {
+            assertThat(previous.getNom()).isEqualTo("Avant");
+            return produit(id, "Après");
+        });
+
+        assertThat(resultat.getNom()).isEqualTo("Après");
+        assertThat(repository.get(1L).getNom()).isEqualTo("Après");
+        assertThat(repository.size()).isEqualTo(1);
+    }
+
+    @Test
+    void computeIfPresentIgnoresMissingAndRemovesOnNull() {
+        assertThat(repository.computeIfPresent(1L, (id, previous) -> produit(id, "Jamais"))).isNull();
+        assertThat(repository.containsKey(1L)).isFalse();
+
+        put(produit(1, "Supprimé"));
+        assertThat(repository.computeIfPresent(1L, (id, previous) -> null)).isNull();
+        assertThat(repository.containsKey(1L)).isFalse();
+        assertThat(repository.size()).isZero();
+    }
+
+    @Test
+    void valuesIteratesEveryProduct() {
+        for (long id = 1; id <= 500; id++) {
+            put(produit(id, "Produit " + id));
+        }
+        repository.computeIfPresent(250L, (id, previous) -> null);
+
+        Set<Long> ids = new HashSet<>();
+        repository.values().forEach(p -> ids.add(p.getId()));
+        assertThat(ids).hasSize(499).doesNotContain(250L);
+        assertThat(repository.size()).isEqualTo(499);
+    }
+
+    @Test
+    void survivesManyRewritesOfTheSameProducts() {
+        for (int round = 0; round < 200; round++) {
+            for (long id = 1; id <= 200; id++) {
+                put(produit(id, "Produit " + id + " v" + round));
+            }
+        }
+        assertThat(repository.size()).isEqualTo(200);
+        assertThat(repository.get(42L).getNom()).isEqualTo("Produit 42 v199");
+    }
+
+    @Test
+    void concurrentComputeOnSameProductLosesNoUpdate() throws Exception {
+        put(new Product(1L, "Compteur", null, null, 0, null, null, null));
+        int threads = 4;
+        int increments = 2_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<?>> futures = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < increments; i++) {
+                    repository.compute(1L, (id, previous) -> {
+                        previous.setQuantiteStock(previous.getQuantiteStock() + 1);
+                        return previous;
+                    });
+                    repository.get(1L);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        assertThat(repository.get(1L).getQuantiteStock()).isEqualTo(threads * increments);
+    }
+}
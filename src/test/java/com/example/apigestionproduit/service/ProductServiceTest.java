@@ -0,0 +1,581 @@
+package com.example.apigestionproduit.service;
+
+import com.example.apigestionproduit.model.BatchItemResult;
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.model.ProductChange;
+import com.example.apigestionproduit.model.ProductFacets;
+import com.example.apigestionproduit.model.ProductQuery;
+import com.example.apigestionproduit.model.StockLine;
+import com.example.apigestionproduit.persistence.ProductJournal;
+import com.example.apigestionproduit.repository.InMemoryProductRepository;
+import com.example.apigestionproduit.repository.OffHeapProductRepository;
+import com.example.apigestionproduit.repository.SlabAllocator;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+import static org.assertj.core.api.Assertions.entry;
+import static org.assertj.core.api.Assertions.tuple;
+
+class ProductServiceTest {
+
+    private static final String[] CATEGORIES = {"Électronique", "Accessoires", "Bureau", "Jeux"};
+
+    private ProductService service;
+
+    @BeforeEach
+    void setUp() {
+        service = new ProductService();
+    }
+
+    private static Product produit(String nom, String categorie) {
+        return new Product(null, nom, "description", new BigDecimal("10.00"), 5, categorie);
+    }
+
+    private Set<Long> idsParParcoursComplet(String categorie) {
+        return service.getAllProducts().stream()
+                .filter(p -> p.getCategorie() != null && p.getCategorie().equalsIgnoreCase(categorie))
+                .map(Product::getId)
+                .collect(Collectors.toSet());
+    }
+
+    private static Set<Long> ids(List<Product> products) {
+        return products.stream().map(Product::getId).collect(Collectors.toSet());
+    }
+
+    @Test
+    void getProductsByCategorieIgnoresCase() {
+        assertThat(service.getProductsByCategorie("accessoires")).hasSize(2);
+        assertThat(service.getProductsByCategorie("ÉLECTRONIQUE")).hasSize(1);
+        assertThat(service.getProductsByCategorie("Inconnue")).isEmpty();
+    }
+
+    @Test
+    void updateMovesProductBetweenCategories() {
+        Product souris = service.searchProductsByNom("souris").get(0);
+
+        service.updateProduct(souris.getId(), produit("Souris Sans Fil", "Bureau"));
+
+        assertThat(ids(service.getProductsByCategorie("Accessoires"))).doesNotContain(souris.getId());
+        assertThat(ids(service.getProductsByCategorie("bureau"))).containsExactly(souris.getId());
+    }
+
+    @Test
+    void deleteRemovesProductFromCategory() {
+        Product clavier = service.searchProductsByNom("clavier").get(0);
+
+        assertThat(service.deleteProduct(clavier.getId())).isTrue();
+        assertThat(service.deleteProduct(clavier.getId())).isFalse();
+
+        assertThat(ids(service.getProductsByCategorie("Accessoires"))).doesNotContain(clavier.getId());
+    }
+
+    @Test
+    void categoryIndexStaysConsistentUnderConcurrentMutations() throws Exception {
+        int threads = 8;
+        int operationsParThread = 5_000;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch depart = new CountDownLatch(1);
+        List<Future<Void>> resultats = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            resultats.add(executor.submit(() -> {
+                depart.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < operationsParThread; i++) {
+                    String categorie = CATEGORIES[random.nextInt(CATEGORIES.length)];
+                    long cible = 1 + random.nextLong(service.count() + 3);
+                    switch (random.nextInt(4)) {
+                        case 0, 1 -> service.createProduct(produit("p" + i, categorie));
+                        case 2 -> service.updateProduct(cible, produit("p" + i, categorie));
+                        default -> service.deleteProduct(cible);
+                    }
+                    service.getProductsByCategorie(categorie);
+                }
+                return null;
+            }));
+        }
+
+        depart.countDown();
+        for (Future<Void> resultat : resultats) {
+            resultat.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        int total = 0;
+        for (String categorie : CATEGORIES) {
+            Set<Long> indexes = ids(service.getProductsByCategorie(categorie));
+            assertThat(indexes).isEqualTo(idsParParcoursComplet(categorie));
+            total += indexes.size();
+        }
+        assertThat(total).isEqualTo(service.count());
+    }
+
+    @Test
+    void searchProductsByNomMatchesSubstringIgnoringCase() {
+        assertThat(service.searchProductsByNom("PORTABLE")).extracting(Product::getNom)
+                .containsExactly("Ordinateur Portable");
+        assertThat(service.searchProductsByNom("r")).hasSize(3);
+        assertThat(service.searchProductsByNom("mécani")).hasSize(1);
+        assertThat(service.searchProductsByNom("mecanique")).isEmpty();
+        assertThat(service.searchProductsByNom("introuvable")).isEmpty();
+    }
+
+    @Test
+    void searchProductsByNomCanIgnoreAccents() {
+        ProductService sansAccents = new ProductService(true);
+
+        assertThat(sansAccents.searchProductsByNom("mecanique")).extracting(Product::getNom)
+                .containsExactly("Clavier Mécanique");
+        assertThat(sansAccents.searchProductsByNom("MÉCANIQUE")).hasSize(1);
+    }
+
+    @Test
+    void searchIndexFollowsUpdatesAndDeletes() {
+        Product souris = service.searchProductsByNom("souris").get(0);
+
+        service.updateProduct(souris.getId(), produit("Trackball Optique", "Accessoires"));
+        assertThat(service.searchProductsByNom("souris")).isEmpty();
+        assertThat(service.searchProductsByNom("trackball")).extracting(Product::getId)
+                .containsExactly(souris.getId());
+
+        service.deleteProduct(souris.getId());
+        assertThat(service.searchProductsByNom("trackball")).isEmpty();
+    }
+
+    @Test
+    void searchProductsRanksByRelevanceAcrossFields() {
+        Product tapis = service.createProduct(new Product(null, "Tapis", "Tapis pour souris gaming",
+                new BigDecimal("9.90"), 40, "Bureau"));
+
+        // Le nom pèse plus que la description
+        assertThat(service.searchProducts("souris", 10)).extracting(Product::getNom)
+                .containsExactly("Souris Sans Fil", "Tapis");
+        assertThat(service.searchProducts("GAMING, clavier", 10)).extracting(Product::getNom)
+                .containsExactly("Clavier Mécanique", "Tapis");
+        assertThat(service.searchProducts("accessoires", 10)).extracting(Product::getNom)
+                .containsExactlyInAnyOrder("Souris Sans Fil", "Clavier Mécanique");
+        assertThat(service.searchProducts("souris", 1)).extracting(Product::getId).containsExactly(
+                service.searchProductsByNom("souris").get(0).getId());
+        assertThat(service.searchProducts("introuvable", 10)).isEmpty();
+
+        service.updateProduct(tapis.getId(), new Product(null, "Tapis", "Tapis de bureau",
+                new BigDecimal("9.90"), 40, "Bureau"));
+        assertThat(service.searchProducts("gaming", 10)).extracting(Product::getNom)
+                .containsExactly("Clavier Mécanique");
+        service.deleteProduct(tapis.getId());
+        assertThat(service.searchProducts("tapis", 10)).isEmpty();
+    }
+
+    @Test
+    void facetsFollowEveryMutation() {
+        ProductFacets initial = service.getFacets(null);
+        assertThat(initial.getTotal()).isEqualTo(3);
+        assertThat(initial.getCategories()).containsExactly(entry("Accessoires", 2L), entry("Électronique", 1L));
+        assertThat(initial.getPrix()).extracting(ProductFacets.Tranche::getMin, ProductFacets.Tranche::getMax,
+                        ProductFacets.Tranche::getNombre)
+                .containsExactly(tuple(new BigDecimal("20.00"), new BigDecimal("50.00"), 1L),
+                        tuple(new BigDecimal("100.00"), new BigDecimal("200.00"), 1L),
+                        tuple(new BigDecimal("500.00"), new BigDecimal("1000.00"), 1L));
+        assertThat(initial.getEnStock()).isEqualTo(3);
+
+        Product casque = service.createProduct(new Product(null, "Casque", "Audio", new BigDecimal("1500.00"), 1,
+                "accessoires"));
+        service.reserveStock(casque.getId(), 1);
+        Product souris = service.searchProductsByNom("souris").get(0);
+        service.updateProduct(souris.getId(), produit("Souris Sans Fil", "Bureau"));
+        service.deleteProduct(1L);
+
+        ProductFacets facets = service.getFacets(null);
+        assertThat(facets.getTotal()).isEqualTo(3);
+        // Dernier libellé indexé de la catégorie
+        assertThat(facets.getCategories()).containsExactly(entry("accessoires", 2L), entry("Bureau", 1L));
+        assertThat(facets.getPrix()).extracting(ProductFacets.Tranche::getMin, ProductFacets.Tranche::getNombre)
+                .containsExactly(tuple(new BigDecimal("10.00"), 1L), tuple(new BigDecimal("100.00"), 1L),
+                        tuple(new BigDecimal("1000.00"), 1L));
+        assertThat(facets.getPrix().get(2).getMax()).isNull();
+        assertThat(facets.getEnStock()).isEqualTo(2);
+        assertThat(facets.getEnRupture()).isEqualTo(1);
+
+        ProductFacets filtered = service.getFacets("s");
+        assertThat(filtered.getTotal()).isEqualTo(2);
+        assertThat(filtered.getCategories()).containsOnlyKeys("accessoires", "Bureau");
+    }
+
+    @Test
+    void facetsMatchFullRecountAfterConcurrentMutations() throws Exception {
+        int threads = 4;
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        List<Future<Void>> resultats = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            resultats.add(executor.submit(() -> {
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; i < 2_000; i++) {
+                    long id = random.nextLong(1, 200);
+                    Product details = new Product(null, "Produit " + i, "description",
+                            BigDecimal.valueOf(random.nextInt(200_000), 2), random.nextInt(3),
+                            CATEGORIES[random.nextInt(CATEGORIES.length)]);
+                    switch (random.nextInt(4)) {
+                        case 0 -> service.createProduct(details);
+                        case 1 -> service.updateProduct(id, details);
+                        case 2 -> service.deleteProduct(id);
+                        default -> {
+                            try {
+                                service.reserveStock(id, 1);
+                            } catch (InsufficientStockException e) {
+                                service.releaseStock(id, 2);
+                            }
+                        }
+                    }
+                }
+                return null;
+            }));
+        }
+        for (Future<Void> resultat : resultats) {
+            resultat.get(60, TimeUnit.SECONDS);
+        }
+        executor.shutdown();
+
+        List<Product> all = service.getAllProducts();
+        ProductFacets facets = service.getFacets(null);
+        assertThat(facets.getTotal()).isEqualTo(all.size());
+        assertThat(facets.getEnStock()).isEqualTo(all.stream().filter(p -> p.stock() > 0).count());
+        for (String categorie : CATEGORIES) {
+            long attendu = all.stream().filter(p -> p.getCategorie().equalsIgnoreCase(categorie)).count();
+            assertThat(facets.getCategories().getOrDefault(categorie, 0L)).as(categorie).isEqualTo(attendu);
+        }
+        assertThat(facets.getPrix().stream().mapToLong(ProductFacets.Tranche::getNombre).sum())
+                .isEqualTo(all.size());
+    }
+
+    @Test
+    void searchProductsKeepsBestMatchesOnLargeCandidateSets() {
+        List<Product> lot = new ArrayList<>();
+        for (int i = 0; i < 30_000; i++) {
+            lot.add(new Product(null, "Produit " + i, "Description du produit " + i,
+                    new BigDecimal("10.00"), 1, "Categorie " + (i % 50)));
+        }
+        List<Long> created = service.createProducts(lot).stream().map(BatchItemResult::getId).toList();
+
+        // Mot rare d'abord : la liste du mot courant n'est parcourue que pour compléter
+        assertThat(service.searchProducts("produit 12345", 1)).extracting(Product::getId)
+                .containsExactly(created.get(12345));
+        assertThat(service.searchProducts("produit 12345", 3)).extracting(Product::getId)
+                .first().isEqualTo(created.get(12345));
+        // Scores égaux : identifiants croissants, notation parallèle comprise
+        assertThat(service.searchProducts("produit", 5)).extracting(Product::getId)
+                .containsExactlyElementsOf(created.subList(0, 5));
+    }
+
+    @Test
+    void worksOnOffHeapEngine() {
+        ProductService horsTas = new ProductService(false,
+                new OffHeapProductRepository(SlabAllocator.direct()), ProductJournal.NONE);
+        Product souris = horsTas.searchProductsByNom("souris").get(0);
+
+        horsTas.updateProduct(souris.getId(), produit("Souris Verticale", "Bureau"));
+
+        assertThat(horsTas.getProductById(souris.getId())).get()
+                .extracting(Product::getNom).isEqualTo("Souris Verticale");
+        assertThat(ids(horsTas.getProductsByCategorie("bureau"))).containsExactly(souris.getId());
+        assertThat(horsTas.deleteProduct(souris.getId())).isTrue();
+        assertThat(horsTas.count()).isEqualTo(2);
+    }
+
+    @Test
+    void metricsRecordOperationsResultSizesAndGauges() {
+        SimpleMeterRegistry registry = new SimpleMeterRegistry();
+        ProductService mesure = new ProductService(false, new InMemoryProductRepository(), ProductJournal.NONE, registry);
+
+        mesure.createProduct(produit("Casque Audio", "Audio"));
+        mesure.searchProductsByNom("clavier");
+        mesure.searchProductsByNom("o");
+        mesure.getProductsByCategorie("accessoires");
+
+        assertThat(registry.get(ProductMetrics.OPERATIONS).tag("operation", "create").timer().count()).isEqualTo(4);
+        assertThat(registry.get(ProductMetrics.OPERATIONS).tag("operation", "search").timer().count()).isEqualTo(2);
+        assertThat(registry.get(ProductMetrics.RESULTATS).tag("operation", "search").summary().totalAmount())
+                .isEqualTo(1 + 3);
+        assertThat(registry.get(ProductMetrics.RESULTATS).tag("operation", "category").summary().max()).isEqualTo(2);
+        assertThat(registry.get("produits.catalogue.taille").gauge().value()).isEqualTo(4);
+        assertThat(registry.get("produits.index.categories").gauge().value()).isEqualTo(3);
+    }
+
+    @Test
+    void updateReplacesSnapshotAndIncrementsVersion() {
+        Product avant = service.getProductById(1L).orElseThrow();
+
+        Product apres = service.updateProduct(1L, produit("Ordinateur Fixe", "Électronique")).orElseThrow();
+
+        assertThat(apres).isNotSameAs(avant);
+        assertThat(apres.getVersion()).isEqualTo(avant.getVersion() + 1);
+        assertThat(apres.getDateCreation()).isEqualTo(avant.getDateCreation());
+        assertThat(avant.getNom()).isEqualTo("Ordinateur Portable");
+        assertThat(service.getProductById(1L)).containsSame(apres);
+    }
+
+    @Test
+    void conditionalUpdateRejectsStaleVersion() {
+        long version = service.getProductById(2L).orElseThrow().getVersion();
+
+        service.updateProduct(2L, produit("Souris A", "Accessoires"), version);
+
+        assertThatThrownBy(() -> service.updateProduct(2L, produit("Souris B", "Accessoires"), version))
+                .isInstanceOf(VersionConflictException.class)
+                .extracting(e -> ((VersionConflictException) e).getCurrentVersion())
+                .isEqualTo(version + 1);
+        assertThat(service.getProductById(2L).orElseThrow().getNom()).isEqualTo("Souris A");
+        assertThat(service.searchProductsByNom("souris b")).isEmpty();
+    }
+
+    /**
+     * Chaque écrivain écrit des produits dont tous les champs portent la même valeur :
+     * un lecteur qui observerait un mélange de deux écritures verrait des champs discordants.
+     */
+    @Test
+    void concurrentWritersNeverExposeTornProducts() throws Exception {
+        int ecrivains = 8;
+        int lecteurs = 4;
+        long dureeNanos = TimeUnit.MILLISECONDS.toNanos(1_500);
+        long[] ids = {1L, 2L, 3L};
+        ExecutorService executor = Executors.newFixedThreadPool(ecrivains + lecteurs);
+        CountDownLatch depart = new CountDownLatch(1);
+        AtomicBoolean termine = new AtomicBoolean();
+        AtomicLong ecritures = new AtomicLong();
+        AtomicLong lectures = new AtomicLong();
+        List<Future<Void>> resultats = new ArrayList<>();
+
+        for (int w = 0; w < ecrivains; w++) {
+            int ecrivain = w;
+            resultats.add(executor.submit(() -> {
+                depart.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                for (int i = 0; !termine.get(); i++) {
+                    int valeur = ecrivain * 1_000_000 + i;
+                    Product details = new Product(null, "n" + valeur, "d" + valeur,
+                            BigDecimal.valueOf(valeur, 2), valeur, "c" + valeur);
+                    service.updateProduct(ids[random.nextInt(ids.length)], details);
+                    ecritures.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+        for (int r = 0; r < lecteurs; r++) {
+            resultats.add(executor.submit(() -> {
+                depart.await();
+                ThreadLocalRandom random = ThreadLocalRandom.current();
+                long derniereVersion = 0;
+                while (!termine.get()) {
+                    Product lu = service.getProductById(ids[random.nextInt(ids.length)]).orElseThrow();
+                    if (lu.getNom().startsWith("n")) {
+                        String valeur = lu.getNom().substring(1);
+                        assertThat(lu.getDescription()).isEqualTo("d" + valeur);
+                        assertThat(lu.getCategorie()).isEqualTo("c" + valeur);
+                        assertThat(lu.getQuantiteStock()).isEqualTo(Integer.parseInt(valeur));
+                        assertThat(lu.prixCentimes()).isEqualTo(Long.parseLong(valeur));
+                    }
+                    if (lu.getId() == 1L) {
+                        assertThat(lu.getVersion()).isGreaterThanOrEqualTo(derniereVersion);
+                        derniereVersion = lu.getVersion();
+                    }
+                    lectures.incrementAndGet();
+                }
+                return null;
+            }));
+        }
+
+        long debut = System.nanoTime();
+        depart.countDown();
+        while (System.nanoTime() - debut < dureeNanos) {
+            Thread.sleep(50);
+        }
+        termine.set(true);
+        for (Future<Void> resultat : resultats) {
+            resultat.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        long versions = 0;
+        for (long id : ids) {
+            versions += service.getProductById(id).orElseThrow().getVersion() - 1;
+        }
+        // Aucune mise à jour perdue : chaque écriture a produit exactement une version
+        assertThat(versions).isEqualTo(ecritures.get());
+        assertThat(ecritures.get()).isPositive();
+        assertThat(lectures.get()).isPositive();
+        for (long id : ids) {
+            Product courant = service.getProductById(id).orElseThrow();
+            assertThat(ids(service.getProductsByCategorie(courant.getCategorie()))).containsExactly(id);
+        }
+    }
+
+    @Test
+    void concurrentReservationsNeverOversell() throws Exception {
+        int stockInitial = 10_000;
+        int threads = 64;
+        int tentativesParThread = 500;
+        Product chaud = service.createProduct(new Product(null, "Console", "Vente flash",
+                new BigDecimal("499.00"), stockInitial, "Jeux"));
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        CountDownLatch depart = new CountDownLatch(1);
+        AtomicLong reussies = new AtomicLong();
+        AtomicLong refusees = new AtomicLong();
+        List<Future<Void>> resultats = new ArrayList<>();
+
+        for (int t = 0; t < threads; t++) {
+            resultats.add(executor.submit(() -> {
+                depart.await();
+                for (int i = 0; i < tentativesParThread; i++) {
+                    try {
+                        int reste = service.reserveStock(chaud.getId(), 1).orElseThrow().getQuantiteStock();
+                        assertThat(reste).isNotNegative();
+                        reussies.incrementAndGet();
+                    } catch (InsufficientStockException e) {
+                        refusees.incrementAndGet();
+                    }
+                }
+                return null;
+            }));
+        }
+
+        depart.countDown();
+        for (Future<Void> resultat : resultats) {
+            resultat.get(1, TimeUnit.MINUTES);
+        }
+        executor.shutdown();
+
+        Product final_ = service.getProductById(chaud.getId()).orElseThrow();
+        assertThat(reussies.get()).isEqualTo(stockInitial);
+        assertThat(refusees.get()).isEqualTo((long) threads * tentativesParThread - stockInitial);
+        assertThat(final_.getQuantiteStock()).isZero();
+        assertThat(final_.getVersion()).isEqualTo(1 + stockInitial);
+    }
+
+    @Test
+    void changesAreSequencedWithTombstonesAndBoundedWindow() {
+        ProductService journalise = new ProductService(false, new InMemoryProductRepository(),
+                ProductJournal.NONE, new SimpleMeterRegistry(), 4);
+        long apresDemo = journalise.getPublishedSequence();
+        long depart = apresDemo - 3;
+
+        assertThat(journalise.getChangesSince(depart, 10)).get().asList()
+                .extracting("type").containsExactly(ProductChange.Type.CREATE, ProductChange.Type.CREATE,
+                        ProductChange.Type.CREATE);
+        assertThat(journalise.getChangesSince(apresDemo, 10)).get().asList().isEmpty();
+
+        journalise.reserveStock(1L, 1);
+        journalise.deleteProduct(2L);
+        List<ProductChange> changes = journalise.getChangesSince(apresDemo, 10).orElseThrow();
+        assertThat(changes).extracting(ProductChange::getSequence).containsExactly(apresDemo + 1, apresDemo + 2);
+        assertThat(changes.get(0).getType()).isEqualTo(ProductChange.Type.UPDATE);
+        assertThat(changes.get(0).getProduit().getQuantiteStock()).isEqualTo(9);
+        assertThat(changes.get(1).getType()).isEqualTo(ProductChange.Type.DELETE);
+        assertThat(changes.get(1).getId()).isEqualTo(2L);
+        assertThat(changes.get(1).getProduit()).isNull();
+        assertThat(journalise.getPublishedSequence()).isEqualTo(apresDemo + 2);
+
+        // 5 événements pour une fenêtre de 4 : le premier est perdu
+        assertThat(journalise.getChangesSince(depart, 10)).isEmpty();
+        assertThat(journalise.getChangesSince(depart + 1, 2)).get().asList().hasSize(2);
+        // Séquence d'une autre instance ou future : resynchronisation
+        assertThat(journalise.getChangesSince(0, 10)).isEmpty();
+        assertThat(journalise.getChangesSince(apresDemo + 3, 10)).isEmpty();
+    }
+
+    @Test
+    void multiLineReservationIsAllOrNothing() {
+        // Stocks de démonstration : 1 → 10, 2 → 50, 3 → 25
+        List<BatchItemResult> echec = service.reserveStock(List.of(
+                new StockLine(1L, 2), new StockLine(2L, 5), new StockLine(3L, 26)));
+
+        assertThat(echec).extracting(BatchItemResult::getStatus).containsExactly(424, 424, 409);
+        assertThat(service.getProductById(1L).orElseThrow().getQuantiteStock()).isEqualTo(10);
+        assertThat(service.getProductById(2L).orElseThrow().getQuantiteStock()).isEqualTo(50);
+        assertThat(service.getProductById(3L).orElseThrow().getQuantiteStock()).isEqualTo(25);
+
+        List<BatchItemResult> succes = service.reserveStock(List.of(new StockLine(1L, 2), new StockLine(3L, 25)));
+
+        assertThat(succes).extracting(BatchItemResult::getStatus).containsExactly(200, 200);
+        assertThat(service.getProductById(1L).orElseThrow().getQuantiteStock()).isEqualTo(8);
+        assertThat(service.releaseStock(3L, 4).orElseThrow().getQuantiteStock()).isEqualTo(4);
+    }
+
+    @Test
+    void queryProductsMatchesFullScanForEveryPlan() {
+        // "Grande" dépasse CATEGORY_SCAN_LIMIT (parcours d'index trié), "Petite" non (tas borné)
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        List<Product> lot = new ArrayList<>();
+        for (int i = 0; i < ProductService.CATEGORY_SCAN_LIMIT + 2_000; i++) {
+            BigDecimal prix = random.nextInt(20) == 0 ? null : BigDecimal.valueOf(random.nextInt(20_000), 2);
+            Integer stock = random.nextInt(20) == 0 ? null : random.nextInt(100);
+            lot.add(new Product(null, "q" + i, null, prix, stock, i % 3 == 0 ? "Petite" : "Grande"));
+        }
+        service.createProducts(lot);
+        // Quelques mises à jour et réservations pour exercer la maintenance des index
+        for (long id = 10; id < 200; id += 7) {
+            service.updateProduct(id, new Product(null, "maj", null, new BigDecimal("55.55"), 3, "Petite"));
+            service.releaseStock(id + 1, 5);
+        }
+
+        BigDecimal[] bornes = {null, new BigDecimal("20"), new BigDecimal("100.005")};
+        Integer[] stocks = {null, 50};
+        String[] categories = {null, "petite", "GRANDE"};
+        for (BigDecimal prixMin : bornes) {
+            for (BigDecimal prixMax : bornes) {
+                for (Integer stockMin : stocks) {
+                    for (String categorie : categories) {
+                        for (ProductQuery.SortField tri : ProductQuery.SortField.values()) {
+                            for (boolean desc : new boolean[]{false, true}) {
+                                ProductQuery query = new ProductQuery(prixMin, prixMax, stockMin, categorie,
+                                        tri, desc, 25);
+                                assertThat(service.queryProducts(query)).extracting(Product::getId)
+                                        .as(query.toString())
+                                        .containsExactlyElementsOf(parcoursComplet(query));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    private List<Long> parcoursComplet(ProductQuery query) {
+        Comparator<Product> ordre = switch (query.getSortField()) {
+            case ID -> Comparator.comparing(Product::getId);
+            case PRIX -> Comparator.comparing(Product::getPrix).thenComparing(Product::getId);
+            case QUANTITE_STOCK -> Comparator.comparing(Product::getQuantiteStock).thenComparing(Product::getId);
+        };
+        boolean filtrePrix = query.getSortField() == ProductQuery.SortField.PRIX
+                || query.getPrixMin() != null || query.getPrixMax() != null;
+        boolean filtreStock = query.getSortField() == ProductQuery.SortField.QUANTITE_STOCK
+                || query.getStockMin() != null;
+        return service.getAllProducts().stream()
+                .filter(p -> !filtrePrix || p.getPrix() != null)
+                .filter(p -> query.getPrixMin() == null || p.getPrix().compareTo(query.getPrixMin()) >= 0)
+                .filter(p -> query.getPrixMax() == null || p.getPrix().compareTo(query.getPrixMax()) <= 0)
+                .filter(p -> !filtreStock || p.getQuantiteStock() != null)
+                .filter(p -> query.getStockMin() == null || p.getQuantiteStock() >= query.getStockMin())
+                .filter(p -> query.getCategorie() == null || query.getCategorie().equalsIgnoreCase(p.getCategorie()))
+                .sorted(query.isDescending() ? ordre.reversed() : ordre)
+                .limit(query.getLimit())
+                .map(Product::getId)
+                .collect(Collectors.toList());
+    }
+}
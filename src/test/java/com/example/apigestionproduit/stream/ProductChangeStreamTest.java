@@ -0,0 +1,218 @@
+package com.example.apigestionproduit.stream;
+
+import com.example.apigestionproduit.model.Product;
+import com.example.apigestionproduit.service.ProductService;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.micrometer.core.instrument.simple.SimpleMeterRegistry;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BooleanSupplier;
+import java.util.stream.Collectors;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ProductChangeStreamTest {
+
+    private ProductService service;
+    private SimpleMeterRegistry registry;
+    private ProductChangeStream stream;
+
+    @BeforeEach
+    void setUp() {
+        service = new ProductService();
+        registry = new SimpleMeterRegistry();
+        stream = new ProductChangeStream(service, new ObjectMapper().findAndRegisterModules().writer(), registry,
+                3, 2, 1, 60_000, 60_000, 60_000);
+    }
+
+    @AfterEach
+    void tearDown() {
+        stream.close();
+    }
+
+    /**
+     * Émetteur de test : enregistre les événements, le premier envoi attend {@code release}.
+     */
+    private static final class RecordingEmitter extends SseEmitter {
+        final List<String> events = new CopyOnWriteArrayList<>();
+        final CountDownLatch firstSendStarted = new CountDownLatch(1);
+        final CountDownLatch release;
+        volatile boolean completed;
+
+        RecordingEmitter(boolean blockFirstSend) {
+            this.release = new CountDownLatch(blockFirstSend ? 1 : 0);
+        }
+
+        @Override
+        public void send(SseEventBuilder builder) throws IOException {
+            firstSendStarted.countDown();
+            try {
+                release.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            events.add(builder.build().stream().map(d -> d.getData().toString()).collect(Collectors.joining()));
+        }
+
+        @Override
+        public synchronized void complete() {
+            completed = true;
+        }
+
+        List<String> changes() {
+            return events.stream().filter(e -> e.contains("event:change")).toList();
+        }
+    }
+
+    private static void await(BooleanSupplier condition) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!condition.getAsBoolean()) {
+            assertThat(System.nanoTime()).as("délai dépassé").isLessThan(deadline);
+            Thread.sleep(10);
+        }
+    }
+
+    private void setStock(long id, int stock) {
+        Product current = service.getProductById(id).orElseThrow();
+        service.updateProduct(id, new Product(null, current.getNom(), null, current.getPrix(), stock,
+                current.getCategorie()));
+    }
+
+    @Test
+    void eventsArePushedInSequenceOrderWithTheirSequenceAsId() throws Exception {
+        RecordingEmitter emitter = new RecordingEmitter(false);
+        stream.subscribe(null, emitter);
+        await(() -> stream.subscriberCount() == 1);
+        Thread.sleep(50);
+
+        long depart = service.getPublishedSequence();
+        setStock(1, 7);
+        service.deleteProduct(2L);
+
+        await(() -> emitter.changes().size() == 2);
+        assertThat(emitter.changes().get(0)).contains("id:" + (depart + 1)).contains("\"quantiteStock\":7");
+        assertThat(emitter.changes().get(1)).contains("id:" + (depart + 2)).contains("\"type\":\"DELETE\"");
+    }
+
+    @Test
+    void slowSubscriberGetsOnlyTheLatestStatePerProductAndNeverBlocksWriters() throws Exception {
+        RecordingEmitter lent = new RecordingEmitter(true);
+        stream.subscribe(null, lent);
+        await(() -> stream.subscriberCount() == 1);
+        Thread.sleep(50);
+
+        setStock(1, 1);
+        assertThat(lent.firstSendStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        // L'envoi est bloqué : les écritures continuent sans attendre l'abonné
+        for (int stock = 2; stock <= 50; stock++) {
+            setStock(1, stock);
+            setStock(3, stock);
+        }
+        await(() -> registry.get("produits.stream.evenements").tag("issue", "fusionne").counter().count() > 0);
+        Thread.sleep(100);
+        lent.release.countDown();
+
+        await(() -> lent.changes().stream().anyMatch(e -> e.contains("\"id\":3") && e.contains("\"quantiteStock\":50")));
+        await(() -> lent.changes().stream().anyMatch(e -> e.contains("\"id\":1") && e.contains("\"quantiteStock\":50")));
+        assertThat(lent.changes().size()).isLessThan(10);
+        assertThat(lent.completed).isFalse();
+    }
+
+    @Test
+    void subscriberFallingBehindOnTooManyProductsIsDropped() throws Exception {
+        RecordingEmitter lent = new RecordingEmitter(true);
+        stream.subscribe(null, lent);
+        await(() -> stream.subscriberCount() == 1);
+        Thread.sleep(50);
+
+        setStock(1, 1);
+        assertThat(lent.firstSendStarted.await(10, TimeUnit.SECONDS)).isTrue();
+        for (int i = 0; i < 4; i++) {
+            service.createProduct(new Product(null, "P" + i, null, BigDecimal.ONE, 1, "Divers"));
+        }
+        await(() -> registry.get("produits.stream.abandons").counter().count() == 1);
+        lent.release.countDown();
+
+        await(() -> lent.completed);
+        assertThat(lent.events).anyMatch(e -> e.contains("event:resync"));
+        await(() -> stream.subscriberCount() == 0);
+    }
+
+    @Test
+    void reconnectionReplaysMissedChangesAndSubscriberLimitIsEnforced() throws Exception {
+        long depart = service.getPublishedSequence();
+        setStock(1, 11);
+        setStock(3, 33);
+
+        RecordingEmitter reprise = new RecordingEmitter(false);
+        assertThat(stream.subscribe(depart + 1, reprise)).isNotNull();
+        await(() -> reprise.changes().size() == 1);
+        assertThat(reprise.changes().get(0)).contains("id:" + (depart + 2)).contains("\"quantiteStock\":33");
+
+        RecordingEmitter perdu = new RecordingEmitter(false);
+        assertThat(stream.subscribe(0L, perdu)).isNotNull();
+        await(() -> perdu.events.stream().anyMatch(e -> e.contains("event:resync")));
+
+        assertThat(stream.subscribe(null, new RecordingEmitter(false))).isNull();
+    }
+
+    @Test
+    void subscriberWhoseSendExceedsTheDeadlineIsDroppedWithoutStallingOthers() throws Exception {
+        ProductChangeStream deadlines = new ProductChangeStream(service,
+                new ObjectMapper().findAndRegisterModules().writer(), registry, 3, 2, 1, 60_000, 60_000, 200);
+        try {
+            // Client qui ne lit plus : l'écriture ne rend pas la main, même interrompue
+            CountDownLatch unblock = new CountDownLatch(1);
+            CountDownLatch stuckSendStarted = new CountDownLatch(1);
+            List<Throwable> errors = new CopyOnWriteArrayList<>();
+            SseEmitter bloque = new SseEmitter() {
+                @Override
+                public void send(SseEventBuilder builder) {
+                    stuckSendStarted.countDown();
+                    boolean released = false;
+                    while (!released) {
+                        try {
+                            released = unblock.await(10, TimeUnit.SECONDS);
+                        } catch (InterruptedException e) {
+                            // Ignorée, comme une écriture réseau non interruptible
+                        }
+                    }
+                }
+
+                @Override
+                public synchronized void completeWithError(Throwable ex) {
+                    errors.add(ex);
+                }
+            };
+            deadlines.subscribe(null, bloque);
+            await(() -> deadlines.subscriberCount() == 1);
+            Thread.sleep(50);
+            setStock(1, 1);
+            assertThat(stuckSendStarted.await(10, TimeUnit.SECONDS)).isTrue();
+
+            // Un seul thread d'envoi, occupé par l'envoi bloqué : l'autre abonné est servi quand même
+            RecordingEmitter sain = new RecordingEmitter(false);
+            deadlines.subscribe(null, sain);
+            await(() -> registry.get("produits.stream.abandons").counter().count() == 1);
+            await(() -> deadlines.subscriberCount() == 1);
+            setStock(3, 3);
+            await(() -> sain.changes().stream().anyMatch(e -> e.contains("\"quantiteStock\":3")));
+
+            unblock.countDown();
+            await(() -> !errors.isEmpty());
+            assertThat(errors.get(0)).isInstanceOf(IOException.class);
+            assertThat(deadlines.subscriberCount()).isEqualTo(1);
+        } finally {
+            deadlines.close();
+        }
+    }
+}